@@ -2,15 +2,26 @@ package org.k11techlab.framework.ai.chatbot;
 
 import org.k11techlab.framework.ai.rag.RAGEnhancedAIClient;
 import org.k11techlab.framework.ai.nlp.NLTestGenerator;
+import org.k11techlab.framework.selenium.webuitestengine.configManager.ConfigurationManager;
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * RAG-Powered Test Automation Chatbot
  * Provides interactive conversational interface for test automation with memory and context awareness
+ *
+ * Sessions live in a bounded store: idle sessions expire after an idle TTL, the least recently used are
+ * evicted beyond a maximum count, and evicted sessions can be spilled to disk and restored on next use.
+ * Each session keeps its recent turns within a token budget; older turns are truncated to their first line.
+ * See {@link SessionConfiguration} for the chatbot.sessions.* and chatbot.history.* settings.
  */
 public class TestAutomationChatbot {
     
@@ -39,7 +50,54 @@ public class TestAutomationChatbot {
         }
     }
     
-    public static class ChatSession {
+    /**
+     * Session store and history window settings. Defaults come from config (chatbot.ai.properties).
+     */
+    public static class SessionConfiguration {
+        private int maxSessions = 500;
+        private long idleTtlMillis = 60L * 60 * 1000;
+        private String spillDir = null;
+        private long spillRetentionMillis = 24L * 60 * 60 * 1000;
+        private int historyTokenBudget = 2000;
+        private int minRecentMessages = 6;
+
+        public int getMaxSessions() { return maxSessions; }
+        public void setMaxSessions(int maxSessions) { this.maxSessions = maxSessions; }
+
+        public long getIdleTtlMillis() { return idleTtlMillis; }
+        public void setIdleTtlMillis(long idleTtlMillis) { this.idleTtlMillis = idleTtlMillis; }
+
+        /** Directory for evicted sessions; null disables disk spill */
+        public String getSpillDir() { return spillDir; }
+        public void setSpillDir(String spillDir) { this.spillDir = spillDir; }
+
+        public long getSpillRetentionMillis() { return spillRetentionMillis; }
+        public void setSpillRetentionMillis(long spillRetentionMillis) { this.spillRetentionMillis = spillRetentionMillis; }
+
+        /** Estimated tokens of history kept verbatim; 0 or less keeps everything */
+        public int getHistoryTokenBudget() { return historyTokenBudget; }
+        public void setHistoryTokenBudget(int historyTokenBudget) { this.historyTokenBudget = historyTokenBudget; }
+
+        public int getMinRecentMessages() { return minRecentMessages; }
+        public void setMinRecentMessages(int minRecentMessages) { this.minRecentMessages = minRecentMessages; }
+
+        public static SessionConfiguration fromSettings() {
+            SessionConfiguration config = new SessionConfiguration();
+            config.setMaxSessions(Integer.parseInt(ConfigurationManager.getString("chatbot.sessions.max", "500").trim()));
+            config.setIdleTtlMillis(Long.parseLong(ConfigurationManager.getString("chatbot.sessions.idleTtlMinutes", "60").trim()) * 60_000L);
+            String dir = ConfigurationManager.getString("chatbot.sessions.spillDir", "").trim();
+            config.setSpillDir(dir.isEmpty() ? null : dir);
+            config.setSpillRetentionMillis(Long.parseLong(ConfigurationManager.getString("chatbot.sessions.spillRetentionHours", "24").trim()) * 3_600_000L);
+            config.setHistoryTokenBudget(Integer.parseInt(ConfigurationManager.getString("chatbot.history.tokenBudget", "2000").trim()));
+            config.setMinRecentMessages(Integer.parseInt(ConfigurationManager.getString("chatbot.history.minRecentMessages", "6").trim()));
+            return config;
+        }
+    }
+    
+    public static class ChatSession implements Serializable {
+        private static final long serialVersionUID = 2L;
+        private static final int TRUNCATED_LINE_CHARS = 160;
+        
         private final String sessionId;
         private final LocalDateTime createdAt;
         private LocalDateTime lastActivity;
@@ -48,9 +106,23 @@ public class TestAutomationChatbot {
         private Map<String, Object> sessionContext;
         private String currentProject;
         private boolean isActive;
+        private final int historyTokenBudget;
+        private final int minRecentMessages;
+        private final Deque<String> truncatedLines = new ArrayDeque<>();
+        private int truncatedMessageCount;
         
         public ChatSession(String sessionId) {
+            this(sessionId, 2000, 6);
+        }
+        
+        /**
+         * @param historyTokenBudget estimated tokens of history kept verbatim; 0 or less keeps everything
+         * @param minRecentMessages messages always kept verbatim, even over budget
+         */
+        public ChatSession(String sessionId, int historyTokenBudget, int minRecentMessages) {
             this.sessionId = sessionId;
+            this.historyTokenBudget = historyTokenBudget;
+            this.minRecentMessages = Math.max(1, minRecentMessages);
             this.createdAt = LocalDateTime.now();
             this.lastActivity = LocalDateTime.now();
             this.mode = ChatbotMode.GENERAL_ASSISTANCE;
@@ -73,13 +145,61 @@ public class TestAutomationChatbot {
         public boolean isActive() { return isActive; }
         public void setActive(boolean active) { isActive = active; }
         
+        /**
+         * First line (at most 160 characters) of each turn that no longer fits the history budget,
+         * one per line; empty if none. This is a truncation, not a generated summary.
+         */
+        public String getTruncatedHistory() { return String.join("\n", truncatedLines); }
+        public int getTruncatedMessageCount() { return truncatedMessageCount; }
+        
         public void addMessage(ChatMessage message) {
             conversationHistory.add(message);
             setLastActivity(LocalDateTime.now());
+            compactHistory();
+        }
+        
+        public void clearHistory() {
+            conversationHistory.clear();
+            truncatedLines.clear();
+            truncatedMessageCount = 0;
+        }
+        
+        /**
+         * Truncate the oldest messages to their first line until the verbatim history fits the token budget.
+         * The truncated lines are bounded too: the oldest are dropped once they exceed a quarter of the budget.
+         */
+        private void compactHistory() {
+            if (historyTokenBudget <= 0) return;
+            int tokens = 0;
+            for (ChatMessage msg : conversationHistory) tokens += estimateTokens(msg.getContent());
+            while (tokens > historyTokenBudget && conversationHistory.size() > minRecentMessages) {
+                ChatMessage oldest = conversationHistory.remove(0);
+                tokens -= estimateTokens(oldest.getContent());
+                truncatedLines.addLast("- " + oldest.getSender() + ": " + firstLine(oldest.getContent()));
+                truncatedMessageCount++;
+            }
+            int truncatedTokens = 0;
+            for (String line : truncatedLines) truncatedTokens += estimateTokens(line);
+            while (truncatedTokens > historyTokenBudget / 4 && truncatedLines.size() > 1) {
+                truncatedTokens -= estimateTokens(truncatedLines.removeFirst());
+            }
+        }
+        
+        /** Rough token estimate: about four characters per token */
+        static int estimateTokens(String text) {
+            return text == null ? 0 : text.length() / 4 + 1;
+        }
+        
+        private static String firstLine(String content) {
+            String line = content == null ? "" : content.replaceAll("\\*\\*|`", "").trim();
+            int newline = line.indexOf('\n');
+            if (newline >= 0) line = line.substring(0, newline).trim();
+            return line.length() > TRUNCATED_LINE_CHARS ? line.substring(0, TRUNCATED_LINE_CHARS) + "…" : line;
         }
     }
     
-    public static class ChatMessage {
+    public static class ChatMessage implements Serializable {
+        private static final long serialVersionUID = 1L;
         private final String id;
         private final String content;
         private final MessageType type;
@@ -161,9 +281,17 @@ public class TestAutomationChatbot {
      * Initialize the Test Automation Chatbot
      */
     public TestAutomationChatbot(RAGEnhancedAIClient ragAI, NLTestGenerator testGenerator) {
+        this(ragAI, testGenerator, SessionConfiguration.fromSettings());
+    }
+    
+    /**
+     * Initialize the chatbot with explicit session store settings
+     */
+    public TestAutomationChatbot(RAGEnhancedAIClient ragAI, NLTestGenerator testGenerator,
+                                 SessionConfiguration sessionConfig) {
         this.ragAI = ragAI;
         this.testGenerator = testGenerator;
-        this.conversationManager = new ConversationManager();
+        this.conversationManager = new ConversationManager(sessionConfig);
         this.commandProcessor = new CommandProcessor(ragAI, testGenerator);
         this.formatter = new ResponseFormatter();
         
@@ -207,6 +335,30 @@ public class TestAutomationChatbot {
      * Process user message with additional context
      */
     public ChatResponse chat(String sessionId, String userMessage, Map<String, Object> context) {
+        return chat(sessionId, userMessage, context, null);
+    }
+
+    /**
+     * Process user message, streaming the reply to onToken while the model generates it.
+     * The fragments passed to onToken add up to the returned response's content.
+     */
+    public ChatResponse chatStreaming(String sessionId, String userMessage, Consumer<String> onToken) {
+        return chat(sessionId, userMessage, null, onToken);
+    }
+
+    private ChatResponse chat(String sessionId, String userMessage, Map<String, Object> context, Consumer<String> onToken) {
+        boolean[] streamed = {false};
+        Consumer<String> sink = onToken == null ? null : token -> {
+            streamed[0] = true;
+            onToken.accept(token);
+        };
+        ChatResponse response = respond(sessionId, userMessage, context, sink);
+        // Commands, test generation and errors are not streamed; deliver them whole
+        if (onToken != null && !streamed[0]) onToken.accept(response.getContent());
+        return response;
+    }
+
+    private ChatResponse respond(String sessionId, String userMessage, Map<String, Object> context, Consumer<String> onToken) {
         try {
             ChatSession session = conversationManager.getSession(sessionId);
             if (session == null) {
@@ -222,7 +374,7 @@ public class TestAutomationChatbot {
             session.addMessage(userMsg);
             
             // Process the message
-            ChatResponse response = processMessage(session, userMessage, context);
+            ChatResponse response = processMessage(session, userMessage, context, onToken);
             
             // Add bot response to history
             ChatMessage botMsg = new ChatMessage(response.getContent(), response.getType(), "Bot");
@@ -241,7 +393,8 @@ public class TestAutomationChatbot {
     /**
      * Process message and determine appropriate response
      */
-    private ChatResponse processMessage(ChatSession session, String userMessage, Map<String, Object> context) {
+    private ChatResponse processMessage(ChatSession session, String userMessage, Map<String, Object> context,
+                                        Consumer<String> onToken) {
         // Check for commands first
         if (userMessage.startsWith("/")) {
             return commandProcessor.processCommand(session, userMessage, context);
@@ -255,20 +408,20 @@ public class TestAutomationChatbot {
                 return handleTestGeneration(session, userMessage, context);
             
             case DEBUG_HELP:
-                return handleDebuggingHelp(session, userMessage, context);
+                return handleDebuggingHelp(session, userMessage, context, onToken);
             
             case CODE_REVIEW:
-                return handleCodeReview(session, userMessage, context);
+                return handleCodeReview(session, userMessage, context, onToken);
             
             case FRAMEWORK_HELP:
-                return handleFrameworkHelp(session, userMessage, context);
+                return handleFrameworkHelp(session, userMessage, context, onToken);
             
             case BEST_PRACTICES:
-                return handleBestPractices(session, userMessage, context);
+                return handleBestPractices(session, userMessage, context, onToken);
             
             case GENERAL_QUESTION:
             default:
-                return handleGeneralQuestion(session, userMessage, context);
+                return handleGeneralQuestion(session, userMessage, context, onToken);
         }
     }
     
@@ -339,16 +492,18 @@ public class TestAutomationChatbot {
     /**
      * Handle debugging help requests
      */
-    private ChatResponse handleDebuggingHelp(ChatSession session, String userMessage, Map<String, Object> context) {
+    private ChatResponse handleDebuggingHelp(ChatSession session, String userMessage, Map<String, Object> context,
+                                      Consumer<String> onToken) {
         String contextualPrompt = createDebuggingPrompt(userMessage, session);
-        String aiResponse = ragAI.generateResponse(contextualPrompt);
+        String header = "🔍 **Debugging Analysis:**\n\n";
+        String footer = "\n\n💡 **Quick Debugging Tips:**\n" +
+                "- Check browser console for JavaScript errors\n" +
+                "- Verify element locators with AI healing\n" +
+                "- Add explicit waits for dynamic elements\n" +
+                "- Capture screenshots on failure points";
+        String aiResponse = generate(contextualPrompt, header, footer, onToken);
         
-        String formattedResponse = "🔍 **Debugging Analysis:**\n\n" + aiResponse + 
-                                 "\n\n💡 **Quick Debugging Tips:**\n" +
-                                 "- Check browser console for JavaScript errors\n" +
-                                 "- Verify element locators with AI healing\n" +
-                                 "- Add explicit waits for dynamic elements\n" +
-                                 "- Capture screenshots on failure points";
+        String formattedResponse = header + aiResponse + footer;
         
         ChatResponse response = new ChatResponse(formattedResponse, ChatMessage.MessageType.BOT_RESPONSE);
         response.getSuggestions().add("Show me the error logs");
@@ -361,16 +516,18 @@ public class TestAutomationChatbot {
     /**
      * Handle code review requests
      */
-    private ChatResponse handleCodeReview(ChatSession session, String userMessage, Map<String, Object> context) {
+    private ChatResponse handleCodeReview(ChatSession session, String userMessage, Map<String, Object> context,
+                                      Consumer<String> onToken) {
         String contextualPrompt = createCodeReviewPrompt(userMessage, session);
-        String aiResponse = ragAI.generateResponse(contextualPrompt);
+        String header = "📋 **Code Review Results:**\n\n";
+        String footer = "\n\n🎯 **Focus Areas:**\n" +
+                "- Test maintainability and readability\n" +
+                "- Proper use of AI element healing\n" +
+                "- Error handling and assertions\n" +
+                "- Performance and reliability";
+        String aiResponse = generate(contextualPrompt, header, footer, onToken);
         
-        String formattedResponse = "📋 **Code Review Results:**\n\n" + aiResponse +
-                                 "\n\n🎯 **Focus Areas:**\n" +
-                                 "- Test maintainability and readability\n" +
-                                 "- Proper use of AI element healing\n" +
-                                 "- Error handling and assertions\n" +
-                                 "- Performance and reliability";
+        String formattedResponse = header + aiResponse + footer;
         
         return new ChatResponse(formattedResponse, ChatMessage.MessageType.BOT_RESPONSE);
     }
@@ -378,17 +535,19 @@ public class TestAutomationChatbot {
     /**
      * Handle framework help requests
      */
-    private ChatResponse handleFrameworkHelp(ChatSession session, String userMessage, Map<String, Object> context) {
+    private ChatResponse handleFrameworkHelp(ChatSession session, String userMessage, Map<String, Object> context,
+                                      Consumer<String> onToken) {
         String contextualPrompt = createFrameworkPrompt(userMessage, session);
-        String aiResponse = ragAI.generateResponse(contextualPrompt);
+        String header = "⚙️ **Framework Guidance:**\n\n";
+        String footer = "\n\n📚 **Available Features:**\n" +
+                "- AI-Enhanced Element Healing\n" +
+                "- Multi-Provider AI Support (Ollama, LM Studio)\n" +
+                "- RAG-Enhanced Knowledge Base\n" +
+                "- Natural Language Test Generation\n" +
+                "- Comprehensive Reporting";
+        String aiResponse = generate(contextualPrompt, header, footer, onToken);
         
-        String formattedResponse = "⚙️ **Framework Guidance:**\n\n" + aiResponse +
-                                 "\n\n📚 **Available Features:**\n" +
-                                 "- AI-Enhanced Element Healing\n" +
-                                 "- Multi-Provider AI Support (Ollama, LM Studio)\n" +
-                                 "- RAG-Enhanced Knowledge Base\n" +
-                                 "- Natural Language Test Generation\n" +
-                                 "- Comprehensive Reporting";
+        String formattedResponse = header + aiResponse + footer;
         
         ChatResponse response = new ChatResponse(formattedResponse, ChatMessage.MessageType.BOT_RESPONSE);
         response.getSuggestions().add("Show me framework setup guide");
@@ -401,16 +560,18 @@ public class TestAutomationChatbot {
     /**
      * Handle best practices requests
      */
-    private ChatResponse handleBestPractices(ChatSession session, String userMessage, Map<String, Object> context) {
+    private ChatResponse handleBestPractices(ChatSession session, String userMessage, Map<String, Object> context,
+                                      Consumer<String> onToken) {
         String contextualPrompt = createBestPracticesPrompt(userMessage, session);
-        String aiResponse = ragAI.generateResponse(contextualPrompt);
+        String header = "🌟 **Best Practices Guide:**\n\n";
+        String footer = "\n\n🏆 **Top Recommendations:**\n" +
+                "- Use AI element descriptions instead of brittle XPaths\n" +
+                "- Implement proper waiting strategies\n" +
+                "- Structure tests with Page Object Model\n" +
+                "- Include meaningful assertions and logging";
+        String aiResponse = generate(contextualPrompt, header, footer, onToken);
         
-        String formattedResponse = "🌟 **Best Practices Guide:**\n\n" + aiResponse +
-                                 "\n\n🏆 **Top Recommendations:**\n" +
-                                 "- Use AI element descriptions instead of brittle XPaths\n" +
-                                 "- Implement proper waiting strategies\n" +
-                                 "- Structure tests with Page Object Model\n" +
-                                 "- Include meaningful assertions and logging";
+        String formattedResponse = header + aiResponse + footer;
         
         return new ChatResponse(formattedResponse, ChatMessage.MessageType.RECOMMENDATION);
     }
@@ -418,9 +579,10 @@ public class TestAutomationChatbot {
     /**
      * Handle general questions
      */
-    private ChatResponse handleGeneralQuestion(ChatSession session, String userMessage, Map<String, Object> context) {
+    private ChatResponse handleGeneralQuestion(ChatSession session, String userMessage, Map<String, Object> context,
+                                      Consumer<String> onToken) {
         String contextualPrompt = createGeneralPrompt(userMessage, session);
-        String aiResponse = ragAI.generateResponse(contextualPrompt);
+        String aiResponse = generate(contextualPrompt, "💬 ", "", onToken);
         
         ChatResponse response = new ChatResponse("💬 " + aiResponse, ChatMessage.MessageType.BOT_RESPONSE);
         response.getSuggestions().add("Generate a test for me");
@@ -430,6 +592,20 @@ public class TestAutomationChatbot {
         return response;
     }
     
+    /**
+     * Ask the RAG client; with onToken set, stream header, model tokens and footer in order.
+     * Returns the model's answer only.
+     */
+    private String generate(String prompt, String header, String footer, Consumer<String> onToken) {
+        if (onToken == null) {
+            return ragAI.generateResponse(prompt);
+        }
+        onToken.accept(header);
+        String answer = ragAI.generateResponseStreaming(prompt, onToken);
+        if (!footer.isEmpty()) onToken.accept(footer);
+        return answer;
+    }
+
     /**
      * Get chat session information
      */
@@ -530,15 +706,21 @@ public class TestAutomationChatbot {
         return null;
     }
     
+    /**
+     * Truncated earlier turns (if any) followed by the five most recent user messages
+     */
     private List<String> extractConversationContext(ChatSession session) {
-        return session.getConversationHistory().stream()
+        List<String> context = new ArrayList<>();
+        String earlier = session.getTruncatedHistory();
+        if (!earlier.isEmpty()) {
+            context.add("Earlier in this conversation (first line of each message):\n" + earlier);
+        }
+        List<String> userMessages = session.getConversationHistory().stream()
                 .filter(msg -> msg.getType() == ChatMessage.MessageType.USER_MESSAGE)
                 .map(ChatMessage::getContent)
-                .collect(ArrayList::new, 
-                        (list, content) -> {
-                            if (list.size() < 5) list.add(content);
-                        }, 
-                        ArrayList::addAll);
+                .collect(java.util.stream.Collectors.toList());
+        context.addAll(userMessages.subList(Math.max(0, userMessages.size() - 5), userMessages.size()));
+        return context;
     }
     
     private String createDebuggingPrompt(String userMessage, ChatSession session) {
@@ -567,32 +749,128 @@ public class TestAutomationChatbot {
     }
     
     /**
-     * Conversation Manager - handles session lifecycle
+     * Conversation Manager - handles session lifecycle.
+     * Bounded LRU store with idle expiry; evicted sessions are spilled to disk when a spill directory is set.
      */
     private static class ConversationManager {
-        private final Map<String, ChatSession> activeSessions = new ConcurrentHashMap<>();
+        private static final long SPILL_SWEEP_INTERVAL_MILLIS = 60_000;
+        
+        private final SessionConfiguration config;
+        // Access order: iteration starts at the least recently used session
+        private final LinkedHashMap<String, ChatSession> activeSessions = new LinkedHashMap<>(16, 0.75f, true);
+        private long lastSpillSweep;
+        
+        ConversationManager(SessionConfiguration config) {
+            this.config = config;
+        }
         
-        public ChatSession createSession(String sessionId) {
-            ChatSession session = new ChatSession(sessionId);
+        public synchronized ChatSession createSession(String sessionId) {
+            evictIdle();
+            ChatSession session = new ChatSession(sessionId, config.getHistoryTokenBudget(), config.getMinRecentMessages());
             activeSessions.put(sessionId, session);
+            Iterator<ChatSession> lru = activeSessions.values().iterator();
+            while (activeSessions.size() > config.getMaxSessions() && lru.hasNext()) {
+                ChatSession eldest = lru.next();
+                lru.remove();
+                spill(eldest);
+            }
             return session;
         }
         
-        public ChatSession getSession(String sessionId) {
-            return activeSessions.get(sessionId);
+        public synchronized ChatSession getSession(String sessionId) {
+            evictIdle();
+            ChatSession session = activeSessions.get(sessionId);
+            return session != null ? session : restore(sessionId);
         }
         
-        public void endSession(String sessionId) {
-            ChatSession session = activeSessions.get(sessionId);
+        public synchronized void endSession(String sessionId) {
+            ChatSession session = activeSessions.remove(sessionId);
             if (session != null) {
                 session.setActive(false);
-                activeSessions.remove(sessionId);
+            }
+            Path file = spillFile(sessionId);
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    Log.error("Could not delete spilled session " + sessionId + ": " + e.getMessage());
+                }
             }
         }
         
-        public Map<String, ChatSession> getActiveSessions() {
+        public synchronized Map<String, ChatSession> getActiveSessions() {
             return new HashMap<>(activeSessions);
         }
+        
+        private void evictIdle() {
+            LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(config.getIdleTtlMillis()));
+            for (Iterator<ChatSession> it = activeSessions.values().iterator(); it.hasNext(); ) {
+                ChatSession session = it.next();
+                if (session.getLastActivity().isBefore(cutoff)) {
+                    it.remove();
+                    spill(session);
+                }
+            }
+            sweepSpillDir();
+        }
+        
+        private void spill(ChatSession session) {
+            Path file = spillFile(session.getSessionId());
+            if (file == null) {
+                Log.info("🗑️ Chat session evicted: " + session.getSessionId());
+                return;
+            }
+            try {
+                Files.createDirectories(file.getParent());
+                try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                    out.writeObject(session);
+                }
+                Log.info("💾 Chat session spilled to disk: " + session.getSessionId());
+            } catch (IOException e) {
+                Log.error("Could not spill chat session " + session.getSessionId() + ": " + e.getMessage());
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        
+        private ChatSession restore(String sessionId) {
+            Path file = spillFile(sessionId);
+            if (file == null || !Files.exists(file)) return null;
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                ChatSession session = (ChatSession) in.readObject();
+                session.setLastActivity(LocalDateTime.now());
+                activeSessions.put(sessionId, session);
+                Files.deleteIfExists(file);
+                Log.info("📂 Chat session restored from disk: " + sessionId);
+                return session;
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                Log.error("Could not restore chat session " + sessionId + ": " + e.getMessage());
+                return null;
+            }
+        }
+        
+        /**
+         * Delete spilled sessions older than the retention period, at most once a minute
+         */
+        private void sweepSpillDir() {
+            if (config.getSpillDir() == null || System.currentTimeMillis() - lastSpillSweep < SPILL_SWEEP_INTERVAL_MILLIS) return;
+            lastSpillSweep = System.currentTimeMillis();
+            File[] files = new File(config.getSpillDir()).listFiles((dir, name) -> name.endsWith(".session"));
+            if (files == null) return;
+            long cutoff = System.currentTimeMillis() - config.getSpillRetentionMillis();
+            for (File f : files) {
+                if (f.lastModified() < cutoff && !f.delete()) {
+                    Log.error("Could not delete expired spilled session " + f.getName());
+                }
+            }
+        }
+        
+        private Path spillFile(String sessionId) {
+            if (config.getSpillDir() == null || !sessionId.matches("[A-Za-z0-9_-]+")) return null;
+            return Paths.get(config.getSpillDir(), sessionId + ".session");
+        }
     }
     
     /**
@@ -652,6 +930,10 @@ public class TestAutomationChatbot {
         
         private ChatResponse handleHistoryCommand(ChatSession session) {
             StringBuilder history = new StringBuilder("📜 **Conversation History:**\n\n");
+            if (session.getTruncatedMessageCount() > 0) {
+                history.append("*First lines of ").append(session.getTruncatedMessageCount())
+                        .append(" earlier messages:*\n").append(session.getTruncatedHistory()).append("\n\n");
+            }
             session.getConversationHistory().forEach(msg -> 
                 history.append("**").append(msg.getSender()).append(":** ").append(msg.getContent()).append("\n\n"));
             
@@ -659,7 +941,7 @@ public class TestAutomationChatbot {
         }
         
         private ChatResponse handleClearCommand(ChatSession session) {
-            session.getConversationHistory().clear();
+            session.clearHistory();
             return new ChatResponse("🧹 Conversation history cleared!", ChatMessage.MessageType.SYSTEM_MESSAGE);
         }
         
@@ -162,12 +162,14 @@ public class AITestAssistantCLI {
     }
     
     private void processChatMessage(String message) {
-        System.out.println("🤖 Processing your request...\n");
-        
-        TestAutomationChatbot.ChatResponse response = chatbot.chat(currentSessionId, message);
-        
         System.out.println("🤖 AI Assistant:");
-        System.out.println(formatResponseForCLI(response.getContent()));
+        
+        // Print the reply as it is generated; markdown markers are dropped per fragment
+        TestAutomationChatbot.ChatResponse response = chatbot.chatStreaming(currentSessionId, message, token -> {
+            System.out.print(token.replace("**", "").replace("`", ""));
+            System.out.flush();
+        });
+        System.out.println();
         
         if (!response.getSuggestions().isEmpty()) {
             System.out.println("\n💡 Suggestions:");
@@ -354,7 +356,7 @@ public class AITestAssistantCLI {
     }
     
     private void handleClearCommand() {
-        chatbot.getSession(currentSessionId).getConversationHistory().clear();
+        chatbot.getSession(currentSessionId).clearHistory();
         System.out.println("🧹 Conversation history cleared!\n");
     }
     
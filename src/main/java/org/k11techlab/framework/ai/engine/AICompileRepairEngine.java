@@ -5,6 +5,7 @@ import org.k11techlab.framework.ai.openai.OpenAIClient;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Compile-repair loop helper:
@@ -47,7 +48,8 @@ public class AICompileRepairEngine {
                 "- MUST include all necessary imports\n" +
                 "- MUST keep package: " + packageName + "\n" +
                 "- MUST keep public class name: " + className + "\n" +
-                "- Use env vars WEBURL, USERNAME, PASSWORD\n" +
+                "- Read WEBURL, USERNAME, PASSWORD from an ITestContext parameter of the @Test/@BeforeClass method:\n" +
+                "  ctx.getCurrentXmlTest().getParameter(name), falling back to System.getenv(name) when null\n" +
                 "- Output ONLY valid Java code (no markdown, no explanations)\n\n" +
 
                 "Scenario:\n" + scenario + "\n\n" +
@@ -68,6 +70,24 @@ public class AICompileRepairEngine {
         return fixed;
     }
 
+    /**
+     * Same as above, fed with structured diagnostics from {@link InMemoryTestEngine}:
+     * each error carries its line, column and the offending source line.
+     */
+    public String fixJavaCompilationErrors(
+            String brokenCode,
+            List<InMemoryTestEngine.CompilerDiagnostic> errors,
+            String scenario,
+            String packageName,
+            String className
+    ) {
+        StringBuilder compilerOutput = new StringBuilder();
+        for (InMemoryTestEngine.CompilerDiagnostic d : errors) {
+            compilerOutput.append(d).append('\n');
+        }
+        return fixJavaCompilationErrors(brokenCode, compilerOutput.toString(), scenario, packageName, className);
+    }
+
     /**
      * Write fixed code to file. Returns the written path.
      */
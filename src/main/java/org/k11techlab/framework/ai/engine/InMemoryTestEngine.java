@@ -0,0 +1,370 @@
+package org.k11techlab.framework.ai.engine;
+
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process compile-and-run engine for generated tests:
+ * - compiles Java sources in memory with javax.tools.JavaCompiler against the running classpath
+ * - returns structured diagnostics that can be handed to {@link AICompileRepairEngine}
+ * - loads the classes in a throwaway classloader and runs them with the programmatic TestNG API
+ *
+ * Replaces forking "mvn -Dtest=... test" per attempt, which pays JVM startup and dependency
+ * resolution every time. Needs a JDK (ToolProvider.getSystemJavaCompiler() must not be null).
+ */
+public class InMemoryTestEngine {
+
+    private static final Pattern PACKAGE = Pattern.compile("(?m)^\\s*package\\s+([\\w.]+)\\s*;");
+    private static final Pattern PUBLIC_TYPE = Pattern.compile("(?m)^\\s*public\\s+(?:final\\s+|abstract\\s+)*(?:class|interface|enum|record)\\s+(\\w+)");
+
+    /**
+     * One compiler diagnostic
+     */
+    public static class CompilerDiagnostic {
+        public final String kind;
+        public final String className;
+        public final long line;
+        public final long column;
+        public final String message;
+        public final String sourceLine;
+
+        CompilerDiagnostic(String kind, String className, long line, long column, String message, String sourceLine) {
+            this.kind = kind;
+            this.className = className;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+            this.sourceLine = sourceLine;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(kind).append(' ').append(className).append(':').append(line).append(':').append(column)
+                .append(": ").append(message);
+            if (sourceLine != null) {
+                sb.append("\n    ").append(sourceLine.replace("\t", " "));
+                if (column > 0) sb.append("\n    ").append(" ".repeat((int) Math.max(0, column - 1))).append('^');
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Outcome of compiling a set of sources
+     */
+    public static class CompileResult {
+        private final boolean success;
+        private final List<CompilerDiagnostic> diagnostics;
+        private final Map<String, byte[]> classes;
+        private final long durationMillis;
+
+        CompileResult(boolean success, List<CompilerDiagnostic> diagnostics, Map<String, byte[]> classes, long durationMillis) {
+            this.success = success;
+            this.diagnostics = diagnostics;
+            this.classes = classes;
+            this.durationMillis = durationMillis;
+        }
+
+        public boolean isSuccess() { return success; }
+        public List<CompilerDiagnostic> getDiagnostics() { return diagnostics; }
+        public Map<String, byte[]> getClasses() { return classes; }
+        public long getDurationMillis() { return durationMillis; }
+
+        public List<CompilerDiagnostic> getErrors() {
+            List<CompilerDiagnostic> errors = new ArrayList<>();
+            for (CompilerDiagnostic d : diagnostics) if ("ERROR".equals(d.kind)) errors.add(d);
+            return errors;
+        }
+
+        /** Diagnostics as compiler-style text, suitable for an AI repair prompt */
+        public String formatDiagnostics() {
+            StringBuilder sb = new StringBuilder();
+            for (CompilerDiagnostic d : diagnostics) sb.append(d).append('\n');
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Outcome of running a TestNG class
+     */
+    public static class RunResult {
+        private final int passed;
+        private final int failed;
+        private final int skipped;
+        private final List<String> failures;
+        private final long durationMillis;
+
+        RunResult(int passed, int failed, int skipped, List<String> failures, long durationMillis) {
+            this.passed = passed;
+            this.failed = failed;
+            this.skipped = skipped;
+            this.failures = failures;
+            this.durationMillis = durationMillis;
+        }
+
+        public boolean isSuccess() { return failed == 0 && passed > 0; }
+        public int getPassed() { return passed; }
+        public int getFailed() { return failed; }
+        public int getSkipped() { return skipped; }
+        public List<String> getFailures() { return failures; }
+        public long getDurationMillis() { return durationMillis; }
+
+        public String summary() {
+            StringBuilder sb = new StringBuilder(String.format("Tests run: %d, Passed: %d, Failures: %d, Skipped: %d (%d ms)\n",
+                passed + failed + skipped, passed, failed, skipped, durationMillis));
+            for (String f : failures) sb.append(f).append('\n');
+            return sb.toString();
+        }
+    }
+
+    private final JavaCompiler compiler;
+    private final String classpath;
+    private final String reportDirectory;
+
+    /**
+     * Engine without TestNG report files
+     */
+    public InMemoryTestEngine() {
+        this(null);
+    }
+
+    /**
+     * @param reportDirectory where TestNG writes its default reports (e.g. "test-output"); null for none
+     */
+    public InMemoryTestEngine(String reportDirectory) {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler available; run on a JDK instead of a JRE");
+        }
+        this.classpath = runtimeClasspath();
+        this.reportDirectory = reportDirectory;
+    }
+
+    /**
+     * True when the running JVM can compile in process
+     */
+    public static boolean isAvailable() {
+        return ToolProvider.getSystemJavaCompiler() != null;
+    }
+
+    /**
+     * Compile sources in memory. Keys of the map are only used for reporting; class names are
+     * derived from each source's package and public type.
+     */
+    public CompileResult compile(Collection<String> sources) {
+        long start = System.currentTimeMillis();
+        List<JavaFileObject> units = new ArrayList<>();
+        Map<String, String> sourceByClass = new HashMap<>();
+        for (String source : sources) {
+            String className = className(source);
+            sourceByClass.put(className, source);
+            units.add(new SourceObject(className, source));
+        }
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> output = new LinkedHashMap<>();
+        StandardJavaFileManager standard = compiler.getStandardFileManager(collector, null, StandardCharsets.UTF_8);
+        JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        output.put(name, bytes);
+                        return bytes;
+                    }
+                };
+            }
+        };
+        List<String> options = Arrays.asList("-classpath", classpath, "-proc:none", "-encoding", "UTF-8", "-g");
+        boolean ok;
+        try {
+            ok = compiler.getTask(null, fileManager, collector, options, null, units).call();
+        } finally {
+            try {
+                fileManager.close();
+            } catch (Exception ignored) {}
+        }
+        List<CompilerDiagnostic> diagnostics = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : collector.getDiagnostics()) {
+            String cls = d.getSource() instanceof SourceObject ? ((SourceObject) d.getSource()).className : "";
+            String sourceLine = null;
+            String src = sourceByClass.get(cls);
+            if (src != null && d.getLineNumber() > 0) {
+                String[] lines = src.split("\n", -1);
+                if (d.getLineNumber() <= lines.length) sourceLine = lines[(int) d.getLineNumber() - 1];
+            }
+            diagnostics.add(new CompilerDiagnostic(d.getKind().name(), cls, d.getLineNumber(), d.getColumnNumber(),
+                d.getMessage(Locale.ROOT), sourceLine));
+        }
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        output.forEach((name, bytes) -> classes.put(name, bytes.toByteArray()));
+        return new CompileResult(ok, diagnostics, classes, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Load the compiled classes in a throwaway classloader and run testClassName with TestNG
+     */
+    public RunResult run(CompileResult compiled, String testClassName) throws ClassNotFoundException {
+        return run(compiled, testClassName, Collections.emptyMap());
+    }
+
+    /**
+     * Same as above, with suite parameters for this run only. Tests read them with
+     * ITestContext.getCurrentXmlTest().getParameter(name), so concurrent runs never share them.
+     */
+    public RunResult run(CompileResult compiled, String testClassName, Map<String, String> parameters)
+            throws ClassNotFoundException {
+        if (!compiled.isSuccess()) throw new IllegalArgumentException("Sources did not compile");
+        long start = System.currentTimeMillis();
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        MemoryClassLoader loader = new MemoryClassLoader(compiled.getClasses(), previous);
+        TestListenerAdapter results = new TestListenerAdapter();
+        try {
+            thread.setContextClassLoader(loader);
+            Class<?> testClass = loader.loadClass(testClassName);
+            XmlSuite suite = new XmlSuite();
+            suite.setName("InMemory");
+            suite.setParameters(new HashMap<>(parameters));
+            XmlTest test = new XmlTest(suite);
+            test.setName(testClass.getSimpleName());
+            test.setXmlClasses(new ArrayList<>(Collections.singletonList(new XmlClass(testClass))));
+            TestNG testng = new TestNG(false);
+            testng.setXmlSuites(Collections.singletonList(suite));
+            testng.addListener(results);
+            if (reportDirectory != null) {
+                testng.setUseDefaultListeners(true);
+                testng.setOutputDirectory(reportDirectory);
+            } else {
+                testng.setUseDefaultListeners(false);
+            }
+            testng.setVerbose(0);
+            testng.run();
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+        List<String> failures = new ArrayList<>();
+        for (ITestResult r : results.getFailedTests()) {
+            failures.add("FAILED " + r.getTestClass().getName() + "." + r.getMethod().getMethodName() + ": " + describe(r.getThrowable()));
+        }
+        for (ITestContext ctx : results.getTestContexts()) {
+            for (ITestResult r : ctx.getFailedConfigurations().getAllResults()) {
+                failures.add("CONFIGURATION FAILED " + r.getMethod().getMethodName() + ": " + describe(r.getThrowable()));
+            }
+        }
+        return new RunResult(results.getPassedTests().size(), results.getFailedTests().size(),
+            results.getSkippedTests().size(), failures, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Fully qualified name of the public type declared in a source file
+     */
+    public static String className(String source) {
+        Matcher pkg = PACKAGE.matcher(source);
+        Matcher type = PUBLIC_TYPE.matcher(source);
+        String simple = type.find() ? type.group(1) : "Generated";
+        return pkg.find() ? pkg.group(1) + "." + simple : simple;
+    }
+
+    public static String readSource(Path file) throws java.io.IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private static String describe(Throwable t) {
+        if (t == null) return "";
+        StringWriter sw = new StringWriter();
+        t.printStackTrace(new PrintWriter(sw));
+        String[] lines = sw.toString().split("\n");
+        return String.join("\n", Arrays.copyOf(lines, Math.min(lines.length, 12)));
+    }
+
+    /**
+     * java.class.path plus URLs of the context classloader chain, which differ from java.class.path
+     * when running under exec:java, Surefire or an IDE launcher.
+     */
+    private static String runtimeClasspath() {
+        LinkedHashSet<String> entries = new LinkedHashSet<>(Arrays.asList(
+            System.getProperty("java.class.path", "").split(File.pathSeparator)));
+        for (ClassLoader cl = Thread.currentThread().getContextClassLoader(); cl != null; cl = cl.getParent()) {
+            if (cl instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) cl).getURLs()) {
+                    try {
+                        entries.add(new File(url.toURI()).getPath());
+                    } catch (Exception ignored) {}
+                }
+            }
+        }
+        entries.remove("");
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static class SourceObject extends SimpleJavaFileObject {
+        final String className;
+        final String source;
+
+        SourceObject(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.className = className;
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    /**
+     * Child-first for the generated classes, so a stale copy on the application classpath
+     * (e.g. in target/test-classes) never shadows the code just compiled.
+     */
+    private static class MemoryClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        MemoryClassLoader(Map<String, byte[]> classes, ClassLoader parent) {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null && classes.containsKey(name)) c = findClass(name);
+                if (c == null) return super.loadClass(name, resolve);
+                if (resolve) resolveClass(c);
+                return c;
+            }
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null) throw new ClassNotFoundException(name);
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -33,13 +33,20 @@ public class AIElementHealer {
     private final LLMInterface aiProvider;
     private final WebDriver driver;
     private final WebDriverWait wait;
-    private final List<LocatorStrategy> healingHistory;
+    private final HealedLocatorStore healedLocators;
     
     public AIElementHealer(LLMInterface aiProvider, WebDriver driver) {
+        this(aiProvider, driver, HealedLocatorStore.getDefault());
+    }
+    
+    /**
+     * @param healedLocators persistent memory of working locators, shared across healers and runs
+     */
+    public AIElementHealer(LLMInterface aiProvider, WebDriver driver, HealedLocatorStore healedLocators) {
         this.aiProvider = aiProvider;
         this.driver = driver;
         this.wait = new WebDriverWait(driver, Duration.ofSeconds(10));
-        this.healingHistory = new ArrayList<>();
+        this.healedLocators = healedLocators;
     }
     
     /**
@@ -57,24 +64,26 @@ public class AIElementHealer {
             new WebDriverWait(driver, timeout) : wait;
         
         Log.info("🔍 AI Element Search: " + elementDescription);
+        String pageUrl = currentUrl();
+        
+        // Step 0: Try locators that worked before for this element on this kind of page
+        WebElement element = tryRememberedLocators(pageUrl, elementDescription);
+        if (element != null) return element;
         
         // Step 1: Try standard locator strategies
         List<By> standardLocators = generateStandardLocators(elementDescription);
-        WebElement element = tryLocators(standardLocators, customWait, "Standard");
+        element = tryLocators(standardLocators, customWait, "Standard", pageUrl, elementDescription);
         if (element != null) return element;
         
         // Step 2: Try AI-generated locators
         if (aiProvider != null) {
             List<By> aiLocators = generateAILocators(elementDescription);
-            element = tryLocators(aiLocators, customWait, "AI-Generated");
-            if (element != null) {
-                recordSuccessfulStrategy(elementDescription, element);
-                return element;
-            }
+            element = tryLocators(aiLocators, customWait, "AI-Generated", pageUrl, elementDescription);
+            if (element != null) return element;
         }
         
         // Step 3: Try advanced healing strategies
-        element = tryAdvancedHealing(elementDescription, customWait);
+        element = tryAdvancedHealing(elementDescription, customWait, pageUrl);
         if (element != null) return element;
         
         throw new NoSuchElementException("AI healing failed for: " + elementDescription);
@@ -226,7 +235,7 @@ public class AIElementHealer {
     /**
      * Try advanced healing strategies
      */
-    private WebElement tryAdvancedHealing(String description, WebDriverWait customWait) {
+    private WebElement tryAdvancedHealing(String description, WebDriverWait customWait, String pageUrl) {
         Log.info("🛠️ Attempting advanced AI healing...");
         
         if (aiProvider == null) return null;
@@ -234,7 +243,6 @@ public class AIElementHealer {
         try {
             // Get page context for better healing
             String pageTitle = driver.getTitle();
-            String pageUrl = driver.getCurrentUrl();
             
             String healingPrompt = String.format(
                 "I need to find '%s' on a webpage titled '%s' at URL '%s'. " +
@@ -248,7 +256,7 @@ public class AIElementHealer {
             Log.info("🤖 AI Healing Response: " + healingResponse);
             
             List<By> healingLocators = parseAILocators(healingResponse);
-            return tryLocators(healingLocators, customWait, "AI-Healing");
+            return tryLocators(healingLocators, customWait, "AI-Healing", pageUrl, description);
             
         } catch (Exception e) {
             Log.error("Advanced healing failed: " + e.getMessage());
@@ -257,14 +265,40 @@ public class AIElementHealer {
     }
     
     /**
-     * Try a list of locators and return first successful element
+     * Try locators remembered in the healed-locator store; ones that no longer match are demoted.
+     * Each one is probed without waiting, so stale entries cost a round trip instead of a full timeout;
+     * the strategies after this keep the full wait.
+     */
+    private WebElement tryRememberedLocators(String pageUrl, String description) {
+        for (By locator : healedLocators.candidates(pageUrl, description)) {
+            try {
+                List<WebElement> found = driver.findElements(locator);
+                if (!found.isEmpty()) {
+                    Log.info("✅ Remembered locator success: " + locator);
+                    healedLocators.recordSuccess(pageUrl, description, locator);
+                    return found.get(0);
+                }
+            } catch (Exception e) {
+                // invalid selector or browser error: treat like a miss
+            }
+            Log.info("❌ Remembered locator failed: " + locator);
+            healedLocators.recordFailure(pageUrl, description, locator);
+        }
+        return null;
+    }
+    
+    /**
+     * Try a list of locators and return first successful element.
+     * The successful locator is remembered so later lookups try it first.
      */
-    private WebElement tryLocators(List<By> locators, WebDriverWait customWait, String strategyType) {
+    private WebElement tryLocators(List<By> locators, WebDriverWait customWait, String strategyType,
+                                   String pageUrl, String description) {
         for (By locator : locators) {
             try {
                 WebElement element = customWait.until(ExpectedConditions.presenceOfElementLocated(locator));
                 Log.info("✅ " + strategyType + " locator success: " + locator);
                 System.out.println("✅ Found element using " + strategyType + ": " + locator);
+                recordSuccessfulStrategy(pageUrl, description, locator);
                 return element;
             } catch (Exception e) {
                 Log.info("❌ " + strategyType + " locator failed: " + locator);
@@ -276,23 +310,23 @@ public class AIElementHealer {
     /**
      * Record successful strategy for learning
      */
-    private void recordSuccessfulStrategy(String description, WebElement element) {
+    private void recordSuccessfulStrategy(String pageUrl, String description, By locator) {
         try {
-            LocatorStrategy strategy = new LocatorStrategy(
-                description,
-                element.getTagName(),
-                element.getAttribute("id"),
-                element.getAttribute("class"),
-                element.getText()
-            );
-            healingHistory.add(strategy);
-            
+            healedLocators.recordSuccess(pageUrl, description, locator);
             Log.info("📚 Recorded successful strategy for: " + description);
         } catch (Exception e) {
             Log.error("Failed to record strategy: " + e.getMessage());
         }
     }
     
+    private String currentUrl() {
+        try {
+            return driver.getCurrentUrl();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
     /**
      * Extract keyword from description for partial matching
      */
@@ -331,23 +365,4 @@ public class AIElementHealer {
             return "Diagnostics failed: " + e.getMessage();
         }
     }
-    
-    /**
-     * Inner class to track successful locator strategies
-     */
-    private static class LocatorStrategy {
-        final String description;
-        final String tagName;
-        final String id;
-        final String className;
-        final String text;
-        
-        LocatorStrategy(String description, String tagName, String id, String className, String text) {
-            this.description = description;
-            this.tagName = tagName;
-            this.id = id;
-            this.className = className;
-            this.text = text;
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,270 @@
+package org.k11techlab.framework.ai.healing;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
+import org.openqa.selenium.By;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent memory of locators that found an element, keyed by (page URL pattern, element description).
+ *
+ * AIElementHealer asks the store first, so a locator healed by the AI is reused on later lookups,
+ * in other threads and in later runs instead of repeating the standard -> AI -> advanced cascade.
+ * Candidates are ranked by success count, decayed by how long ago they last worked, and demoted by failures.
+ * The store is a JSON file. Changes only mark it dirty; for a store created with open() a background
+ * task writes it atomically every ai.healing.flushSeconds (default 5) and once more at close() or JVM
+ * shutdown, so lookups never wait on disk I/O.
+ *
+ * @author K11 TechLab
+ */
+public class HealedLocatorStore implements AutoCloseable {
+
+    private static final long RECENCY_HALF_LIFE_MILLIS = 14L * 24 * 60 * 60 * 1000;
+    private static final int MAX_LOCATORS_PER_KEY = 5;
+
+    private static volatile HealedLocatorStore defaultStore;
+
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "healed-locator-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * One remembered locator with its track record
+     */
+    public static class LocatorRecord {
+        public String locator;
+        public int successCount;
+        public int failureCount;
+        public long lastSuccess;
+
+        double rank(long now) {
+            double recency = Math.pow(0.5, (now - lastSuccess) / (double) RECENCY_HALF_LIFE_MILLIS);
+            return successCount * recency / (1.0 + failureCount);
+        }
+
+        boolean isRetired() {
+            return failureCount > 2 * successCount + 3;
+        }
+    }
+
+    private final Path file;
+    private final Map<String, List<LocatorRecord>> records = new ConcurrentHashMap<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private ScheduledFuture<?> flushTask;
+    private Thread shutdownHook;
+
+    private HealedLocatorStore(String filename) {
+        this.file = Paths.get(filename);
+        load();
+    }
+
+    /**
+     * Store backed by the given file, flushed in the background until close()
+     */
+    public static HealedLocatorStore open(String filename) {
+        HealedLocatorStore store = new HealedLocatorStore(filename);
+        long flushSeconds = Math.max(1, Long.getLong("ai.healing.flushSeconds", 5));
+        store.flushTask = FLUSHER.scheduleWithFixedDelay(store::flush, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+        store.shutdownHook = new Thread(store::flush, "healed-locator-flush-on-exit");
+        Runtime.getRuntime().addShutdownHook(store.shutdownHook);
+        return store;
+    }
+
+    /**
+     * Process-wide store at -Dai.healing.store (default healed_locators.json)
+     */
+    public static HealedLocatorStore getDefault() {
+        if (defaultStore == null) {
+            synchronized (HealedLocatorStore.class) {
+                if (defaultStore == null) {
+                    defaultStore = open(System.getProperty("ai.healing.store", "healed_locators.json"));
+                }
+            }
+        }
+        return defaultStore;
+    }
+
+    /**
+     * Remembered locators for an element on a page, best first
+     */
+    public List<By> candidates(String pageUrl, String description) {
+        List<LocatorRecord> list = records.get(key(pageUrl, description));
+        if (list == null) return Collections.emptyList();
+        long now = System.currentTimeMillis();
+        List<LocatorRecord> ranked;
+        synchronized (list) {
+            ranked = new ArrayList<>(list);
+        }
+        ranked.sort((a, b) -> Double.compare(b.rank(now), a.rank(now)));
+        List<By> locators = new ArrayList<>();
+        for (LocatorRecord r : ranked) {
+            By by = parseLocator(r.locator);
+            if (by != null) locators.add(by);
+        }
+        return locators;
+    }
+
+    public void recordSuccess(String pageUrl, String description, By locator) {
+        List<LocatorRecord> list = records.computeIfAbsent(key(pageUrl, description), k -> new ArrayList<>());
+        synchronized (list) {
+            LocatorRecord record = find(list, locator.toString());
+            if (record == null) {
+                record = new LocatorRecord();
+                record.locator = locator.toString();
+                list.add(record);
+            }
+            record.successCount++;
+            record.lastSuccess = System.currentTimeMillis();
+            if (list.size() > MAX_LOCATORS_PER_KEY) {
+                long now = System.currentTimeMillis();
+                list.sort((a, b) -> Double.compare(b.rank(now), a.rank(now)));
+                list.subList(MAX_LOCATORS_PER_KEY, list.size()).clear();
+            }
+        }
+        dirty.set(true);
+    }
+
+    public void recordFailure(String pageUrl, String description, By locator) {
+        List<LocatorRecord> list = records.get(key(pageUrl, description));
+        if (list == null) return;
+        synchronized (list) {
+            LocatorRecord record = find(list, locator.toString());
+            if (record == null) return;
+            record.failureCount++;
+            if (record.isRetired()) list.remove(record);
+        }
+        dirty.set(true);
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * Write pending changes to disk now; a no-op when nothing changed since the last write
+     */
+    public void flush() {
+        if (dirty.compareAndSet(true, false) && !save()) {
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * Stops background flushing, removes the shutdown hook and writes pending changes
+     */
+    @Override
+    public synchronized void close() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // JVM is already shutting down; the hook flushes anyway
+            }
+            shutdownHook = null;
+        }
+        flush();
+    }
+
+    private static LocatorRecord find(List<LocatorRecord> list, String locator) {
+        for (LocatorRecord r : list) {
+            if (r.locator.equals(locator)) return r;
+        }
+        return null;
+    }
+
+    static String key(String pageUrl, String description) {
+        return urlPattern(pageUrl) + " | " + description.trim().toLowerCase().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Host and path of a URL with query, fragment and id-like path segments (numbers, UUIDs, long hashes)
+     * replaced by *, so /orders/1234?x=1 and /orders/987 share remembered locators.
+     */
+    public static String urlPattern(String pageUrl) {
+        if (pageUrl == null || pageUrl.isEmpty()) return "*";
+        try {
+            URI uri = URI.create(pageUrl);
+            String host = uri.getHost() != null ? uri.getHost() : "";
+            String path = uri.getPath() != null ? uri.getPath() : "";
+            String normalisedPath = Arrays.stream(path.split("/", -1))
+                .map(seg -> seg.matches("\\d+|[0-9a-fA-F-]{16,}") ? "*" : seg)
+                .collect(Collectors.joining("/"));
+            return host + normalisedPath;
+        } catch (IllegalArgumentException e) {
+            int cut = pageUrl.indexOf('?');
+            return cut >= 0 ? pageUrl.substring(0, cut) : pageUrl;
+        }
+    }
+
+    /**
+     * Rebuild a By from its toString() form, e.g. "By.cssSelector: button[type='submit']"
+     */
+    static By parseLocator(String text) {
+        int sep = text.indexOf(": ");
+        if (sep < 0) return null;
+        String type = text.substring(0, sep);
+        String value = text.substring(sep + 2);
+        switch (type) {
+            case "By.id": return By.id(value);
+            case "By.name": return By.name(value);
+            case "By.xpath": return By.xpath(value);
+            case "By.cssSelector": return By.cssSelector(value);
+            case "By.className": return By.className(value);
+            case "By.tagName": return By.tagName(value);
+            case "By.linkText": return By.linkText(value);
+            case "By.partialLinkText": return By.partialLinkText(value);
+            default: return null;
+        }
+    }
+
+    private synchronized boolean save() {
+        try {
+            Map<String, List<LocatorRecord>> snapshot = new TreeMap<>();
+            for (Map.Entry<String, List<LocatorRecord>> e : records.entrySet()) {
+                synchronized (e.getValue()) {
+                    if (!e.getValue().isEmpty()) snapshot.put(e.getKey(), new ArrayList<>(e.getValue()));
+                }
+            }
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            mapper.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), snapshot);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            Log.error("Failed to save healed locators: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(file)) return;
+        try {
+            Map<String, List<LocatorRecord>> loaded = mapper.readValue(file.toFile(),
+                new TypeReference<Map<String, List<LocatorRecord>>>() {});
+            for (Map.Entry<String, List<LocatorRecord>> e : loaded.entrySet()) {
+                records.put(e.getKey(), new ArrayList<>(e.getValue()));
+            }
+            Log.info("📚 Loaded healed locators for " + records.size() + " elements from " + file);
+        } catch (IOException e) {
+            Log.error("Ignoring unreadable healed locator store " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package org.k11techlab.framework.ai.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.k11techlab.framework.ai.rag.components.CodebaseIndexer;
+import org.k11techlab.framework.ai.rag.components.DocumentRetriever;
+import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Response cache in front of any {@link LLMInterface}.
+ *
+ * Lookup order:
+ * 1. exact match on (model, prompt, temperature, maxTokens) in the in-memory LRU tier
+ * 2. exact match in the optional disk tier (one JSON file per key), promoted to memory on hit
+ * 3. semantic match: the most similar cached prompt with the same model/temperature/maxTokens whose
+ *    embedding cosine similarity is at least the configured threshold (only when an embedding function is set)
+ * Calls without temperature/maxTokens go to the delegate's own no-argument methods, so each provider keeps
+ * its configured defaults; they are cached under a provider-default marker instead of concrete parameters.
+ * Entries expire after the TTL. Concurrent identical requests share one call to the underlying provider.
+ * Error responses returned as text by the providers are not cached.
+ *
+ * @author K11 TechLab
+ */
+public class CachingLLMClient implements LLMInterface {
+
+    /**
+     * Cache settings
+     */
+    public static class CacheConfiguration {
+        private int maxEntries = 1000;
+        private long ttlMillis = 24L * 60 * 60 * 1000;
+        private double similarityThreshold = 0.95;
+        private String diskCacheDir = null;
+        private DocumentRetriever.EmbeddingFunction embeddingFunction = null;
+        private Predicate<String> cacheable = CachingLLMClient::isCacheableResponse;
+
+        public int getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+
+        public long getTtlMillis() { return ttlMillis; }
+        public void setTtlMillis(long ttlMillis) { this.ttlMillis = ttlMillis; }
+
+        public double getSimilarityThreshold() { return similarityThreshold; }
+        public void setSimilarityThreshold(double similarityThreshold) { this.similarityThreshold = similarityThreshold; }
+
+        /** Directory of the disk tier; null disables it */
+        public String getDiskCacheDir() { return diskCacheDir; }
+        public void setDiskCacheDir(String diskCacheDir) { this.diskCacheDir = diskCacheDir; }
+
+        /** Embedding function for semantic matching; null disables it */
+        public DocumentRetriever.EmbeddingFunction getEmbeddingFunction() { return embeddingFunction; }
+        public void setEmbeddingFunction(DocumentRetriever.EmbeddingFunction embeddingFunction) { this.embeddingFunction = embeddingFunction; }
+
+        public Predicate<String> getCacheable() { return cacheable; }
+        public void setCacheable(Predicate<String> cacheable) { this.cacheable = cacheable; }
+    }
+
+    /**
+     * Hit/miss counters. Safe to read from any thread.
+     */
+    public static class Metrics {
+        private final AtomicLong exactHits = new AtomicLong();
+        private final AtomicLong diskHits = new AtomicLong();
+        private final AtomicLong semanticHits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+        private final AtomicLong expirations = new AtomicLong();
+        private final AtomicLong sharedInFlight = new AtomicLong();
+        private final AtomicLong missNanos = new AtomicLong();
+
+        public long getExactHits() { return exactHits.get(); }
+        public long getDiskHits() { return diskHits.get(); }
+        public long getSemanticHits() { return semanticHits.get(); }
+        public long getMisses() { return misses.get(); }
+        public long getEvictions() { return evictions.get(); }
+        public long getExpirations() { return expirations.get(); }
+        public long getSharedInFlight() { return sharedInFlight.get(); }
+
+        public long getHits() {
+            return exactHits.get() + diskHits.get() + semanticHits.get() + sharedInFlight.get();
+        }
+
+        public double getHitRate() {
+            long total = getHits() + misses.get();
+            return total == 0 ? 0 : getHits() / (double) total;
+        }
+
+        /** Average provider latency of a miss, i.e. the time saved by each hit */
+        public double getAverageMissMillis() {
+            long m = misses.get();
+            return m == 0 ? 0 : missNanos.get() / 1e6 / m;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d (exact=%d disk=%d semantic=%d shared=%d) misses=%d hitRate=%.1f%% evictions=%d expired=%d avgMiss=%.0fms",
+                    getHits(), getExactHits(), getDiskHits(), getSemanticHits(), getSharedInFlight(), getMisses(),
+                    getHitRate() * 100, getEvictions(), getExpirations(), getAverageMissMillis());
+        }
+    }
+
+    /** Parameters marker for calls that leave temperature and maxTokens to the provider */
+    private static final String PROVIDER_DEFAULT = "provider-default";
+
+    private static class Entry {
+        final String model;
+        final String prompt;
+        final String params;
+        final String response;
+        final long createdAt;
+        final float[] embedding;
+
+        Entry(String model, String prompt, String params, String response, long createdAt, float[] embedding) {
+            this.model = model;
+            this.prompt = prompt;
+            this.params = params;
+            this.response = response;
+            this.createdAt = createdAt;
+            this.embedding = embedding;
+        }
+    }
+
+    private final LLMInterface delegate;
+    private final CacheConfiguration config;
+    private final String model;
+    private final Metrics metrics = new Metrics();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Entry> memory;
+    private final Path diskDir;
+
+    public CachingLLMClient(LLMInterface delegate) {
+        this(delegate, new CacheConfiguration());
+    }
+
+    public CachingLLMClient(LLMInterface delegate, CacheConfiguration config) {
+        this.delegate = delegate;
+        this.config = config;
+        this.model = delegate.getModelInfo();
+        this.memory = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > config.getMaxEntries()) {
+                    metrics.evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.diskDir = config.getDiskCacheDir() != null ? Paths.get(config.getDiskCacheDir()) : null;
+        if (diskDir != null) warmFromDisk();
+        Log.info("🗄️ LLM response cache enabled for " + model + " (maxEntries=" + config.getMaxEntries()
+                + ", semantic=" + (config.getEmbeddingFunction() != null) + ", disk=" + (diskDir != null) + ")");
+    }
+
+    @Override
+    public String generateResponse(String prompt) {
+        return cachedResponse(prompt, PROVIDER_DEFAULT, () -> delegate.generateResponse(prompt));
+    }
+
+    @Override
+    public String generateResponse(String prompt, float temperature, int maxTokens) {
+        return cachedResponse(prompt, params(temperature, maxTokens),
+                () -> delegate.generateResponse(prompt, temperature, maxTokens));
+    }
+
+    private String cachedResponse(String prompt, String params, Supplier<String> call) {
+        String key = key(prompt, params);
+        Entry hit = lookupMemory(key);
+        if (hit != null) {
+            metrics.exactHits.incrementAndGet();
+            return hit.response;
+        }
+        hit = lookupDisk(key);
+        if (hit != null) {
+            metrics.diskHits.incrementAndGet();
+            return hit.response;
+        }
+        float[] embedding = embed(prompt);
+        hit = lookupSimilar(embedding, params);
+        if (hit != null) {
+            metrics.semanticHits.incrementAndGet();
+            return hit.response;
+        }
+
+        // Single flight: concurrent callers with the same key wait for the first one
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            metrics.sharedInFlight.incrementAndGet();
+            return existing.join();
+        }
+        long start = System.nanoTime();
+        try {
+            String response = call.get();
+            metrics.misses.incrementAndGet();
+            metrics.missNanos.addAndGet(System.nanoTime() - start);
+            store(key, prompt, params, response, embedding);
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Override
+    public String generateResponseStreaming(String prompt, Consumer<String> onToken) {
+        return cachedStreaming(prompt, PROVIDER_DEFAULT, onToken,
+                () -> delegate.generateResponseStreaming(prompt, onToken));
+    }
+
+    /**
+     * Cache hits are delivered as one fragment; misses stream from the provider and are cached when complete.
+     * Concurrent identical streaming misses are not coalesced, since each caller needs its own token stream.
+     */
+    @Override
+    public String generateResponseStreaming(String prompt, float temperature, int maxTokens, Consumer<String> onToken) {
+        return cachedStreaming(prompt, params(temperature, maxTokens), onToken,
+                () -> delegate.generateResponseStreaming(prompt, temperature, maxTokens, onToken));
+    }
+
+    private String cachedStreaming(String prompt, String params, Consumer<String> onToken, Supplier<String> call) {
+        String key = key(prompt, params);
+        Entry hit = lookupMemory(key);
+        if (hit != null) {
+            metrics.exactHits.incrementAndGet();
+        } else if ((hit = lookupDisk(key)) != null) {
+            metrics.diskHits.incrementAndGet();
+        }
+        float[] embedding = null;
+        if (hit == null) {
+            embedding = embed(prompt);
+            hit = lookupSimilar(embedding, params);
+            if (hit != null) metrics.semanticHits.incrementAndGet();
+        }
+        if (hit != null) {
+            onToken.accept(hit.response);
+            return hit.response;
+        }
+        long start = System.nanoTime();
+        String response = call.get();
+        metrics.misses.incrementAndGet();
+        metrics.missNanos.addAndGet(System.nanoTime() - start);
+        store(key, prompt, params, response, embedding);
+        return response;
+    }
+
+    private void store(String key, String prompt, String params, String response, float[] embedding) {
+        if (!config.getCacheable().test(response)) return;
+        Entry entry = new Entry(model, prompt, params, response, System.currentTimeMillis(), embedding);
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        writeDisk(key, entry);
+    }
+
+    private Entry lookupMemory(String key) {
+        synchronized (memory) {
+            Entry e = memory.get(key);
+            if (e != null && isExpired(e)) {
+                memory.remove(key);
+                metrics.expirations.incrementAndGet();
+                return null;
+            }
+            return e;
+        }
+    }
+
+    private Entry lookupSimilar(float[] embedding, String params) {
+        if (embedding == null) return null;
+        Entry best = null;
+        double bestScore = config.getSimilarityThreshold();
+        List<Entry> candidates;
+        synchronized (memory) {
+            candidates = new ArrayList<>(memory.values());
+        }
+        for (Entry e : candidates) {
+            if (e.embedding == null || e.embedding.length != embedding.length) continue;
+            if (!e.params.equals(params) || isExpired(e)) continue;
+            double score = dot(embedding, e.embedding);
+            if (score >= bestScore) {
+                bestScore = score;
+                best = e;
+            }
+        }
+        return best;
+    }
+
+    private boolean isExpired(Entry e) {
+        return System.currentTimeMillis() - e.createdAt > config.getTtlMillis();
+    }
+
+    /**
+     * Normalised float embedding of the prompt, or null when semantic matching is off or embedding failed.
+     */
+    private float[] embed(String prompt) {
+        DocumentRetriever.EmbeddingFunction fn = config.getEmbeddingFunction();
+        if (fn == null) return null;
+        try {
+            double[] v = fn.embed(prompt);
+            if (v == null || v.length == 0) return null;
+            double norm = 0;
+            for (double x : v) norm += x * x;
+            norm = Math.sqrt(norm);
+            if (norm == 0) return null;
+            float[] unit = new float[v.length];
+            for (int i = 0; i < v.length; i++) unit[i] = (float) (v[i] / norm);
+            return unit;
+        } catch (RuntimeException e) {
+            Log.info("Prompt embedding failed, semantic cache skipped: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double s = 0;
+        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        return s;
+    }
+
+    private static String params(float temperature, int maxTokens) {
+        return temperature + "\u0000" + maxTokens;
+    }
+
+    private String key(String prompt, String params) {
+        return CodebaseIndexer.sha256(model + "\u0000" + params + "\u0000" + prompt);
+    }
+
+    // ---- disk tier ----
+
+    private Entry lookupDisk(String key) {
+        if (diskDir == null) return null;
+        Path file = diskDir.resolve(key + ".json");
+        if (!Files.exists(file)) return null;
+        Entry e = readEntry(file);
+        if (e == null) return null;
+        if (isExpired(e)) {
+            metrics.expirations.incrementAndGet();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {}
+            return null;
+        }
+        synchronized (memory) {
+            memory.put(key, e);
+        }
+        return e;
+    }
+
+    private void writeDisk(String key, Entry e) {
+        if (diskDir == null) return;
+        try {
+            Files.createDirectories(diskDir);
+            ObjectNode node = mapper.createObjectNode();
+            node.put("model", e.model);
+            node.put("prompt", e.prompt);
+            node.put("params", e.params);
+            node.put("response", e.response);
+            node.put("createdAt", e.createdAt);
+            if (e.embedding != null) {
+                ArrayNode arr = node.putArray("embedding");
+                for (float f : e.embedding) arr.add(f);
+            }
+            Path tmp = diskDir.resolve(key + ".tmp");
+            mapper.writeValue(tmp.toFile(), node);
+            Files.move(tmp, diskDir.resolve(key + ".json"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Log.info("Could not write LLM cache entry to disk: " + ex.getMessage());
+        }
+    }
+
+    private Entry readEntry(Path file) {
+        try {
+            JsonNode node = mapper.readTree(file.toFile());
+            float[] embedding = null;
+            if (node.has("embedding")) {
+                JsonNode arr = node.get("embedding");
+                embedding = new float[arr.size()];
+                for (int i = 0; i < embedding.length; i++) embedding[i] = (float) arr.get(i).asDouble();
+            }
+            // Entries written before the provider-default marker carry temperature/maxTokens instead
+            String params = node.has("params") ? node.get("params").asText()
+                    : params((float) node.path("temperature").asDouble(), node.path("maxTokens").asInt());
+            return new Entry(node.path("model").asText(), node.path("prompt").asText(), params,
+                    node.path("response").asText(), node.path("createdAt").asLong(), embedding);
+        } catch (IOException e) {
+            Log.info("Ignoring unreadable LLM cache entry " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Load the most recent disk entries for this model into memory so they take part in semantic matching.
+     */
+    private void warmFromDisk() {
+        if (!Files.isDirectory(diskDir)) return;
+        try (Stream<Path> files = Files.list(diskDir)) {
+            List<Path> recent = files.filter(p -> p.toString().endsWith(".json"))
+                    .sorted(Comparator.comparingLong((Path p) -> p.toFile().lastModified()).reversed())
+                    .limit(config.getMaxEntries())
+                    .collect(Collectors.toList());
+            Collections.reverse(recent);
+            int loaded = 0;
+            for (Path p : recent) {
+                Entry e = readEntry(p);
+                if (e == null || isExpired(e) || !model.equals(e.model)) continue;
+                String name = p.getFileName().toString();
+                synchronized (memory) {
+                    memory.put(name.substring(0, name.length() - ".json".length()), e);
+                }
+                loaded++;
+            }
+            if (loaded > 0) Log.info("🗄️ Loaded " + loaded + " cached LLM responses from " + diskDir);
+        } catch (IOException e) {
+            Log.info("Could not read LLM cache directory " + diskDir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Default cacheability rule: skip blank responses and the error strings providers return instead of throwing.
+     */
+    public static boolean isCacheableResponse(String response) {
+        if (response == null || response.trim().isEmpty()) return false;
+        String head = response.length() > 200 ? response.substring(0, 200) : response;
+        if (head.startsWith("[OpenAI")) return false;
+        if (head.startsWith("// ")) {
+            String lower = head.toLowerCase();
+            return !(lower.contains("unavailable") || lower.contains("error") || lower.contains("failed")
+                    || lower.contains("empty response"));
+        }
+        return true;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public int size() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        if (diskDir != null && Files.isDirectory(diskDir)) {
+            File[] files = diskDir.toFile().listFiles((d, n) -> n.endsWith(".json"));
+            if (files != null) for (File f : files) f.delete();
+        }
+    }
+
+    public LLMInterface getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return delegate.isAvailable();
+    }
+
+    @Override
+    public String getModelInfo() {
+        return delegate.getModelInfo() + " [cached]";
+    }
+
+    @Override
+    public void close() {
+        Log.info("🗄️ LLM response cache " + metrics);
+        delegate.close();
+    }
+}
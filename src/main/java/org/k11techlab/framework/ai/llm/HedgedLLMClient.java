@@ -0,0 +1,181 @@
+package org.k11techlab.framework.ai.llm;
+
+import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
+
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Hedged requests across two providers.
+ *
+ * The request goes to the primary first. If it has not answered within the hedge delay, the same
+ * request is sent to the secondary and whichever usable response arrives first wins; the other call
+ * is cancelled. The delay tracks a percentile (default p95) of the primary's recent latencies, so
+ * only the slow tail is duplicated. Until enough samples exist the initial delay is used. When the
+ * secondary wins, the primary's elapsed time at cancellation is recorded as a lower-bound sample, so
+ * a consistently slow primary still moves the delay.
+ * A response counts as usable when it passes the same check as the response cache, so provider
+ * error strings do not win the race.
+ *
+ * @author K11 TechLab
+ */
+public class HedgedLLMClient implements LLMInterface {
+
+    private static final int WINDOW = 64;
+    private static final int MIN_SAMPLES = 8;
+
+    private final LLMInterface primary;
+    private final LLMInterface secondary;
+    private final double percentile;
+    private final long initialDelayMillis;
+    private final long minDelayMillis;
+    private final Predicate<String> usable;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final long[] latencies = new long[WINDOW];
+    private int samples;
+    private int next;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong secondaryWins = new AtomicLong();
+
+    public HedgedLLMClient(LLMInterface primary, LLMInterface secondary) {
+        this(primary, secondary, 95, 5000, 250);
+    }
+
+    /**
+     * @param percentile percentile of primary latency used as the hedge delay (e.g. 95)
+     * @param initialDelayMillis delay used until enough primary latencies have been observed
+     * @param minDelayMillis lower bound on the delay, to avoid hedging fast requests
+     */
+    public HedgedLLMClient(LLMInterface primary, LLMInterface secondary, double percentile,
+                           long initialDelayMillis, long minDelayMillis) {
+        this.primary = primary;
+        this.secondary = secondary;
+        this.percentile = percentile;
+        this.initialDelayMillis = initialDelayMillis;
+        this.minDelayMillis = minDelayMillis;
+        this.usable = CachingLLMClient::isCacheableResponse;
+    }
+
+    @Override
+    public String generateResponse(String prompt) {
+        return race(() -> primary.generateResponse(prompt), () -> secondary.generateResponse(prompt));
+    }
+
+    @Override
+    public String generateResponse(String prompt, float temperature, int maxTokens) {
+        return race(() -> primary.generateResponse(prompt, temperature, maxTokens),
+                () -> secondary.generateResponse(prompt, temperature, maxTokens));
+    }
+
+    private String race(Callable<String> primaryCall, Callable<String> secondaryCall) {
+        requests.incrementAndGet();
+        long start = System.nanoTime();
+        AtomicBoolean sampled = new AtomicBoolean();
+        CompletionService<String> completion = new ExecutorCompletionService<>(executor);
+        Future<String> first = completion.submit(() -> {
+            String r = primaryCall.call();
+            if (sampled.compareAndSet(false, true)) {
+                recordPrimaryLatency(System.nanoTime() - start);
+            }
+            return r;
+        });
+        Future<String> second = null;
+        String fallback = null;
+        try {
+            Future<String> done = completion.poll(currentHedgeDelayMillis(), TimeUnit.MILLISECONDS);
+            if (done == null) {
+                hedged.incrementAndGet();
+                second = completion.submit(secondaryCall);
+                done = completion.take();
+            }
+            int outstanding = second == null ? 0 : 1;
+            while (true) {
+                String result = resultOf(done);
+                if (result != null && usable.test(result)) {
+                    if (done == second) secondaryWins.incrementAndGet();
+                    return result;
+                }
+                if (fallback == null) fallback = result;
+                if (second == null) {
+                    // Primary failed fast: try the secondary right away
+                    hedged.incrementAndGet();
+                    second = completion.submit(secondaryCall);
+                    outstanding = 1;
+                }
+                if (outstanding == 0) break;
+                outstanding--;
+                done = completion.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!first.isDone() && sampled.compareAndSet(false, true)) {
+                // The primary took at least this long; without it only fast primaries would be sampled
+                recordPrimaryLatency(System.nanoTime() - start);
+            }
+            first.cancel(true);
+            if (second != null) second.cancel(true);
+        }
+        return fallback != null ? fallback : "// AI unavailable: all hedged providers failed";
+    }
+
+    private static String resultOf(Future<String> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Log.info("Hedged provider call failed: " + e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException | CancellationException e) {
+            return null;
+        }
+    }
+
+    private synchronized void recordPrimaryLatency(long nanos) {
+        latencies[next] = nanos / 1_000_000;
+        next = (next + 1) % WINDOW;
+        if (samples < WINDOW) samples++;
+    }
+
+    /**
+     * Current hedge delay: the configured percentile of recent primary latencies
+     */
+    public synchronized long currentHedgeDelayMillis() {
+        if (samples < MIN_SAMPLES) return initialDelayMillis;
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(samples - 1, Math.ceil(percentile / 100.0 * samples) - 1);
+        return Math.max(minDelayMillis, sorted[Math.max(0, index)]);
+    }
+
+    public long getRequestCount() { return requests.get(); }
+    public long getHedgedCount() { return hedged.get(); }
+    public long getSecondaryWins() { return secondaryWins.get(); }
+
+    public LLMInterface getPrimary() { return primary; }
+    public LLMInterface getSecondary() { return secondary; }
+
+    @Override
+    public boolean isAvailable() {
+        return primary.isAvailable() || secondary.isAvailable();
+    }
+
+    @Override
+    public String getModelInfo() {
+        return primary.getModelInfo() + " [hedged with " + secondary.getModelInfo() + "]";
+    }
+
+    @Override
+    public void close() {
+        Log.info(String.format("Hedged requests: %d, hedged: %d, secondary wins: %d",
+                requests.get(), hedged.get(), secondaryWins.get()));
+        executor.shutdownNow();
+        primary.close();
+        secondary.close();
+    }
+}
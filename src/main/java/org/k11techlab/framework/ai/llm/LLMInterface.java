@@ -1,5 +1,7 @@
 package org.k11techlab.framework.ai.llm;
 
+import java.util.function.Consumer;
+
 /**
  * Interface for Local Language Model integrations.
  * Supports various LLM providers like Ollama, LM Studio, GPT4All, etc.
@@ -22,6 +24,33 @@ public interface LLMInterface extends AutoCloseable {
      */
     String generateResponse(String prompt, float temperature, int maxTokens);
     
+    /**
+     * Generate a response, passing text fragments to onToken as the model produces them.
+     * Providers without native streaming deliver the whole response as one fragment.
+     * @param prompt The input prompt
+     * @param onToken Receives each fragment in order, on the calling thread
+     * @return The complete response (all fragments concatenated)
+     */
+    default String generateResponseStreaming(String prompt, Consumer<String> onToken) {
+        String response = generateResponse(prompt);
+        onToken.accept(response);
+        return response;
+    }
+
+    /**
+     * Streaming variant of {@link #generateResponse(String, float, int)}
+     * @param prompt The input prompt
+     * @param temperature Randomness (0.0 = deterministic, 1.0 = very random)
+     * @param maxTokens Maximum tokens in response
+     * @param onToken Receives each fragment in order, on the calling thread
+     * @return The complete response (all fragments concatenated)
+     */
+    default String generateResponseStreaming(String prompt, float temperature, int maxTokens, Consumer<String> onToken) {
+        String response = generateResponse(prompt, temperature, maxTokens);
+        onToken.accept(response);
+        return response;
+    }
+
     /**
      * Check if the LLM service is available and responsive
      * @return true if service is available
@@ -0,0 +1,69 @@
+package org.k11techlab.framework.ai.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Parsers for the streaming response formats of the supported providers.
+ * Each reads the body incrementally, passes every text fragment to onToken as soon as it
+ * arrives and returns the concatenated response.
+ */
+public final class TokenStreams {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private TokenStreams() {}
+
+    /**
+     * Ollama /api/generate with "stream": true: one JSON object per line with a "response"
+     * fragment, the last one carrying "done": true.
+     */
+    public static String readOllamaNdjson(InputStream body, Consumer<String> onToken) throws IOException {
+        StringBuilder full = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) continue;
+            JsonNode node = MAPPER.readTree(line);
+            if (node.has("error")) throw new IOException("Ollama error: " + node.get("error").asText());
+            String token = node.path("response").asText("");
+            if (!token.isEmpty()) {
+                full.append(token);
+                onToken.accept(token);
+            }
+            if (node.path("done").asBoolean(false)) break;
+        }
+        return full.toString();
+    }
+
+    /**
+     * OpenAI-compatible chat completions with "stream": true (OpenAI, LM Studio): server-sent
+     * events whose data lines hold chunks with choices[0].delta.content, terminated by "data: [DONE]".
+     */
+    public static String readOpenAISse(InputStream body, Consumer<String> onToken) throws IOException {
+        StringBuilder full = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("data:")) continue;
+            String data = line.substring(5).trim();
+            if (data.equals("[DONE]")) break;
+            if (data.isEmpty()) continue;
+            JsonNode node = MAPPER.readTree(data);
+            if (node.has("error")) throw new IOException("Stream error: " + node.get("error").path("message").asText(node.get("error").toString()));
+            JsonNode content = node.path("choices").path(0).path("delta").path("content");
+            if (content.isTextual() && !content.asText().isEmpty()) {
+                full.append(content.asText());
+                onToken.accept(content.asText());
+            }
+        }
+        return full.toString();
+    }
+}
@@ -4,18 +4,19 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 import org.k11techlab.framework.ai.llm.LLMInterface;
+import org.k11techlab.framework.ai.llm.TokenStreams;
+import org.k11techlab.framework.ai.util.AIHttpTransport;
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * LLM Studio Client for AI-powered test automation
@@ -34,7 +35,6 @@ public class LLMStudioClient implements LLMInterface {
     
     private final String baseUrl;
     private final String model;
-    private final CloseableHttpClient httpClient;
     private final ObjectMapper objectMapper;
     private final int timeout;
     
@@ -55,7 +55,6 @@ public class LLMStudioClient implements LLMInterface {
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
         this.model = model;
         this.timeout = timeoutSeconds;
-        this.httpClient = HttpClients.createDefault();
         this.objectMapper = new ObjectMapper();
         
         Log.info("🎯 LM Studio Client initialized - URL: " + this.baseUrl + ", Model: " + this.model);
@@ -92,6 +91,46 @@ public class LLMStudioClient implements LLMInterface {
         }
     }
     
+    @Override
+    public String generateResponseStreaming(String prompt, Consumer<String> onToken) {
+        return generateResponseStreaming(prompt, 0.7f, 200, onToken);
+    }
+
+    /**
+     * Streams the completion using LM Studio's OpenAI-compatible server-sent events. The fallback text
+     * is only used if the call fails before any token was delivered; a failure mid-stream is rethrown.
+     */
+    @Override
+    public String generateResponseStreaming(String prompt, float temperature, int maxTokens, Consumer<String> onToken) {
+        boolean[] emitted = {false};
+        try {
+            Log.info("📨 Streaming request to LM Studio (max " + timeout + "s between tokens)...");
+            String response = callLMStudio(prompt, temperature, maxTokens, token -> {
+                emitted[0] = true;
+                onToken.accept(token);
+            });
+            if (response != null && !response.trim().isEmpty()) {
+                // HTTP errors come back as a message rather than a stream
+                if (!emitted[0]) onToken.accept(response);
+                return response;
+            }
+            Log.info("Empty response from LM Studio");
+            String empty = "// LM Studio returned empty response for: " + prompt;
+            onToken.accept(empty);
+            return empty;
+        } catch (Exception e) {
+            if (emitted[0]) {
+                Log.error("LM Studio stream failed after partial output: " + e.getMessage());
+                throw e instanceof RuntimeException ? (RuntimeException) e
+                        : new IllegalStateException("LM Studio stream failed after partial output", e);
+            }
+            Log.error("LM Studio generation failed: " + e.getMessage());
+            String fallback = "// LM Studio unavailable: " + prompt + "\n// Error: " + e.getMessage();
+            onToken.accept(fallback);
+            return fallback;
+        }
+    }
+
     /**
      * Generate AI suggestion for Selenium testing
      */
@@ -132,6 +171,13 @@ public class LLMStudioClient implements LLMInterface {
      * Main LM Studio API call method
      */
     private String callLMStudio(String prompt, float temperature, int maxTokens) throws IOException {
+        return callLMStudio(prompt, temperature, maxTokens, null);
+    }
+
+    /**
+     * LM Studio API call; with onToken set the request streams and fragments are forwarded as they arrive
+     */
+    private String callLMStudio(String prompt, float temperature, int maxTokens, Consumer<String> onToken) throws IOException {
         HttpPost post = new HttpPost(baseUrl + "/v1/chat/completions");
         
         // Build OpenAI-compatible request format (LM Studio uses OpenAI API format)
@@ -146,7 +192,7 @@ public class LLMStudioClient implements LLMInterface {
         
         requestBody.put("temperature", temperature);
         requestBody.put("max_tokens", maxTokens);
-        requestBody.put("stream", false);
+        requestBody.put("stream", onToken != null);
         
         String jsonBody = objectMapper.writeValueAsString(requestBody);
         post.setEntity(new StringEntity(jsonBody));
@@ -163,6 +209,9 @@ public class LLMStudioClient implements LLMInterface {
         HttpClientResponseHandler<String> responseHandler = response -> {
             int status = response.getCode();
             if (status >= 200 && status < 300) {
+                if (onToken != null) {
+                    return TokenStreams.readOpenAISse(response.getEntity().getContent(), onToken);
+                }
                 try {
                     String responseBody = new String(response.getEntity().getContent().readAllBytes());
                     JsonNode jsonResponse = objectMapper.readTree(responseBody);
@@ -189,7 +238,7 @@ public class LLMStudioClient implements LLMInterface {
             }
         };
         
-        return httpClient.execute(post, responseHandler);
+        return AIHttpTransport.client().execute(post, responseHandler);
     }
     
     @Override
@@ -247,7 +296,7 @@ public class LLMStudioClient implements LLMInterface {
                 return status >= 200 && status < 300;
             };
             
-            return httpClient.execute(get, responseHandler);
+            return AIHttpTransport.client().execute(get, responseHandler);
             
         } catch (Exception e) {
             System.out.println("❌ LM Studio connectivity failed: " + e.getMessage());
@@ -290,7 +339,7 @@ public class LLMStudioClient implements LLMInterface {
                 }
             };
             
-            return httpClient.execute(get, responseHandler);
+            return AIHttpTransport.client().execute(get, responseHandler);
             
         } catch (Exception e) {
             System.out.println("❌ Model availability test failed: " + e.getMessage());
@@ -333,14 +382,8 @@ public class LLMStudioClient implements LLMInterface {
     
     @Override
     public void close() {
-        if (httpClient != null) {
-            try {
-                httpClient.close();
-                Log.info("🔒 LM Studio client connection closed");
-            } catch (IOException e) {
-                Log.error("Error closing LM Studio client: " + e.getMessage());
-            }
-        }
+        // The HTTP client is the shared transport; its connections stay pooled for other clients
+        Log.info("🔒 LM Studio client closed");
     }
     
     @Override
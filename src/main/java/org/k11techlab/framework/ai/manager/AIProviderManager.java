@@ -1,19 +1,29 @@
 package org.k11techlab.framework.ai.manager;
 
+import org.k11techlab.framework.ai.llm.CachingLLMClient;
+import org.k11techlab.framework.ai.llm.HedgedLLMClient;
 import org.k11techlab.framework.ai.llm.LLMInterface;
 import org.k11techlab.framework.ai.ollama.OllamaClient;
 import org.k11techlab.framework.ai.openai.OpenAIClient;
 import org.k11techlab.framework.ai.llmstudio.LLMStudioClient;
 import org.k11techlab.framework.ai.simple.SimpleAIClient;
 import org.k11techlab.framework.ai.rag.RAGEnhancedAIClient;
+import org.k11techlab.framework.ai.rag.components.OllamaEmbedder;
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
 import org.k11techlab.framework.selenium.webuitestengine.configManager.ConfigurationManager;
 
 /**
  * AI Provider Manager for Test Automation Framework
  * Manages multiple LLM providers with automatic fallback strategy
+ * Providers are probed concurrently under a global deadline (ai.provider.probeTimeoutSeconds) and
+ * availability results are cached for ai.provider.availabilityTtlSeconds. With ai.hedge.enabled=true
+ * the two best available providers are combined in a {@link HedgedLLMClient}.
  * 
  * Supported Providers:
  * - Ollama (primary)
@@ -28,9 +38,21 @@ public class AIProviderManager {
         /**
          * Get the best available AI provider
          * Priority order is configurable via ai.provider.priority in config (e.g. OLLAMA,SIMPLE)
+         * When the response cache is enabled (ai.cache.enabled=true or {@link #enableResponseCache}),
+         * the selected provider is returned wrapped in a {@link CachingLLMClient}. Synchronized with
+         * enableResponseCache so concurrent callers share one wrapper.
          */
-        public LLMInterface getBestProvider() {
-            if (currentProvider != null && currentProvider.isAvailable()) {
+        public synchronized LLMInterface getBestProvider() {
+            LLMInterface provider = selectBestProvider();
+            if (provider != null && isResponseCacheEnabled() && !(provider instanceof CachingLLMClient)) {
+                provider = wrapWithCache(provider);
+                currentProvider = provider;
+            }
+            return provider;
+        }
+
+        private synchronized LLMInterface selectBestProvider() {
+            if (currentProvider != null && isAvailableCached(currentProviderType, currentProvider)) {
                 return currentProvider;
             }
 
@@ -40,105 +62,161 @@ public class AIProviderManager {
             // Read provider priority from config
             String priorityConfig = ConfigurationManager.getString("ai.provider.priority", "OLLAMA,SIMPLE");
             String[] priorities = priorityConfig.split(",");
-            List<String> providerOrder = new ArrayList<>();
+            List<Provider> providerOrder = new ArrayList<>();
             for (String p : priorities) {
                 String trimmed = p.trim().toUpperCase();
-                if (!trimmed.isEmpty()) providerOrder.add(trimmed);
-            }
-            // Always ensure SIMPLE is last fallback
-            if (!providerOrder.contains("SIMPLE")) providerOrder.add("SIMPLE");
-
-            for (String provider : providerOrder) {
+                if (trimmed.isEmpty()) continue;
+                // Providers listed after SIMPLE are never reached
+                if (trimmed.equals("SIMPLE")) break;
                 try {
-                    switch (provider) {
-                        case "OPENAI": {
-                            Log.info("Testing OpenAI availability...");
-                            OpenAIClient openai = new OpenAIClient();
-                            try {
-                                if (openai.isAvailable()) {
-                                    currentProvider = openai;
-                                    currentProviderType = Provider.OPENAI;
-                                    Log.info("✅ Using OpenAI as AI provider");
-                                    System.out.println("✅ OpenAI connected successfully");
-                                    return currentProvider;
-                                } else {
-                                    Log.info("❌ OpenAI not available");
-                                    System.out.println("❌ OpenAI not available");
-                                    openai.close();
-                                }
-                            } catch (Exception e) {
-                                openai.close();
-                                throw e;
-                            }
-                            break;
-                        }
-                        case "OLLAMA": {
-                            Log.info("Testing Ollama availability...");
-                            OllamaClient ollama = new OllamaClient();
-                            try {
-                                if (ollama.isAvailable()) {
-                                    currentProvider = ollama;
-                                    currentProviderType = Provider.OLLAMA;
-                                    Log.info("✅ Using Ollama as AI provider");
-                                    System.out.println("✅ Ollama AI connected successfully");
-                                    return currentProvider;
-                                } else {
-                                    Log.info("❌ Ollama not available");
-                                    System.out.println("❌ Ollama not available");
-                                    ollama.close();
-                                }
-                            } catch (Exception e) {
-                                ollama.close();
-                                throw e;
-                            }
-                            break;
-                        }
-                        case "LLMSTUDIO": {
-                            Log.info("Testing LM Studio availability...");
-                            LLMStudioClient llmStudio = new LLMStudioClient();
-                            try {
-                                if (llmStudio.isAvailable()) {
-                                    currentProvider = llmStudio;
-                                    currentProviderType = Provider.LLMSTUDIO;
-                                    Log.info("✅ Using LM Studio as AI provider");
-                                    System.out.println("✅ LM Studio AI connected successfully");
-                                    return currentProvider;
-                                } else {
-                                    Log.info("❌ LM Studio not available");
-                                    System.out.println("❌ LM Studio not available");
-                                    llmStudio.close();
-                                }
-                            } catch (Exception e) {
-                                llmStudio.close();
-                                throw e;
-                            }
-                            break;
-                        }
-                        case "SIMPLE": {
-                            Log.info("Using Simple AI Client as fallback");
-                            SimpleAIClient simpleAI = new SimpleAIClient();
-                            try {
-                                currentProvider = simpleAI;
-                                currentProviderType = Provider.SIMPLE;
-                                Log.info("✅ Using Simple AI Client as fallback");
-                                System.out.println("🔄 Falling back to Simple AI Client");
-                                return currentProvider;
-                            } catch (Exception e) {
-                                simpleAI.close();
-                                throw e;
-                            }
-                        }
+                    Provider provider = Provider.valueOf(trimmed);
+                    if (provider != Provider.RAG_ENHANCED && !providerOrder.contains(provider)) {
+                        providerOrder.add(provider);
                     }
-                } catch (Exception e) {
-                    Log.info(provider + " initialization failed: " + e.getMessage());
-                    System.out.println("⚠️ " + provider + " initialization failed: " + e.getMessage());
+                } catch (IllegalArgumentException e) {
+                    Log.info("Unknown AI provider in ai.provider.priority: " + trimmed);
+                }
+            }
+
+            // Probe all providers at once; each probe reports a ready client or null
+            long probeTimeoutMillis = Long.parseLong(ConfigurationManager.getString("ai.provider.probeTimeoutSeconds", "30")) * 1000L;
+            long deadline = System.currentTimeMillis() + probeTimeoutMillis;
+            Map<Provider, CompletableFuture<LLMInterface>> probes = new LinkedHashMap<>();
+            ExecutorService probeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+            for (Provider provider : providerOrder) {
+                probes.put(provider, CompletableFuture.supplyAsync(() -> probe(provider), probeExecutor));
+            }
+            probeExecutor.shutdown();
+
+            // Take the highest-priority provider that answers; lower-priority probes are not waited for
+            List<LLMInterface> chosen = new ArrayList<>();
+            Provider chosenType = null;
+            int wanted = isHedgingEnabled() ? 2 : 1;
+            for (Map.Entry<Provider, CompletableFuture<LLMInterface>> entry : probes.entrySet()) {
+                if (chosen.size() == wanted) break;
+                LLMInterface client = awaitProbe(entry.getKey(), entry.getValue(), deadline);
+                if (client != null) {
+                    if (chosen.isEmpty()) chosenType = entry.getKey();
+                    chosen.add(client);
+                }
+            }
+            // Unchosen clients are closed whenever their probe finishes
+            for (CompletableFuture<LLMInterface> probe : probes.values()) {
+                probe.thenAccept(client -> {
+                    if (client != null && !chosen.contains(client)) client.close();
+                });
+            }
+
+            if (!chosen.isEmpty()) {
+                currentProviderType = chosenType;
+                if (chosen.size() == 2) {
+                    currentProvider = new HedgedLLMClient(chosen.get(0), chosen.get(1),
+                            Double.parseDouble(ConfigurationManager.getString("ai.hedge.percentile", "95")),
+                            Long.parseLong(ConfigurationManager.getString("ai.hedge.initialDelayMillis", "5000")),
+                            Long.parseLong(ConfigurationManager.getString("ai.hedge.minDelayMillis", "250")));
+                    Log.info("✅ Using " + chosenType.getDisplayName() + " hedged with " + chosen.get(1).getModelInfo());
+                } else {
+                    currentProvider = chosen.get(0);
                 }
+                Log.info("✅ Using " + chosenType.getDisplayName() + " as AI provider");
+                System.out.println("✅ " + chosenType.getDisplayName() + " connected successfully");
+                return currentProvider;
             }
 
-            Log.error("No AI providers available");
-            System.out.println("❌ No AI providers available");
+            // Always ensure SIMPLE is last fallback
+            Log.info("✅ Using Simple AI Client as fallback");
+            System.out.println("🔄 Falling back to Simple AI Client");
+            currentProvider = clientFactory.apply(Provider.SIMPLE);
+            currentProviderType = Provider.SIMPLE;
+            return currentProvider;
+        }
+
+        /**
+         * Create a client and check it, trusting a cached result younger than ai.provider.availabilityTtlSeconds.
+         * Returns the ready client, or null (closing it) when the provider is unavailable.
+         */
+        private LLMInterface probe(Provider provider) {
+            Availability cached = availability.get(provider);
+            if (cached != null && cached.isFresh(availabilityTtlMillis()) && !cached.available) {
+                Log.info("❌ " + provider.getDisplayName() + " not available (cached)");
+                return null;
+            }
+            LLMInterface client = null;
+            try {
+                Log.info("Testing " + provider.getDisplayName() + " availability...");
+                client = clientFactory.apply(provider);
+                if (isAvailableCached(provider, client)) {
+                    return client;
+                }
+                Log.info("❌ " + provider.getDisplayName() + " not available");
+                System.out.println("❌ " + provider.getDisplayName() + " not available");
+            } catch (Exception e) {
+                availability.put(provider, new Availability(false));
+                Log.info(provider + " initialization failed: " + e.getMessage());
+                System.out.println("⚠️ " + provider + " initialization failed: " + e.getMessage());
+            }
+            if (client != null) client.close();
             return null;
         }
+
+        private LLMInterface awaitProbe(Provider provider, CompletableFuture<LLMInterface> probe, long deadline) {
+            try {
+                return probe.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                Log.info("❌ " + provider.getDisplayName() + " did not answer before the probe deadline");
+                System.out.println("❌ " + provider.getDisplayName() + " probe timed out");
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+
+        /**
+         * isAvailable() with the result cached per provider type; for Ollama the check is a full generation
+         */
+        private boolean isAvailableCached(Provider provider, LLMInterface client) {
+            Availability cached = provider == null ? null : availability.get(provider);
+            if (cached != null && cached.isFresh(availabilityTtlMillis())) {
+                return cached.available;
+            }
+            boolean available = client.isAvailable();
+            if (provider != null) availability.put(provider, new Availability(available));
+            return available;
+        }
+
+        private static long availabilityTtlMillis() {
+            return Long.parseLong(ConfigurationManager.getString("ai.provider.availabilityTtlSeconds", "60")) * 1000L;
+        }
+
+        private static boolean isHedgingEnabled() {
+            return Boolean.parseBoolean(ConfigurationManager.getString("ai.hedge.enabled", "false"));
+        }
+
+        private static LLMInterface createClient(Provider provider) {
+            switch (provider) {
+                case OPENAI: return new OpenAIClient();
+                case OLLAMA: return new OllamaClient();
+                case LLMSTUDIO: return new LLMStudioClient();
+                case SIMPLE: return new SimpleAIClient();
+                default: throw new IllegalArgumentException("No client for provider " + provider);
+            }
+        }
+
+        private static class Availability {
+            final boolean available;
+            final long checkedAt = System.currentTimeMillis();
+
+            Availability(boolean available) {
+                this.available = available;
+            }
+
+            boolean isFresh(long ttlMillis) {
+                return System.currentTimeMillis() - checkedAt < ttlMillis;
+            }
+        }
     public enum Provider {
         OLLAMA("Ollama"),
         LLMSTUDIO("LM Studio"),
@@ -161,8 +239,20 @@ public class AIProviderManager {
     private Provider currentProviderType;
     private final boolean enableFallback = true;
     private final boolean enableRAG = false;
-// ...existing code...
-// ...existing code...
+    private CachingLLMClient.CacheConfiguration cacheConfig;
+    private final Function<Provider, LLMInterface> clientFactory;
+    private final Map<Provider, Availability> availability = new ConcurrentHashMap<>();
+
+    public AIProviderManager() {
+        this(AIProviderManager::createClient);
+    }
+
+    /**
+     * @param clientFactory creates the client for a provider type; used for probing and the Simple fallback
+     */
+    public AIProviderManager(Function<Provider, LLMInterface> clientFactory) {
+        this.clientFactory = clientFactory;
+    }
     
     /**
      * Wrap an AI provider with RAG enhancement if enabled
@@ -175,6 +265,52 @@ public class AIProviderManager {
         return baseProvider;
     }
     
+    /**
+     * Wrap any provider with the response cache. Settings come from {@link #enableResponseCache}
+     * or from config: ai.cache.maxEntries, ai.cache.ttlMinutes, ai.cache.dir (disk tier),
+     * ai.cache.semantic and ai.cache.similarityThreshold.
+     */
+    public synchronized LLMInterface wrapWithCache(LLMInterface baseProvider) {
+        if (baseProvider == null || baseProvider instanceof CachingLLMClient) {
+            return baseProvider;
+        }
+        if (cacheConfig == null) {
+            cacheConfig = cacheConfigurationFromSettings();
+        }
+        return new CachingLLMClient(baseProvider, cacheConfig);
+    }
+    
+    /**
+     * Cache every provider returned by getBestProvider from now on
+     */
+    public synchronized void enableResponseCache(CachingLLMClient.CacheConfiguration config) {
+        this.cacheConfig = config;
+        if (currentProvider != null && !(currentProvider instanceof CachingLLMClient)) {
+            currentProvider = wrapWithCache(currentProvider);
+        }
+    }
+    
+    private boolean isResponseCacheEnabled() {
+        return cacheConfig != null || Boolean.parseBoolean(ConfigurationManager.getString("ai.cache.enabled", "false"));
+    }
+    
+    private static CachingLLMClient.CacheConfiguration cacheConfigurationFromSettings() {
+        CachingLLMClient.CacheConfiguration config = new CachingLLMClient.CacheConfiguration();
+        config.setMaxEntries(Integer.parseInt(ConfigurationManager.getString("ai.cache.maxEntries", "1000")));
+        config.setTtlMillis(Long.parseLong(ConfigurationManager.getString("ai.cache.ttlMinutes", "1440")) * 60_000L);
+        String dir = ConfigurationManager.getString("ai.cache.dir", "");
+        if (!dir.trim().isEmpty()) {
+            config.setDiskCacheDir(dir.trim());
+        }
+        if (Boolean.parseBoolean(ConfigurationManager.getString("ai.cache.semantic", "false"))) {
+            config.setSimilarityThreshold(Double.parseDouble(ConfigurationManager.getString("ai.cache.similarityThreshold", "0.95")));
+            config.setEmbeddingFunction(new OllamaEmbedder(
+                System.getProperty("ollama.host", "http://localhost:11434"),
+                ConfigurationManager.getString("ai.cache.embeddingModel", "nomic-embed-text")));
+        }
+        return config;
+    }
+    
     /**
      * Get RAG-enhanced provider (always wraps with RAG regardless of global setting)
      */
@@ -270,6 +406,7 @@ public class AIProviderManager {
      */
     public void refreshProvider() {
         Log.info("🔄 Refreshing AI provider...");
+        availability.clear();
         currentProvider = null;
         currentProviderType = null;
         getBestProvider();
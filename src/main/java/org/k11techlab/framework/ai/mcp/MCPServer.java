@@ -1,16 +1,27 @@
 package org.k11techlab.framework.ai.mcp;
 
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import org.k11techlab.framework.ai.mcp.handlers.*;
+import org.k11techlab.framework.ai.mcp.util.JobManager;
+import org.k11techlab.framework.ai.mcp.util.PlaywrightMCPClientPool;
 import org.k11techlab.framework.ai.rag.RAGEnhancedAIClient;
 import org.k11techlab.framework.ai.openai.OpenAIClient;
+import org.k11techlab.framework.ai.util.AIHttpTransport;
 import org.k11techlab.framework.selenium.webuitestengine.configManager.ConfigurationManager;
 import org.k11techlab.framework.ai.mcp.store.MongoContextStore;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MCPServer {
     private HttpServer server;
+    private ExecutorService executor;
+    private JobManager jobs;
+    private final Map<String, RouteHandler> routes = new LinkedHashMap<>();
 
     private final MongoContextStore contextStore =
             new MongoContextStore("mongodb://localhost:27017", "mcpdb", "context");
@@ -20,26 +31,73 @@ public class MCPServer {
 
     public void start(int port) throws IOException {
         server = HttpServer.create(new InetSocketAddress(port), 0);
+        jobs = new JobManager(intProp("mcp.jobs.maxUnfinished", 100),
+                intProp("mcp.jobs.retentionMinutes", 60) * 60_000L);
 
-        server.createContext("/mcp/health", new HealthHandler());
-        server.createContext("/mcp/completion", new CompletionHandler(aiClient));
-        server.createContext("/mcp/context", new ContextHandler(contextStore));
-        server.createContext("/mcp/context/list", new ContextListHandler(contextStore));
-        server.createContext("/mcp/workflow", new WorkflowHandler(aiClient, contextStore));
-        server.createContext("/mcp/correct-code", new CorrectCodeHandler(new OpenAIClient()));
-        server.createContext("/mcp/generate-and-run-selenium-test", new GenerateAndRunTestHandler());
-        server.createContext("/mcp/generate-and-run-playwright-test", new GenerateAndRunTestHandler());
-        server.createContext("/mcp/generate-page-object", new GeneratePageObjectHandler());
-        server.createContext("/mcp/test-code-review", new TestCodeReviewHandler(aiClient));
-        server.createContext("/mcp/report", new ReportingHandler());
+        // Cheap routes are unlimited; LLM and workflow routes get small limits so they cannot starve the rest
+        route("/mcp/health", new HealthHandler(), 0, 0);
+        route("/mcp/completion", new CompletionHandler(aiClient), 8, 32);
+        route("/mcp/context", new ContextHandler(contextStore), 32, 64);
+        route("/mcp/context/list", new ContextListHandler(contextStore), 32, 64);
+        route("/mcp/workflow", new WorkflowHandler(aiClient, contextStore), 4, 16);
+        route("/mcp/correct-code", new CorrectCodeHandler(new OpenAIClient()), 4, 16);
+        route("/mcp/generate-and-run-selenium-test", new GenerateAndRunTestHandler(), 2, 8);
+        route("/mcp/generate-and-run-playwright-test", new GenerateAndRunTestHandler(), 2, 8);
+        route("/mcp/generate-page-object", new GeneratePageObjectHandler(), 4, 16);
+        route("/mcp/test-code-review", new TestCodeReviewHandler(aiClient), 4, 16);
+        route("/mcp/report", new ReportingHandler(), 8, 32);
+        server.createContext("/mcp/jobs/", new JobStatusHandler(jobs));
+        server.createContext("/mcp/metrics", new MetricsHandler(routes.values(), jobs));
 
-        server.setExecutor(null);
+        executor = createExecutor(ConfigurationManager.getString("mcp.executor", "virtual"));
+        server.setExecutor(executor);
         server.start();
         System.out.println("MCP Server started on port " + port);
     }
 
+    /**
+     * Register a handler behind a RouteHandler. Limits can be overridden with
+     * mcp.route.<name>.maxConcurrent / .maxQueued, where name is the path after /mcp/.
+     */
+    private void route(String path, HttpHandler handler, int maxConcurrent, int maxQueued) {
+        String name = path.substring("/mcp/".length()).replace('/', '.');
+        RouteHandler limited = new RouteHandler(path, handler,
+                intProp("mcp.route." + name + ".maxConcurrent", maxConcurrent),
+                intProp("mcp.route." + name + ".maxQueued", maxQueued),
+                intProp("mcp.route.queueTimeoutSeconds", 30) * 1000L,
+                jobs);
+        routes.put(path, limited);
+        server.createContext(path, limited);
+    }
+
+    /**
+     * "virtual" (default): one virtual thread per request; "fixed:N": N platform threads;
+     * "dispatcher": the HttpServer dispatcher thread only (the old behaviour).
+     */
+    private static ExecutorService createExecutor(String mode) {
+        String m = mode.trim().toLowerCase();
+        if (m.equals("dispatcher")) return null;
+        if (m.startsWith("fixed")) {
+            int threads = m.contains(":") ? Integer.parseInt(m.substring(m.indexOf(':') + 1).trim()) : 16;
+            return Executors.newFixedThreadPool(threads);
+        }
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    private static int intProp(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(ConfigurationManager.getString(key, String.valueOf(defaultValue)).trim());
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+
     public void stop() {
         if (server != null) server.stop(0);
+        if (executor != null) executor.shutdownNow();
+        if (jobs != null) jobs.shutdown();
+        PlaywrightMCPClientPool.shutdownShared();
+        AIHttpTransport.shutdown();
     }
 
     public static void main(String[] args) throws IOException {
@@ -3,12 +3,16 @@ package org.k11techlab.framework.ai.mcp.handlers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import org.k11techlab.framework.ai.rag.RAGEnhancedAIClient;
+import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 
 import static org.k11techlab.framework.ai.util.HttpUtils.readBody;
 import static org.k11techlab.framework.ai.util.HttpUtils.escapeJson;
+import static org.k11techlab.framework.ai.util.HttpUtils.parseQuery;
 
 public class CompletionHandler implements HttpHandler {
 
@@ -27,6 +31,10 @@ public class CompletionHandler implements HttpHandler {
             }
 
             String prompt = readBody(exchange);
+            if (isStreamingRequested(exchange)) {
+                stream(exchange, prompt);
+                return;
+            }
             String result = aiClient.generateResponse(prompt);
 
             String response = "{\"result\":\"" + escapeJson(result) + "\"}";
@@ -42,4 +50,48 @@ public class CompletionHandler implements HttpHandler {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Chunked NDJSON response: one {"token":...} line per fragment as the model produces it,
+     * then {"done":true,"result":...} with the complete text, or {"done":true,"error":...} if the
+     * provider fails after some tokens were sent.
+     */
+    private void stream(HttpExchange exchange, String prompt) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson; charset=utf-8");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        // Length 0 selects chunked transfer encoding
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream os = exchange.getResponseBody()) {
+            try {
+                String result = aiClient.generateResponseStreaming(prompt, token -> {
+                    try {
+                        os.write(("{\"token\":\"" + escapeJson(token) + "\"}\n").getBytes(StandardCharsets.UTF_8));
+                        os.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                os.write(("{\"done\":true,\"result\":\"" + escapeJson(result) + "\"}\n").getBytes(StandardCharsets.UTF_8));
+            } catch (UncheckedIOException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                Log.LOGGER.warn("Completion stream failed: " + e.getMessage());
+                os.write(("{\"done\":true,\"error\":\"" + escapeJson(String.valueOf(e.getMessage())) + "\"}\n")
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (UncheckedIOException e) {
+            // client went away mid-stream
+            Log.LOGGER.info("Completion stream aborted: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Streaming is opt-in (?stream=true or Accept: application/x-ndjson) so existing
+     * clients keep receiving a single JSON object.
+     */
+    private static boolean isStreamingRequested(HttpExchange exchange) {
+        if ("true".equalsIgnoreCase(parseQuery(exchange.getRequestURI().getRawQuery()).get("stream"))) return true;
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        return accept != null && accept.contains("application/x-ndjson");
+    }
 }
@@ -1,28 +1,38 @@
 package org.k11techlab.framework.ai.mcp.handlers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import org.k11techlab.framework.ai.openai.OpenAIClient;
 import org.k11techlab.framework.ai.mcp.workflow.playwright.PlaywrightTestGenerator;
 import org.k11techlab.framework.ai.mcp.workflow.playwright.PlaywrightWorkflow;
 import org.k11techlab.framework.ai.mcp.util.PlaywrightMCPClient;
+import org.k11techlab.framework.ai.mcp.util.PlaywrightMCPClientPool;
 import org.k11techlab.framework.ai.mcp.workflow.selenium.SeleniumTestGenerator;
 import org.k11techlab.framework.ai.mcp.workflow.selenium.SeleniumWorkflow;
 import org.k11techlab.framework.ai.util.HttpUtils;
 import org.k11techlab.framework.ai.util.OpenAISeleniumTestGenerator;
 import org.k11techlab.framework.selenium.webuitestengine.configManager.ConfigurationManager;
+import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 
 import java.io.IOException;
 import java.util.Map;
 
 public class GenerateAndRunTestHandler implements HttpHandler {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private final SeleniumTestGenerator seleniumGenerator;
     private final SeleniumWorkflow seleniumWorkflow;
 
     private final PlaywrightTestGenerator playwrightGenerator;
     private final PlaywrightWorkflow playwrightWorkflow;
 
+    private final long borrowTimeoutMillis;
+    private final long callTimeoutMillis;
+
     public GenerateAndRunTestHandler() {
     OpenAIClient openAI = new OpenAIClient();
 
@@ -34,6 +44,9 @@ public class GenerateAndRunTestHandler implements HttpHandler {
     // Playwright wiring
     this.playwrightGenerator = new PlaywrightTestGenerator(openAI);
     this.playwrightWorkflow = new PlaywrightWorkflow();
+
+    this.borrowTimeoutMillis = Long.parseLong(ConfigurationManager.getString("mcp.playwright.borrowTimeoutSeconds", "180")) * 1000;
+    this.callTimeoutMillis = Long.parseLong(ConfigurationManager.getString("mcp.playwright.callTimeoutSeconds", "600")) * 1000;
    }
 
 
@@ -63,60 +76,29 @@ public class GenerateAndRunTestHandler implements HttpHandler {
         String result;
 
         if ("playwright".equalsIgnoreCase(engine)) {
-            // Use Playwright MCP via stdio, add debug output
-            int mcpPort = 8090;
-            try {
-                String portStr = ConfigurationManager.getBundle().getPropertyValue("mcp.port");
-                if (portStr != null && !portStr.isBlank()) {
-                    mcpPort = Integer.parseInt(portStr.trim());
+            // Borrow a warm, already initialised MCP process instead of forking npx per request
+            PlaywrightMCPClientPool pool = PlaywrightMCPClientPool.getShared();
+            Log.LOGGER.debug("Borrowing Playwright MCP client (" + pool.getStats() + ")");
+            try (PlaywrightMCPClientPool.Lease lease = pool.borrow(borrowTimeoutMillis)) {
+                PlaywrightMCPClient mcp = lease.client();
+                ObjectNode params = MAPPER.createObjectNode();
+                params.put("tool", "test.generateAndRun");
+                ObjectNode input = params.putObject("input");
+                input.put("scenario", scenario);
+                input.put("packageName", packageName);
+                input.put("className", classBase);
+                Log.LOGGER.debug("Sending MCP tools/call for " + classBase);
+                try {
+                    JsonNode mcpResponse = PlaywrightMCPClient.await(mcp.request("tools/call", params), callTimeoutMillis);
+                    testCode = ""; // You can parse test code from mcpResponse if needed
+                    result = mcpResponse.toString();
+                } catch (IOException e) {
+                    // A timed out or dead process may still be busy; do not hand it to the next caller
+                    lease.markBroken();
+                    throw e;
                 }
             } catch (Exception e) {
-                // fallback to default
-            }
-            System.out.println("[DEBUG] Starting PlaywrightMCPClient subprocess...");
-            try (PlaywrightMCPClient mcp = new PlaywrightMCPClient()) {
-                int id = mcp.nextId();
-                String initMsg = "{\n" +
-                        "  \"jsonrpc\": \"2.0\",\n" +
-                        "  \"id\": " + id + ",\n" +
-                        "  \"method\": \"initialize\",\n" +
-                        "  \"params\": {\n" +
-                        "    \"protocolVersion\": \"2025-06-18\",\n" +
-                        "    \"clientInfo\": { \"name\": \"java-playwright-framework\", \"version\": \"1.0.0\" },\n" +
-                        "    \"capabilities\": { }\n" +
-                        "  }\n" +
-                        "}\n";
-                System.out.println("[DEBUG] Sending MCP initialize message:");
-                System.out.println(initMsg);
-                mcp.sendJsonRpc(initMsg);
-                System.out.println("[DEBUG] Waiting for MCP initialize response...");
-                String initResp = mcp.readResponse();
-                System.out.println("[DEBUG] MCP initialize response: " + initResp);
-
-                int callId = mcp.nextId();
-                String callMsg = "{\n" +
-                        "  \"jsonrpc\": \"2.0\",\n" +
-                        "  \"id\": " + callId + ",\n" +
-                        "  \"method\": \"tools/call\",\n" +
-                        "  \"params\": {\n" +
-                        "    \"tool\": \"test.generateAndRun\",\n" +
-                        "    \"input\": {\n" +
-                        "      \"scenario\": " + escapeJsonForMCP(scenario) + ",\n" +
-                        "      \"packageName\": \"" + packageName + "\",\n" +
-                        "      \"className\": \"" + classBase + "\"\n" +
-                        "    }\n" +
-                        "  }\n" +
-                        "}\n";
-                System.out.println("[DEBUG] Sending MCP tools/call message:");
-                System.out.println(callMsg);
-                mcp.sendJsonRpc(callMsg);
-                System.out.println("[DEBUG] Waiting for MCP tools/call response...");
-                String mcpResponse = mcp.readResponse();
-                System.out.println("[DEBUG] MCP tools/call response: " + mcpResponse);
-                testCode = ""; // You can parse test code from mcpResponse if needed
-                result = mcpResponse;
-            } catch (Exception e) {
-                System.out.println("[DEBUG] MCP error: " + e.getMessage());
+                Log.LOGGER.warn("Playwright MCP call for " + classBase + " failed: " + e.getMessage());
                 testCode = "";
                 result = "ERROR: " + e.getMessage();
             }
@@ -143,25 +125,4 @@ private static String safeProp(String key) {
         return "";
     }
 }
-
-    // Escapes scenario string for JSON embedding in MCP call
-    private static String escapeJsonForMCP(String s) {
-        if (s == null) return "\"\"";
-        StringBuilder out = new StringBuilder("\"");
-        for (int i = 0; i < s.length(); i++) {
-            char c = s.charAt(i);
-            switch (c) {
-                case '\\': out.append("\\\\"); break;
-                case '"': out.append("\\\""); break;
-                case '\n': out.append("\\n"); break;
-                case '\r': out.append("\\r"); break;
-                case '\t': out.append("\\t"); break;
-                default:
-                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
-                    else out.append(c);
-            }
-        }
-        out.append('"');
-        return out.toString();
-    }
 }
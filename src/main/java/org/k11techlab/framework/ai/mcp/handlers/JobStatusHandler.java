@@ -0,0 +1,36 @@
+package org.k11techlab.framework.ai.mcp.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.k11techlab.framework.ai.mcp.util.JobManager;
+import org.k11techlab.framework.ai.util.HttpUtils;
+
+import java.io.IOException;
+
+/**
+ * GET /mcp/jobs/{id}: status of an async job and, once finished, the captured response.
+ */
+public class JobStatusHandler implements HttpHandler {
+
+    private final JobManager jobs;
+
+    public JobStatusHandler(JobManager jobs) {
+        this.jobs = jobs;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        String id = path.substring(path.lastIndexOf('/') + 1);
+        JobManager.Job job = jobs.get(id);
+        if (job == null) {
+            HttpUtils.writeJson(exchange, 404, "{\"error\":\"Unknown job " + HttpUtils.escapeJson(id) + "\"}");
+            return;
+        }
+        HttpUtils.writeJson(exchange, 200, job.toJson());
+    }
+}
@@ -0,0 +1,39 @@
+package org.k11techlab.framework.ai.mcp.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.k11techlab.framework.ai.mcp.util.JobManager;
+import org.k11techlab.framework.ai.util.AIHttpTransport;
+import org.k11techlab.framework.ai.util.HttpUtils;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * GET /mcp/metrics: per-route limits, queue depth, rejections and latency histograms,
+ * plus connection pool utilisation of the shared AI HTTP transport.
+ */
+public class MetricsHandler implements HttpHandler {
+
+    private final Collection<RouteHandler> routes;
+    private final JobManager jobs;
+
+    public MetricsHandler(Collection<RouteHandler> routes, JobManager jobs) {
+        this.routes = routes;
+        this.jobs = jobs;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        StringBuilder sb = new StringBuilder("{\"routes\":[");
+        boolean first = true;
+        for (RouteHandler r : routes) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append(r.toJson());
+        }
+        sb.append("],\"unfinishedJobs\":").append(jobs.getUnfinishedCount())
+                .append(",\"aiHttp\":").append(AIHttpTransport.statsJson()).append('}');
+        HttpUtils.writeJson(exchange, 200, sb.toString());
+    }
+}
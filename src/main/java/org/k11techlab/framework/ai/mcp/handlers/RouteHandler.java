@@ -0,0 +1,184 @@
+package org.k11techlab.framework.ai.mcp.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.k11techlab.framework.ai.mcp.util.BufferedHttpExchange;
+import org.k11techlab.framework.ai.mcp.util.JobManager;
+import org.k11techlab.framework.ai.mcp.util.LatencyHistogram;
+import org.k11techlab.framework.ai.util.HttpUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps a route's handler with:
+ * - a concurrency limit and a bounded wait queue; requests beyond both get 429 with Retry-After
+ * - a latency histogram and counters exposed through /mcp/metrics
+ * - async submission: with ?async=true (or "Prefer: respond-async") the request is answered with
+ *   202 and a job id, and the handler runs as a job whose result is polled at /mcp/jobs/{id}
+ * It also guarantees a response: a handler that throws before sending headers yields 500.
+ */
+public class RouteHandler implements HttpHandler {
+
+    private final String route;
+    private final HttpHandler delegate;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long queueTimeoutMillis;
+    private final JobManager jobs;
+
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong serverErrors = new AtomicLong();
+    private final AtomicLong asyncSubmitted = new AtomicLong();
+
+    /**
+     * @param maxConcurrent handlers running at once; 0 or less means unlimited
+     * @param maxQueued requests allowed to wait for a slot
+     * @param queueTimeoutMillis how long a queued request waits before it is rejected
+     * @param jobs job manager for async submission; null disables it for this route
+     */
+    public RouteHandler(String route, HttpHandler delegate, int maxConcurrent, int maxQueued,
+                        long queueTimeoutMillis, JobManager jobs) {
+        this.route = route;
+        this.delegate = delegate;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = Math.max(0, maxQueued);
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.jobs = jobs;
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (jobs != null && isAsyncRequested(exchange)) {
+            submitAsync(exchange);
+            return;
+        }
+        if (!enter(false)) {
+            reject(exchange);
+            return;
+        }
+        try {
+            run(exchange);
+        } finally {
+            leave();
+            exchange.close();
+        }
+    }
+
+    private void submitAsync(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream is = exchange.getRequestBody()) {
+            body = is.readAllBytes();
+        }
+        BufferedHttpExchange buffered = new BufferedHttpExchange(exchange, body);
+        JobManager.Job job = jobs.submit(route, buffered, ex -> {
+            // Jobs wait for a slot without the sync queue bound; the job manager bounds them instead
+            enter(true);
+            try {
+                run(ex);
+            } finally {
+                leave();
+            }
+        });
+        if (job == null) {
+            reject(exchange);
+            return;
+        }
+        asyncSubmitted.incrementAndGet();
+        exchange.getResponseHeaders().add("Location", "/mcp/jobs/" + job.id);
+        HttpUtils.writeJson(exchange, 202, "{\"jobId\":\"" + job.id + "\",\"status\":\"" + job.getStatus()
+                + "\",\"statusUrl\":\"/mcp/jobs/" + job.id + "\"}");
+    }
+
+    private void run(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        active.incrementAndGet();
+        try {
+            delegate.handle(exchange);
+            if (exchange.getResponseCode() == -1) {
+                serverErrors.incrementAndGet();
+                HttpUtils.writeJson(exchange, 500, "{\"error\":\"No response from handler\"}");
+            } else if (exchange.getResponseCode() >= 500) {
+                serverErrors.incrementAndGet();
+            }
+        } catch (Exception e) {
+            serverErrors.incrementAndGet();
+            if (exchange.getResponseCode() == -1) {
+                HttpUtils.writeJson(exchange, 500, "{\"error\":\"" + HttpUtils.escapeJson(String.valueOf(e.getMessage())) + "\"}");
+            }
+        } finally {
+            active.decrementAndGet();
+            latency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Take a slot, queueing if allowed. Unbounded callers (async jobs) wait as long as needed.
+     */
+    private boolean enter(boolean unbounded) {
+        if (permits == null || permits.tryAcquire()) return true;
+        if (!unbounded && queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            return false;
+        }
+        if (unbounded) queued.incrementAndGet();
+        try {
+            if (unbounded) {
+                permits.acquire();
+                return true;
+            }
+            return permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private void leave() {
+        if (permits != null) permits.release();
+    }
+
+    private void reject(HttpExchange exchange) throws IOException {
+        rejected.incrementAndGet();
+        exchange.getResponseHeaders().add("Retry-After", String.valueOf(Math.max(1, queueTimeoutMillis / 1000)));
+        HttpUtils.writeJson(exchange, 429, "{\"error\":\"Too many concurrent requests for " + route + "\"}");
+        exchange.close();
+    }
+
+    private static boolean isAsyncRequested(HttpExchange exchange) {
+        String prefer = exchange.getRequestHeaders().getFirst("Prefer");
+        if (prefer != null && prefer.toLowerCase().contains("respond-async")) return true;
+        return "true".equalsIgnoreCase(HttpUtils.parseQuery(exchange.getRequestURI().getRawQuery()).get("async"));
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public String toJson() {
+        return "{\"route\":\"" + HttpUtils.escapeJson(route) + "\""
+                + ",\"maxConcurrent\":" + maxConcurrent
+                + ",\"maxQueued\":" + maxQueued
+                + ",\"active\":" + active.get()
+                + ",\"queued\":" + queued.get()
+                + ",\"rejected\":" + rejected.get()
+                + ",\"serverErrors\":" + serverErrors.get()
+                + ",\"asyncSubmitted\":" + asyncSubmitted.get()
+                + ",\"latency\":" + latency.toJson() + "}";
+    }
+}
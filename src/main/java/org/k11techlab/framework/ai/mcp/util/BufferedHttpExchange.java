@@ -0,0 +1,82 @@
+package org.k11techlab.framework.ai.mcp.util;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detached copy of an HttpExchange: the request is buffered up front and the response is captured
+ * in memory, so a handler can run after the client connection has been answered (async jobs).
+ */
+public class BufferedHttpExchange extends HttpExchange {
+
+    private final Headers requestHeaders = new Headers();
+    private final Headers responseHeaders = new Headers();
+    private final URI requestURI;
+    private final String requestMethod;
+    private final HttpContext context;
+    private final InetSocketAddress remoteAddress;
+    private final InetSocketAddress localAddress;
+    private final String protocol;
+    private final Map<String, Object> attributes = new HashMap<>();
+    private InputStream requestBody;
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    private OutputStream responseBody = captured;
+    private volatile int responseCode = -1;
+
+    public BufferedHttpExchange(HttpExchange original, byte[] body) {
+        for (Map.Entry<String, List<String>> e : original.getRequestHeaders().entrySet()) {
+            requestHeaders.put(e.getKey(), e.getValue());
+        }
+        this.requestURI = original.getRequestURI();
+        this.requestMethod = original.getRequestMethod();
+        this.context = original.getHttpContext();
+        this.remoteAddress = original.getRemoteAddress();
+        this.localAddress = original.getLocalAddress();
+        this.protocol = original.getProtocol();
+        this.requestBody = new ByteArrayInputStream(body);
+    }
+
+    public String getCapturedBody() {
+        return new String(captured.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    public String getCapturedContentType() {
+        return responseHeaders.getFirst("Content-Type");
+    }
+
+    @Override public Headers getRequestHeaders() { return requestHeaders; }
+    @Override public Headers getResponseHeaders() { return responseHeaders; }
+    @Override public URI getRequestURI() { return requestURI; }
+    @Override public String getRequestMethod() { return requestMethod; }
+    @Override public HttpContext getHttpContext() { return context; }
+    @Override public void close() { }
+    @Override public InputStream getRequestBody() { return requestBody; }
+    @Override public OutputStream getResponseBody() { return responseBody; }
+    @Override public void sendResponseHeaders(int rCode, long responseLength) { this.responseCode = rCode; }
+    @Override public InetSocketAddress getRemoteAddress() { return remoteAddress; }
+    @Override public int getResponseCode() { return responseCode; }
+    @Override public InetSocketAddress getLocalAddress() { return localAddress; }
+    @Override public String getProtocol() { return protocol; }
+    @Override public Object getAttribute(String name) { return attributes.get(name); }
+    @Override public void setAttribute(String name, Object value) { attributes.put(name, value); }
+    @Override public HttpPrincipal getPrincipal() { return null; }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) requestBody = i;
+        if (o != null) responseBody = o;
+    }
+}
@@ -0,0 +1,124 @@
+package org.k11techlab.framework.ai.mcp.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.k11techlab.framework.ai.util.HttpUtils.escapeJson;
+
+/**
+ * Async jobs for long-running MCP requests (LLM generation, generate-and-run workflows).
+ * A job runs a route's handler against a {@link BufferedHttpExchange}; clients poll
+ * /mcp/jobs/{id} for its status and, once finished, the captured response.
+ * The number of unfinished jobs is bounded; finished jobs are kept for the retention period.
+ */
+public class JobManager {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    /**
+     * Work done by a job; fills the exchange's response
+     */
+    public interface JobBody {
+        void run(BufferedHttpExchange exchange) throws Exception;
+    }
+
+    public static class Job {
+        public final String id;
+        public final String route;
+        public final long submittedAt = System.currentTimeMillis();
+        volatile Status status = Status.QUEUED;
+        volatile long startedAt;
+        volatile long finishedAt;
+        volatile String error;
+        final BufferedHttpExchange exchange;
+
+        Job(String id, String route, BufferedHttpExchange exchange) {
+            this.id = id;
+            this.route = route;
+            this.exchange = exchange;
+        }
+
+        public Status getStatus() { return status; }
+
+        public String toJson() {
+            StringBuilder sb = new StringBuilder("{");
+            sb.append("\"jobId\":\"").append(id).append("\"")
+                    .append(",\"route\":\"").append(escapeJson(route)).append("\"")
+                    .append(",\"status\":\"").append(status).append("\"")
+                    .append(",\"submittedAt\":").append(submittedAt);
+            if (startedAt > 0) sb.append(",\"queuedMs\":").append(startedAt - submittedAt);
+            if (finishedAt > 0) {
+                sb.append(",\"runMs\":").append(finishedAt - startedAt)
+                        .append(",\"responseCode\":").append(exchange.getResponseCode())
+                        .append(",\"contentType\":\"").append(escapeJson(String.valueOf(exchange.getCapturedContentType()))).append("\"")
+                        .append(",\"response\":\"").append(escapeJson(exchange.getCapturedBody())).append("\"");
+            }
+            if (error != null) sb.append(",\"error\":\"").append(escapeJson(error)).append("\"");
+            return sb.append("}").toString();
+        }
+    }
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger unfinished = new AtomicInteger();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int maxUnfinished;
+    private final long retentionMillis;
+
+    public JobManager(int maxUnfinished, long retentionMillis) {
+        this.maxUnfinished = maxUnfinished;
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * Submit a job, or return null when maxUnfinished jobs are already queued or running.
+     */
+    public Job submit(String route, BufferedHttpExchange exchange, JobBody body) {
+        purgeExpired();
+        if (unfinished.incrementAndGet() > maxUnfinished) {
+            unfinished.decrementAndGet();
+            return null;
+        }
+        Job job = new Job(UUID.randomUUID().toString(), route, exchange);
+        jobs.put(job.id, job);
+        executor.execute(() -> {
+            job.startedAt = System.currentTimeMillis();
+            job.status = Status.RUNNING;
+            try {
+                body.run(exchange);
+                job.status = exchange.getResponseCode() >= 200 && exchange.getResponseCode() < 400 ? Status.SUCCEEDED : Status.FAILED;
+            } catch (Exception e) {
+                job.error = e.toString();
+                job.status = Status.FAILED;
+            } finally {
+                job.finishedAt = System.currentTimeMillis();
+                unfinished.decrementAndGet();
+            }
+        });
+        return job;
+    }
+
+    public Job get(String id) {
+        return jobs.get(id);
+    }
+
+    public int getUnfinishedCount() {
+        return unfinished.get();
+    }
+
+    private void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        for (Iterator<Job> it = jobs.values().iterator(); it.hasNext(); ) {
+            Job j = it.next();
+            if (j.finishedAt > 0 && j.finishedAt < cutoff) it.remove();
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
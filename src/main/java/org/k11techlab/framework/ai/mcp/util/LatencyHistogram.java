@@ -0,0 +1,53 @@
+package org.k11techlab.framework.ai.mcp.util;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+
+/**
+ * Latency histogram for one route, recorded in microseconds in an HdrHistogram with 3 significant
+ * digits, the same as ApiLoadRunner. Safe for concurrent recording.
+ */
+public class LatencyHistogram {
+
+    private final Histogram histogram = new ConcurrentHistogram(3);
+
+    public void record(long nanos) {
+        histogram.recordValue(Math.max(0, nanos / 1000));
+    }
+
+    public long getCount() {
+        return histogram.getTotalCount();
+    }
+
+    public double getMeanMillis() {
+        return getCount() == 0 ? 0 : histogram.getMean() / 1000.0;
+    }
+
+    public double getMaxMillis() {
+        return histogram.getMaxValue() / 1000.0;
+    }
+
+    /**
+     * @param percentile e.g. 99
+     * @return latency at the percentile in milliseconds
+     */
+    public double getPercentileMillis(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public String toJson() {
+        return "{\"count\":" + getCount()
+                + ",\"meanMs\":" + format(getMeanMillis())
+                + ",\"p50Ms\":" + format(getPercentileMillis(50))
+                + ",\"p90Ms\":" + format(getPercentileMillis(90))
+                + ",\"p99Ms\":" + format(getPercentileMillis(99))
+                + ",\"p999Ms\":" + format(getPercentileMillis(99.9))
+                + ",\"maxMs\":" + format(getMaxMillis()) + "}";
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.1f", millis);
+    }
+}
@@ -1,28 +1,58 @@
 package org.k11techlab.framework.ai.mcp.util;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility for communicating with Playwright MCP server via JSON-RPC over stdio.
+ *
+ * A background reader thread parses every line from the process and completes the pending
+ * request with the matching JSON-RPC id, so several requests can be in flight on one process.
+ * Lines that match no pending request (notifications, npx/Chromium log output, responses to
+ * messages sent with {@link #sendJsonRpc}) are queued for {@link #readResponse()}.
  */
 public class PlaywrightMCPClient implements Closeable {
+
+    public static final List<String> DEFAULT_COMMAND = Arrays.asList(
+            "npx",
+            "@playwright/mcp@latest",
+            "--headless",
+            "--isolated",
+            "--output-dir=./artifacts/mcp"
+    );
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private final Process process;
     private final BufferedWriter writer;
     private final BufferedReader reader;
     private final AtomicInteger idGen = new AtomicInteger(1);
+    private final Map<Integer, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> unmatched = new LinkedBlockingQueue<>(1000);
+    private final Thread readerThread;
+    private final long createdAt = System.currentTimeMillis();
+    private volatile boolean closed;
 
     public PlaywrightMCPClient() throws IOException {
-        this.process = new ProcessBuilder(
-                "npx",
-                "@playwright/mcp@latest",
-                "--headless",
-                "--isolated",
-                "--output-dir=./artifacts/mcp"
-        ).redirectErrorStream(true).start();
+        this(DEFAULT_COMMAND);
+    }
+
+    public PlaywrightMCPClient(List<String> command) throws IOException {
+        this.process = new ProcessBuilder(command).redirectErrorStream(true).start();
         this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
         this.reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        this.readerThread = new Thread(this::readLoop, "playwright-mcp-reader-" + process.pid());
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
     }
 
     public int nextId() {
@@ -30,20 +60,196 @@ public class PlaywrightMCPClient implements Closeable {
     }
 
     public void sendJsonRpc(String json) throws IOException {
-        writer.write(json);
-        writer.write("\n");
-        writer.flush();
+        // The protocol is one message per line
+        String line = json.trim().replace("\r", "").replace("\n", " ");
+        synchronized (writer) {
+            writer.write(line);
+            writer.write("\n");
+            writer.flush();
+        }
     }
 
+    /**
+     * Next line not claimed by a pending {@link #request}; null once the process has exited.
+     */
     public String readResponse() throws IOException {
-        // Reads a single line (one JSON-RPC response)
-        return reader.readLine();
+        try {
+            while (true) {
+                String line = unmatched.poll(500, TimeUnit.MILLISECONDS);
+                if (line != null) return line;
+                if (!readerThread.isAlive() && unmatched.isEmpty()) return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for MCP response");
+        }
+    }
+
+    /**
+     * Send a JSON-RPC request and return a future completed with its response message
+     * (the whole object, including "result" or "error").
+     */
+    public CompletableFuture<JsonNode> request(String method, JsonNode params) {
+        int id = nextId();
+        CompletableFuture<JsonNode> future = new CompletableFuture<>();
+        pending.put(id, future);
+        ObjectNode msg = MAPPER.createObjectNode();
+        msg.put("jsonrpc", "2.0");
+        msg.put("id", id);
+        msg.put("method", method);
+        if (params != null) msg.set("params", params);
+        try {
+            sendJsonRpc(MAPPER.writeValueAsString(msg));
+        } catch (IOException e) {
+            pending.remove(id);
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((r, t) -> pending.remove(id));
+        return future;
+    }
+
+    /**
+     * Send a JSON-RPC notification (no id, no response)
+     */
+    public void notify(String method, JsonNode params) throws IOException {
+        ObjectNode msg = MAPPER.createObjectNode();
+        msg.put("jsonrpc", "2.0");
+        msg.put("method", method);
+        if (params != null) msg.set("params", params);
+        sendJsonRpc(MAPPER.writeValueAsString(msg));
+    }
+
+    /**
+     * MCP initialize handshake followed by the initialized notification.
+     */
+    public JsonNode initialize(long timeoutMillis) throws IOException {
+        ObjectNode params = MAPPER.createObjectNode();
+        params.put("protocolVersion", "2025-06-18");
+        ObjectNode clientInfo = params.putObject("clientInfo");
+        clientInfo.put("name", "java-playwright-framework");
+        clientInfo.put("version", "1.0.0");
+        params.putObject("capabilities");
+        JsonNode response = await(request("initialize", params), timeoutMillis);
+        notify("notifications/initialized", null);
+        return response;
+    }
+
+    /**
+     * Health check: process alive and answering an MCP ping within the timeout.
+     */
+    public boolean ping(long timeoutMillis) {
+        if (!isAlive()) return false;
+        try {
+            JsonNode response = await(request("ping", null), timeoutMillis);
+            return !response.has("error");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Close the browser through the MCP browser_close tool, so the next session starts without the
+     * previous one's pages, cookies and logins (the server runs --isolated, so nothing is kept on disk).
+     *
+     * @return false if the server reported an error or did not answer in time
+     */
+    public boolean resetBrowser(long timeoutMillis) {
+        if (!isAlive()) return false;
+        ObjectNode params = MAPPER.createObjectNode();
+        params.put("name", "browser_close");
+        params.putObject("arguments");
+        try {
+            JsonNode response = await(request("tools/call", params), timeoutMillis);
+            return !response.has("error") && !response.path("result").path("isError").asBoolean(false);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public boolean isAlive() {
+        return !closed && process.isAlive() && readerThread.isAlive();
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Wait for a response future, converting timeouts and failures to IOException.
+     */
+    public static JsonNode await(CompletableFuture<JsonNode> future, long timeoutMillis) throws IOException {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("No MCP response within " + timeoutMillis + " ms");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for MCP response");
+        }
+    }
+
+    private void readLoop() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Long-lived pooled processes log a lot; keep only the most recent unclaimed lines
+                if (!dispatch(line)) {
+                    while (!unmatched.offer(line)) unmatched.poll();
+                }
+            }
+        } catch (IOException e) {
+            // stream closed
+        } finally {
+            IOException gone = new IOException("Playwright MCP process exited");
+            for (CompletableFuture<JsonNode> f : pending.values()) f.completeExceptionally(gone);
+            pending.clear();
+        }
+    }
+
+    /**
+     * Complete the pending request matching this line's id; false if the line is not such a response.
+     */
+    private boolean dispatch(String line) {
+        String trimmed = line.trim();
+        if (!trimmed.startsWith("{")) return false;
+        try {
+            JsonNode node = MAPPER.readTree(trimmed);
+            JsonNode id = node.get("id");
+            if (id == null || !id.canConvertToInt() || node.has("method")) return false;
+            CompletableFuture<JsonNode> future = pending.remove(id.asInt());
+            if (future == null) return false;
+            future.complete(node);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     @Override
     public void close() throws IOException {
-        writer.close();
-        reader.close();
+        closed = true;
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+            // process may already be gone
+        }
+        // npx starts node which starts Chromium; take the whole tree down
+        process.descendants().forEach(ProcessHandle::destroy);
         process.destroy();
+        try {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) process.destroyForcibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+        reader.close();
     }
 }
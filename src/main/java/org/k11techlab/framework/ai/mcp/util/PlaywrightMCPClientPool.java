@@ -0,0 +1,318 @@
+package org.k11techlab.framework.ai.mcp.util;
+
+import org.k11techlab.framework.selenium.webuitestengine.configManager.ConfigurationManager;
+import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of initialised Playwright MCP processes.
+ *
+ * Starting a client forks npx, resolves @playwright/mcp, launches Chromium and runs the MCP
+ * handshake, which costs seconds per request. The pool keeps up to minIdle processes warm,
+ * lends each one to a single caller at a time (browser state is per process) and:
+ * - pings clients that sat idle longer than the health check interval before lending them
+ * - closes clients idle longer than the idle timeout, down to minIdle
+ * - replaces clients the caller marked broken or whose process died
+ * - closes the browser of every returned client, discarding it if that fails, so pages, cookies
+ *   and logins never carry over from one caller to the next
+ */
+public class PlaywrightMCPClientPool implements Closeable {
+
+    private static volatile PlaywrightMCPClientPool shared;
+
+    /**
+     * Factory for new, not yet initialised clients
+     */
+    public interface ClientFactory {
+        PlaywrightMCPClient create() throws IOException;
+    }
+
+    private static class Idle {
+        final PlaywrightMCPClient client;
+        final long since;
+
+        Idle(PlaywrightMCPClient client, long since) {
+            this.client = client;
+            this.since = since;
+        }
+    }
+
+    /**
+     * A borrowed client; closing the lease returns it to the pool.
+     */
+    public class Lease implements AutoCloseable {
+        private final PlaywrightMCPClient client;
+        private boolean broken;
+        private boolean returned;
+
+        Lease(PlaywrightMCPClient client) {
+            this.client = client;
+        }
+
+        public PlaywrightMCPClient client() {
+            return client;
+        }
+
+        /** Discard the process instead of returning it, e.g. after a timeout */
+        public void markBroken() {
+            broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (returned) return;
+            returned = true;
+            release(client, broken);
+        }
+    }
+
+    private final ClientFactory factory;
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMillis;
+    private final long healthCheckAfterMillis;
+    private final long initTimeoutMillis;
+    private final long resetTimeoutMillis;
+
+    private final LinkedBlockingDeque<Idle> idle = new LinkedBlockingDeque<>();
+    private final Semaphore leases;
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService maintenance;
+    private volatile boolean closed;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong warmHits = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong failedHealthChecks = new AtomicLong();
+    private final AtomicLong failedResets = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    public PlaywrightMCPClientPool(ClientFactory factory, int maxSize, int minIdle, long idleTimeoutMillis,
+                                   long healthCheckAfterMillis, long initTimeoutMillis) {
+        this.factory = factory;
+        this.maxSize = Math.max(1, maxSize);
+        this.minIdle = Math.max(0, Math.min(minIdle, this.maxSize));
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.healthCheckAfterMillis = healthCheckAfterMillis;
+        this.initTimeoutMillis = initTimeoutMillis;
+        this.resetTimeoutMillis = Math.max(1000, Math.min(initTimeoutMillis, 30_000));
+        this.leases = new Semaphore(this.maxSize, true);
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "playwright-mcp-pool");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, 30_000));
+        maintenance.scheduleWithFixedDelay(this::maintain, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Process-wide pool configured from mcp.playwright.pool.* properties
+     */
+    public static PlaywrightMCPClientPool getShared() {
+        if (shared == null) {
+            synchronized (PlaywrightMCPClientPool.class) {
+                if (shared == null) {
+                    shared = new PlaywrightMCPClientPool(PlaywrightMCPClient::new,
+                            Integer.parseInt(ConfigurationManager.getString("mcp.playwright.pool.maxSize", "2")),
+                            Integer.parseInt(ConfigurationManager.getString("mcp.playwright.pool.minIdle", "1")),
+                            Long.parseLong(ConfigurationManager.getString("mcp.playwright.pool.idleTimeoutSeconds", "600")) * 1000,
+                            Long.parseLong(ConfigurationManager.getString("mcp.playwright.pool.healthCheckAfterSeconds", "30")) * 1000,
+                            Long.parseLong(ConfigurationManager.getString("mcp.playwright.pool.initTimeoutSeconds", "120")) * 1000);
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Close the shared pool if it was ever created
+     */
+    public static void shutdownShared() {
+        synchronized (PlaywrightMCPClientPool.class) {
+            if (shared != null) {
+                shared.close();
+                shared = null;
+            }
+        }
+    }
+
+    /**
+     * Borrow an initialised client, waiting up to timeoutMillis for one to become free.
+     */
+    public Lease borrow(long timeoutMillis) throws IOException {
+        if (closed) throw new IOException("Playwright MCP pool is closed");
+        long start = System.nanoTime();
+        try {
+            if (!leases.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IOException("No Playwright MCP client available within " + timeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a Playwright MCP client");
+        }
+        try {
+            PlaywrightMCPClient client = takeHealthyIdle();
+            while (client == null && !reserveSlot()) {
+                // A pre-start is in flight and holds the last slot; wait for it rather than overshooting
+                long remaining = timeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (remaining <= 0) {
+                    throw new IOException("No Playwright MCP client available within " + timeoutMillis + " ms");
+                }
+                Idle next = idle.pollFirst(Math.min(remaining, 250), TimeUnit.MILLISECONDS);
+                if (next != null) {
+                    idle.offerFirst(next);
+                    client = takeHealthyIdle();
+                }
+            }
+            if (client != null) {
+                warmHits.incrementAndGet();
+            } else {
+                client = createInitialised();
+            }
+            borrowed.incrementAndGet();
+            waitNanos.addAndGet(System.nanoTime() - start);
+            return new Lease(client);
+        } catch (InterruptedException e) {
+            leases.release();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a Playwright MCP client");
+        } catch (IOException | RuntimeException e) {
+            leases.release();
+            throw e;
+        }
+    }
+
+    private PlaywrightMCPClient takeHealthyIdle() {
+        Idle candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            PlaywrightMCPClient client = candidate.client;
+            boolean needsPing = System.currentTimeMillis() - candidate.since > healthCheckAfterMillis;
+            if (client.isAlive() && (!needsPing || client.ping(5000))) {
+                return client;
+            }
+            failedHealthChecks.incrementAndGet();
+            discard(client);
+        }
+        return null;
+    }
+
+    /**
+     * Claims one of the maxSize process slots before a client is started, so a borrower and the
+     * maintenance pre-start cannot both take the last one.
+     */
+    private boolean reserveSlot() {
+        return total.getAndUpdate(n -> n < maxSize ? n + 1 : n) < maxSize;
+    }
+
+    /**
+     * Starts a client in a slot already taken with reserveSlot(); the slot is given back on failure
+     */
+    private PlaywrightMCPClient createInitialised() throws IOException {
+        PlaywrightMCPClient client = null;
+        try {
+            client = factory.create();
+            client.initialize(initTimeoutMillis);
+            created.incrementAndGet();
+            return client;
+        } catch (IOException | RuntimeException e) {
+            total.decrementAndGet();
+            if (client != null) closeQuietly(client);
+            throw e;
+        }
+    }
+
+    private void release(PlaywrightMCPClient client, boolean broken) {
+        try {
+            if (broken || closed || !client.isAlive()) {
+                discard(client);
+            } else if (!client.resetBrowser(resetTimeoutMillis)) {
+                failedResets.incrementAndGet();
+                discard(client);
+            } else {
+                // LIFO: the most recently used process is the warmest
+                idle.offerFirst(new Idle(client, System.currentTimeMillis()));
+            }
+        } finally {
+            leases.release();
+        }
+    }
+
+    private void discard(PlaywrightMCPClient client) {
+        total.decrementAndGet();
+        closeQuietly(client);
+    }
+
+    /**
+     * Evict idle clients past the idle timeout (keeping minIdle), drop dead ones and refill to minIdle.
+     */
+    private void maintain() {
+        if (closed) return;
+        long now = System.currentTimeMillis();
+        List<Idle> snapshot = new ArrayList<>(idle);
+        int keep = idle.size();
+        // Oldest idle clients sit at the tail
+        for (int i = snapshot.size() - 1; i >= 0; i--) {
+            Idle entry = snapshot.get(i);
+            boolean dead = !entry.client.isAlive();
+            boolean expired = now - entry.since > idleTimeoutMillis && keep > minIdle;
+            if ((dead || expired) && idle.remove(entry)) {
+                keep--;
+                if (expired) evicted.incrementAndGet(); else failedHealthChecks.incrementAndGet();
+                discard(entry.client);
+            }
+        }
+        while (!closed && idle.size() < minIdle && reserveSlot()) {
+            try {
+                PlaywrightMCPClient client = createInitialised();
+                idle.offerLast(new Idle(client, System.currentTimeMillis()));
+            } catch (IOException | RuntimeException e) {
+                Log.LOGGER.warn("Could not pre-start Playwright MCP client: " + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getTotalCount() {
+        return total.get();
+    }
+
+    public String getStats() {
+        long b = borrowed.get();
+        return String.format("total=%d idle=%d created=%d borrowed=%d warmHits=%d evicted=%d failedHealthChecks=%d failedResets=%d avgWait=%.0fms",
+                total.get(), idle.size(), created.get(), b, warmHits.get(), evicted.get(), failedHealthChecks.get(), failedResets.get(),
+                b == 0 ? 0.0 : waitNanos.get() / 1e6 / b);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        maintenance.shutdownNow();
+        for (Iterator<Idle> it = idle.iterator(); it.hasNext(); ) {
+            Idle entry = it.next();
+            it.remove();
+            discard(entry.client);
+        }
+    }
+
+    private static void closeQuietly(PlaywrightMCPClient client) {
+        try {
+            client.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+    }
+}
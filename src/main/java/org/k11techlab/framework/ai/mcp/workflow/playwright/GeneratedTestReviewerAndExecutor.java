@@ -1,9 +1,11 @@
 package org.k11techlab.framework.ai.mcp.workflow.playwright;
 
+import org.k11techlab.framework.ai.engine.InMemoryTestEngine;
 import org.k11techlab.framework.ai.openai.OpenAIClient;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.io.IOException;
+import java.util.Collections;
 
 public class GeneratedTestReviewerAndExecutor {
     public static void main(String[] args) {
@@ -39,7 +41,24 @@ public class GeneratedTestReviewerAndExecutor {
             return;
         }
 
-        // 3. Execute the test using Maven (TestNG)
+        // 3. Execute the test in process (javax.tools + TestNG); fall back to Maven on a JRE
+        if (InMemoryTestEngine.isAvailable()) {
+            System.out.println("\n--- Executing Generated Test in process ---\n");
+            try {
+                InMemoryTestEngine engine = new InMemoryTestEngine("test-output");
+                InMemoryTestEngine.CompileResult compiled = engine.compile(Collections.singletonList(code));
+                if (!compiled.isSuccess()) {
+                    System.out.println("Compilation failed:\n" + compiled.formatDiagnostics());
+                    return;
+                }
+                InMemoryTestEngine.RunResult result = engine.run(compiled, InMemoryTestEngine.className(code));
+                System.out.println(result.summary());
+                System.out.println("\nTest execution finished: " + (result.isSuccess() ? "PASSED" : "FAILED"));
+            } catch (Exception e) {
+                System.err.println("Failed to execute test: " + e.getMessage());
+            }
+            return;
+        }
         System.out.println("\n--- Executing Generated Test with Maven ---\n");
         try {
             // Read Maven path from mcp-config.properties
@@ -49,7 +68,7 @@ public class GeneratedTestReviewerAndExecutor {
             }
             String mavenCmd = props.getProperty("maven.cmd.path", "mvn");
             ProcessBuilder pb = new ProcessBuilder(
-                mavenCmd, "-Dtest=org.k11techlab.framework_unittests.ai_generated.LoginFunctionalityTest", "test"
+                mavenCmd, "-Dtest=" + testClassName, "test"
             );
             pb.redirectErrorStream(true);
             Process process = pb.start();
@@ -3,6 +3,7 @@ package org.k11techlab.framework.ai.mcp.workflow.playwright;
 
 import org.k11techlab.framework.ai.openai.OpenAIClient;
 import org.k11techlab.framework.ai.engine.AICompileRepairEngine;
+import org.k11techlab.framework.ai.engine.InMemoryTestEngine;
 import org.k11techlab.framework.selenium.webuitestengine.configManager.ConfigurationManager;
 
 import java.io.File;
@@ -14,7 +15,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -49,6 +53,8 @@ public class PlaywrightWorkflow {
         String reportSrc = ConfigurationManager.getString("report.src", "test-output/emailable-report.html");
         String destDir = ConfigurationManager.getString("maven.test.dir", "src/test/ai_generated");
         int maxFixAttempts = Integer.parseInt(ConfigurationManager.getString("maxFixAttempts", "2"));
+        // "inprocess" compiles and runs with javax.tools + TestNG in this JVM; "maven" forks mvn per attempt
+        String testRunner = ConfigurationManager.getString("test.runner", "inprocess");
         // Empty the mcp_testlog directory before test run
         FileUtil.emptyDirectory(mcpLogDir);
         new File(mcpLogDir).mkdirs();
@@ -143,8 +149,17 @@ public class PlaywrightWorkflow {
         AICompileRepairEngine repairEngine = new AICompileRepairEngine(openAI, maxFixAttempts);
         Path javaFilePath = destFile.toPath();
         String lastOutput = "";
+        InMemoryTestEngine engine = null;
+        if ("inprocess".equalsIgnoreCase(testRunner) && InMemoryTestEngine.isAvailable()) {
+            Path reportDir = Paths.get(reportSrc).getParent();
+            engine = new InMemoryTestEngine(reportDir != null ? reportDir.toString() : "test-output");
+        } else {
+            log.append("Running tests with ").append(mavenCmd).append("\n");
+        }
         for (int attempt = 0; attempt <= maxFixAttempts; attempt++) {
-            RunResult rr = runMavenTest(mavenCmd, packageName + "." + classNameBase + "Test");
+            RunResult rr = engine != null
+                    ? runInProcess(engine, javaFilePath, Paths.get(outputDir), testFileName)
+                    : runMavenTest(mavenCmd, packageName + "." + classNameBase + "Test");
             lastOutput = rr.output;
             log.append("\n--- Attempt ").append(attempt + 1).append(" ---\n");
             log.append(lastOutput).append("\n");
@@ -157,8 +172,9 @@ public class PlaywrightWorkflow {
                 break;
             }
             String brokenCode = new String(Files.readAllBytes(javaFilePath), StandardCharsets.UTF_8);
-            String fixedCode = repairEngine.fixJavaCompilationErrors(
-                    brokenCode, rr.output, scenario, packageName, classNameBase + "Test");
+            String fixedCode = rr.compileErrors != null
+                    ? repairEngine.fixJavaCompilationErrors(brokenCode, rr.compileErrors, scenario, packageName, classNameBase + "Test")
+                    : repairEngine.fixJavaCompilationErrors(brokenCode, rr.output, scenario, packageName, classNameBase + "Test");
             fixedCode = normalize(fixedCode, packageName, classNameBase + "Test");
             repairEngine.writeFixedCode(javaFilePath, fixedCode);
             log.append("AI attempted to repair code.\n");
@@ -188,6 +204,36 @@ public class PlaywrightWorkflow {
         System.out.println("\nWorkflow complete. Log and report saved in: " + mcpLogDir);
     }
 
+    /**
+     * Compile the test together with the page objects next to the generated sources and run it in this JVM.
+     * Target URL and credentials go in as suite parameters of this run, never as JVM-wide state,
+     * because concurrent MCP requests share the process.
+     */
+    private static RunResult runInProcess(InMemoryTestEngine engine, Path testFile, Path sourceDir, String testFileName) throws Exception {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("WEBURL", safeProp("weburl"));
+        parameters.put("USERNAME", safeProp("username"));
+        parameters.put("PASSWORD", safeProp("password"));
+        List<String> sources = new ArrayList<>();
+        File[] siblings = sourceDir.toFile().listFiles((d, n) -> n.endsWith(".java") && !n.equals(testFileName));
+        if (siblings != null) {
+            for (File f : siblings) sources.add(InMemoryTestEngine.readSource(f.toPath()));
+        }
+        String testSource = InMemoryTestEngine.readSource(testFile);
+        sources.add(testSource);
+        InMemoryTestEngine.CompileResult compiled = engine.compile(sources);
+        if (!compiled.isSuccess()) {
+            return new RunResult(1, "COMPILATION ERROR (" + compiled.getDurationMillis() + " ms)\n" + compiled.formatDiagnostics(),
+                    compiled.getErrors());
+        }
+        try {
+            InMemoryTestEngine.RunResult run = engine.run(compiled, InMemoryTestEngine.className(testSource), parameters);
+            return new RunResult(run.isSuccess() ? 0 : 1, run.summary(), null);
+        } catch (Throwable t) {
+            return new RunResult(1, "Test run failed: " + t, null);
+        }
+    }
+
     private static RunResult runMavenTest(String mavenCmd, String testClass) throws Exception {
         ProcessBuilder pb = new ProcessBuilder(
                 mavenCmd,
@@ -207,7 +253,7 @@ public class PlaywrightWorkflow {
             out = new String(is.readAllBytes(), StandardCharsets.UTF_8);
         }
         int exit = p.waitFor();
-        return new RunResult(exit, out);
+        return new RunResult(exit, out, null);
     }
 
     private static String safeProp(String key) {
@@ -230,9 +276,11 @@ public class PlaywrightWorkflow {
     private static class RunResult {
         final int exitCode;
         final String output;
-        RunResult(int exitCode, String output) {
+        final List<InMemoryTestEngine.CompilerDiagnostic> compileErrors;
+        RunResult(int exitCode, String output, List<InMemoryTestEngine.CompilerDiagnostic> compileErrors) {
             this.exitCode = exitCode;
             this.output = output;
+            this.compileErrors = compileErrors;
         }
     }
 }
@@ -1,20 +1,33 @@
 package org.k11techlab.framework.ai.nlp;
 
+import org.k11techlab.framework.ai.rag.KnowledgeBase;
 import org.k11techlab.framework.ai.rag.RAGEnhancedAIClient;
+import org.k11techlab.framework.selenium.webuitestengine.configManager.ConfigurationManager;
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Natural Language Test Generator - Converts plain English descriptions into complete test code
  * Uses RAG-enhanced AI to generate production-ready Selenium tests with best practices
+ *
+ * Knowledge is retrieved once per request and shared by all generation calls. After the analysis,
+ * the test class and the page object are generated concurrently. Batches are fanned out with at most
+ * ai.nlgen.batchConcurrency requests in flight. Each result carries per-stage timings.
  */
 public class NLTestGenerator {
     
     private final RAGEnhancedAIClient ragAI;
     private final TestPatternAnalyzer patternAnalyzer;
     private final CodeTemplateEngine templateEngine;
+    private final ExecutorService stageExecutor = Executors.newVirtualThreadPerTaskExecutor();
     
     public enum TestType {
         LOGIN("User authentication and login flow"),
@@ -93,6 +106,7 @@ public class NLTestGenerator {
         private List<String> generatedSteps;
         private Map<String, String> recommendations;
         private double confidenceScore;
+        private Map<String, Long> stageTimings = new LinkedHashMap<>();
         
         public GeneratedTest(String testCode, String testClassName) {
             this.testCode = testCode;
@@ -119,6 +133,10 @@ public class NLTestGenerator {
         
         public double getConfidenceScore() { return confidenceScore; }
         public void setConfidenceScore(double confidenceScore) { this.confidenceScore = confidenceScore; }
+        
+        /** Milliseconds spent in each stage: retrieval, analysis, testCode, pageObject, total */
+        public Map<String, Long> getStageTimings() { return stageTimings; }
+        public void setStageTimings(Map<String, Long> stageTimings) { this.stageTimings = stageTimings; }
     }
     
     /**
@@ -137,10 +155,19 @@ public class NLTestGenerator {
      */
     public GeneratedTest generateTest(TestGenerationRequest request) {
         Log.info("🎯 Generating test from description: " + request.getNaturalLanguageDescription());
+        long start = System.nanoTime();
+        Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
         
         try {
+            // Step 0: Retrieve RAG context once; every generation call below reuses it
+            long stageStart = System.nanoTime();
+            List<KnowledgeBase.ScoredChunk> context = retrieveSharedContext(request);
+            timings.put("retrieval", millisSince(stageStart));
+
             // Step 1: Analyze the natural language description
-            TestAnalysis analysis = analyzeDescription(request);
+            stageStart = System.nanoTime();
+            TestAnalysis analysis = analyzeDescription(request, context);
+            timings.put("analysis", millisSince(stageStart));
 
             // Step 2: Generate test structure
             TestStructure structure = createTestStructure(analysis, request);
@@ -153,14 +180,14 @@ public class NLTestGenerator {
             }
             structure.setClassName(className);
 
-            // Step 3: Generate test code using RAG
-            String testCode = generateTestCode(structure, request);
-
-            // Step 4: Generate page object if requested
-            String pageObjectCode = null;
-            if (request.isUsePageObjectModel()) {
-                pageObjectCode = generatePageObject(structure, request);
-            }
+            // Steps 3 and 4 only depend on the structure: generate test code and page object concurrently
+            CompletableFuture<String> testCodeFuture = runStage("testCode", timings,
+                    () -> generateTestCode(structure, request, context));
+            CompletableFuture<String> pageObjectFuture = request.isUsePageObjectModel()
+                    ? runStage("pageObject", timings, () -> generatePageObject(structure, request, context))
+                    : CompletableFuture.completedFuture(null);
+            String testCode = testCodeFuture.join();
+            String pageObjectCode = pageObjectFuture.join();
 
             // --- PATCH: Ensure generatedSteps is always populated if possible ---
             List<String> steps = structure.getSteps();
@@ -192,14 +219,96 @@ public class NLTestGenerator {
             result.setGeneratedSteps(structure.getSteps());
             result.setRecommendations(generateRecommendations(analysis, structure));
             result.setConfidenceScore(calculateConfidenceScore(analysis, structure));
+            timings.put("total", millisSince(start));
+            result.setStageTimings(new LinkedHashMap<>(timings));
 
-            Log.info("✅ Test generated successfully with confidence: " + result.getConfidenceScore());
+            Log.info("✅ Test generated successfully with confidence: " + result.getConfidenceScore()
+                    + " | stage timings (ms): " + result.getStageTimings());
             return result;
 
         } catch (Exception e) {
-            Log.error("❌ Test generation failed: " + e.getMessage());
-            throw new RuntimeException("Failed to generate test: " + e.getMessage(), e);
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            Log.error("❌ Test generation failed: " + cause.getMessage());
+            throw new RuntimeException("Failed to generate test: " + cause.getMessage(), cause);
+        }
+    }
+    
+    /**
+     * Generate tests for a batch of requests, with at most ai.nlgen.batchConcurrency (default 4) in flight
+     */
+    public List<GeneratedTest> generateTests(List<TestGenerationRequest> requests) {
+        int maxConcurrent = Integer.parseInt(ConfigurationManager.getString("ai.nlgen.batchConcurrency", "4").trim());
+        return generateTests(requests, maxConcurrent);
+    }
+    
+    /**
+     * Generate tests for a batch of requests concurrently, in request order.
+     * Each request's own stages also overlap, so up to 2 * maxConcurrent LLM calls can be in flight.
+     * A request that fails yields a placeholder test with the error in its code and a confidence of 0.
+     */
+    public List<GeneratedTest> generateTests(List<TestGenerationRequest> requests, int maxConcurrent) {
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(Math.max(1, maxConcurrent));
+        List<CompletableFuture<GeneratedTest>> futures = new ArrayList<>();
+        for (TestGenerationRequest request : requests) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    return generateTest(request);
+                } catch (RuntimeException e) {
+                    String name = request.getTestName() != null ? request.getTestName()
+                            : generateTestName(request.getNaturalLanguageDescription());
+                    GeneratedTest failed = new GeneratedTest("// Test generation failed: " + e.getMessage(), name);
+                    failed.setConfidenceScore(0.0);
+                    return failed;
+                } finally {
+                    permits.release();
+                }
+            }, stageExecutor));
+        }
+        List<GeneratedTest> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<GeneratedTest> future : futures) {
+            results.add(future.join());
+        }
+        Log.info("✅ Generated " + results.size() + " tests in " + millisSince(start) + " ms (max concurrency " + maxConcurrent + ")");
+        return results;
+    }
+    
+    /**
+     * Run one generation stage on a virtual thread and record its duration
+     */
+    private CompletableFuture<String> runStage(String stage, Map<String, Long> timings, Supplier<String> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            long stageStart = System.nanoTime();
+            try {
+                return work.get();
+            } finally {
+                timings.put(stage, millisSince(stageStart));
+            }
+        }, stageExecutor);
+    }
+    
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+    
+    /**
+     * Retrieve RAG context for the request's description; null means retrieve per call instead
+     */
+    private List<KnowledgeBase.ScoredChunk> retrieveSharedContext(TestGenerationRequest request) {
+        try {
+            return ragAI.retrieveSharedContext(request.getNaturalLanguageDescription());
+        } catch (Exception e) {
+            Log.error("Shared RAG retrieval failed, retrieving per call: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private String generate(String prompt, List<KnowledgeBase.ScoredChunk> context) {
+        if (context == null) {
+            return ragAI.generateResponse(prompt);
         }
+        return ragAI.generateWithContext(prompt, context, 0.7f, 500);
     }
     
     /**
@@ -233,9 +342,9 @@ public class NLTestGenerator {
     /**
      * Analyze natural language description
      */
-    private TestAnalysis analyzeDescription(TestGenerationRequest request) {
+    private TestAnalysis analyzeDescription(TestGenerationRequest request, List<KnowledgeBase.ScoredChunk> context) {
         String prompt = createAnalysisPrompt(request);
-        String analysis = ragAI.generateResponse(prompt);
+        String analysis = generate(prompt, context);
         
         return patternAnalyzer.parseAnalysis(analysis, request);
     }
@@ -291,9 +400,10 @@ public class NLTestGenerator {
     /**
      * Generate test code using RAG
      */
-    private String generateTestCode(TestStructure structure, TestGenerationRequest request) {
+    private String generateTestCode(TestStructure structure, TestGenerationRequest request,
+                                    List<KnowledgeBase.ScoredChunk> context) {
         String prompt = createCodeGenerationPrompt(structure, request);
-        String generatedCode = ragAI.generateResponse(prompt);
+        String generatedCode = generate(prompt, context);
         
         // Post-process and clean up the generated code
         return templateEngine.processGeneratedCode(generatedCode, structure);
@@ -347,9 +457,10 @@ public class NLTestGenerator {
     /**
      * Generate page object code
      */
-    private String generatePageObject(TestStructure structure, TestGenerationRequest request) {
+    private String generatePageObject(TestStructure structure, TestGenerationRequest request,
+                                      List<KnowledgeBase.ScoredChunk> context) {
         String prompt = createPageObjectPrompt(structure, request);
-        return ragAI.generateResponse(prompt);
+        return generate(prompt, context);
     }
     
     /**
@@ -1,7 +1,5 @@
 package org.k11techlab.framework.ai.ollama;
 
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.core5.http.io.entity.StringEntity;
@@ -11,12 +9,15 @@ import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 import org.k11techlab.framework.ai.llm.LLMInterface;
+import org.k11techlab.framework.ai.llm.TokenStreams;
+import org.k11techlab.framework.ai.util.AIHttpTransport;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Ollama client for local LLM integration with K11 TechLab framework.
@@ -26,24 +27,14 @@ public class OllamaClient implements LLMInterface {
     
     private final String baseUrl;
     private final String model;
-    private final CloseableHttpClient httpClient;
     private final ObjectMapper objectMapper;
     
     public OllamaClient(String baseUrl, String model) {
         this.baseUrl = baseUrl;
         // Allow model override from system properties (useful for CI)
         this.model = System.getProperty("ai.model", model);
-        // Create HTTP client with longer timeouts for LLM responses (90s)
-        this.httpClient = HttpClients.custom()
-            .setDefaultRequestConfig(
-                org.apache.hc.client5.http.config.RequestConfig.custom()
-                    .setConnectionRequestTimeout(20, java.util.concurrent.TimeUnit.SECONDS)
-                    .setResponseTimeout(90, java.util.concurrent.TimeUnit.SECONDS) // Increased to 90s
-                    .build()
-            )
-            .build();
         this.objectMapper = new ObjectMapper();
-        Log.info("OllamaClient initialized with model: " + this.model + " (30s timeout)");
+        Log.info("OllamaClient initialized with model: " + this.model + " (90s response timeout)");
     }
     
     /**
@@ -70,6 +61,33 @@ public class OllamaClient implements LLMInterface {
         }
     }
     
+    /**
+     * Streaming variant of {@link #generateSuggestion(String)}: fragments are passed to onToken as Ollama emits them.
+     * The fallback text is only used if the call fails before any fragment was delivered; a failure
+     * mid-stream is rethrown so the caller does not receive the fallback appended to partial output.
+     */
+    public String generateSuggestionStreaming(String prompt, Consumer<String> onToken) {
+        boolean[] emitted = {false};
+        try {
+            Log.info("Streaming request to Ollama...");
+            String enhancedPrompt = "As a Selenium expert, " + prompt + " Keep response under 200 words and be specific.";
+            return callOllama(enhancedPrompt, token -> {
+                emitted[0] = true;
+                onToken.accept(token);
+            });
+        } catch (Exception e) {
+            if (emitted[0]) {
+                Log.error("Ollama stream failed after partial output: " + e.getMessage());
+                throw e instanceof RuntimeException ? (RuntimeException) e
+                        : new IllegalStateException("Ollama stream failed after partial output", e);
+            }
+            Log.info("AI generation failed, using fallback: " + e.getMessage());
+            String fallback = "// AI unavailable: " + prompt + "\n// Error: " + e.getMessage();
+            onToken.accept(fallback);
+            return fallback;
+        }
+    }
+
     /**
      * Generate locator suggestions for web elements
      */
@@ -104,12 +122,20 @@ public class OllamaClient implements LLMInterface {
      * Call Ollama API
      */
     private String callOllama(String prompt) throws IOException {
+        return callOllama(prompt, null);
+    }
+
+    /**
+     * Call Ollama API; with onToken set the request uses "stream": true and NDJSON fragments are
+     * forwarded as they arrive instead of waiting for the whole completion.
+     */
+    private String callOllama(String prompt, Consumer<String> onToken) throws IOException {
         HttpPost post = new HttpPost(baseUrl + "/api/generate");
 
         Map<String, Object> requestBody = new HashMap<>();
         requestBody.put("model", model);
         requestBody.put("prompt", prompt);
-        requestBody.put("stream", false);
+        requestBody.put("stream", onToken != null);
         // Optimize for speed and conciseness
         Map<String, Object> options = new HashMap<>();
         options.put("temperature", 0.1); // Lower for more focused responses
@@ -137,6 +163,9 @@ public class OllamaClient implements LLMInterface {
         HttpClientResponseHandler<String> responseHandler = response -> {
             int status = response.getCode();
             if (status >= 200 && status < 300) {
+                if (onToken != null) {
+                    return TokenStreams.readOllamaNdjson(response.getEntity().getContent(), onToken);
+                }
                 try {
                     String responseBody = EntityUtils.toString(response.getEntity());
                     JsonNode jsonResponse = objectMapper.readTree(responseBody);
@@ -149,7 +178,7 @@ public class OllamaClient implements LLMInterface {
             }
         };
 
-        String result = httpClient.execute(post, responseHandler);
+        String result = AIHttpTransport.client().execute(post, responseHandler);
         long end = System.currentTimeMillis();
         System.out.println("[DEBUG] Ollama call end: " + end + " ms | duration: " + (end - start) + " ms");
         return result;
@@ -220,7 +249,7 @@ public class OllamaClient implements LLMInterface {
                 return status >= 200 && status < 300;
             };
             
-            return httpClient.execute(get, responseHandler);
+            return AIHttpTransport.client().execute(get, responseHandler);
         } catch (Exception e) {
             System.out.println("🔗 Connectivity test failed: " + e.getMessage());
             return false;
@@ -262,7 +291,7 @@ public class OllamaClient implements LLMInterface {
                 }
             };
             
-            return httpClient.execute(get, responseHandler);
+            return AIHttpTransport.client().execute(get, responseHandler);
         } catch (Exception e) {
             System.out.println("📋 Model availability test failed: " + e.getMessage());
             return false;
@@ -304,17 +333,10 @@ public class OllamaClient implements LLMInterface {
     }
     
     /**
-     * Close the HTTP client when done
+     * Nothing to release: the HTTP client is the shared transport, whose connections stay pooled
      */
     @Override
     public void close() {
-        if (httpClient != null) {
-            try {
-                httpClient.close();
-            } catch (IOException e) {
-                Log.error("Error closing Ollama client: " + e.getMessage());
-            }
-        }
     }
     
     @Override
@@ -332,4 +354,14 @@ public class OllamaClient implements LLMInterface {
         // Use existing generateSuggestion method (SimpleAI doesn't support parameters)
         return generateSuggestion(prompt);
     }
+
+    @Override
+    public String generateResponseStreaming(String prompt, Consumer<String> onToken) {
+        return generateSuggestionStreaming(prompt, onToken);
+    }
+
+    @Override
+    public String generateResponseStreaming(String prompt, float temperature, int maxTokens, Consumer<String> onToken) {
+        return generateSuggestionStreaming(prompt, onToken);
+    }
 }
\ No newline at end of file
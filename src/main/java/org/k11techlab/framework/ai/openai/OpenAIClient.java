@@ -5,15 +5,17 @@ import org.k11techlab.framework.selenium.webuitestengine.configManager.Configura
 import org.k11techlab.framework.ai.llm.LLMInterface;
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.io.OutputStream;
-import java.io.InputStreamReader;
-import java.io.BufferedReader;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.json.JSONObject;
 import java.io.File;
 import java.util.Properties;
 import java.io.FileInputStream;
+import java.util.function.Consumer;
+import org.k11techlab.framework.ai.llm.TokenStreams;
+import org.k11techlab.framework.ai.util.AIHttpTransport;
 
 public class OpenAIClient implements LLMInterface {
     private final String apiKey;
@@ -52,8 +54,21 @@ public class OpenAIClient implements LLMInterface {
         this.endpoint = "https://api.openai.com/v1/chat/completions";
     }
 
+    /**
+     * Client for an explicit key, model and chat completions endpoint (e.g. an OpenAI-compatible proxy)
+     */
+    public OpenAIClient(String apiKey, String model, String endpoint) {
+        this.apiKey = apiKey;
+        this.model = model;
+        this.endpoint = endpoint;
+    }
+
     @Override
     public String generateResponse(String prompt) {
+        return generateResponse(prompt, 0.7f, configuredMaxTokens());
+    }
+
+    private static int configuredMaxTokens() {
         int maxTokens = 2048;
         try {
             String configMaxTokens = ConfigurationManager.getBundle().getPropertyValue("openai.maxTokens");
@@ -63,7 +78,70 @@ public class OpenAIClient implements LLMInterface {
         } catch (Exception e) {
             // fallback to default if config not found or parse error
         }
-        return generateResponse(prompt, 0.7f, maxTokens);
+        return maxTokens;
+    }
+
+    /**
+     * Chat completion request, sent over the shared pooled transport so the TLS connection is reused
+     */
+    private HttpPost chatCompletion(String prompt, float temperature, int maxTokens, boolean stream) {
+        HttpPost post = new HttpPost(endpoint);
+        post.setHeader("Authorization", "Bearer " + apiKey);
+        if (stream) post.setHeader("Accept", "text/event-stream");
+
+        JSONObject message = new JSONObject();
+        message.put("role", "user");
+        message.put("content", prompt);
+        JSONObject body = new JSONObject();
+        body.put("model", model);
+        body.put("messages", new org.json.JSONArray().put(message));
+        body.put("temperature", temperature);
+        body.put("max_tokens", maxTokens);
+        if (stream) body.put("stream", true);
+
+        post.setEntity(new StringEntity(body.toString(), ContentType.APPLICATION_JSON));
+        return post;
+    }
+
+    @Override
+    public String generateResponseStreaming(String prompt, Consumer<String> onToken) {
+        return generateResponseStreaming(prompt, 0.7f, configuredMaxTokens(), onToken);
+    }
+
+    /**
+     * Streams the completion as server-sent events; error strings are delivered as a single fragment
+     * if nothing has been streamed yet. A failure after tokens went out is rethrown instead, so the
+     * error text is not appended to a partial answer.
+     */
+    @Override
+    public String generateResponseStreaming(String prompt, float temperature, int maxTokens, Consumer<String> onToken) {
+        String error;
+        if (apiKey == null || apiKey.isEmpty()) {
+            error = "[OpenAI API key not set]";
+        } else {
+            boolean[] emitted = {false};
+            try {
+                return AIHttpTransport.client().execute(chatCompletion(prompt, temperature, maxTokens, true), response -> {
+                    if (response.getCode() == 200) {
+                        return TokenStreams.readOpenAISse(response.getEntity().getContent(), token -> {
+                            emitted[0] = true;
+                            onToken.accept(token);
+                        });
+                    }
+                    String httpError = "[OpenAI error: HTTP " + response.getCode() + "]";
+                    onToken.accept(httpError);
+                    return httpError;
+                });
+            } catch (IOException e) {
+                if (emitted[0]) {
+                    Log.error("OpenAI stream failed after partial output: " + e.getMessage());
+                    throw new IllegalStateException("OpenAI stream failed after partial output", e);
+                }
+                error = "[OpenAI error: " + e.getMessage() + "]";
+            }
+        }
+        onToken.accept(error);
+        return error;
     }
 
     @Override
@@ -72,40 +150,16 @@ public class OpenAIClient implements LLMInterface {
             return "[OpenAI API key not set]";
         }
         try {
-            URL url = new URL(endpoint);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Authorization", "Bearer " + apiKey);
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-
-            JSONObject message = new JSONObject();
-            message.put("role", "user");
-            message.put("content", prompt);
-            JSONObject body = new JSONObject();
-            body.put("model", model);
-            body.put("messages", new org.json.JSONArray().put(message));
-            body.put("temperature", temperature);
-            body.put("max_tokens", maxTokens);
-
-            try (OutputStream os = conn.getOutputStream()) {
-                os.write(body.toString().getBytes());
-            }
-
-            int status = conn.getResponseCode();
-            if (status == 200) {
-                BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = in.readLine()) != null) {
-                    response.append(line);
+            return AIHttpTransport.client().execute(chatCompletion(prompt, temperature, maxTokens, false), response -> {
+                int status = response.getCode();
+                if (status == 200) {
+                    JSONObject json = new JSONObject(EntityUtils.toString(response.getEntity(), java.nio.charset.StandardCharsets.UTF_8));
+                    return json.getJSONArray("choices").getJSONObject(0).getJSONObject("message").getString("content");
+                } else {
+                    EntityUtils.consume(response.getEntity());
+                    return "[OpenAI error: HTTP " + status + "]";
                 }
-                in.close();
-                JSONObject json = new JSONObject(response.toString());
-                return json.getJSONArray("choices").getJSONObject(0).getJSONObject("message").getString("content");
-            } else {
-                return "[OpenAI error: HTTP " + status + "]";
-            }
+            });
         } catch (IOException e) {
             return "[OpenAI error: " + e.getMessage() + "]";
         }
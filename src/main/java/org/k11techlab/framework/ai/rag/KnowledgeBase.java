@@ -23,8 +23,16 @@ public class KnowledgeBase {
     // RAG components
     private final VectorStore vectorStore;
     private final DocumentRetriever documentRetriever;
-    private final EmbeddingCache embeddingCache;
+    private final BinaryEmbeddingCache embeddingCache;
     private final DocumentRetriever.EmbeddingFunction embeddingFunction;
+    private final DocumentRetriever.EmbeddingFunction embedder;
+    private final IndexManifest docsManifest;
+    private final DocumentChunker docChunker;
+    private final BM25Index<DocumentChunk> keywordIndex = new BM25Index<>();
+    private DirectoryWatcher docsWatcher;
+
+    private static final Path DOCS_ROOT = Paths.get("testartifacts", "docs");
+    private static final Path TEXT_CACHE_DIR = Paths.get("rag_text_cache");
 
     public enum DocumentCategory {
         LOCATOR_PATTERNS,
@@ -60,7 +68,12 @@ public class KnowledgeBase {
         public String getSource() { return source; }
         public DocumentCategory getCategory() { return category; }
         public Set<String> getKeywords() { return keywords; }
+        /**
+         * @deprecated chunks are shared between concurrent queries; use {@link ScoredChunk#getScore()}
+         */
+        @Deprecated
         public double getRelevanceScore() { return relevanceScore; }
+        @Deprecated
         public void setRelevanceScore(double score) { this.relevanceScore = score; }
 
         public void addKeywords(String... newKeywords) {
@@ -68,6 +81,23 @@ public class KnowledgeBase {
         }
     }
 
+    /**
+     * A retrieved chunk with the score it got for one query. Scores are kept out of the
+     * shared DocumentChunk so concurrent queries cannot overwrite each other's results.
+     */
+    public static class ScoredChunk {
+        private final DocumentChunk chunk;
+        private final double score;
+
+        public ScoredChunk(DocumentChunk chunk, double score) {
+            this.chunk = chunk;
+            this.score = score;
+        }
+
+        public DocumentChunk getChunk() { return chunk; }
+        public double getScore() { return score; }
+    }
+
     /**
      * Initialize knowledge base with built-in knowledge
      */
@@ -77,16 +107,20 @@ public class KnowledgeBase {
      * Uses OllamaEmbedder by default (can be changed to OpenAI/HuggingFace as needed)
      */
     public KnowledgeBase() {
-        this.knowledgeChunks = new ArrayList<>();
-        this.categoryCounts = new HashMap<>();
+        this.knowledgeChunks = new java.util.concurrent.CopyOnWriteArrayList<>();
+        this.categoryCounts = new java.util.concurrent.ConcurrentHashMap<>();
+        this.docsManifest = new IndexManifest("rag_index_manifest.json");
+        this.docChunker = new DocumentChunker(
+            Integer.getInteger("rag.chunk.maxChars", DocumentChunker.DEFAULT_MAX_CHARS),
+            Integer.getInteger("rag.chunk.overlapChars", DocumentChunker.DEFAULT_OVERLAP_CHARS));
 
         // --- RAG components setup ---
         // You can change these URLs/keys as needed for your environment
         String ollamaUrl = System.getProperty("ollama.url", "http://localhost:11434");
         String ollamaModel = System.getProperty("ollama.model", "llama3");
-        this.embeddingCache = new EmbeddingCache("rag_embedding_cache.json");
+        this.embeddingCache = BinaryEmbeddingCache.openOrMigrate("rag_embedding_cache.bin", "rag_embedding_cache.json");
 
-        DocumentRetriever.EmbeddingFunction embedder = new OllamaEmbedder(ollamaUrl, ollamaModel);
+        this.embedder = new OllamaEmbedder(ollamaUrl, ollamaModel);
         this.embeddingFunction = text -> {
             double[] cached = embeddingCache.get(text);
             if (cached != null) return cached;
@@ -94,24 +128,111 @@ public class KnowledgeBase {
             if (vec != null && vec.length > 0) embeddingCache.put(text, vec);
             return vec;
         };
-        this.vectorStore = new VectorStore();
+        this.vectorStore = new VectorStore(createVectorIndex());
         this.documentRetriever = new DocumentRetriever(vectorStore, embeddingFunction);
 
         Log.info("🧠 Initializing RAG Knowledge Base...");
         indexBuiltInKnowledge();
         indexExternalDocs();
+        knowledgeChunks.forEach(this::indexKeywords);
         // Index all chunks into vector store for RAG
         indexChunksToVectorStore();
         embeddingCache.save();
+        docsManifest.save();
         Log.info("📚 Knowledge Base initialized with " + knowledgeChunks.size() + " documents (RAG ready)");
     }
 
     /**
-     * Index all knowledge chunks into the VectorStore for RAG retrieval
+     * Knowledge base that also watches testartifacts/docs when -Drag.watch=true. The watcher is
+     * started here rather than in the constructor so it never sees a partly built instance.
+     */
+    public static KnowledgeBase create() {
+        KnowledgeBase knowledgeBase = new KnowledgeBase();
+        if (Boolean.getBoolean("rag.watch")) {
+            knowledgeBase.startWatchingDocs();
+        }
+        return knowledgeBase;
+    }
+
+    /**
+     * Keep the external docs index live: re-index changed files and evict deleted ones
+     * whenever testartifacts/docs changes (enabled with -Drag.watch=true).
+     */
+    public synchronized void startWatchingDocs() {
+        if (docsWatcher != null || !Files.isDirectory(DOCS_ROOT)) return;
+        try {
+            long debounce = Long.getLong("rag.watch.debounceMillis", 500);
+            docsWatcher = new DirectoryWatcher(DOCS_ROOT, debounce, changed -> refreshExternalDocs());
+            docsWatcher.start();
+            Log.info("👀 Watching " + DOCS_ROOT + " for documentation changes");
+        } catch (IOException e) {
+            Log.info("Could not watch docs directory: " + e.getMessage());
+        }
+    }
+
+    public synchronized void stopWatchingDocs() {
+        if (docsWatcher != null) {
+            docsWatcher.close();
+            docsWatcher = null;
+        }
+    }
+
+    /**
+     * Select the vector index implementation from system properties.
+     * rag.index=hnsw enables the approximate HNSW index (tunable via rag.hnsw.m,
+     * rag.hnsw.efConstruction, rag.hnsw.efSearch, rag.hnsw.maxDeletedRatio); rag.index=flat uses the contiguous
+     * float32 slab (rag.flat.offHeap=true keeps it off-heap); anything else uses exact brute-force search.
+     */
+    private static VectorIndex createVectorIndex() {
+        String type = System.getProperty("rag.index", "bruteforce");
+        if ("flat".equalsIgnoreCase(type)) {
+            boolean offHeap = Boolean.getBoolean("rag.flat.offHeap");
+            Log.info("🔎 Using flat float32 vector index (offHeap=" + offHeap + ")");
+            return new FlatFloatVectorIndex(offHeap);
+        }
+        if ("hnsw".equalsIgnoreCase(type)) {
+            int m = Integer.getInteger("rag.hnsw.m", HnswVectorIndex.DEFAULT_M);
+            int efConstruction = Integer.getInteger("rag.hnsw.efConstruction", HnswVectorIndex.DEFAULT_EF_CONSTRUCTION);
+            int efSearch = Integer.getInteger("rag.hnsw.efSearch", HnswVectorIndex.DEFAULT_EF_SEARCH);
+            Log.info("🔎 Using HNSW vector index (M=" + m + ", efConstruction=" + efConstruction + ", efSearch=" + efSearch + ")");
+            HnswVectorIndex index = new HnswVectorIndex(m, efConstruction, efSearch);
+            index.setMaxDeletedRatio(Double.parseDouble(System.getProperty("rag.hnsw.maxDeletedRatio",
+                String.valueOf(HnswVectorIndex.DEFAULT_MAX_DELETED_RATIO))));
+            return index;
+        }
+        return new BruteForceVectorIndex();
+    }
+
+    /**
+     * Index all knowledge chunks into the VectorStore for RAG retrieval.
+     * Cache misses are embedded in concurrent batches (rag.embed.batchSize, rag.embed.concurrency).
      */
     private void indexChunksToVectorStore() {
+        List<DocumentChunk> misses = new ArrayList<>();
+        for (DocumentChunk chunk : knowledgeChunks) {
+            if (embeddingCache.get(chunk.getContent()) == null) misses.add(chunk);
+        }
+        if (!misses.isEmpty()) {
+            int batchSize = Integer.getInteger("rag.embed.batchSize", 32);
+            int concurrency = Integer.getInteger("rag.embed.concurrency", 4);
+            Log.info("🧮 Embedding " + misses.size() + " uncached chunks (batch=" + batchSize + ", concurrency=" + concurrency + ")");
+            List<String> texts = misses.stream().map(DocumentChunk::getContent).collect(Collectors.toList());
+            try (EmbeddingPipeline pipeline = new EmbeddingPipeline(embedder, batchSize, concurrency)) {
+                pipeline.setProgressListener((metrics, total) -> {
+                    if (metrics.getBatchesCompleted() % 10 == 0 || metrics.getTextsEmbedded() >= total) {
+                        Log.info("🧮 Embedding progress " + metrics.getTextsEmbedded() + "/" + total + " (" + metrics + ")");
+                    }
+                });
+                List<double[]> vectors = pipeline.embedAll(texts);
+                for (int i = 0; i < texts.size(); i++) {
+                    double[] vec = vectors.get(i);
+                    if (vec != null && vec.length > 0) embeddingCache.put(texts.get(i), vec);
+                }
+                Log.info("🧮 Embedding finished: " + pipeline.getMetrics());
+            }
+        }
         for (DocumentChunk chunk : knowledgeChunks) {
-            double[] vec = embeddingFunction.embed(chunk.getContent());
+            double[] vec = embeddingCache.get(chunk.getContent());
             if (vec != null && vec.length > 0) {
                 vectorStore.add(chunk.getId(), vec, chunk);
             }
@@ -122,52 +243,168 @@ public class KnowledgeBase {
          * Returns DocumentChunks ranked by vector similarity
          */
         public List<DocumentChunk> retrieveRelevantKnowledgeRAG(String query, int maxResults) {
-            List<VectorStore.VectorEntry> entries = documentRetriever.retrieve(query, maxResults);
-            List<DocumentChunk> result = new ArrayList<>();
-            for (VectorStore.VectorEntry entry : entries) {
-                if (entry.payload instanceof DocumentChunk) {
-                    result.add((DocumentChunk) entry.payload);
+            return retrieveRelevantKnowledgeRAG(query, maxResults, null);
+        }
+
+        /**
+         * Vector search restricted to a category (null for all). Over-fetches when filtering
+         * so that up to maxResults chunks of the category are returned.
+         */
+        public List<DocumentChunk> retrieveRelevantKnowledgeRAG(String query, int maxResults, DocumentCategory category) {
+            return retrieveScoredKnowledgeRAG(query, maxResults, category).stream()
+                .map(ScoredChunk::getChunk)
+                .collect(Collectors.toList());
+        }
+
+        /**
+         * Vector search with each chunk's cosine similarity to the query as its score
+         */
+        public List<ScoredChunk> retrieveScoredKnowledgeRAG(String query, int maxResults, DocumentCategory category) {
+            int fetch = category == null ? maxResults : maxResults * 4;
+            List<DocumentRetriever.ScoredEntry> entries = documentRetriever.retrieveScored(query, fetch);
+            List<ScoredChunk> result = new ArrayList<>();
+            for (DocumentRetriever.ScoredEntry scored : entries) {
+                if (scored.entry.payload instanceof DocumentChunk) {
+                    DocumentChunk chunk = (DocumentChunk) scored.entry.payload;
+                    if (category != null && chunk.getCategory() != category) continue;
+                    result.add(new ScoredChunk(chunk, scored.similarity));
+                    if (result.size() == maxResults) break;
                 }
             }
             return result;
         }
     /**
-     * Index external documentation files from testartifacts/docs
+     * Index external documentation files from testartifacts/docs.
+     * Each file is streamed through the document chunker (rag.chunk.maxChars, rag.chunk.overlapChars),
+     * so large files become several overlapping chunks. The index manifest tells which files changed
+     * since the last run; unchanged PDFs are read from the extracted-text cache instead of being parsed again.
      */
     private void indexExternalDocs() {
-        Path docsRoot = Paths.get("testartifacts", "docs");
-        if (!Files.exists(docsRoot)) return;
+        IndexManifest.Changes changes = docsManifest.scan(DOCS_ROOT, KnowledgeBase::isExternalDoc);
+        for (Path deleted : changes.deleted.keySet()) docsManifest.remove(deleted);
+        for (Path path : changes.unchanged) {
+            IndexManifest.FileState state = docsManifest.get(path);
+            knowledgeChunks.addAll(loadExternalDoc(path, state != null ? state.sha256 : null));
+        }
+        for (Path path : changes.changed) {
+            knowledgeChunks.addAll(indexChangedDoc(path));
+        }
+        if (!changes.isEmpty()) Log.info("📄 External docs: " + changes);
+    }
+
+    /**
+     * Re-scan testartifacts/docs and apply only the differences: chunks of deleted files are evicted
+     * from the knowledge base and vector store, changed files are re-parsed and re-embedded.
+     * @return number of files changed or deleted
+     */
+    public synchronized int refreshExternalDocs() {
+        IndexManifest.Changes changes = docsManifest.scan(DOCS_ROOT, KnowledgeBase::isExternalDoc);
+        if (changes.isEmpty()) return 0;
+        for (Map.Entry<Path, IndexManifest.FileState> deleted : changes.deleted.entrySet()) {
+            deleted.getValue().chunkIds.forEach(this::evictChunk);
+            docsManifest.remove(deleted.getKey());
+        }
+        for (Path path : changes.changed) {
+            IndexManifest.FileState previous = docsManifest.get(path);
+            if (previous != null) previous.chunkIds.forEach(this::evictChunk);
+            for (DocumentChunk chunk : indexChangedDoc(path)) {
+                knowledgeChunks.add(chunk);
+                indexKeywords(chunk);
+                double[] vec = embeddingFunction.embed(chunk.getContent());
+                if (vec != null && vec.length > 0) vectorStore.add(chunk.getId(), vec, chunk);
+            }
+        }
+        embeddingCache.save();
+        docsManifest.save();
+        Log.info("📄 External docs refreshed: " + changes);
+        return changes.changed.size() + changes.deleted.size();
+    }
+
+    private void evictChunk(String id) {
+        knowledgeChunks.removeIf(c -> c.getId().equals(id));
+        keywordIndex.remove(id);
+        vectorStore.remove(id);
+    }
+
+    /**
+     * Add a chunk to the BM25 keyword index; curated keywords weigh as much as three occurrences in the text.
+     */
+    private void indexKeywords(DocumentChunk chunk) {
+        keywordIndex.add(chunk.getId(), chunk, chunk.getContent(), chunk.getKeywords(), 3);
+    }
+
+    private static boolean isExternalDoc(Path path) {
+        String fileName = path.getFileName().toString().toLowerCase();
+        return fileName.endsWith(".md") || fileName.endsWith(".txt") || fileName.endsWith(".pdf");
+    }
+
+    private List<DocumentChunk> indexChangedDoc(Path path) {
         try {
-            Files.walk(docsRoot)
-                .filter(Files::isRegularFile)
-                .forEach(path -> {
-                    String fileName = path.getFileName().toString().toLowerCase();
-                    try {
-                        String content = null;
-                        if (fileName.endsWith(".md") || fileName.endsWith(".txt")) {
-                            content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
-                        } else if (fileName.endsWith(".pdf")) {
-                            try (PDDocument pdf = PDDocument.load(path.toFile())) {
-                                PDFTextStripper stripper = new PDFTextStripper();
-                                content = stripper.getText(pdf);
-                            }
-                        }
-                        if (content != null && !content.trim().isEmpty()) {
-                            DocumentChunk chunk = new DocumentChunk(
-                                path.getFileName().toString(),
-                                content,
-                                path.toString(),
-                                DocumentCategory.FRAMEWORK_DOCS,
-                                "doc", "external", fileName
-                            );
-                            knowledgeChunks.add(chunk);
-                        }
-                    } catch (Exception e) {
-                        Log.info("Failed to index doc: " + path + " - " + e.getMessage());
-                    }
-                });
+            String sha = IndexManifest.sha256(path);
+            List<DocumentChunk> chunks = loadExternalDoc(path, sha);
+            docsManifest.update(path, sha, chunks.stream().map(DocumentChunk::getId).collect(Collectors.toList()));
+            return chunks;
         } catch (IOException e) {
-            Log.info("Error walking docs directory: " + e.getMessage());
+            Log.info("Failed to index doc: " + path + " - " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private List<DocumentChunk> loadExternalDoc(Path path, String sha) {
+        String fileName = path.getFileName().toString().toLowerCase();
+        List<DocumentChunk> chunks = new ArrayList<>();
+        java.util.function.Consumer<DocumentChunker.Chunk> sink = c -> chunks.add(new DocumentChunk(
+            path + "#" + c.index,
+            c.text,
+            path + ":" + c.startLine + "-" + c.endLine,
+            DocumentCategory.FRAMEWORK_DOCS,
+            "doc", "external", fileName
+        ));
+        try {
+            if (fileName.endsWith(".pdf")) {
+                streamPdfText(path, sha, sink);
+            } else {
+                docChunker.chunk(path, sink);
+            }
+        } catch (Exception e) {
+            Log.info("Failed to index doc: " + path + " - " + e.getMessage());
+            return Collections.emptyList();
+        }
+        return chunks;
+    }
+
+    /**
+     * Stream PDF text into the chunker. Extracted text is kept on disk keyed by file content hash,
+     * so PDFBox only runs when a PDF actually changes.
+     */
+    private void streamPdfText(Path path, String sha, java.util.function.Consumer<DocumentChunker.Chunk> sink) throws IOException {
+        Path cached = sha != null ? TEXT_CACHE_DIR.resolve(sha + ".txt") : null;
+        if (cached != null && Files.exists(cached)) {
+            try (java.io.Reader reader = Files.newBufferedReader(cached, StandardCharsets.UTF_8)) {
+                docChunker.chunk(reader, DocumentChunker.Type.TEXT, sink);
+            }
+            return;
+        }
+        if (cached != null) Files.createDirectories(TEXT_CACHE_DIR);
+        try (PDDocument pdf = PDDocument.load(path.toFile());
+             java.io.Writer chunkWriter = docChunker.newWriter(DocumentChunker.Type.TEXT, sink);
+             java.io.Writer cacheWriter = cached != null
+                 ? Files.newBufferedWriter(cached, StandardCharsets.UTF_8)
+                 : java.io.Writer.nullWriter()) {
+            new PDFTextStripper().writeText(pdf, new java.io.Writer() {
+                @Override
+                public void write(char[] cbuf, int off, int len) throws IOException {
+                    chunkWriter.write(cbuf, off, len);
+                    cacheWriter.write(cbuf, off, len);
+                }
+                @Override
+                public void flush() throws IOException { cacheWriter.flush(); }
+                @Override
+                public void close() {}
+            });
+        } catch (IOException e) {
+            if (cached != null) Files.deleteIfExists(cached);
+            throw e;
         }
     }
 
@@ -499,72 +736,39 @@ public class KnowledgeBase {
      * Retrieve relevant knowledge based on query
      */
     public List<DocumentChunk> retrieveRelevantKnowledge(String query, int maxResults, DocumentCategory category) {
-        List<DocumentChunk> candidates = new ArrayList<>();
-        
-        // Filter by category if specified
-        for (DocumentChunk chunk : knowledgeChunks) {
-            if (category == null || chunk.getCategory() == category) {
-                double relevanceScore = calculateRelevanceScore(query, chunk);
-                if (relevanceScore > 0) {
-                    chunk.setRelevanceScore(relevanceScore);
-                    candidates.add(chunk);
-                }
-            }
-        }
-        
-        // Sort by relevance score (descending) and return top results
-        return candidates.stream()
-            .sorted((a, b) -> Double.compare(b.getRelevanceScore(), a.getRelevanceScore()))
-            .limit(maxResults)
+        return retrieveScoredKnowledge(query, maxResults, category).stream()
+            .map(ScoredChunk::getChunk)
             .collect(Collectors.toList());
     }
 
     /**
-     * Calculate relevance score between query and document chunk
+     * Retrieve relevant knowledge with BM25 scores from the inverted keyword index.
+     * Chunks in a category the query points at get a 1.5x boost and curated built-in sources 1.2x.
+     * Safe to call from concurrent threads; chunks are not modified.
      */
-    private double calculateRelevanceScore(String query, DocumentChunk chunk) {
-        if (query == null || query.trim().isEmpty()) {
-            return 0.0;
+    public List<ScoredChunk> retrieveScoredKnowledge(String query, int maxResults, DocumentCategory category) {
+        if (query == null || query.trim().isEmpty() || maxResults <= 0) {
+            return Collections.emptyList();
         }
-        
-        double score = 0.0;
         String queryLower = query.toLowerCase().trim();
-        String contentLower = chunk.getContent().toLowerCase();
-        String[] queryTerms = queryLower.split("\\s+");
-        
-        // Keyword matching
-        for (String term : queryTerms) {
-            if (term.length() < 3) continue; // Skip very short terms
-            
-            // Exact keyword match (highest weight)
-            if (chunk.getKeywords().contains(term)) {
-                score += 3.0;
-            }
-            
-            // Content contains term
-            if (contentLower.contains(term)) {
-                score += 2.0;
-            }
-            
-            // Partial keyword match
-            for (String keyword : chunk.getKeywords()) {
-                if (keyword.contains(term) || term.contains(keyword)) {
-                    score += 1.5;
-                }
-            }
-        }
-        
-        // Boost score for category relevance
-        if (isQueryCategoryMatch(queryLower, chunk.getCategory())) {
-            score *= 1.5;
+        EnumSet<DocumentCategory> boosted = EnumSet.noneOf(DocumentCategory.class);
+        for (DocumentCategory c : DocumentCategory.values()) {
+            if (isQueryCategoryMatch(queryLower, c)) boosted.add(c);
         }
-        
-        // Boost for source quality
-        if ("built-in-patterns".equals(chunk.getSource()) || "built-in-solutions".equals(chunk.getSource())) {
-            score *= 1.2;
+        // Over-fetch so boosts can reorder candidates near the cut-off
+        List<BM25Index.Hit<DocumentChunk>> hits = keywordIndex.search(query, maxResults * 3,
+            category == null ? null : chunk -> chunk.getCategory() == category);
+        List<ScoredChunk> scored = new ArrayList<>(hits.size());
+        for (BM25Index.Hit<DocumentChunk> hit : hits) {
+            double score = hit.score;
+            if (boosted.contains(hit.document.getCategory())) score *= 1.5;
+            if ("built-in-patterns".equals(hit.document.getSource()) || "built-in-solutions".equals(hit.document.getSource())) {
+                score *= 1.2;
+            }
+            scored.add(new ScoredChunk(hit.document, score));
         }
-        
-        return score;
+        scored.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+        return scored.size() > maxResults ? new ArrayList<>(scored.subList(0, maxResults)) : scored;
     }
 
     /**
@@ -601,6 +805,7 @@ public class KnowledgeBase {
     public void addCustomKnowledge(String id, String content, String source, DocumentCategory category, String... keywords) {
         DocumentChunk chunk = new DocumentChunk(id, content, source, category, keywords);
         knowledgeChunks.add(chunk);
+        indexKeywords(chunk);
         categoryCounts.merge(category, 1, Integer::sum);
         Log.info("📝 Added custom knowledge: " + id + " to category: " + category);
     }
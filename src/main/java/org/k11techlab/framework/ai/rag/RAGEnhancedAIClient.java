@@ -1,9 +1,16 @@
 package org.k11techlab.framework.ai.rag;
 
 import org.k11techlab.framework.ai.llm.LLMInterface;
+import org.k11techlab.framework.ai.rag.components.ReciprocalRankFusion;
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -26,9 +33,26 @@ public class RAGEnhancedAIClient implements LLMInterface {
     private final LLMInterface baseAIProvider;
     private final KnowledgeBase knowledgeBase;
     private final RAGConfiguration config;
+    private final ExecutorService retrievalExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile RetrievalTimings lastRetrievalTimings;
     
     /**
-     * RAG Configuration settings
+     * How context is retrieved from the knowledge base
+     */
+    public enum RetrievalMode {
+        /** BM25 keyword search only */
+        KEYWORD,
+        /** Embedding similarity search only */
+        VECTOR,
+        /** Keyword and vector search in parallel, merged with reciprocal-rank fusion */
+        HYBRID
+    }
+    
+    /**
+     * RAG Configuration settings.
+     * Thresholds apply to each retriever's own score before fusion, since fused rank scores say nothing
+     * about relevance (even tenth place is worth ~0.87): relevanceThreshold to the BM25 score of keyword
+     * hits, vectorSimilarityThreshold to the cosine similarity of vector hits.
      */
     public static class RAGConfiguration {
         private int maxRetrievedDocs = 5;
@@ -36,6 +60,11 @@ public class RAGEnhancedAIClient implements LLMInterface {
         private boolean includeSourceReferences = true;
         private boolean enableCategoryFiltering = true;
         private double relevanceThreshold = 1.0;
+        private double vectorSimilarityThreshold = 0.5;
+        private RetrievalMode retrievalMode = RetrievalMode.HYBRID;
+        private int candidatesPerRetriever = 10;
+        private int rrfK = ReciprocalRankFusion.DEFAULT_K;
+        private long vectorTimeoutMillis = 5000;
         
         // Getters and setters
         public int getMaxRetrievedDocs() { return maxRetrievedDocs; }
@@ -52,6 +81,67 @@ public class RAGEnhancedAIClient implements LLMInterface {
         
         public double getRelevanceThreshold() { return relevanceThreshold; }
         public void setRelevanceThreshold(double relevanceThreshold) { this.relevanceThreshold = relevanceThreshold; }
+        
+        public double getVectorSimilarityThreshold() { return vectorSimilarityThreshold; }
+        public void setVectorSimilarityThreshold(double vectorSimilarityThreshold) { this.vectorSimilarityThreshold = vectorSimilarityThreshold; }
+        
+        public RetrievalMode getRetrievalMode() { return retrievalMode; }
+        public void setRetrievalMode(RetrievalMode retrievalMode) { this.retrievalMode = retrievalMode; }
+        
+        public int getCandidatesPerRetriever() { return candidatesPerRetriever; }
+        public void setCandidatesPerRetriever(int candidatesPerRetriever) { this.candidatesPerRetriever = candidatesPerRetriever; }
+        
+        public int getRrfK() { return rrfK; }
+        public void setRrfK(int rrfK) { this.rrfK = rrfK; }
+        
+        public long getVectorTimeoutMillis() { return vectorTimeoutMillis; }
+        public void setVectorTimeoutMillis(long vectorTimeoutMillis) { this.vectorTimeoutMillis = vectorTimeoutMillis; }
+    }
+    
+    /**
+     * Per-stage timings of one retrieval. Keyword and vector stages overlap in HYBRID mode,
+     * so total is roughly the slower of the two plus fusion.
+     */
+    public static class RetrievalTimings {
+        private final RetrievalMode mode;
+        private final long keywordNanos;
+        private final long vectorNanos;
+        private final long fusionNanos;
+        private final long totalNanos;
+        private final int keywordHits;
+        private final int vectorHits;
+        private final int returnedDocs;
+        private final boolean vectorTimedOut;
+        
+        public RetrievalTimings(RetrievalMode mode, long keywordNanos, long vectorNanos, long fusionNanos, long totalNanos,
+                                int keywordHits, int vectorHits, int returnedDocs, boolean vectorTimedOut) {
+            this.mode = mode;
+            this.keywordNanos = keywordNanos;
+            this.vectorNanos = vectorNanos;
+            this.fusionNanos = fusionNanos;
+            this.totalNanos = totalNanos;
+            this.keywordHits = keywordHits;
+            this.vectorHits = vectorHits;
+            this.returnedDocs = returnedDocs;
+            this.vectorTimedOut = vectorTimedOut;
+        }
+        
+        public RetrievalMode getMode() { return mode; }
+        public double getKeywordMillis() { return keywordNanos / 1e6; }
+        public double getVectorMillis() { return vectorNanos / 1e6; }
+        public double getFusionMillis() { return fusionNanos / 1e6; }
+        public double getTotalMillis() { return totalNanos / 1e6; }
+        public int getKeywordHits() { return keywordHits; }
+        public int getVectorHits() { return vectorHits; }
+        public int getReturnedDocs() { return returnedDocs; }
+        public boolean isVectorTimedOut() { return vectorTimedOut; }
+        
+        @Override
+        public String toString() {
+            return String.format("mode=%s keyword=%.2fms(%d) vector=%.2fms(%d%s) fusion=%.2fms total=%.2fms returned=%d",
+                mode, getKeywordMillis(), keywordHits, getVectorMillis(), vectorHits, vectorTimedOut ? ", timed out" : "",
+                getFusionMillis(), getTotalMillis(), returnedDocs);
+        }
     }
     
     /**
@@ -66,7 +156,7 @@ public class RAGEnhancedAIClient implements LLMInterface {
      */
     public RAGEnhancedAIClient(LLMInterface baseAIProvider, RAGConfiguration config) {
         this.baseAIProvider = baseAIProvider;
-        this.knowledgeBase = new KnowledgeBase();
+        this.knowledgeBase = KnowledgeBase.create();
         this.config = config;
         
         Log.info("🧠 RAG-Enhanced AI Client initialized");
@@ -82,47 +172,188 @@ public class RAGEnhancedAIClient implements LLMInterface {
     public String generateResponse(String prompt, float temperature, int maxTokens) {
         try {
             // Step 1: Retrieve relevant knowledge
-            List<KnowledgeBase.DocumentChunk> relevantKnowledge = retrieveRelevantContext(prompt);
+            List<KnowledgeBase.ScoredChunk> relevantKnowledge = retrieveRelevantContext(prompt);
             
-            // Step 2: Enhance prompt with retrieved knowledge
+            // Steps 2-4: enhance the prompt, generate and post-process
+            return generateWithContext(prompt, relevantKnowledge, temperature, maxTokens);
+            
+        } catch (Exception e) {
+            Log.error("RAG enhancement failed, falling back to base provider: " + e.getMessage());
+            return baseAIProvider.generateResponse(prompt, temperature, maxTokens);
+        }
+    }
+    
+    /**
+     * Retrieve knowledge once so that several related generations can share it
+     * through {@link #generateWithContext}
+     */
+    public List<KnowledgeBase.ScoredChunk> retrieveSharedContext(String query) {
+        return retrieveRelevantContext(query);
+    }
+    
+    /**
+     * Generate a response using knowledge that was already retrieved, skipping retrieval for this prompt.
+     * Falls back to the base provider with the plain prompt if enhancement or post-processing fails.
+     */
+    public String generateWithContext(String prompt, List<KnowledgeBase.ScoredChunk> relevantKnowledge,
+                                      float temperature, int maxTokens) {
+        try {
+            // Enhance prompt with retrieved knowledge
             String enhancedPrompt = enhancePromptWithKnowledge(prompt, relevantKnowledge);
             
-            // Step 3: Generate response using enhanced prompt
+            // Generate response using enhanced prompt
             String response = baseAIProvider.generateResponse(enhancedPrompt, temperature, maxTokens);
             
-            // Step 4: Post-process response
+            // Post-process response
             String finalResponse = postProcessResponse(response, relevantKnowledge);
             
             Log.info("🧠 RAG-enhanced response generated with " + relevantKnowledge.size() + " knowledge sources");
             return finalResponse;
-            
         } catch (Exception e) {
             Log.error("RAG enhancement failed, falling back to base provider: " + e.getMessage());
             return baseAIProvider.generateResponse(prompt, temperature, maxTokens);
         }
     }
     
+    @Override
+    public String generateResponseStreaming(String prompt, Consumer<String> onToken) {
+        return generateResponseStreaming(prompt, 0.7f, 500, onToken);
+    }
+
+    /**
+     * Streams the base provider's answer to the knowledge-enhanced prompt; the source references
+     * added by post-processing follow as a final fragment.
+     */
+    @Override
+    public String generateResponseStreaming(String prompt, float temperature, int maxTokens, Consumer<String> onToken) {
+        List<KnowledgeBase.ScoredChunk> relevantKnowledge;
+        String enhancedPrompt;
+        try {
+            relevantKnowledge = retrieveRelevantContext(prompt);
+            enhancedPrompt = enhancePromptWithKnowledge(prompt, relevantKnowledge);
+        } catch (Exception e) {
+            Log.error("RAG enhancement failed, falling back to base provider: " + e.getMessage());
+            return baseAIProvider.generateResponseStreaming(prompt, temperature, maxTokens, onToken);
+        }
+        String response = baseAIProvider.generateResponseStreaming(enhancedPrompt, temperature, maxTokens, onToken);
+        String finalResponse = postProcessResponse(response, relevantKnowledge);
+        if (finalResponse.length() > response.length()) {
+            onToken.accept(finalResponse.substring(response.length()));
+        }
+        Log.info("🧠 RAG-enhanced response streamed with " + relevantKnowledge.size() + " knowledge sources");
+        return finalResponse;
+    }
+
     /**
      * Retrieve relevant context from knowledge base
      */
-    private List<KnowledgeBase.DocumentChunk> retrieveRelevantContext(String prompt) {
+    private List<KnowledgeBase.ScoredChunk> retrieveRelevantContext(String prompt) {
         // Determine the most appropriate category based on prompt content
         KnowledgeBase.DocumentCategory category = null;
         if (config.isEnableCategoryFiltering()) {
             category = determineQueryCategory(prompt);
         }
+        return retrieveContext(prompt, category);
+    }
+    
+    /**
+     * Retrieve context for a query using the configured retrieval mode. In HYBRID mode the vector
+     * lookup runs on a virtual thread while keyword search runs on the caller; both rankings are merged
+     * with reciprocal-rank fusion after each is cut at its own threshold.
+     * If the vector stage fails or exceeds vectorTimeoutMillis, keyword results are used alone.
+     * Timings are available from {@link #getLastRetrievalTimings()}.
+     */
+    public List<KnowledgeBase.ScoredChunk> retrieveContext(String query, KnowledgeBase.DocumentCategory category) {
+        long start = System.nanoTime();
+        RetrievalMode mode = config.getRetrievalMode();
+        int depth = Math.max(config.getCandidatesPerRetriever(), config.getMaxRetrievedDocs());
         
-        // Retrieve relevant documents
-        List<KnowledgeBase.DocumentChunk> relevantDocs = knowledgeBase.retrieveRelevantKnowledge(
-            prompt, config.getMaxRetrievedDocs(), category
-        );
+        if (mode == RetrievalMode.KEYWORD) {
+            List<KnowledgeBase.ScoredChunk> docs = knowledgeBase.retrieveScoredKnowledge(query, config.getMaxRetrievedDocs(), category)
+                .stream()
+                .filter(doc -> doc.getScore() >= config.getRelevanceThreshold())
+                .collect(Collectors.toList());
+            long elapsed = System.nanoTime() - start;
+            recordTimings(new RetrievalTimings(mode, elapsed, 0, 0, elapsed, docs.size(), 0, docs.size(), false));
+            return docs;
+        }
+        
+        AtomicLong vectorNanos = new AtomicLong();
+        Future<List<KnowledgeBase.ScoredChunk>> vectorFuture = retrievalExecutor.submit(() -> {
+            long t = System.nanoTime();
+            try {
+                return knowledgeBase.retrieveScoredKnowledgeRAG(query, depth, category);
+            } finally {
+                vectorNanos.set(System.nanoTime() - t);
+            }
+        });
         
-        // Filter by relevance threshold
-        return relevantDocs.stream()
-            .filter(doc -> doc.getRelevanceScore() >= config.getRelevanceThreshold())
+        long keywordNanos = 0;
+        List<KnowledgeBase.ScoredChunk> keywordHits = Collections.emptyList();
+        if (mode == RetrievalMode.HYBRID) {
+            long t = System.nanoTime();
+            keywordHits = knowledgeBase.retrieveScoredKnowledge(query, depth, category);
+            keywordNanos = System.nanoTime() - t;
+        }
+        
+        boolean vectorTimedOut = false;
+        List<KnowledgeBase.ScoredChunk> vectorRanking = Collections.emptyList();
+        try {
+            vectorRanking = vectorFuture.get(config.getVectorTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            vectorFuture.cancel(true);
+            vectorTimedOut = true;
+            vectorNanos.set(System.nanoTime() - start);
+            Log.info("⏱️ Vector retrieval exceeded " + config.getVectorTimeoutMillis() + "ms, using keyword results only");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.error("Vector retrieval failed, using keyword results only: " + e.getCause());
+        }
+        
+        long fusionStart = System.nanoTime();
+        List<KnowledgeBase.ScoredChunk> docs = fuseRelevant(keywordHits, vectorRanking, config);
+        long end = System.nanoTime();
+        
+        recordTimings(new RetrievalTimings(mode, keywordNanos, vectorNanos.get(), end - fusionStart, end - start,
+            keywordHits.size(), vectorRanking.size(), docs.size(), vectorTimedOut));
+        return docs;
+    }
+    
+    /**
+     * Drop keyword hits below relevanceThreshold and vector hits below vectorSimilarityThreshold, then merge
+     * the remaining rankings with reciprocal-rank fusion. Returned scores are the fused scores.
+     */
+    public static List<KnowledgeBase.ScoredChunk> fuseRelevant(List<KnowledgeBase.ScoredChunk> keywordHits,
+                                                               List<KnowledgeBase.ScoredChunk> vectorHits,
+                                                               RAGConfiguration config) {
+        List<KnowledgeBase.DocumentChunk> keywordRanking = keywordHits.stream()
+            .filter(doc -> doc.getScore() >= config.getRelevanceThreshold())
+            .map(KnowledgeBase.ScoredChunk::getChunk)
+            .collect(Collectors.toList());
+        List<KnowledgeBase.DocumentChunk> vectorRanking = vectorHits.stream()
+            .filter(doc -> doc.getScore() >= config.getVectorSimilarityThreshold())
+            .map(KnowledgeBase.ScoredChunk::getChunk)
+            .collect(Collectors.toList());
+        return ReciprocalRankFusion.fuse(config.getRrfK(), KnowledgeBase.DocumentChunk::getId,
+                Arrays.asList(keywordRanking, vectorRanking)).stream()
+            .limit(config.getMaxRetrievedDocs())
+            .map(f -> new KnowledgeBase.ScoredChunk(f.item, f.score))
             .collect(Collectors.toList());
     }
     
+    private void recordTimings(RetrievalTimings timings) {
+        lastRetrievalTimings = timings;
+        Log.info("🔍 Retrieval " + timings);
+    }
+    
+    /**
+     * Timings of the most recent retrieval made by this client (null before the first one)
+     */
+    public RetrievalTimings getLastRetrievalTimings() {
+        return lastRetrievalTimings;
+    }
+    
     /**
      * Determine the most appropriate category for the query
      */
@@ -170,7 +401,7 @@ public class RAGEnhancedAIClient implements LLMInterface {
     /**
      * Enhance the original prompt with retrieved knowledge
      */
-    private String enhancePromptWithKnowledge(String originalPrompt, List<KnowledgeBase.DocumentChunk> relevantKnowledge) {
+    private String enhancePromptWithKnowledge(String originalPrompt, List<KnowledgeBase.ScoredChunk> relevantKnowledge) {
         if (relevantKnowledge.isEmpty()) {
             return originalPrompt;
         }
@@ -183,9 +414,10 @@ public class RAGEnhancedAIClient implements LLMInterface {
         // Add retrieved knowledge as context
         int totalContextLength = 0;
         for (int i = 0; i < relevantKnowledge.size() && totalContextLength < config.getMaxContextLength(); i++) {
-            KnowledgeBase.DocumentChunk chunk = relevantKnowledge.get(i);
+            KnowledgeBase.ScoredChunk scored = relevantKnowledge.get(i);
+            KnowledgeBase.DocumentChunk chunk = scored.getChunk();
             String contextEntry = String.format("KNOWLEDGE SOURCE %d (Category: %s, Relevance: %.1f):\n%s\n\n",
-                i + 1, chunk.getCategory().name(), chunk.getRelevanceScore(), chunk.getContent());
+                i + 1, chunk.getCategory().name(), scored.getScore(), chunk.getContent());
             
             if (totalContextLength + contextEntry.length() <= config.getMaxContextLength()) {
                 enhancedPrompt.append(contextEntry);
@@ -214,7 +446,7 @@ public class RAGEnhancedAIClient implements LLMInterface {
     /**
      * Post-process the AI response to add source references and improvements
      */
-    private String postProcessResponse(String response, List<KnowledgeBase.DocumentChunk> usedKnowledge) {
+    private String postProcessResponse(String response, List<KnowledgeBase.ScoredChunk> usedKnowledge) {
         if (!config.isIncludeSourceReferences() || usedKnowledge.isEmpty()) {
             return response;
         }
@@ -224,9 +456,10 @@ public class RAGEnhancedAIClient implements LLMInterface {
         // Add knowledge sources section
         enhancedResponse.append("\n\n📚 **Knowledge Sources Used:**\n");
         for (int i = 0; i < usedKnowledge.size(); i++) {
-            KnowledgeBase.DocumentChunk chunk = usedKnowledge.get(i);
+            KnowledgeBase.ScoredChunk scored = usedKnowledge.get(i);
+            KnowledgeBase.DocumentChunk chunk = scored.getChunk();
             enhancedResponse.append(String.format("   %d. %s (Category: %s, Relevance: %.1f)\n", 
-                i + 1, chunk.getSource(), chunk.getCategory().name(), chunk.getRelevanceScore()));
+                i + 1, chunk.getSource(), chunk.getCategory().name(), scored.getScore()));
         }
         
         // Add helpful footer
@@ -292,6 +525,7 @@ public class RAGEnhancedAIClient implements LLMInterface {
     
     @Override
     public void close() {
+        retrievalExecutor.shutdownNow();
         // Close base provider
         baseAIProvider.close();
     }
@@ -320,6 +554,11 @@ public class RAGEnhancedAIClient implements LLMInterface {
         this.config.setIncludeSourceReferences(newConfig.isIncludeSourceReferences());
         this.config.setEnableCategoryFiltering(newConfig.isEnableCategoryFiltering());
         this.config.setRelevanceThreshold(newConfig.getRelevanceThreshold());
+        this.config.setVectorSimilarityThreshold(newConfig.getVectorSimilarityThreshold());
+        this.config.setRetrievalMode(newConfig.getRetrievalMode());
+        this.config.setCandidatesPerRetriever(newConfig.getCandidatesPerRetriever());
+        this.config.setRrfK(newConfig.getRrfK());
+        this.config.setVectorTimeoutMillis(newConfig.getVectorTimeoutMillis());
         
         Log.info("🔧 RAG configuration updated");
     }
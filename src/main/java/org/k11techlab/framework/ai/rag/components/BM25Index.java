@@ -0,0 +1,271 @@
+package org.k11techlab.framework.ai.rag.components;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * BM25Index
+ * Inverted index with Okapi BM25 scoring for keyword retrieval.
+ * Keeps per-term postings (document ordinal, term frequency) and document lengths, so a query
+ * only touches the postings of its own terms instead of scanning every document.
+ * Scores are returned alongside the documents; indexed objects are never modified.
+ * Reads run concurrently; add/remove take a write lock.
+ *
+ * @param <T> type of the indexed documents
+ */
+public class BM25Index<T> {
+
+    public static final double DEFAULT_K1 = 1.2;
+    public static final double DEFAULT_B = 0.75;
+
+    /**
+     * A search result: the document and its BM25 score.
+     */
+    public static class Hit<T> {
+        public final String id;
+        public final T document;
+        public final double score;
+
+        public Hit(String id, T document, double score) {
+            this.id = id;
+            this.document = document;
+            this.score = score;
+        }
+    }
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "how", "in", "is", "it",
+            "of", "on", "or", "the", "this", "to", "what", "when", "with", "do", "i", "me", "my", "can"));
+
+    /** Growable parallel arrays of (doc ordinal, term frequency). */
+    private static class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        void remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == doc) {
+                    size--;
+                    docs[i] = docs[size];
+                    freqs[i] = freqs[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private final double k1;
+    private final double b;
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final List<T> documents = new ArrayList<>();
+    private final List<Set<String>> documentTerms = new ArrayList<>();
+    private int[] lengths = new int[64];
+    private long totalLength;
+    private int liveCount;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public BM25Index() {
+        this(DEFAULT_K1, DEFAULT_B);
+    }
+
+    public BM25Index(double k1, double b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * Index a document, replacing any document with the same id.
+     * Boost terms (e.g. curated keywords) count as boostWeight occurrences each.
+     */
+    public void add(String id, T document, String text, Collection<String> boostTerms, int boostWeight) {
+        Map<String, Integer> freqs = new HashMap<>();
+        int length = 0;
+        for (String token : tokenize(text)) {
+            freqs.merge(token, 1, Integer::sum);
+            length++;
+        }
+        if (boostTerms != null) {
+            for (String term : boostTerms) {
+                for (String token : tokenize(term)) {
+                    freqs.merge(token, boostWeight, Integer::sum);
+                    length += boostWeight;
+                }
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            int ordinal = documents.size();
+            ordinals.put(id, ordinal);
+            ids.add(id);
+            documents.add(document);
+            documentTerms.add(freqs.keySet());
+            if (ordinal == lengths.length) lengths = Arrays.copyOf(lengths, ordinal * 2);
+            lengths[ordinal] = length;
+            totalLength += length;
+            liveCount++;
+            for (Map.Entry<String, Integer> e : freqs.entrySet()) {
+                postings.computeIfAbsent(e.getKey(), k -> new Postings()).add(ordinal, e.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(String id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) return false;
+        for (String term : documentTerms.get(ordinal)) {
+            Postings p = postings.get(term);
+            if (p == null) continue;
+            p.remove(ordinal);
+            if (p.size == 0) postings.remove(term);
+        }
+        totalLength -= lengths[ordinal];
+        liveCount--;
+        documents.set(ordinal, null);
+        documentTerms.set(ordinal, Collections.emptySet());
+        ids.set(ordinal, null);
+        // Ordinals are not reused; compact once removed slots dominate
+        if (documents.size() > 64 && liveCount < documents.size() / 2) compactLocked();
+        return true;
+    }
+
+    private void compactLocked() {
+        List<String> oldIds = new ArrayList<>(ids);
+        List<T> oldDocs = new ArrayList<>(documents);
+        int[] oldLengths = lengths;
+        int[] remap = new int[oldDocs.size()];
+        ids.clear();
+        documents.clear();
+        List<Set<String>> oldTerms = new ArrayList<>(documentTerms);
+        documentTerms.clear();
+        ordinals.clear();
+        lengths = new int[Math.max(64, liveCount * 2)];
+        for (int i = 0; i < oldDocs.size(); i++) {
+            if (oldIds.get(i) == null) {
+                remap[i] = -1;
+                continue;
+            }
+            int ordinal = documents.size();
+            remap[i] = ordinal;
+            ordinals.put(oldIds.get(i), ordinal);
+            ids.add(oldIds.get(i));
+            documents.add(oldDocs.get(i));
+            documentTerms.add(oldTerms.get(i));
+            lengths[ordinal] = oldLengths[i];
+        }
+        for (Postings p : postings.values()) {
+            for (int i = 0; i < p.size; i++) p.docs[i] = remap[p.docs[i]];
+        }
+    }
+
+    /**
+     * Return up to topK documents with a positive BM25 score, best first.
+     * @param filter optional document filter applied before ranking (may be null)
+     */
+    public List<Hit<T>> search(String query, int topK, Predicate<T> filter) {
+        if (query == null || topK <= 0) return Collections.emptyList();
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) return Collections.emptyList();
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0) return Collections.emptyList();
+            double avgLength = Math.max(1.0, totalLength / (double) liveCount);
+            double[] scores = new double[documents.size()];
+            boolean[] touched = new boolean[documents.size()];
+            int[] touchedList = new int[documents.size()];
+            int touchedCount = 0;
+            for (String term : terms) {
+                Postings p = postings.get(term);
+                if (p == null) continue;
+                double idf = Math.log(1 + (liveCount - p.size + 0.5) / (p.size + 0.5));
+                for (int i = 0; i < p.size; i++) {
+                    int doc = p.docs[i];
+                    int tf = p.freqs[i];
+                    double norm = k1 * (1 - b + b * lengths[doc] / avgLength);
+                    scores[doc] += idf * tf * (k1 + 1) / (tf + norm);
+                    if (!touched[doc]) {
+                        touched[doc] = true;
+                        touchedList[touchedCount++] = doc;
+                    }
+                }
+            }
+            PriorityQueue<Integer> heap = new PriorityQueue<>(topK + 1, Comparator.comparingDouble(d -> scores[d]));
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touchedList[i];
+                if (scores[doc] <= 0) continue;
+                if (filter != null && !filter.test(documents.get(doc))) continue;
+                if (heap.size() < topK) {
+                    heap.add(doc);
+                } else if (scores[doc] > scores[heap.peek()]) {
+                    heap.poll();
+                    heap.add(doc);
+                }
+            }
+            List<Hit<T>> hits = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                int doc = heap.poll();
+                hits.add(new Hit<>(ids.get(doc), documents.get(doc), scores[doc]));
+            }
+            Collections.reverse(hits);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-case alphanumeric tokens of at least two characters, without common stop words.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                if (i - start >= 2) {
+                    String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+                    if (!STOP_WORDS.contains(token)) tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
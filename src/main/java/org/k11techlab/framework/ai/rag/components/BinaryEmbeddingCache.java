@@ -0,0 +1,212 @@
+package org.k11techlab.framework.ai.rag.components;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * BinaryEmbeddingCache - Append-only, memory-mapped embedding cache.
+ *
+ * File layout: an 8-byte header ("K11E" magic + int version) followed by records of
+ * [long keyHash][int keyLength][int dimension][key UTF-8 bytes][dimension x float32].
+ * On open only the record headers are scanned to build the key hash index; vectors are read
+ * straight from the mapped file. put() buffers entries and save() appends them without rewriting
+ * existing records. A later record for the same key supersedes earlier ones.
+ *
+ * Limited to 2 GB per file (single MappedByteBuffer).
+ */
+public class BinaryEmbeddingCache {
+    private static final int MAGIC = 0x4B313145; // "K11E"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 16;
+
+    private final Path cachePath;
+    private final Map<Long, Long> offsets = new HashMap<>();
+    private final Map<String, double[]> pending = new LinkedHashMap<>();
+    private MappedByteBuffer mapped;
+    private long validEnd;
+
+    public BinaryEmbeddingCache(String filename) {
+        this.cachePath = Paths.get(filename);
+        load();
+    }
+
+    /**
+     * Open the binary cache, migrating the legacy JSON cache into it first if the binary file does not exist yet.
+     */
+    public static BinaryEmbeddingCache openOrMigrate(String binaryFile, String legacyJsonFile) {
+        if (!Files.exists(Paths.get(binaryFile)) && legacyJsonFile != null && Files.exists(Paths.get(legacyJsonFile))) {
+            try {
+                int migrated = migrateFromJson(legacyJsonFile, binaryFile);
+                System.out.println("[EMBED] Migrated " + migrated + " embeddings from " + legacyJsonFile + " to " + binaryFile);
+            } catch (IOException e) {
+                System.err.println("Embedding cache migration failed: " + e.getMessage());
+            }
+        }
+        return new BinaryEmbeddingCache(binaryFile);
+    }
+
+    /**
+     * One-shot migration from the JSON format written by {@link EmbeddingCache}.
+     * Streams the JSON with the Jackson token parser so the legacy file is never fully materialised.
+     *
+     * @return number of embeddings written
+     */
+    public static int migrateFromJson(String jsonFile, String binaryFile) throws IOException {
+        BinaryEmbeddingCache target = new BinaryEmbeddingCache(binaryFile);
+        int count = 0;
+        try (JsonParser parser = new JsonFactory().createParser(Paths.get(jsonFile).toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) throw new IOException("Expected JSON object in " + jsonFile);
+            double[] buffer = new double[1536];
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_ARRAY) throw new IOException("Expected array for key " + key);
+                int n = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (n == buffer.length) buffer = Arrays.copyOf(buffer, n * 2);
+                    buffer[n++] = parser.getDoubleValue();
+                }
+                target.put(key, Arrays.copyOf(buffer, n));
+                count++;
+                if (count % 1000 == 0) target.save();
+            }
+        }
+        target.save();
+        return count;
+    }
+
+    public synchronized double[] get(String key) {
+        double[] p = pending.get(key);
+        if (p != null) return p;
+        FloatBuffer view = getVector(key);
+        if (view == null) return null;
+        double[] arr = new double[view.remaining()];
+        for (int i = 0; i < arr.length; i++) arr[i] = view.get(i);
+        return arr;
+    }
+
+    /**
+     * Zero-copy read-only view of a persisted vector, or null if the key is not in the file.
+     * Entries put() since the last save() are not visible here.
+     */
+    public synchronized FloatBuffer getVector(String key) {
+        Long offset = offsets.get(hash(key));
+        if (offset == null || mapped == null) return null;
+        int pos = (int) (long) offset;
+        int keyLength = mapped.getInt(pos + 8);
+        int dimension = mapped.getInt(pos + 12);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length != keyLength) return null;
+        for (int i = 0; i < keyLength; i++) {
+            if (mapped.get(pos + RECORD_HEADER_BYTES + i) != keyBytes[i]) return null; // hash collision
+        }
+        ByteBuffer slice = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        slice.position(pos + RECORD_HEADER_BYTES + keyLength);
+        slice.limit(pos + RECORD_HEADER_BYTES + keyLength + dimension * Float.BYTES);
+        return slice.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().asReadOnlyBuffer();
+    }
+
+    public synchronized void put(String key, double[] vec) {
+        pending.put(key, vec);
+    }
+
+    public synchronized int size() {
+        Set<Long> keys = new HashSet<>(offsets.keySet());
+        for (String key : pending.keySet()) keys.add(hash(key));
+        return keys.size();
+    }
+
+    /**
+     * Append buffered entries to the end of the file, index them and remap.
+     * Existing records are never rewritten or rescanned.
+     */
+    public synchronized void save() {
+        if (pending.isEmpty()) return;
+        try (FileChannel channel = FileChannel.open(cachePath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = validEnd;
+            if (position == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                while (header.hasRemaining()) position += channel.write(header, position);
+            }
+            Map<Long, Long> written = new HashMap<>();
+            for (Map.Entry<String, double[]> e : pending.entrySet()) {
+                byte[] keyBytes = e.getKey().getBytes(StandardCharsets.UTF_8);
+                double[] vec = e.getValue();
+                long keyHash = hash(e.getKey());
+                ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + keyBytes.length + vec.length * Float.BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                record.putLong(keyHash).putInt(keyBytes.length).putInt(vec.length).put(keyBytes);
+                for (double v : vec) record.putFloat((float) v);
+                record.flip();
+                written.put(keyHash, position);
+                while (record.hasRemaining()) position += channel.write(record, position);
+            }
+            // Cut any torn tail left behind by an interrupted save
+            if (channel.size() > position) channel.truncate(position);
+            channel.force(false);
+            if (position > Integer.MAX_VALUE) throw new IOException("Embedding cache exceeds 2 GB: " + cachePath);
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, position);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            offsets.putAll(written);
+            validEnd = position;
+            pending.clear();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void load() {
+        offsets.clear();
+        mapped = null;
+        validEnd = 0;
+        if (!Files.exists(cachePath)) return;
+        try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) return;
+            if (size > Integer.MAX_VALUE) throw new IOException("Embedding cache exceeds 2 GB: " + cachePath);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) throw new IOException("Not a binary embedding cache: " + cachePath);
+            long pos = HEADER_BYTES;
+            while (pos + RECORD_HEADER_BYTES <= size) {
+                long keyHash = buffer.getLong((int) pos);
+                int keyLength = buffer.getInt((int) pos + 8);
+                int dimension = buffer.getInt((int) pos + 12);
+                long next = pos + RECORD_HEADER_BYTES + keyLength + (long) dimension * Float.BYTES;
+                if (keyLength < 0 || dimension < 0 || next > size) break;
+                offsets.put(keyHash, pos);
+                pos = next;
+            }
+            if (pos < size) {
+                System.err.println("Warning: Ignoring partial record at offset " + pos + " in " + cachePath);
+            }
+            mapped = buffer;
+            validEnd = pos;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // 64-bit FNV-1a over the UTF-8 key bytes
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,48 @@
+package org.k11techlab.framework.ai.rag.components;
+
+import java.util.*;
+
+/**
+ * BruteForceVectorIndex
+ * Exact nearest-neighbour search: scores every entry against the query.
+ * Used as the default index and as the ground truth when measuring ANN recall.
+ */
+public class BruteForceVectorIndex implements VectorIndex {
+    private final List<VectorStore.VectorEntry> entries = new ArrayList<>();
+    private final Set<String> ids = new HashSet<>();
+
+    @Override
+    public synchronized void add(VectorStore.VectorEntry entry) {
+        if (!ids.add(entry.id)) entries.removeIf(e -> e.id.equals(entry.id));
+        entries.add(entry);
+    }
+
+    @Override
+    public synchronized boolean remove(String id) {
+        return ids.remove(id) && entries.removeIf(e -> e.id.equals(id));
+    }
+
+    @Override
+    public synchronized List<VectorStore.VectorEntry> search(double[] queryVector, int topK) {
+        if (topK <= 0 || entries.isEmpty()) return Collections.emptyList();
+        // Score each entry once instead of inside the comparator
+        double[] scores = new double[entries.size()];
+        Integer[] order = new Integer[entries.size()];
+        for (int i = 0; i < scores.length; i++) {
+            VectorStore.VectorEntry e = entries.get(i);
+            scores[i] = (e.vector == null || e.vector.length != queryVector.length)
+                    ? Double.NEGATIVE_INFINITY
+                    : VectorStore.cosineSim(queryVector, e.vector);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        List<VectorStore.VectorEntry> result = new ArrayList<>();
+        for (int i = 0; i < topK && i < order.length; i++) result.add(entries.get(order[i]));
+        return result;
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+}
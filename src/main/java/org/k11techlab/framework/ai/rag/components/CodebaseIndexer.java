@@ -1,13 +1,15 @@
 package org.k11techlab.framework.ai.rag.components;
 
+import java.io.IOException;
 import java.nio.file.*;
 import java.util.*;
-import java.security.MessageDigest;
-import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * CodebaseIndexer
  * Scans and indexes documentation/code files for RAG retrieval.
+ * Files are streamed through a {@link DocumentChunker}, producing several overlapping chunks per file.
  */
 public class CodebaseIndexer {
     public static class IndexedChunk {
@@ -21,29 +23,108 @@ public class CodebaseIndexer {
         }
     }
 
+    /**
+     * Result of an incremental index pass: chunks of new/changed files and ids of chunks that are gone.
+     */
+    public static class IndexDelta {
+        public final List<IndexedChunk> upserted = new ArrayList<>();
+        public final List<String> removedIds = new ArrayList<>();
+    }
+
+    private final DocumentChunker chunker;
+
+    public CodebaseIndexer() {
+        this(new DocumentChunker());
+    }
+
+    public CodebaseIndexer(DocumentChunker chunker) {
+        this.chunker = chunker;
+    }
+
     public List<IndexedChunk> indexDirectory(Path root, String... extensions) {
         List<IndexedChunk> chunks = new ArrayList<>();
-        try {
-            Files.walk(root)
-                .filter(Files::isRegularFile)
-                .filter(p -> {
-                    String name = p.getFileName().toString().toLowerCase();
-                    for (String ext : extensions) if (name.endsWith(ext)) return true;
-                    return false;
-                })
+        indexDirectory(root, chunks::add, extensions);
+        return chunks;
+    }
+
+    /**
+     * Stream chunks of every matching file to the sink, one file at a time, so a whole
+     * repository can be indexed without collecting all chunks in memory.
+     */
+    public void indexDirectory(Path root, Consumer<IndexedChunk> sink, String... extensions) {
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(Files::isRegularFile)
+                .filter(p -> matches(p, extensions))
                 .forEach(p -> {
                     try {
-                        String content = new String(Files.readAllBytes(p));
-                        Map<String, String> meta = new HashMap<>();
-                        meta.put("path", p.toString());
-                        String id = CodebaseIndexer.sha256(p.toString() + "::" + content);
-                        chunks.add(new IndexedChunk(id, content, meta));
-                    } catch (Exception ignored) {}
+                        indexFile(p, sink);
+                    } catch (Exception e) {
+                        System.err.println("Failed to index " + p + ": " + e.getMessage());
+                    }
                 });
         } catch (Exception e) {
             e.printStackTrace();
         }
-        return chunks;
+    }
+
+    /**
+     * Chunk a single file. Each chunk carries path, chunk index, line range and section metadata.
+     * @return ids of the emitted chunks, in order
+     */
+    public List<String> indexFile(Path file, Consumer<IndexedChunk> sink) throws IOException {
+        List<String> ids = new ArrayList<>();
+        chunker.chunk(file, chunk -> {
+            IndexedChunk indexed = toIndexedChunk(file, chunk);
+            ids.add(indexed.id);
+            sink.accept(indexed);
+        });
+        return ids;
+    }
+
+    private static IndexedChunk toIndexedChunk(Path file, DocumentChunker.Chunk chunk) {
+        Map<String, String> meta = new HashMap<>();
+        meta.put("path", file.toString());
+        meta.put("chunk", String.valueOf(chunk.index));
+        meta.put("startLine", String.valueOf(chunk.startLine));
+        meta.put("endLine", String.valueOf(chunk.endLine));
+        if (chunk.section != null) meta.put("section", chunk.section);
+        String id = CodebaseIndexer.sha256(file.toString() + "::" + chunk.index + "::" + chunk.text);
+        return new IndexedChunk(id, chunk.text, meta);
+    }
+
+    /**
+     * Incrementally index a directory against a manifest: only files whose content hash changed are read,
+     * and chunks belonging to changed or deleted files are reported for eviction. The manifest is updated
+     * in memory; callers persist it with {@link IndexManifest#save()} once the delta has been applied.
+     */
+    public IndexDelta indexDirectory(Path root, IndexManifest manifest, String... extensions) {
+        IndexDelta delta = new IndexDelta();
+        IndexManifest.Changes changes = manifest.scan(root, p -> matches(p, extensions));
+        for (Map.Entry<Path, IndexManifest.FileState> deleted : changes.deleted.entrySet()) {
+            delta.removedIds.addAll(deleted.getValue().chunkIds);
+            manifest.remove(deleted.getKey());
+        }
+        for (Path p : changes.changed) {
+            IndexManifest.FileState previous = manifest.get(p);
+            if (previous != null) delta.removedIds.addAll(previous.chunkIds);
+            try {
+                List<String> ids = indexFile(p, delta.upserted::add);
+                manifest.update(p, IndexManifest.sha256(p), ids);
+            } catch (Exception e) {
+                System.err.println("Failed to index " + p + ": " + e.getMessage());
+            }
+        }
+        // A chunk whose content did not change keeps its id; do not evict it
+        Set<String> kept = new HashSet<>();
+        for (IndexedChunk c : delta.upserted) kept.add(c.id);
+        delta.removedIds.removeIf(kept::contains);
+        return delta;
+    }
+
+    private static boolean matches(Path p, String... extensions) {
+        String name = p.getFileName().toString().toLowerCase();
+        for (String ext : extensions) if (name.endsWith(ext)) return true;
+        return false;
     }
 
     // Deterministic SHA-256 hash for chunk ID
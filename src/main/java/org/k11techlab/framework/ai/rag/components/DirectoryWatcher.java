@@ -0,0 +1,103 @@
+package org.k11techlab.framework.ai.rag.components;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * DirectoryWatcher
+ * Watches a directory tree with the JDK WatchService and reports changed paths in debounced batches,
+ * so an editor saving a file several times, or a bulk copy, triggers a single re-index.
+ * Runs on a daemon thread; newly created sub-directories are registered automatically.
+ */
+public class DirectoryWatcher implements AutoCloseable {
+    private final Path root;
+    private final long debounceMillis;
+    private final Consumer<Set<Path>> onChange;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private volatile boolean running;
+    private Thread thread;
+
+    public DirectoryWatcher(Path root, long debounceMillis, Consumer<Set<Path>> onChange) throws IOException {
+        this.root = root;
+        this.debounceMillis = debounceMillis;
+        this.onChange = onChange;
+        this.watchService = root.getFileSystem().newWatchService();
+        registerTree(root);
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "rag-dir-watcher-" + root.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        Set<Path> pendingChanges = new LinkedHashSet<>();
+        while (running) {
+            WatchKey key;
+            try {
+                key = pendingChanges.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            }
+            if (key == null) {
+                // Quiet period elapsed: flush the batch
+                Set<Path> batch = new LinkedHashSet<>(pendingChanges);
+                pendingChanges.clear();
+                try {
+                    onChange.accept(batch);
+                } catch (RuntimeException e) {
+                    System.err.println("Directory change handler failed: " + e.getMessage());
+                }
+                continue;
+            }
+            Path dir = keys.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    pendingChanges.add(root);
+                    continue;
+                }
+                Path changed = dir.resolve((Path) event.context());
+                pendingChanges.add(changed);
+                if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+                    try {
+                        registerTree(changed);
+                    } catch (IOException e) {
+                        System.err.println("Could not watch new directory " + changed + ": " + e.getMessage());
+                    }
+                }
+            }
+            if (!key.reset()) keys.remove(key);
+        }
+    }
+
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                keys.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException ignored) {}
+        if (thread != null) thread.interrupt();
+    }
+}
@@ -0,0 +1,287 @@
+package org.k11techlab.framework.ai.rag.components;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * DocumentChunker
+ * Streams text into retrieval-sized chunks without holding the whole document in memory.
+ * Text is consumed line by line through a bounded buffer (at most maxChars plus one capped line).
+ * Chunks break preferentially at structural boundaries — Markdown headings, Java type and method
+ * declarations (together with their Javadoc/annotations) — and otherwise at maxChars, in which case
+ * the last overlapChars of the previous chunk are repeated at the start of the next one.
+ * Sizes are in characters; roughly 4 characters correspond to one embedding-model token.
+ */
+public class DocumentChunker {
+
+    public static final int DEFAULT_MAX_CHARS = 1500;
+    public static final int DEFAULT_OVERLAP_CHARS = 200;
+
+    public enum Type { JAVA, MARKDOWN, TEXT }
+
+    /**
+     * A chunk of a document with its 1-based inclusive line range and enclosing section
+     * (nearest Markdown heading or Java declaration, may be null).
+     */
+    public static class Chunk {
+        public final int index;
+        public final String text;
+        public final int startLine;
+        public final int endLine;
+        public final String section;
+
+        public Chunk(int index, String text, int startLine, int endLine, String section) {
+            this.index = index;
+            this.text = text;
+            this.startLine = startLine;
+            this.endLine = endLine;
+            this.section = section;
+        }
+    }
+
+    private static final Pattern MARKDOWN_HEADING = Pattern.compile("^#{1,6}\\s+\\S.*");
+    private static final Pattern JAVA_TYPE = Pattern.compile(
+            "^\\s*(?:(?:public|protected|private|abstract|static|final|sealed|non-sealed|strictfp)\\s+)*(?:class|interface|enum|record|@interface)\\s+\\w+.*");
+    private static final Pattern JAVA_METHOD = Pattern.compile(
+            "^\\s*(?:(?:public|protected|private|abstract|static|final|synchronized|native|default|strictfp)\\s+)*(?:<[^>]+>\\s+)?[\\w.$<>\\[\\],?\\s]+\\s+\\w+\\s*\\([^;]*$");
+    private static final Pattern JAVA_LEAD = Pattern.compile("^\\s*(?:/\\*\\*|\\*|\\*/|@\\w+).*");
+    private static final Pattern JAVA_NOT_METHOD = Pattern.compile("^\\s*(?:return|new|throw|else|if|for|while|switch|catch|try|do)\\b.*");
+
+    private final int maxChars;
+    private final int overlapChars;
+
+    public DocumentChunker() {
+        this(DEFAULT_MAX_CHARS, DEFAULT_OVERLAP_CHARS);
+    }
+
+    public DocumentChunker(int maxChars, int overlapChars) {
+        if (maxChars <= 0) throw new IllegalArgumentException("maxChars must be positive");
+        this.maxChars = maxChars;
+        this.overlapChars = Math.max(0, Math.min(overlapChars, maxChars / 2));
+    }
+
+    public int getMaxChars() { return maxChars; }
+    public int getOverlapChars() { return overlapChars; }
+
+    public static Type typeOf(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        if (name.endsWith(".java")) return Type.JAVA;
+        if (name.endsWith(".md") || name.endsWith(".markdown")) return Type.MARKDOWN;
+        return Type.TEXT;
+    }
+
+    /**
+     * Chunk a file, streaming it as UTF-8.
+     */
+    public void chunk(Path file, Consumer<Chunk> sink) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            chunk(reader, typeOf(file), sink);
+        }
+    }
+
+    /**
+     * Chunk everything read from the reader. The reader is not closed.
+     */
+    public void chunk(Reader reader, Type type, Consumer<Chunk> sink) throws IOException {
+        try (Writer writer = newWriter(type, sink)) {
+            char[] buffer = new char[8192];
+            int n;
+            while ((n = reader.read(buffer)) != -1) writer.write(buffer, 0, n);
+        }
+    }
+
+    /**
+     * Convenience for small in-memory texts.
+     */
+    public List<Chunk> chunk(String text, Type type) {
+        List<Chunk> chunks = new ArrayList<>();
+        try (Writer writer = newWriter(type, chunks::add)) {
+            writer.write(text);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return chunks;
+    }
+
+    /**
+     * A Writer that emits chunks as text is written to it; closing it emits the final chunk.
+     * Useful for producers that push text, e.g. PDFTextStripper.writeText.
+     */
+    public Writer newWriter(Type type, Consumer<Chunk> sink) {
+        return new ChunkWriter(type, sink);
+    }
+
+    private static class Line {
+        final int number;
+        final String text;
+        final String section;
+        final boolean boundary;
+        Line(int number, String text, String section, boolean boundary) {
+            this.number = number;
+            this.text = text;
+            this.section = section;
+            this.boundary = boundary;
+        }
+    }
+
+    private class ChunkWriter extends Writer {
+        private final Type type;
+        private final Consumer<Chunk> sink;
+        private final StringBuilder currentLine = new StringBuilder();
+        private final Deque<Line> lines = new ArrayDeque<>();
+        private int bufferedChars;
+        private int lineNumber = 1;
+        private int chunkIndex;
+        // Lines at the head of the buffer repeated from the previous chunk
+        private int carried;
+        // Buffer index where the current run of Javadoc/annotation lines began, -1 if none
+        private int leadStart = -1;
+        private String section;
+        private boolean closed;
+
+        ChunkWriter(Type type, Consumer<Chunk> sink) {
+            this.type = type;
+            this.sink = sink;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                char c = cbuf[i];
+                if (c == '\n') {
+                    endLine(true);
+                } else if (c != '\r') {
+                    currentLine.append(c);
+                    // Cap a single line so minified or extracted text cannot grow the buffer unbounded
+                    if (currentLine.length() >= maxChars) endLine(false);
+                }
+            }
+        }
+
+        private void endLine(boolean newline) {
+            String text = currentLine.toString();
+            currentLine.setLength(0);
+            acceptLine(lineNumber, text);
+            if (newline) lineNumber++;
+        }
+
+        private void acceptLine(int number, String text) {
+            String label = boundaryLabel(text);
+            if (label != null) {
+                // Start a new chunk at the declaration/heading (or its leading Javadoc) once the
+                // current one is big enough to be worth embedding on its own
+                int cut = leadStart >= 0 ? leadStart : lines.size();
+                if (bufferedChars >= maxChars / 4 && cut > 0) {
+                    if (cut <= carried) {
+                        drop(cut);
+                    } else {
+                        emit(cut, false);
+                    }
+                }
+                section = label;
+                leadStart = -1;
+            } else if (type == Type.JAVA && JAVA_LEAD.matcher(text).matches()) {
+                if (leadStart < 0) leadStart = lines.size();
+            } else if (!text.trim().isEmpty()) {
+                leadStart = -1;
+            }
+            int lineChars = text.length() + 1;
+            if (bufferedChars + lineChars > maxChars && lines.size() > carried) {
+                if (leadStart > carried) {
+                    // Keep a Javadoc/annotation run together with whatever it documents
+                    emit(leadStart, false);
+                    leadStart = 0;
+                } else {
+                    emit(lines.size(), true);
+                }
+            }
+            lines.addLast(new Line(number, text, section, label != null));
+            bufferedChars += lineChars;
+        }
+
+        private String boundaryLabel(String text) {
+            switch (type) {
+                case MARKDOWN:
+                    return MARKDOWN_HEADING.matcher(text).matches() ? text.replaceFirst("^#+\\s*", "").trim() : null;
+                case JAVA:
+                    if (JAVA_TYPE.matcher(text).matches()) return text.trim();
+                    if (JAVA_METHOD.matcher(text).matches() && !JAVA_NOT_METHOD.matcher(text).matches()) {
+                        return text.trim();
+                    }
+                    return null;
+                default:
+                    return null;
+            }
+        }
+
+        private void drop(int count) {
+            for (int i = 0; i < count && !lines.isEmpty(); i++) {
+                bufferedChars -= lines.pollFirst().text.length() + 1;
+            }
+            carried = Math.max(0, carried - count);
+            if (leadStart >= 0) leadStart = Math.max(0, leadStart - count);
+        }
+
+        /**
+         * Emit the first count buffered lines as a chunk. With overlap, trailing lines
+         * (up to overlapChars) stay in the buffer to seed the next chunk.
+         */
+        private void emit(int count, boolean overlap) {
+            List<Line> taken = new ArrayList<>(count);
+            for (int i = 0; i < count && !lines.isEmpty(); i++) {
+                Line l = lines.pollFirst();
+                bufferedChars -= l.text.length() + 1;
+                taken.add(l);
+            }
+            carried = 0;
+            leadStart = -1;
+            if (taken.isEmpty()) return;
+            StringBuilder text = new StringBuilder();
+            String chunkSection = taken.get(0).section;
+            boolean labelled = false;
+            for (Line l : taken) {
+                if (text.length() > 0) text.append('\n');
+                text.append(l.text);
+                if (l.boundary && !labelled) {
+                    chunkSection = l.section;
+                    labelled = true;
+                }
+            }
+            if (text.toString().trim().isEmpty()) return;
+            sink.accept(new Chunk(chunkIndex++, text.toString(), taken.get(0).number,
+                    taken.get(taken.size() - 1).number, chunkSection));
+            if (overlap && overlapChars > 0) {
+                int carriedChars = 0;
+                for (int i = taken.size() - 1; i > 0; i--) {
+                    Line l = taken.get(i);
+                    if (carriedChars + l.text.length() + 1 > overlapChars) break;
+                    lines.addFirst(l);
+                    bufferedChars += l.text.length() + 1;
+                    carriedChars += l.text.length() + 1;
+                    carried++;
+                }
+            }
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            if (currentLine.length() > 0) endLine(false);
+            emit(lines.size(), false);
+        }
+    }
+}
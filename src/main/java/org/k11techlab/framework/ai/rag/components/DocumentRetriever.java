@@ -12,6 +12,29 @@ public class DocumentRetriever {
 
     public interface EmbeddingFunction {
         double[] embed(String text);
+
+        /**
+         * Embed several texts, returning one vector per input in the same order.
+         * Providers whose API accepts input arrays override this to send a single request.
+         */
+        default List<double[]> embedBatch(List<String> texts) {
+            List<double[]> vectors = new ArrayList<>(texts.size());
+            for (String text : texts) vectors.add(embed(text));
+            return vectors;
+        }
+    }
+
+    /**
+     * A retrieved entry with its cosine similarity to the query
+     */
+    public static class ScoredEntry {
+        public final VectorStore.VectorEntry entry;
+        public final double similarity;
+
+        public ScoredEntry(VectorStore.VectorEntry entry, double similarity) {
+            this.entry = entry;
+            this.similarity = similarity;
+        }
     }
 
     public DocumentRetriever(VectorStore vectorStore, EmbeddingFunction embeddingFunction) {
@@ -23,4 +46,16 @@ public class DocumentRetriever {
         double[] queryVec = embeddingFunction.embed(query);
         return vectorStore.search(queryVec, topK);
     }
+
+    /**
+     * Same as retrieve, with each entry's cosine similarity to the query
+     */
+    public List<ScoredEntry> retrieveScored(String query, int topK) {
+        double[] queryVec = embeddingFunction.embed(query);
+        List<ScoredEntry> scored = new ArrayList<>();
+        for (VectorStore.VectorEntry entry : vectorStore.search(queryVec, topK)) {
+            scored.add(new ScoredEntry(entry, VectorStore.cosineSim(queryVec, entry.vector)));
+        }
+        return scored;
+    }
 }
@@ -0,0 +1,148 @@
+package org.k11techlab.framework.ai.rag.components;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EmbeddingPipeline
+ * Embeds large lists of texts by splitting them into batches and sending the batches
+ * concurrently through {@link DocumentRetriever.EmbeddingFunction#embedBatch}.
+ * Concurrency is bounded by a semaphore, so it is safe to run on a virtual-thread executor.
+ */
+public class EmbeddingPipeline implements AutoCloseable {
+
+    /**
+     * Callback invoked after every completed batch.
+     */
+    public interface ProgressListener {
+        void onProgress(Metrics metrics, int totalTexts);
+    }
+
+    /**
+     * Running counters for a pipeline. Safe to read from any thread.
+     */
+    public static class Metrics {
+        private final AtomicLong textsEmbedded = new AtomicLong();
+        private final AtomicLong batchesCompleted = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final long startNanos = System.nanoTime();
+
+        public long getTextsEmbedded() { return textsEmbedded.get(); }
+        public long getBatchesCompleted() { return batchesCompleted.get(); }
+        public long getFailures() { return failures.get(); }
+        public long getElapsedMillis() { return (System.nanoTime() - startNanos) / 1_000_000; }
+
+        public double getTextsPerSecond() {
+            long elapsed = System.nanoTime() - startNanos;
+            return elapsed == 0 ? 0 : textsEmbedded.get() * 1e9 / elapsed;
+        }
+
+        public double getAverageBatchMillis() {
+            long batches = batchesCompleted.get();
+            return batches == 0 ? 0 : busyNanos.get() / 1e6 / batches;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("embedded=%d batches=%d failures=%d elapsed=%dms rate=%.1f/s avgBatch=%.0fms",
+                    getTextsEmbedded(), getBatchesCompleted(), getFailures(), getElapsedMillis(),
+                    getTextsPerSecond(), getAverageBatchMillis());
+        }
+    }
+
+    private final DocumentRetriever.EmbeddingFunction embeddingFunction;
+    private final int batchSize;
+    private final int maxConcurrency;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Metrics metrics = new Metrics();
+    private volatile ProgressListener progressListener;
+
+    /**
+     * Pipeline running batches on virtual threads, at most maxConcurrency in flight.
+     */
+    public EmbeddingPipeline(DocumentRetriever.EmbeddingFunction embeddingFunction, int batchSize, int maxConcurrency) {
+        this(embeddingFunction, batchSize, maxConcurrency, Executors.newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    /**
+     * Pipeline running batches on a caller-supplied executor, which is not shut down by {@link #close()}.
+     */
+    public EmbeddingPipeline(DocumentRetriever.EmbeddingFunction embeddingFunction, int batchSize, int maxConcurrency,
+                             ExecutorService executor) {
+        this(embeddingFunction, batchSize, maxConcurrency, executor, false);
+    }
+
+    private EmbeddingPipeline(DocumentRetriever.EmbeddingFunction embeddingFunction, int batchSize, int maxConcurrency,
+                              ExecutorService executor, boolean ownsExecutor) {
+        this.embeddingFunction = embeddingFunction;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Embed every text. The result is aligned with the input; a text whose batch failed gets an empty vector.
+     */
+    public List<double[]> embedAll(List<String> texts) {
+        double[][] results = new double[texts.size()][];
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int start = 0; start < texts.size(); start += batchSize) {
+                int from = start;
+                int to = Math.min(start + batchSize, texts.size());
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        runBatch(texts.subList(from, to), from, results, texts.size());
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+        } catch (ExecutionException e) {
+            System.err.println("Embedding batch failed: " + e.getCause());
+        }
+        List<double[]> vectors = new ArrayList<>(results.length);
+        for (double[] v : results) vectors.add(v != null ? v : new double[0]);
+        return vectors;
+    }
+
+    private void runBatch(List<String> batch, int offset, double[][] results, int total) {
+        long start = System.nanoTime();
+        try {
+            List<double[]> vectors = embeddingFunction.embedBatch(batch);
+            for (int i = 0; i < batch.size() && i < vectors.size(); i++) results[offset + i] = vectors.get(i);
+            metrics.textsEmbedded.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            metrics.failures.incrementAndGet();
+            System.err.println("Embedding batch at offset " + offset + " failed: " + e.getMessage());
+        } finally {
+            metrics.busyNanos.addAndGet(System.nanoTime() - start);
+            metrics.batchesCompleted.incrementAndGet();
+            ProgressListener listener = progressListener;
+            if (listener != null) listener.onProgress(metrics, total);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) executor.shutdown();
+    }
+}
@@ -0,0 +1,300 @@
+package org.k11techlab.framework.ai.rag.components;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * FlatFloatVectorIndex
+ * Exact search over a single contiguous float32 slab (on-heap float[] or off-heap direct FloatBuffer).
+ * Vectors are L2-normalised once at insert time, so a query is a plain dot-product scan
+ * feeding a bounded top-K min-heap. Uses half the memory of per-entry double[] vectors.
+ *
+ * Returned entries carry the normalised float vector widened back to double[];
+ * the original double[] passed to add() is not retained.
+ */
+public class FlatFloatVectorIndex implements VectorIndex {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final boolean offHeap;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private float[] heapSlab;
+    private FloatBuffer directSlab;
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private Object[] payloads = new Object[INITIAL_CAPACITY];
+    private final Map<String, Integer> slots = new HashMap<>();
+    private int dimension = -1;
+    private int count = 0;
+
+    public FlatFloatVectorIndex() {
+        this(false);
+    }
+
+    /**
+     * @param offHeap store vectors in a direct FloatBuffer outside the Java heap
+     */
+    public FlatFloatVectorIndex(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    @Override
+    public void add(VectorStore.VectorEntry entry) {
+        if (entry.vector == null || entry.vector.length == 0) {
+            System.err.println("Warning: Skipping empty vector for entry " + entry.id);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (dimension < 0) {
+                int initial = (int) Math.min(INITIAL_CAPACITY, maxCapacity(entry.vector.length, 1));
+                dimension = entry.vector.length;
+                allocate(initial);
+            } else if (entry.vector.length != dimension) {
+                System.err.println("Warning: Skipping entry " + entry.id + " with dimension "
+                        + entry.vector.length + " (index dimension " + dimension + ")");
+                return;
+            }
+            Integer existing = slots.get(entry.id);
+            int slot = existing != null ? existing : count;
+            if (slot == ids.length) allocate(grownCapacity());
+            double norm = 0;
+            for (double v : entry.vector) norm += v * v;
+            norm = Math.sqrt(norm) + 1e-8;
+            int base = slot * dimension;
+            for (int d = 0; d < dimension; d++) {
+                float v = (float) (entry.vector[d] / norm);
+                if (offHeap) directSlab.put(base + d, v);
+                else heapSlab[base + d] = v;
+            }
+            ids[slot] = entry.id;
+            payloads[slot] = entry.payload;
+            if (existing == null) {
+                slots.put(entry.id, slot);
+                count++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes by moving the last vector into the freed slot, keeping the slab dense.
+     */
+    @Override
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(id);
+            if (slot == null) return false;
+            int last = count - 1;
+            if (slot != last) {
+                if (offHeap) {
+                    for (int d = 0; d < dimension; d++) directSlab.put(slot * dimension + d, directSlab.get(last * dimension + d));
+                } else {
+                    System.arraycopy(heapSlab, last * dimension, heapSlab, slot * dimension, dimension);
+                }
+                ids[slot] = ids[last];
+                payloads[slot] = payloads[last];
+                slots.put(ids[slot], slot);
+            }
+            ids[last] = null;
+            payloads[last] = null;
+            count--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<VectorStore.VectorEntry> search(double[] queryVector, int topK) {
+        lock.readLock().lock();
+        try {
+            if (count == 0 || topK <= 0 || queryVector.length != dimension) return Collections.emptyList();
+            float[] q = new float[dimension];
+            double norm = 0;
+            for (double v : queryVector) norm += v * v;
+            norm = Math.sqrt(norm) + 1e-8;
+            for (int d = 0; d < dimension; d++) q[d] = (float) (queryVector[d] / norm);
+
+            int k = Math.min(topK, count);
+            TopK heap = new TopK(k);
+            for (int i = 0; i < count; i++) {
+                heap.offer(i, offHeap ? dotDirect(q, i * dimension) : dotHeap(q, i * dimension));
+            }
+            int[] order = heap.drainDescending();
+            List<VectorStore.VectorEntry> result = new ArrayList<>(order.length);
+            for (int idx : order) result.add(new VectorStore.VectorEntry(ids[idx], vectorAt(idx), payloads[idx]));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate bytes held by the vector slab (excluding ids and payloads).
+     */
+    public long slabBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) ids.length * Math.max(dimension, 0) * Float.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Doubles the capacity, capped at what one slab can address.
+     */
+    private int grownCapacity() {
+        return (int) Math.min((long) ids.length * 2, maxCapacity(dimension, ids.length + 1));
+    }
+
+    /**
+     * Vectors one slab can hold: a direct buffer is indexed by int bytes and a heap array by int elements.
+     *
+     * @throws IllegalStateException if that is fewer than required
+     */
+    private long maxCapacity(int dimension, long required) {
+        long maxFloats = offHeap ? Integer.MAX_VALUE / Float.BYTES : Integer.MAX_VALUE - 8;
+        long maxCapacity = maxFloats / Math.max(dimension, 1);
+        if (maxCapacity < required) {
+            throw new IllegalStateException("Vector index is full: " + (offHeap ? "an off-heap" : "a heap")
+                    + " slab holds at most " + maxCapacity + " vectors of dimension " + dimension);
+        }
+        return maxCapacity;
+    }
+
+    private void allocate(int capacity) {
+        long floats = (long) capacity * dimension;
+        if (offHeap) {
+            FloatBuffer grown = ByteBuffer.allocateDirect(Math.toIntExact(floats * Float.BYTES)).order(ByteOrder.nativeOrder()).asFloatBuffer();
+            if (directSlab != null) {
+                FloatBuffer src = directSlab.duplicate();
+                src.position(0).limit(count * dimension);
+                grown.put(src);
+                grown.clear();
+            }
+            directSlab = grown;
+        } else {
+            heapSlab = heapSlab == null ? new float[Math.toIntExact(floats)] : Arrays.copyOf(heapSlab, Math.toIntExact(floats));
+        }
+        ids = Arrays.copyOf(ids, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+    }
+
+    // Four independent accumulators break the add dependency chain so the JIT can pipeline the loop
+    private float dotHeap(float[] q, int base) {
+        float[] slab = heapSlab;
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int d = 0;
+        for (int end = q.length - 3; d < end; d += 4) {
+            s0 += q[d] * slab[base + d];
+            s1 += q[d + 1] * slab[base + d + 1];
+            s2 += q[d + 2] * slab[base + d + 2];
+            s3 += q[d + 3] * slab[base + d + 3];
+        }
+        for (; d < q.length; d++) s0 += q[d] * slab[base + d];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private float dotDirect(float[] q, int base) {
+        FloatBuffer slab = directSlab;
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int d = 0;
+        for (int end = q.length - 3; d < end; d += 4) {
+            s0 += q[d] * slab.get(base + d);
+            s1 += q[d + 1] * slab.get(base + d + 1);
+            s2 += q[d + 2] * slab.get(base + d + 2);
+            s3 += q[d + 3] * slab.get(base + d + 3);
+        }
+        for (; d < q.length; d++) s0 += q[d] * slab.get(base + d);
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private double[] vectorAt(int idx) {
+        double[] v = new double[dimension];
+        int base = idx * dimension;
+        for (int d = 0; d < dimension; d++) v[d] = offHeap ? directSlab.get(base + d) : heapSlab[base + d];
+        return v;
+    }
+
+    /**
+     * Fixed-size min-heap over primitive (index, score) pairs; the root is the weakest kept result.
+     */
+    private static final class TopK {
+        private final int[] idx;
+        private final float[] score;
+        private int size;
+
+        TopK(int k) {
+            idx = new int[k];
+            score = new float[k];
+        }
+
+        void offer(int i, float s) {
+            if (size < idx.length) {
+                idx[size] = i;
+                score[size] = s;
+                siftUp(size++);
+            } else if (s > score[0]) {
+                idx[0] = i;
+                score[0] = s;
+                siftDown(0);
+            }
+        }
+
+        int[] drainDescending() {
+            int[] out = new int[size];
+            for (int pos = size - 1; pos >= 0; pos--) {
+                out[pos] = idx[0];
+                size--;
+                idx[0] = idx[size];
+                score[0] = score[size];
+                siftDown(0);
+            }
+            return out;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (score[i] >= score[parent]) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int l = 2 * i + 1, r = l + 1, min = i;
+                if (l < size && score[l] < score[min]) min = l;
+                if (r < size && score[r] < score[min]) min = r;
+                if (min == i) return;
+                swap(i, min);
+                i = min;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int ti = idx[a]; idx[a] = idx[b]; idx[b] = ti;
+            float ts = score[a]; score[a] = score[b]; score[b] = ts;
+        }
+    }
+}
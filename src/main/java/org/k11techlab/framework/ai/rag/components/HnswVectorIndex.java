@@ -0,0 +1,330 @@
+package org.k11techlab.framework.ai.rag.components;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * HnswVectorIndex
+ * Approximate nearest-neighbour index based on Hierarchical Navigable Small World graphs
+ * (Malkov &amp; Yashunin). Vectors are L2-normalised on insert so cosine similarity is a dot product.
+ *
+ * Tuning:
+ * - M: links per node on the upper layers (layer 0 keeps 2*M). Higher = better recall, more memory.
+ * - efConstruction: candidate list size while inserting. Higher = better graph, slower indexing.
+ * - efSearch: candidate list size while querying. Higher = better recall, slower queries.
+ *
+ * Removal marks nodes as deleted: they keep routing searches through the graph but are never returned.
+ * Re-adding an id deletes the previous node for it. Once deleted nodes exceed maxDeletedRatio of all
+ * nodes the graph is rebuilt from the live entries, so a long-running re-indexer does not grow it forever.
+ */
+public class HnswVectorIndex implements VectorIndex {
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 200;
+    public static final int DEFAULT_EF_SEARCH = 64;
+    public static final double DEFAULT_MAX_DELETED_RATIO = 0.25;
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private volatile int efSearch;
+    private volatile double maxDeletedRatio = DEFAULT_MAX_DELETED_RATIO;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> liveNodes = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int dimension = -1;
+
+    private static final class Node {
+        final VectorStore.VectorEntry entry;
+        final double[] unit;
+        final int[][] neighbours;
+        final int[] counts;
+
+        Node(VectorStore.VectorEntry entry, double[] unit, int level, int m, int maxM0) {
+            this.entry = entry;
+            this.unit = unit;
+            this.neighbours = new int[level + 1][];
+            this.counts = new int[level + 1];
+            for (int l = 0; l <= level; l++) neighbours[l] = new int[l == 0 ? maxM0 : m];
+        }
+    }
+
+    private static final class Candidate {
+        final int node;
+        final double sim;
+
+        Candidate(int node, double sim) {
+            this.node = node;
+            this.sim = sim;
+        }
+    }
+
+    public HnswVectorIndex() {
+        this(DEFAULT_M, DEFAULT_EF_CONSTRUCTION, DEFAULT_EF_SEARCH);
+    }
+
+    public HnswVectorIndex(int m, int efConstruction, int efSearch) {
+        if (m < 2) throw new IllegalArgumentException("M must be >= 2");
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = Math.max(efSearch, 1);
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new Random(42);
+    }
+
+    public int getM() { return m; }
+    public int getEfConstruction() { return efConstruction; }
+    public int getEfSearch() { return efSearch; }
+    public void setEfSearch(int efSearch) { this.efSearch = Math.max(efSearch, 1); }
+    public double getMaxDeletedRatio() { return maxDeletedRatio; }
+    public void setMaxDeletedRatio(double maxDeletedRatio) { this.maxDeletedRatio = maxDeletedRatio; }
+
+    @Override
+    public void add(VectorStore.VectorEntry entry) {
+        if (entry.vector == null || entry.vector.length == 0) {
+            System.err.println("Warning: Skipping empty vector for entry " + entry.id);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (dimension >= 0 && entry.vector.length != dimension) {
+                System.err.println("Warning: Skipping entry " + entry.id + " with dimension "
+                        + entry.vector.length + " (index dimension " + dimension + ")");
+                return;
+            }
+            Integer previous = liveNodes.get(entry.id);
+            if (previous != null) deleted.set(previous);
+            insert(entry);
+            if (previous != null) compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Link a new node into the graph; caller holds the write lock
+     */
+    private void insert(VectorStore.VectorEntry entry) {
+        int level = randomLevel();
+        int id = nodes.size();
+        nodes.add(new Node(entry, normalise(entry.vector), level, m, maxM0));
+        liveNodes.put(entry.id, id);
+        if (entryPoint < 0) {
+            entryPoint = id;
+            maxLevel = level;
+            dimension = entry.vector.length;
+            return;
+        }
+        double[] q = nodes.get(id).unit;
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) ep = greedyClosest(q, ep, l);
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> found = searchLayer(q, ep, efConstruction, l);
+            for (Candidate c : selectNeighbours(found, m)) {
+                link(id, c.node, l);
+                link(c.node, id, l);
+            }
+            ep = found.get(0).node;
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = id;
+        }
+    }
+
+    @Override
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer node = liveNodes.remove(id);
+            if (node == null) return false;
+            deleted.set(node);
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of deleted nodes still held in the graph
+     */
+    public int getDeletedCount() {
+        lock.readLock().lock();
+        try {
+            return deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the graph from the live entries once deleted nodes pass maxDeletedRatio; caller holds the write lock
+     */
+    private void compactIfNeeded() {
+        if (deleted.cardinality() <= nodes.size() * maxDeletedRatio) return;
+        List<VectorStore.VectorEntry> live = new ArrayList<>(liveNodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            if (!deleted.get(i)) live.add(nodes.get(i).entry);
+        }
+        nodes.clear();
+        liveNodes.clear();
+        deleted.clear();
+        entryPoint = -1;
+        maxLevel = -1;
+        dimension = -1;
+        for (VectorStore.VectorEntry entry : live) insert(entry);
+    }
+
+    @Override
+    public List<VectorStore.VectorEntry> search(double[] queryVector, int topK) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || topK <= 0 || queryVector.length != dimension) return Collections.emptyList();
+            double[] q = normalise(queryVector);
+            int ep = entryPoint;
+            for (int l = maxLevel; l > 0; l--) ep = greedyClosest(q, ep, l);
+            List<Candidate> found = searchLayer(q, ep, Math.max(efSearch, topK + Math.min(deleted.cardinality(), topK)), 0);
+            List<VectorStore.VectorEntry> result = new ArrayList<>(Math.min(topK, found.size()));
+            for (int i = 0; i < found.size() && result.size() < topK; i++) {
+                if (!deleted.get(found.get(i).node)) result.add(nodes.get(found.get(i).node).entry);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveNodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int randomLevel() {
+        return (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private int greedyClosest(double[] q, int ep, int level) {
+        int best = ep;
+        double bestSim = dot(q, nodes.get(ep).unit);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Node n = nodes.get(best);
+            for (int i = 0; i < n.counts[level]; i++) {
+                int cand = n.neighbours[level][i];
+                double s = dot(q, nodes.get(cand).unit);
+                if (s > bestSim) {
+                    bestSim = s;
+                    best = cand;
+                    changed = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Best-first search on one layer. Returns up to ef candidates, most similar first.
+     */
+    private List<Candidate> searchLayer(double[] q, int ep, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        visited.set(ep);
+        Candidate start = new Candidate(ep, dot(q, nodes.get(ep).unit));
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>((a, b) -> Double.compare(b.sim, a.sim));
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(c -> c.sim));
+        frontier.add(start);
+        results.add(start);
+        while (!frontier.isEmpty()) {
+            Candidate c = frontier.poll();
+            if (results.size() >= ef && c.sim < results.peek().sim) break;
+            Node n = nodes.get(c.node);
+            for (int i = 0; i < n.counts[level]; i++) {
+                int id = n.neighbours[level][i];
+                if (visited.get(id)) continue;
+                visited.set(id);
+                double s = dot(q, nodes.get(id).unit);
+                if (results.size() < ef || s > results.peek().sim) {
+                    Candidate next = new Candidate(id, s);
+                    frontier.add(next);
+                    results.add(next);
+                    if (results.size() > ef) results.poll();
+                }
+            }
+        }
+        List<Candidate> out = new ArrayList<>(results);
+        out.sort((a, b) -> Double.compare(b.sim, a.sim));
+        return out;
+    }
+
+    /**
+     * Neighbour selection heuristic: prefer candidates that are closer to the base
+     * than to any already selected neighbour, which keeps links spread across clusters.
+     * Remaining slots are filled with the closest pruned candidates.
+     */
+    private List<Candidate> selectNeighbours(List<Candidate> sortedCandidates, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        List<Candidate> pruned = new ArrayList<>();
+        for (Candidate c : sortedCandidates) {
+            if (selected.size() >= max) break;
+            double[] cv = nodes.get(c.node).unit;
+            boolean keep = true;
+            for (Candidate s : selected) {
+                if (dot(cv, nodes.get(s.node).unit) > c.sim) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) selected.add(c);
+            else pruned.add(c);
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < max; i++) selected.add(pruned.get(i));
+        return selected;
+    }
+
+    private void link(int from, int to, int level) {
+        Node n = nodes.get(from);
+        int[] links = n.neighbours[level];
+        for (int i = 0; i < n.counts[level]; i++) if (links[i] == to) return;
+        if (n.counts[level] < links.length) {
+            links[n.counts[level]++] = to;
+            return;
+        }
+        // Over capacity: re-select the best neighbours among existing links plus the new one
+        List<Candidate> candidates = new ArrayList<>(links.length + 1);
+        for (int i = 0; i < n.counts[level]; i++) {
+            candidates.add(new Candidate(links[i], dot(n.unit, nodes.get(links[i]).unit)));
+        }
+        candidates.add(new Candidate(to, dot(n.unit, nodes.get(to).unit)));
+        candidates.sort((a, b) -> Double.compare(b.sim, a.sim));
+        List<Candidate> kept = selectNeighbours(candidates, links.length);
+        for (int i = 0; i < kept.size(); i++) links[i] = kept.get(i).node;
+        n.counts[level] = kept.size();
+    }
+
+    static double[] normalise(double[] v) {
+        double norm = 0;
+        for (double x : v) norm += x * x;
+        norm = Math.sqrt(norm) + 1e-8;
+        double[] out = new double[v.length];
+        for (int i = 0; i < v.length; i++) out[i] = v[i] / norm;
+        return out;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double s = 0;
+        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        return s;
+    }
+}
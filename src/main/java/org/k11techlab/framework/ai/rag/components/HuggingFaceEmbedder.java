@@ -2,20 +2,21 @@ package org.k11techlab.framework.ai.rag.components;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.k11techlab.framework.ai.util.AIHttpTransport;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-public class HuggingFaceEmbedder implements DocumentRetriever.EmbeddingFunction {
+public class HuggingFaceEmbedder implements DocumentRetriever.EmbeddingFunction, AutoCloseable {
     private static final String MODEL_ID = "sentence-transformers/all-MiniLM-L6-v2";
     private static final String HF_URL =
             "https://router.huggingface.co/hf-inference/models/"
                     + MODEL_ID
                     + "/pipeline/feature-extraction";
+    private static final int FALLBACK_DIMENSION = 384;
     private final String apiKey;
     private final ObjectMapper mapper = new ObjectMapper();
 
@@ -25,38 +26,63 @@ public class HuggingFaceEmbedder implements DocumentRetriever.EmbeddingFunction
 
     @Override
     public double[] embed(String text) {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
+        return embedBatch(List.of(text)).get(0);
+    }
+
+    /**
+     * The feature-extraction pipeline accepts an array of inputs and returns one vector per input.
+     */
+    @Override
+    public List<double[]> embedBatch(List<String> texts) {
+        try {
             String payload = mapper.writeValueAsString(
-                    Map.of("inputs", List.of(text))
+                    Map.of("inputs", texts)
             );
             HttpPost post = new HttpPost(HF_URL);
             post.setHeader("Authorization", "Bearer " + apiKey);
             post.setHeader("Content-Type", "application/json");
             post.setEntity(new StringEntity(payload));
-            System.out.println("📡 HF Request → " + HF_URL);
-            System.out.println("Payload: " + payload);
-            ClassicHttpResponse response = (ClassicHttpResponse) client.execute(post);
-            int status = response.getCode();
-            if (status != 200) {
-                String errorBody = new String(response.getEntity().getContent().readAllBytes());
-                System.err.println("❌ HF Error: " + status);
-                System.err.println(errorBody);
-                return new double[384];
-            }
-            List<List<Double>> result = mapper.readValue(
-                    response.getEntity().getContent(),
-                    mapper.getTypeFactory().constructCollectionType(
-                            List.class,
-                            mapper.getTypeFactory().constructCollectionType(List.class, Double.class)
-                    )
-            );
-            List<Double> vec = result.get(0);
-            double[] arr = new double[vec.size()];
-            for (int i = 0; i < vec.size(); i++) arr[i] = vec.get(i);
-            return arr;
+            System.out.println("📡 HF Request → " + HF_URL + " (" + texts.size() + " inputs)");
+            return AIHttpTransport.client().execute(post, response -> {
+                int status = response.getCode();
+                if (status != 200) {
+                    String errorBody = EntityUtils.toString(response.getEntity());
+                    System.err.println("❌ HF Error: " + status);
+                    System.err.println(errorBody);
+                    return fallback(texts.size());
+                }
+                List<List<Double>> result = mapper.readValue(
+                        response.getEntity().getContent(),
+                        mapper.getTypeFactory().constructCollectionType(
+                                List.class,
+                                mapper.getTypeFactory().constructCollectionType(List.class, Double.class)
+                        )
+                );
+                if (result.size() != texts.size()) return fallback(texts.size());
+                List<double[]> vectors = new ArrayList<>(result.size());
+                for (List<Double> vec : result) {
+                    double[] arr = new double[vec.size()];
+                    for (int i = 0; i < vec.size(); i++) arr[i] = vec.get(i);
+                    vectors.add(arr);
+                }
+                return vectors;
+            });
         } catch (Exception e) {
             e.printStackTrace();
-            return new double[384];
+            return fallback(texts.size());
         }
     }
+
+    /**
+     * Requests go through the shared pooled transport, which stays open for other clients
+     */
+    @Override
+    public void close() {
+    }
+
+    private static List<double[]> fallback(int count) {
+        List<double[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) vectors.add(new double[FALLBACK_DIMENSION]);
+        return vectors;
+    }
 }
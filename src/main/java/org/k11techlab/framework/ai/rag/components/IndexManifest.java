@@ -0,0 +1,163 @@
+package org.k11techlab.framework.ai.rag.components;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * IndexManifest - Persistent record of indexed files: path -> (mtime, size, sha256, chunk ids).
+ * Lets indexers skip files that have not changed since the last run and evict chunks of deleted files.
+ * A file whose mtime and size match is treated as unchanged without hashing; otherwise its content hash decides.
+ */
+public class IndexManifest {
+
+    public static class FileState {
+        public long mtime;
+        public long size;
+        public String sha256;
+        public List<String> chunkIds = new ArrayList<>();
+    }
+
+    /**
+     * Result of comparing a directory tree against the manifest.
+     */
+    public static class Changes {
+        public final List<Path> changed = new ArrayList<>();
+        public final List<Path> unchanged = new ArrayList<>();
+        public final Map<Path, FileState> deleted = new LinkedHashMap<>();
+
+        public boolean isEmpty() {
+            return changed.isEmpty() && deleted.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "changed=" + changed.size() + ", unchanged=" + unchanged.size() + ", deleted=" + deleted.size();
+        }
+    }
+
+    private final Path manifestPath;
+    private final Map<String, FileState> files = new ConcurrentHashMap<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public IndexManifest(String filename) {
+        this.manifestPath = Paths.get(filename);
+        load();
+    }
+
+    /**
+     * Compare every regular file under root accepted by the filter with the manifest.
+     * Files whose content hash is unchanged but whose mtime moved are refreshed in place.
+     */
+    public Changes scan(Path root, Predicate<Path> filter) {
+        Changes changes = new Changes();
+        Set<String> seen = new HashSet<>();
+        if (Files.exists(root)) {
+            try (Stream<Path> walk = Files.walk(root)) {
+                for (Path p : walk.filter(Files::isRegularFile).filter(filter).collect(Collectors.toList())) {
+                    String key = key(p);
+                    seen.add(key);
+                    FileState state = files.get(key);
+                    long mtime = Files.getLastModifiedTime(p).toMillis();
+                    long size = Files.size(p);
+                    if (state != null && state.mtime == mtime && state.size == size) {
+                        changes.unchanged.add(p);
+                        continue;
+                    }
+                    String sha = sha256(p);
+                    if (state != null && sha.equals(state.sha256)) {
+                        state.mtime = mtime;
+                        state.size = size;
+                        changes.unchanged.add(p);
+                    } else {
+                        changes.changed.add(p);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Manifest scan failed for " + root + ": " + e.getMessage());
+            }
+        }
+        String prefix = key(root);
+        for (Map.Entry<String, FileState> e : files.entrySet()) {
+            if (e.getKey().startsWith(prefix) && !seen.contains(e.getKey())) {
+                changes.deleted.put(Paths.get(e.getKey()), e.getValue());
+            }
+        }
+        return changes;
+    }
+
+    public FileState get(Path file) {
+        return files.get(key(file));
+    }
+
+    /**
+     * Record the current mtime/size of a file together with its content hash and the chunks produced from it.
+     */
+    public FileState update(Path file, String sha256, List<String> chunkIds) throws IOException {
+        FileState state = new FileState();
+        state.mtime = Files.getLastModifiedTime(file).toMillis();
+        state.size = Files.size(file);
+        state.sha256 = sha256;
+        state.chunkIds = new ArrayList<>(chunkIds);
+        files.put(key(file), state);
+        return state;
+    }
+
+    public FileState remove(Path file) {
+        return files.remove(key(file));
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    public synchronized void save() {
+        try {
+            Path tmp = manifestPath.resolveSibling(manifestPath.getFileName() + ".tmp");
+            mapper.writeValue(tmp.toFile(), new TreeMap<>(files));
+            Files.move(tmp, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(manifestPath)) return;
+        try {
+            Map<String, FileState> loaded = mapper.readValue(manifestPath.toFile(), new TypeReference<Map<String, FileState>>() {});
+            files.putAll(loaded);
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable index manifest " + manifestPath + ": " + e.getMessage());
+        }
+    }
+
+    private static String key(Path p) {
+        return p.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Streaming SHA-256 of a file's bytes.
+     */
+    public static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) digest.update(buffer, 0, n);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,19 +1,25 @@
 package org.k11techlab.framework.ai.rag.components;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.util.ArrayList;
 import java.util.List;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.k11techlab.framework.ai.util.AIHttpTransport;
 
 /**
  * OllamaEmbedder - Uses a local Ollama server to generate embeddings for RAG.
+ * Requests go through the shared {@link AIHttpTransport}, so connections to the server are kept alive
+ * and reused across embedders and LLM clients.
  */
 public class OllamaEmbedder implements DocumentRetriever.EmbeddingFunction {
     private final String ollamaUrl;
     private final String model;
     private final ObjectMapper mapper = new ObjectMapper();
+    private volatile boolean batchEndpointAvailable = true;
 
     public OllamaEmbedder(String ollamaUrl, String model) {
         this.ollamaUrl = ollamaUrl;
@@ -23,32 +29,72 @@ public class OllamaEmbedder implements DocumentRetriever.EmbeddingFunction {
     @Override
     public double[] embed(String text) {
         try {
-            HttpClient client = HttpClient.newHttpClient();
             // Use Jackson to build the JSON payload safely
             var payloadNode = mapper.createObjectNode();
             payloadNode.put("model", model);
             payloadNode.put("prompt", text); // Jackson will handle escaping
             String payload = mapper.writeValueAsString(payloadNode);
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(ollamaUrl + "/api/embeddings"))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(payload))
-                    .build();
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() != 200) {
-                System.err.println("Ollama error: " + response.statusCode() + "\n" + response.body());
-                return new double[0];
-            }
-            // Ollama returns: {"embedding": [ ... ]}
-            var node = mapper.readTree(response.body());
-            if (!node.has("embedding")) return new double[0];
-            List<Double> vec = mapper.readerForListOf(Double.class).readValue(node.get("embedding"));
-            double[] arr = new double[vec.size()];
-            for (int i = 0; i < vec.size(); i++) arr[i] = vec.get(i);
-            return arr;
+            HttpPost post = new HttpPost(ollamaUrl + "/api/embeddings");
+            post.setEntity(new StringEntity(payload, ContentType.APPLICATION_JSON));
+            return AIHttpTransport.client().execute(post, response -> {
+                String body = EntityUtils.toString(response.getEntity(), java.nio.charset.StandardCharsets.UTF_8);
+                if (response.getCode() != 200) {
+                    System.err.println("Ollama error: " + response.getCode() + "\n" + body);
+                    return new double[0];
+                }
+                // Ollama returns: {"embedding": [ ... ]}
+                var node = mapper.readTree(body);
+                if (!node.has("embedding")) return new double[0];
+                return toArray(node.get("embedding"));
+            });
         } catch (Exception e) {
             e.printStackTrace();
             return new double[0];
         }
     }
+
+    /**
+     * Uses the /api/embed endpoint, which accepts an input array. Older Ollama servers without it
+     * fall back to one /api/embeddings call per text.
+     */
+    @Override
+    public List<double[]> embedBatch(List<String> texts) {
+        if (batchEndpointAvailable) {
+            try {
+                var payloadNode = mapper.createObjectNode();
+                payloadNode.put("model", model);
+                var input = payloadNode.putArray("input");
+                for (String text : texts) input.add(text);
+                HttpPost post = new HttpPost(ollamaUrl + "/api/embed");
+                post.setEntity(new StringEntity(mapper.writeValueAsString(payloadNode), ContentType.APPLICATION_JSON));
+                List<double[]> vectors = AIHttpTransport.client().execute(post, response -> {
+                    String body = EntityUtils.toString(response.getEntity(), java.nio.charset.StandardCharsets.UTF_8);
+                    if (response.getCode() == 404) {
+                        batchEndpointAvailable = false;
+                    } else if (response.getCode() == 200) {
+                        // Ollama returns: {"embeddings": [[ ... ], ...]}
+                        JsonNode embeddings = mapper.readTree(body).get("embeddings");
+                        if (embeddings != null && embeddings.size() == texts.size()) {
+                            List<double[]> result = new ArrayList<>(texts.size());
+                            for (JsonNode e : embeddings) result.add(toArray(e));
+                            return result;
+                        }
+                    } else {
+                        System.err.println("Ollama batch error: " + response.getCode() + "\n" + body);
+                    }
+                    return null;
+                });
+                if (vectors != null) return vectors;
+            } catch (Exception e) {
+                System.err.println("Ollama batch embedding failed, falling back to single requests: " + e.getMessage());
+            }
+        }
+        return DocumentRetriever.EmbeddingFunction.super.embedBatch(texts);
+    }
+
+    private static double[] toArray(JsonNode node) {
+        double[] arr = new double[node.size()];
+        for (int i = 0; i < arr.length; i++) arr[i] = node.get(i).asDouble();
+        return arr;
+    }
 }
@@ -2,16 +2,18 @@ package org.k11techlab.framework.ai.rag.components;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.k11techlab.framework.ai.util.AIHttpTransport;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-public class OpenAIEmbedder implements DocumentRetriever.EmbeddingFunction {
+public class OpenAIEmbedder implements DocumentRetriever.EmbeddingFunction, AutoCloseable {
     private static final String OPENAI_URL = "https://api.openai.com/v1/embeddings";
+    private static final int FALLBACK_DIMENSION = 1536; // ada-002
     private final String apiKey;
     private final String model;
     private final ObjectMapper mapper = new ObjectMapper();
@@ -23,35 +25,63 @@ public class OpenAIEmbedder implements DocumentRetriever.EmbeddingFunction {
 
     @Override
     public double[] embed(String text) {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
+        return embedBatch(List.of(text)).get(0);
+    }
+
+    /**
+     * Sends all texts in one request; the API returns one embedding per input, tagged with its index.
+     */
+    @Override
+    public List<double[]> embedBatch(List<String> texts) {
+        try {
             String payload = mapper.writeValueAsString(
-                Map.of("input", List.of(text), "model", model)
+                Map.of("input", texts, "model", model)
             );
             HttpPost post = new HttpPost(OPENAI_URL);
             post.setHeader("Authorization", "Bearer " + apiKey);
             post.setHeader("Content-Type", "application/json");
             post.setEntity(new StringEntity(payload));
-            System.out.println("📡 OpenAI Request → " + OPENAI_URL);
-            System.out.println("Payload: " + payload);
-            ClassicHttpResponse response = (ClassicHttpResponse) client.execute(post);
-            int status = response.getCode();
-            String responseBody = new String(response.getEntity().getContent().readAllBytes());
-            System.out.println("OpenAI API response (status " + status + "):\n" + responseBody);
-            if (status != 200) {
-                System.err.println("❌ OpenAI Error: " + status);
-                return new double[1536]; // fallback for ada-002
-            }
-            Map<?,?> result = mapper.readValue(responseBody, Map.class);
-            List<?> data = (List<?>) result.get("data");
-            if (data == null || data.isEmpty()) return new double[1536];
-            Map<?,?> embeddingObj = (Map<?,?>) data.get(0);
-            List<Double> vec = (List<Double>) embeddingObj.get("embedding");
-            double[] arr = new double[vec.size()];
-            for (int i = 0; i < vec.size(); i++) arr[i] = vec.get(i);
-            return arr;
+            System.out.println("📡 OpenAI Request → " + OPENAI_URL + " (" + texts.size() + " inputs)");
+            return AIHttpTransport.client().execute(post, response -> {
+                int status = response.getCode();
+                String responseBody = EntityUtils.toString(response.getEntity());
+                if (status != 200) {
+                    System.err.println("❌ OpenAI Error: " + status);
+                    System.err.println(responseBody);
+                    return fallback(texts.size());
+                }
+                Map<?,?> result = mapper.readValue(responseBody, Map.class);
+                List<?> data = (List<?>) result.get("data");
+                if (data == null || data.size() != texts.size()) return fallback(texts.size());
+                double[][] ordered = new double[texts.size()][];
+                for (Object item : data) {
+                    Map<?,?> embeddingObj = (Map<?,?>) item;
+                    int index = ((Number) embeddingObj.get("index")).intValue();
+                    List<?> vec = (List<?>) embeddingObj.get("embedding");
+                    double[] arr = new double[vec.size()];
+                    for (int i = 0; i < vec.size(); i++) arr[i] = ((Number) vec.get(i)).doubleValue();
+                    ordered[index] = arr;
+                }
+                List<double[]> vectors = new ArrayList<>(texts.size());
+                Collections.addAll(vectors, ordered);
+                return vectors;
+            });
         } catch (Exception e) {
             e.printStackTrace();
-            return new double[1536];
+            return fallback(texts.size());
         }
     }
+
+    /**
+     * Requests go through the shared pooled transport, which stays open for other clients
+     */
+    @Override
+    public void close() {
+    }
+
+    private static List<double[]> fallback(int count) {
+        List<double[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) vectors.add(new double[FALLBACK_DIMENSION]);
+        return vectors;
+    }
 }
@@ -0,0 +1,62 @@
+package org.k11techlab.framework.ai.rag.components;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * ReciprocalRankFusion
+ * Merges several ranked result lists (e.g. keyword and vector retrieval) into one ranking.
+ * An item at 1-based rank r in a list contributes (k + 1) / (k + r), so first place in a single
+ * list is worth 1.0 and an item found by several retrievers accumulates their contributions.
+ * Only ranks are used, which makes scores from unrelated retrievers (BM25, cosine) comparable.
+ */
+public final class ReciprocalRankFusion {
+
+    public static final int DEFAULT_K = 60;
+
+    /**
+     * A fused result: the item, its fused score and how many input lists contained it.
+     */
+    public static class Fused<T> {
+        public final T item;
+        public final double score;
+        public final int sources;
+
+        public Fused(T item, double score, int sources) {
+            this.item = item;
+            this.score = score;
+            this.sources = sources;
+        }
+    }
+
+    private ReciprocalRankFusion() {}
+
+    /**
+     * Fuse rankings; items are identified across lists by idOf. Result is ordered by descending score.
+     */
+    public static <T> List<Fused<T>> fuse(int k, Function<T, String> idOf, List<? extends List<T>> rankings) {
+        Map<String, T> items = new LinkedHashMap<>();
+        Map<String, double[]> scores = new HashMap<>();
+        for (List<T> ranking : rankings) {
+            if (ranking == null) continue;
+            Set<String> seen = new HashSet<>();
+            for (int rank = 1; rank <= ranking.size(); rank++) {
+                T item = ranking.get(rank - 1);
+                String id = idOf.apply(item);
+                // Duplicates within one list only count at their best rank
+                if (!seen.add(id)) continue;
+                items.putIfAbsent(id, item);
+                double[] s = scores.computeIfAbsent(id, x -> new double[2]);
+                s[0] += (k + 1.0) / (k + rank);
+                s[1]++;
+            }
+        }
+        List<Fused<T>> fused = new ArrayList<>(items.size());
+        for (Map.Entry<String, T> e : items.entrySet()) {
+            double[] s = scores.get(e.getKey());
+            fused.add(new Fused<>(e.getValue(), s[0], (int) s[1]));
+        }
+        fused.sort((a, b) -> Double.compare(b.score, a.score));
+        return fused;
+    }
+}
@@ -0,0 +1,32 @@
+package org.k11techlab.framework.ai.rag.components;
+
+import java.util.List;
+
+/**
+ * VectorIndex
+ * Pluggable similarity index behind {@link VectorStore}.
+ * Implementations decide how entries are laid out and searched (exact scan, HNSW graph, ...).
+ */
+public interface VectorIndex {
+
+    /**
+     * Add an entry to the index, replacing any existing entry with the same id.
+     */
+    void add(VectorStore.VectorEntry entry);
+
+    /**
+     * Remove the entry with the given id.
+     * @return true if an entry was removed
+     */
+    boolean remove(String id);
+
+    /**
+     * Return up to topK entries ordered by descending cosine similarity to the query vector.
+     */
+    List<VectorStore.VectorEntry> search(double[] queryVector, int topK);
+
+    /**
+     * Number of entries held by the index.
+     */
+    int size();
+}
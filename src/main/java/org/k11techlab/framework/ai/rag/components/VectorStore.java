@@ -5,6 +5,7 @@ import java.util.*;
 /**
  * VectorStore
  * Stores vector embeddings for document chunks and supports similarity search.
+ * The search strategy is delegated to a {@link VectorIndex} (exact brute force by default, or HNSW).
  */
 public class VectorStore {
     public static class VectorEntry {
@@ -18,10 +19,22 @@ public class VectorStore {
         }
     }
 
-    private final List<VectorEntry> entries = new ArrayList<>();
+    private final VectorIndex index;
+
+    public VectorStore() {
+        this(new BruteForceVectorIndex());
+    }
+
+    public VectorStore(VectorIndex index) {
+        this.index = index;
+    }
 
     public void add(String id, double[] vector, Object payload) {
-        entries.add(new VectorEntry(id, vector, payload));
+        index.add(new VectorEntry(id, vector, payload));
+    }
+
+    public boolean remove(String id) {
+        return index.remove(id);
     }
 
     public List<VectorEntry> search(double[] queryVector, int topK) {
@@ -29,19 +42,18 @@ public class VectorStore {
             System.err.println("Warning: Query vector is empty or null. Skipping search.");
             return Collections.emptyList();
         }
-        PriorityQueue<VectorEntry> pq = new PriorityQueue<>(Comparator.comparingDouble(e -> {
-            if (e.vector == null || e.vector.length != queryVector.length) {
-                return Double.NEGATIVE_INFINITY;
-            }
-            return -cosineSim(queryVector, e.vector);
-        }));
-        for (VectorEntry e : entries) pq.add(e);
-        List<VectorEntry> result = new ArrayList<>();
-        for (int i = 0; i < topK && !pq.isEmpty(); i++) result.add(pq.poll());
-        return result;
-    }
-
-    private double cosineSim(double[] a, double[] b) {
+        return index.search(queryVector, topK);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public VectorIndex getIndex() {
+        return index;
+    }
+
+    static double cosineSim(double[] a, double[] b) {
         double dot = 0, normA = 0, normB = 0;
         for (int i = 0; i < a.length; i++) {
             dot += a[i] * b[i];
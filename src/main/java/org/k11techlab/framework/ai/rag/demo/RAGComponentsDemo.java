@@ -5,7 +5,7 @@ import org.k11techlab.framework.ai.rag.components.SimpleAnswerSynthesizer;
 import org.k11techlab.framework.ai.rag.components.CodebaseIndexer;
 import org.k11techlab.framework.ai.rag.components.VectorStore;
 import org.k11techlab.framework.ai.rag.components.DocumentRetriever;
-import org.k11techlab.framework.ai.rag.components.EmbeddingCache;
+import org.k11techlab.framework.ai.rag.components.BinaryEmbeddingCache;
 
 import java.nio.file.Paths;
 import java.util.List;
@@ -64,7 +64,7 @@ public class RAGComponentsDemo {
 
 
         // Use persistent embedding cache
-        EmbeddingCache embeddingCache = new EmbeddingCache("embedding_cache.json");
+        BinaryEmbeddingCache embeddingCache = BinaryEmbeddingCache.openOrMigrate("embedding_cache.bin", "embedding_cache.json");
         VectorStore vectorStore = new VectorStore();
         boolean updated = false;
         for (CodebaseIndexer.IndexedChunk chunk : chunks) {
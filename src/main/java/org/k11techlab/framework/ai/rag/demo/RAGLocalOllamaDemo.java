@@ -4,7 +4,7 @@ import org.k11techlab.framework.ai.rag.components.OllamaEmbedder;
 import org.k11techlab.framework.ai.rag.components.DocumentRetriever;
 import org.k11techlab.framework.ai.rag.components.VectorStore;
 import org.k11techlab.framework.ai.rag.components.CodebaseIndexer;
-import org.k11techlab.framework.ai.rag.components.EmbeddingCache;
+import org.k11techlab.framework.ai.rag.components.BinaryEmbeddingCache;
 
 import java.nio.file.Paths;
 import java.util.List;
@@ -27,7 +27,7 @@ public class RAGLocalOllamaDemo {
 
         // Use Ollama for embeddings
         DocumentRetriever.EmbeddingFunction embedFn = new OllamaEmbedder(ollamaUrl, model);
-        EmbeddingCache embeddingCache = new EmbeddingCache("embedding_cache_ollama.json");
+        BinaryEmbeddingCache embeddingCache = BinaryEmbeddingCache.openOrMigrate("embedding_cache_ollama.bin", "embedding_cache_ollama.json");
         VectorStore vectorStore = new VectorStore();
         boolean updated = false;
         for (CodebaseIndexer.IndexedChunk chunk : chunks) {
@@ -0,0 +1,108 @@
+package org.k11techlab.framework.ai.rag.demo;
+
+import org.k11techlab.framework.ai.rag.components.BruteForceVectorIndex;
+import org.k11techlab.framework.ai.rag.components.FlatFloatVectorIndex;
+import org.k11techlab.framework.ai.rag.components.HnswVectorIndex;
+import org.k11techlab.framework.ai.rag.components.VectorIndex;
+import org.k11techlab.framework.ai.rag.components.VectorStore;
+
+import java.util.*;
+
+/**
+ * VectorIndexBenchmark - Compares recall and query latency of the flat float32 and HNSW indexes against exact brute-force search.
+ *
+ * Usage: VectorIndexBenchmark [vectors] [dimension] [queries] [topK]
+ * Tuning via system properties: rag.hnsw.m, rag.hnsw.efConstruction, rag.hnsw.efSearch (comma separated list allowed).
+ */
+public class VectorIndexBenchmark {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int dim = args.length > 1 ? Integer.parseInt(args[1]) : 384;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int topK = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int m = Integer.getInteger("rag.hnsw.m", HnswVectorIndex.DEFAULT_M);
+        int efConstruction = Integer.getInteger("rag.hnsw.efConstruction", HnswVectorIndex.DEFAULT_EF_CONSTRUCTION);
+        String efSearchList = System.getProperty("rag.hnsw.efSearch", "16,32,64,128,256");
+
+        System.out.println("📐 Vector Index Benchmark");
+        System.out.println("==============================================");
+        System.out.printf("vectors=%d dim=%d queries=%d topK=%d M=%d efConstruction=%d%n%n",
+                n, dim, queries, topK, m, efConstruction);
+
+        Random random = new Random(7);
+        List<double[]> data = clusteredVectors(random, n, dim);
+        List<double[]> queryVectors = clusteredVectors(random, queries, dim);
+
+        BruteForceVectorIndex exact = new BruteForceVectorIndex();
+        FlatFloatVectorIndex flat = new FlatFloatVectorIndex();
+        HnswVectorIndex hnsw = new HnswVectorIndex(m, efConstruction, HnswVectorIndex.DEFAULT_EF_SEARCH);
+        long exactBuild = build(exact, data);
+        long flatBuild = build(flat, data);
+        long hnswBuild = build(hnsw, data);
+        System.out.printf("Build time: brute-force %d ms, flat float32 %d ms, HNSW %d ms%n", exactBuild, flatBuild, hnswBuild);
+        System.out.printf("Vector memory: double[] %d KB, flat float32 slab %d KB%n%n",
+                (long) n * dim * Double.BYTES / 1024, flat.slabBytes() / 1024);
+
+        List<Set<String>> groundTruth = new ArrayList<>();
+        long start = System.nanoTime();
+        for (double[] q : queryVectors) groundTruth.add(ids(exact.search(q, topK)));
+        double exactMicros = (System.nanoTime() - start) / 1000.0 / queries;
+        System.out.printf("%-22s recall@%d=%.3f  avg=%.1f us/query%n", "brute-force", topK, 1.0, exactMicros);
+
+        start = System.nanoTime();
+        List<Set<String>> flatFound = new ArrayList<>();
+        for (double[] q : queryVectors) flatFound.add(ids(flat.search(q, topK)));
+        double flatMicros = (System.nanoTime() - start) / 1000.0 / queries;
+        System.out.printf("%-22s recall@%d=%.3f  avg=%.1f us/query  speedup=%.1fx%n",
+                "flat float32", topK, recall(flatFound, groundTruth), flatMicros, exactMicros / flatMicros);
+
+        for (String ef : efSearchList.split(",")) {
+            hnsw.setEfSearch(Integer.parseInt(ef.trim()));
+            start = System.nanoTime();
+            List<Set<String>> found = new ArrayList<>();
+            for (double[] q : queryVectors) found.add(ids(hnsw.search(q, topK)));
+            double micros = (System.nanoTime() - start) / 1000.0 / queries;
+            System.out.printf("%-22s recall@%d=%.3f  avg=%.1f us/query  speedup=%.1fx%n",
+                    "HNSW efSearch=" + hnsw.getEfSearch(), topK, recall(found, groundTruth), micros, exactMicros / micros);
+        }
+    }
+
+    private static double recall(List<Set<String>> found, List<Set<String>> groundTruth) {
+        double recall = 0;
+        for (int i = 0; i < found.size(); i++) {
+            Set<String> hit = new HashSet<>(found.get(i));
+            hit.retainAll(groundTruth.get(i));
+            recall += hit.size() / (double) groundTruth.get(i).size();
+        }
+        return recall / found.size();
+    }
+
+    private static long build(VectorIndex index, List<double[]> data) {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < data.size(); i++) index.add(new VectorStore.VectorEntry("v" + i, data.get(i), null));
+        return System.currentTimeMillis() - start;
+    }
+
+    private static Set<String> ids(List<VectorStore.VectorEntry> entries) {
+        Set<String> ids = new HashSet<>();
+        for (VectorStore.VectorEntry e : entries) ids.add(e.id);
+        return ids;
+    }
+
+    // Gaussian clusters approximate the topical structure of real document embeddings
+    private static List<double[]> clusteredVectors(Random random, int count, int dim) {
+        int clusters = 64;
+        Random centroidRandom = new Random(13);
+        double[][] centroids = new double[clusters][dim];
+        for (double[] c : centroids) for (int d = 0; d < dim; d++) c[d] = centroidRandom.nextGaussian();
+        List<double[]> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double[] c = centroids[random.nextInt(clusters)];
+            double[] v = new double[dim];
+            for (int d = 0; d < dim; d++) v[d] = c[d] + 0.6 * random.nextGaussian();
+            out.add(v);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,32 @@
+package org.k11techlab.framework.ai.rag.util;
+
+import org.k11techlab.framework.ai.rag.components.BinaryEmbeddingCache;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * One-shot migration of JSON embedding caches to the binary memory-mapped format.
+ *
+ * Usage: EmbeddingCacheMigrator [cache.json cache.bin]...
+ * Without arguments, migrates the embedding caches in the working directory.
+ */
+public class EmbeddingCacheMigrator {
+    public static void main(String[] args) throws Exception {
+        String[] pairs = args.length > 0 ? args : new String[] {
+                "rag_embedding_cache.json", "rag_embedding_cache.bin",
+                "embedding_cache.json", "embedding_cache.bin",
+                "embedding_cache_ollama.json", "embedding_cache_ollama.bin"
+        };
+        for (int i = 0; i + 1 < pairs.length; i += 2) {
+            if (!Files.exists(Paths.get(pairs[i]))) {
+                System.out.println("Skipping missing " + pairs[i]);
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            int count = BinaryEmbeddingCache.migrateFromJson(pairs[i], pairs[i + 1]);
+            System.out.println("Migrated " + count + " embeddings " + pairs[i] + " -> " + pairs[i + 1]
+                    + " in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+}
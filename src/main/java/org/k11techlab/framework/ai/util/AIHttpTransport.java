@@ -0,0 +1,230 @@
+package org.k11techlab.framework.ai.util;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.k11techlab.framework.selenium.webuitestengine.configManager.ConfigurationManager;
+import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared HTTP transport for the AI clients and embedders (Ollama, LM Studio, OpenAI, HuggingFace).
+ *
+ * One pooled, keep-alive client serves every request, so repeated calls to the same server reuse
+ * connections instead of paying TCP/TLS setup each time. Clients must not close it, and should call
+ * client() per request rather than keep it in a field, since shutdown() replaces it.
+ * Settings (config/ai-provider-config.properties):
+ * - ai.http.maxTotal, ai.http.maxPerRoute: pool size overall and per host
+ * - ai.http.hostLimits: per-host overrides, e.g. "http://localhost:11434=4,https://api.openai.com=8"
+ * - ai.http.maxRetries, ai.http.retryBackoffMillis: retries with exponential backoff on connection
+ *   failures and 429/503 (Retry-After is honoured); LLM and embedding calls are safe to repeat
+ * - ai.http.idleEvictSeconds, ai.http.connectTimeoutSeconds
+ */
+public final class AIHttpTransport {
+
+    private static volatile AIHttpTransport shared;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient client;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    private AIHttpTransport() {
+        int maxTotal = intSetting("ai.http.maxTotal", 64);
+        int maxPerRoute = intSetting("ai.http.maxPerRoute", 16);
+        connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(intSetting("ai.http.connectTimeoutSeconds", 10), TimeUnit.SECONDS)
+                        // Re-validate connections idle this long before reuse, so stale keep-alives are not handed out
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        applyHostLimits(ConfigurationManager.getString("ai.http.hostLimits", ""));
+
+        client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(20, TimeUnit.SECONDS)
+                        .setResponseTimeout(90, TimeUnit.SECONDS)
+                        .build())
+                .setRetryStrategy(new BackoffRetryStrategy(intSetting("ai.http.maxRetries", 2),
+                        intSetting("ai.http.retryBackoffMillis", 500)))
+                .addRequestInterceptorFirst((request, entity, context) -> requests.incrementAndGet())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(intSetting("ai.http.idleEvictSeconds", 60)))
+                .build();
+        Log.info("AI HTTP transport initialized (maxTotal=" + maxTotal + ", maxPerRoute=" + maxPerRoute + ")");
+    }
+
+    /**
+     * The shared pooled client; created on first use
+     */
+    public static CloseableHttpClient client() {
+        return get().client;
+    }
+
+    public static AIHttpTransport get() {
+        AIHttpTransport transport = shared;
+        if (transport == null) {
+            synchronized (AIHttpTransport.class) {
+                transport = shared;
+                if (transport == null) {
+                    transport = new AIHttpTransport();
+                    shared = transport;
+                }
+            }
+        }
+        return transport;
+    }
+
+    /**
+     * Close the shared client and its pooled connections; the next call to client() builds a new one
+     */
+    public static synchronized void shutdown() {
+        AIHttpTransport transport = shared;
+        shared = null;
+        if (transport != null) {
+            transport.client.close(CloseMode.GRACEFUL);
+        }
+    }
+
+    /**
+     * Pool utilisation and request counters as JSON, for /mcp/metrics
+     */
+    public static String statsJson() {
+        AIHttpTransport transport = shared;
+        if (transport == null) {
+            return "{\"initialized\":false}";
+        }
+        PoolStats total = transport.connectionManager.getTotalStats();
+        StringBuilder sb = new StringBuilder("{\"initialized\":true")
+                .append(",\"requests\":").append(transport.requests.get())
+                .append(",\"retries\":").append(transport.retries.get())
+                .append(",\"pool\":").append(toJson(total))
+                .append(",\"routes\":[");
+        boolean first = true;
+        for (HttpRoute route : transport.connectionManager.getRoutes()) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append("{\"host\":\"").append(HttpUtils.escapeJson(route.getTargetHost().toURI())).append("\",")
+                    .append(toJson(transport.connectionManager.getStats(route)).substring(1));
+        }
+        return sb.append("]}").toString();
+    }
+
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    private static String toJson(PoolStats stats) {
+        return "{\"leased\":" + stats.getLeased()
+                + ",\"available\":" + stats.getAvailable()
+                + ",\"pending\":" + stats.getPending()
+                + ",\"max\":" + stats.getMax() + "}";
+    }
+
+    private void applyHostLimits(String hostLimits) {
+        for (String entry : hostLimits.split(",")) {
+            int eq = entry.lastIndexOf('=');
+            if (eq <= 0) continue;
+            try {
+                HttpHost host = HttpHost.create(entry.substring(0, eq).trim());
+                boolean secure = "https".equalsIgnoreCase(host.getSchemeName());
+                int port = host.getPort() > 0 ? host.getPort() : (secure ? 443 : 80);
+                HttpRoute route = new HttpRoute(new HttpHost(host.getSchemeName(), host.getHostName(), port), null, secure);
+                connectionManager.setMaxPerRoute(route, Integer.parseInt(entry.substring(eq + 1).trim()));
+            } catch (Exception e) {
+                Log.error("Ignoring invalid ai.http.hostLimits entry '" + entry + "': " + e.getMessage());
+            }
+        }
+    }
+
+    private static int intSetting(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(ConfigurationManager.getString(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Retries POSTs as well as idempotent methods, with exponential backoff between attempts
+     */
+    private class BackoffRetryStrategy extends DefaultHttpRequestRetryStrategy {
+        private final long backoffMillis;
+
+        BackoffRetryStrategy(int maxRetries, long backoffMillis) {
+            // Timeouts and refused connections are not retried: a slow model or a stopped server should fail fast
+            super(maxRetries, TimeValue.ofMilliseconds(backoffMillis),
+                    Arrays.asList(InterruptedIOException.class, UnknownHostException.class,
+                            ConnectException.class, NoRouteToHostException.class),
+                    Arrays.asList(HttpStatus.SC_TOO_MANY_REQUESTS, HttpStatus.SC_SERVICE_UNAVAILABLE));
+            this.backoffMillis = backoffMillis;
+        }
+
+        @Override
+        public boolean retryRequest(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+            boolean retry = super.retryRequest(request, exception, execCount, context);
+            if (retry) retries.incrementAndGet();
+            return retry;
+        }
+
+        @Override
+        public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+            boolean retry = super.retryRequest(response, execCount, context);
+            if (retry) retries.incrementAndGet();
+            return retry;
+        }
+
+        @Override
+        public TimeValue getRetryInterval(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+            return backoff(execCount);
+        }
+
+        @Override
+        public TimeValue getRetryInterval(HttpResponse response, int execCount, HttpContext context) {
+            TimeValue retryAfter = super.getRetryInterval(response, execCount, context);
+            return response.containsHeader("Retry-After") ? retryAfter : backoff(execCount);
+        }
+
+        @Override
+        protected boolean handleAsIdempotent(HttpRequest request) {
+            return true;
+        }
+
+        private TimeValue backoff(int execCount) {
+            return TimeValue.ofMilliseconds(Math.min(30_000L, backoffMillis << Math.min(10, execCount - 1)));
+        }
+    }
+}
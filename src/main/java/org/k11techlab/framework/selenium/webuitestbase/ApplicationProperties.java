@@ -116,6 +116,34 @@ public enum ApplicationProperties {
      * The port for the driver to connect to.
      */
     DRIVER_PORT("driverport"),
+    /**
+     * Maximum number of browsers launched at the same time; 0 uses half the CPU count.
+     */
+    DRIVER_LAUNCH_MAX_CONCURRENT("selenium.launch.maxConcurrent"),
+    /**
+     * Set to true to start each thread's next driver in the background while its test runs.
+     */
+    DRIVER_PRELAUNCH("selenium.driver.prelaunch"),
+    /**
+     * Set to true to reuse drivers between tests through the driver pool.
+     */
+    DRIVER_POOL_ENABLED("selenium.driverPool.enabled"),
+    /**
+     * Maximum number of pooled drivers per browser/capabilities key.
+     */
+    DRIVER_POOL_MAX_SIZE("selenium.driverPool.maxSize"),
+    /**
+     * Number of tests a pooled driver serves before it is quit and replaced.
+     */
+    DRIVER_POOL_MAX_USES("selenium.driverPool.maxUses"),
+    /**
+     * Number of drivers launched in the background before the first test.
+     */
+    DRIVER_POOL_PREWARM("selenium.driverPool.prewarm"),
+    /**
+     * Seconds a test waits for a free pooled driver.
+     */
+    DRIVER_POOL_WAIT_TIMEOUT("selenium.driverPool.waitTimeoutSeconds"),
     /**
      * The platform of the OS.
      */
@@ -144,6 +172,34 @@ public enum ApplicationProperties {
      * The web service timeout.
      */
     WEB_SERVICE_TIMEOUT("web.service.timeout"),
+    /**
+     * Set to false to give every web service request its own connection instead of the shared pool.
+     */
+    WEB_SERVICE_POOL_ENABLED("web.service.pool.enabled"),
+    /**
+     * Maximum pooled web service connections in total.
+     */
+    WEB_SERVICE_POOL_MAX_TOTAL("web.service.pool.maxTotal"),
+    /**
+     * Maximum pooled web service connections per host.
+     */
+    WEB_SERVICE_POOL_MAX_PER_ROUTE("web.service.pool.maxPerRoute"),
+    /**
+     * Seconds an idle connection is kept alive when the server does not say otherwise.
+     */
+    WEB_SERVICE_POOL_KEEP_ALIVE("web.service.pool.keepAliveSeconds"),
+    /**
+     * Seconds after which idle pooled connections are closed.
+     */
+    WEB_SERVICE_POOL_IDLE_EVICT("web.service.pool.idleEvictSeconds"),
+    /**
+     * Maximum idle SOAP connections kept for reuse.
+     */
+    SOAP_POOL_MAX_IDLE("soap.pool.maxIdle"),
+    /**
+     * Set to true to log every SOAP response.
+     */
+    SOAP_LOG_RESPONSE("soap.log.response"),
     /**
      * Determines if system should log web service tests.
      */
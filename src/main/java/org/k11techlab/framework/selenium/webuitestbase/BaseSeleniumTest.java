@@ -26,6 +26,7 @@ import com.google.common.base.Preconditions;
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 import org.k11techlab.framework.selenium.webuitestengine.commonUtil.ScreenShotUtil;
 import org.k11techlab.framework.selenium.webuitestengine.driverUtil.*;
+import org.k11techlab.framework.selenium.webuitestengine.listeners.DriverPrelaunchListener;
 import org.openqa.selenium.WebDriver;
 import org.testng.ITestResult;
 import org.testng.Reporter;
@@ -41,6 +42,7 @@ import java.text.MessageFormat;
 /**
  * Selenium BaseSeleniumTest class.
  */
+@Listeners(DriverPrelaunchListener.class)
 public class BaseSeleniumTest implements BaseTestCase {
 
     /**
@@ -76,11 +78,15 @@ public class BaseSeleniumTest implements BaseTestCase {
     }
 
     /**
-     * The webdriver for this class. Default browser is Chrome. It can be replaced with other browser drivers
+     * The webdriver for this class. Default browser is Chrome. It can be replaced with other browser drivers.
+     * When selenium.driverPool.enabled is true the driver is borrowed from the shared WebDriverPool,
+     * otherwise it is the test thread's driver in the DriverManager registry.
      */
     public ThreadLocal<WebDriver> driver = ThreadLocal.withInitial(() ->
             // Default browser is Chrome. It can be replaced with other browser drivers
-            createDriver()
+            WebDriverPool.isEnabled()
+                    ? WebDriverPool.shared().borrow(driverPoolKey(), this::createDriver)
+                    : DriverManager.getDriver(driverPoolKey(), this::createDriver)
     );
 
     /**
@@ -96,10 +102,39 @@ public class BaseSeleniumTest implements BaseTestCase {
      * Quit and remove the web driver
      */
     public void quitAndRemoveDriver() {
-        driver.get().quit();
+        if (WebDriverPool.isEnabled()) {
+            // Unhealthy release quits the driver and frees its pool slot
+            WebDriverPool.shared().release(driver.get(), false);
+        } else {
+            DriverManager.quitDriver(driver.get());
+        }
         driver.remove();
     }
 
+    /**
+     * Hands the web driver back after a test. Pooled drivers are reset for the next test, or quit
+     * if the test failed; without the pool the driver is quit.
+     *
+     * @param healthy false if the test failed and the browser state should not be reused
+     */
+    public void releaseDriver(boolean healthy) {
+        if (WebDriverPool.isEnabled()) {
+            WebDriverPool.shared().release(driver.get(), healthy);
+            driver.remove();
+        } else {
+            quitAndRemoveDriver();
+        }
+    }
+
+    /**
+     * Pool key for the drivers createDriver() returns. Override together with createDriver() when
+     * the custom driver uses different capabilities.
+     * @return the key
+     */
+    protected String driverPoolKey() {
+        return DriverManager.getPoolKey();
+    }
+
     /**
      * Gets the browser driver. Override this to implement custom driver initialization.
      * @return
@@ -169,6 +204,11 @@ public class BaseSeleniumTest implements BaseTestCase {
         if (environment != null) {
             System.setProperty("environment", environment);
         }
+
+        int prewarm = ApplicationProperties.DRIVER_POOL_PREWARM.getIntVal(0);
+        if (WebDriverPool.isEnabled() && prewarm > 0) {
+            WebDriverPool.shared().prewarm(driverPoolKey(), this::createDriver, prewarm);
+        }
     }
 
     /**
@@ -206,8 +246,8 @@ public class BaseSeleniumTest implements BaseTestCase {
               }
         }
 
-        quitAndRemoveDriver();
-        Log.LOGGER.info("Quit Driver");
+        releaseDriver(result.getStatus() != ITestResult.FAILURE);
+        Log.LOGGER.info(WebDriverPool.isEnabled() ? "Released Driver" : "Quit Driver");
     }
 
     public void addStepLog(String stepName) {
@@ -62,11 +62,18 @@ public @interface K11DataProvider {
 
 	/***
 	 * Optional data label name in excel sheet. Required if want to provide data
-	 * start/end cell marked with label.
+	 * start/end cell marked with label. For json files, the member holding the
+	 * records (default is the test method name).
 	 *
 	 * @return
 	 */
 	String key() default "";
 
+	/**
+	 * Optional record filter: comma-separated column=value or column!=value
+	 * conditions that must all hold.
+	 *
+	 * @return
+	 */
 	String filter() default "";
 }
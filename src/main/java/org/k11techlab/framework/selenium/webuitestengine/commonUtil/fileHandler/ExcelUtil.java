@@ -1,20 +1,13 @@
 package org.k11techlab.framework.selenium.webuitestengine.commonUtil.fileHandler;
 
+import org.k11techlab.framework.selenium.webuitestengine.dataproviderhelper.TestDataRegistry;
+import org.k11techlab.framework.selenium.webuitestengine.dataproviderhelper.TestDataTable;
 import org.k11techlab.framework.selenium.webuitestengine.exceptions.DataProviderException;
-import org.k11techlab.framework.selenium.webuitestengine.commonUtil.StringUtil;
-import jxl.Cell;
-import jxl.Sheet;
-import jxl.Workbook;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.impl.LogFactoryImpl;
-import org.apache.poi.hssf.usermodel.HSSFCell;
-import org.apache.poi.hssf.usermodel.HSSFRow;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.DataFormatter;
-import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.Row;
 
 import java.io.File;
@@ -22,81 +15,55 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 public class ExcelUtil {
-	private static int getFirstRow(Sheet s, boolean skipHeaderRow) {
-		int row = 0;
-		int l = s.getRows();
-		for (row = 0; row < l; row++) {
-			Cell[] cells = s.getRow(row);
-			boolean isEmptyRow = true;
-			for (Cell cell : cells) {
-				if (StringUtil.isNotBlank(cell.getContents())) {
-					isEmptyRow = false;
-					break;
-				}
-			}
-			if (!isEmptyRow) {
-				if (!skipHeaderRow) {
-					break;
-				} else {
-					skipHeaderRow = false;
-				}
-			}
-		}
-		return row;
-	}
 
-	private static int getFirstCol(Sheet s) {
-		int l = s.getColumns();
-		Cell[] cells = s.getRow(getFirstRow(s, false));
-		for (int col = 0; col < l; col++) {
-			Cell cell = cells[col];
-			if (StringUtils.isNotBlank(cell.getContents())) {
-				return col;
-			}
+	private static final Log logger = LogFactoryImpl.getLog(ExcelUtil.class);
+
+	/**
+	 * Sheet of the cached workbook (see TestDataRegistry); the file is parsed once per modification.
+	 *
+	 * @return the sheet, or null if the file can not be read
+	 */
+	private static TestDataTable.Sheet getSheet(String file, String sheetName) {
+		File f = new File(file);
+		if (!f.exists() || !f.canRead()) {
+			logger.error(" Can not read file " + f.getAbsolutePath() + " Returning empty dataset1");
+			return null;
 		}
-		return 0;
+		TestDataTable.Sheet sheet = TestDataRegistry.getWorkbook(file).getSheet(sheetName);
+		if (null == sheet) {
+			throw new DataProviderException("Worksheet " + sheetName + " not found in " + f.getAbsolutePath());
+		}
+		return sheet;
 	}
 
 	public static Object[][] getExcelData(String file, boolean headerRow, String sheetName) {
 		Object[][] retobj = null;
-		Workbook workbook = null;
 		try {
-			File f = new File(file);
-			if (!f.exists() || !f.canRead()) {
-				logger.error(" Can not read file " + f.getAbsolutePath() + " Returning empty dataset1");
-				return new Object[][] {};
-			}
-			workbook = Workbook.getWorkbook(f);
-			Sheet sheet = StringUtils.isNotBlank(sheetName) ? workbook.getSheet(sheetName) : workbook.getSheet(0);
+			TestDataTable.Sheet sheet = getSheet(file, sheetName);
 			if (null == sheet) {
-				throw new RuntimeException("Worksheet " + sheetName + " not found in " + f.getAbsolutePath());
+				return new Object[][] {};
 			}
 			int firstRow, firstCol, lastRow, colsCnt;
-			firstRow = getFirstRow(sheet, headerRow);
-			firstCol = getFirstCol(sheet);
-			lastRow = sheet.getRows();
-			colsCnt = sheet.getColumns();
+			firstRow = sheet.getFirstDataRow(headerRow);
+			firstCol = sheet.getFirstDataColumn();
+			lastRow = sheet.getRowCount();
+			colsCnt = sheet.getColumnCount();
 			logger.info("Rows : " + lastRow);
 			logger.info("Columns : " + colsCnt);
 			retobj = new Object[lastRow - firstRow][colsCnt - firstCol];
 			for (int row = firstRow; row < lastRow; row++) {
-				Cell[] cells = sheet.getRow(row);
-				for (int col = firstCol; col < cells.length; col++) {
-					retobj[row - firstRow][col - firstCol] = cells[col].getContents();
+				List<String> cells = sheet.getRows().get(row);
+				for (int col = firstCol; col < cells.size(); col++) {
+					retobj[row - firstRow][col - firstCol] = cells.get(col);
 				}
 			}
 		} catch (Exception e) {
 			logger.error("Error while fetching dto from " + file, e);
 			throw new DataProviderException("Error while fetching dto from " + file, e);
-		} finally {
-			try {
-				workbook.close();
-			} catch (Exception e2) {
-				// skip exception
-			}
 		}
 		return retobj;
 	}
@@ -112,110 +79,54 @@ public class ExcelUtil {
 
 	public static String[][] getTableData(String xlFilePath, String tableName, String sheetName) {
 		String[][] tabArray = null;
-		Workbook workbook = null;
 		try {
-			File f = new File(xlFilePath);
-			if (!f.exists() || !f.canRead()) {
-				logger.error(" Can not read file " + f.getAbsolutePath() + " Returning empty dataset1");
-				return new String[][] {};
-			}
-			workbook = Workbook.getWorkbook(f);
-			Sheet sheet = StringUtils.isNotBlank(sheetName) ? workbook.getSheet(sheetName) : workbook.getSheet(0);
+			TestDataTable.Sheet sheet = getSheet(xlFilePath, sheetName);
 			if (null == sheet) {
-				throw new RuntimeException("Worksheet " + sheetName + " not found in " + f.getAbsolutePath());
-			}
-
-			int startRow, startCol, endRow, endCol, ci, cj;
-			Cell tableStart = sheet.findCell(tableName);
-			if (null == tableStart) {
-				throw new RuntimeException(
-						"Lable " + tableName + " for starting dto range not found in sheet " + sheet.getName());
-			}
-
-			startRow = tableStart.getRow();
-			startCol = tableStart.getColumn();
-			Cell tableEnd = sheet.findCell(tableName, startCol + 1, startRow + 1, 100, 64000, false);
-			if (null == tableEnd) {
-				throw new RuntimeException(
-						"Lable " + tableName + " for ending dto range not found in sheet " + sheet.getName());
+				return new String[][] {};
 			}
-			endRow = tableEnd.getRow();
-			endCol = tableEnd.getColumn();
-			logger.debug("startRow=" + startRow + ", endRow=" + endRow + ", " + "startCol=" + startCol + ", endCol="
-					+ endCol);
-			tabArray = new String[endRow - startRow - 1][endCol - startCol - 1];
-			ci = 0;
-
-			for (int i = startRow + 1; i < endRow; i++, ci++) {
-				cj = 0;
-				for (int j = startCol + 1; j < endCol; j++, cj++) {
-					tabArray[ci][cj] = sheet.getCell(j, i).getContents();
-				}
+			// rows strictly between the two labels
+			List<List<String>> range = sheet.getKeyRange(tableName);
+			List<List<String>> rows = range.subList(1, range.size() - 1);
+			tabArray = new String[rows.size()][range.get(0).size()];
+			for (int i = 0; i < rows.size(); i++) {
+				tabArray[i] = rows.get(i).toArray(new String[0]);
 			}
 		} catch (Exception e) {
 			logger.error("error while fetching dto from " + xlFilePath, e);
 			throw new DataProviderException("Error while fetching dto from " + xlFilePath, e);
-
-		} finally {
-			try {
-				workbook.close();
-			} catch (Exception e2) {
-				// skip exception
-			}
 		}
 		return (tabArray);
 	}
 
-	private static final Log logger = LogFactoryImpl.getLog(ExcelUtil.class);
-
 	public static Object[][] getExcelDataAsMap(String file, String sheetName) {
 		Object[][] retobj = null;
-		Workbook workbook = null;
 		try {
-			File f = new File(file);
-			if (!f.exists() || !f.canRead()) {
-				logger.error(" Can not read file " + f.getAbsolutePath() + " Returning empty dataset1");
-				return new Object[][] {};
-			}
-			workbook = Workbook.getWorkbook(f);
-			Sheet sheet = StringUtils.isNotBlank(sheetName) ? workbook.getSheet(sheetName) : workbook.getSheet(0);
+			TestDataTable.Sheet sheet = getSheet(file, sheetName);
 			if (null == sheet) {
-				throw new RuntimeException("Worksheet " + sheetName + " not found in " + f.getAbsolutePath());
+				return new Object[][] {};
 			}
 			int firstRow, firstCol, lastRow, colsCnt;
-			firstRow = getFirstRow(sheet, false);
-			firstCol = getFirstCol(sheet);
-			lastRow = sheet.getRows();
-			colsCnt = sheet.getColumns();
-			String[] colNames = new String[colsCnt - firstCol];
+			firstRow = sheet.getFirstDataRow(false);
+			firstCol = sheet.getFirstDataColumn();
+			lastRow = sheet.getRowCount();
+			colsCnt = sheet.getColumnCount();
+			List<String> colNames = sheet.getRows().get(firstRow);
 
 			logger.info("Rows : " + lastRow);
 			logger.info("Columns : " + colsCnt);
 			retobj = new Object[lastRow - (firstRow + 1)][1]; // skipped header
 																// row
-			for (int row = firstRow; row < lastRow; row++) {
-				Cell[] cells = sheet.getRow(row);
-				if (row == firstRow) {
-					for (int col = firstCol; col < (firstCol + cells.length); col++) {
-						colNames[col - firstCol] = cells[col].getContents().trim();
-					}
-				} else {
-					HashMap<String, String> map = new HashMap<String, String>();
-					for (int col = firstCol; col < (firstCol + cells.length); col++) {
-						map.put(colNames[col - firstCol], cells[col].getContents());
-					}
-					retobj[row - (firstRow + 1)][0] = map;
+			for (int row = firstRow + 1; row < lastRow; row++) {
+				List<String> cells = sheet.getRows().get(row);
+				HashMap<String, String> map = new HashMap<String, String>();
+				for (int col = firstCol; col < cells.size() && col < colNames.size(); col++) {
+					map.put(colNames.get(col).trim(), cells.get(col));
 				}
+				retobj[row - (firstRow + 1)][0] = map;
 			}
 		} catch (Exception e) {
 			logger.error("Error while fetching dto from " + file, e);
 			throw new DataProviderException("Error while fetching dto from " + file, e);
-		} finally {
-			try {
-				workbook.close();
-			} catch (Exception e2) {
-				// skip exception
-			}
 		}
 		return retobj;
 
@@ -223,69 +134,20 @@ public class ExcelUtil {
 
 	public static Object[][] getTableDataAsMap(String xlFilePath, String tableName, String sheetName) {
 		Object[][] tabArray = null;
-		Workbook workbook = null;
 		try {
-			File f = new File(xlFilePath);
-			if (!f.exists() || !f.canRead()) {
-				logger.error(" Can not read file " + f.getAbsolutePath() + " Returning empty dataset1");
-				return new String[][] {};
-			}
-			workbook = Workbook.getWorkbook(f);
-			Sheet sheet = StringUtils.isNotBlank(sheetName) ? workbook.getSheet(sheetName) : workbook.getSheet(0);
+			TestDataTable.Sheet sheet = getSheet(xlFilePath, sheetName);
 			if (null == sheet) {
-				throw new RuntimeException("Worksheet " + sheetName + " not found in " + f.getAbsolutePath());
+				return new String[][] {};
 			}
-
-			int startRow, startCol, endRow, endCol, ci, cj;
-			Cell tableStart = sheet.findCell(tableName);
-			if (null == tableStart) {
-				throw new RuntimeException(
-						"Lable " + tableName + " for starting dto range not found in sheet " + sheet.getName());
-			}
-
-			startRow = tableStart.getRow();
-			startCol = tableStart.getColumn();
-			Cell tableEnd = sheet.findCell(tableName, startCol + 1, startRow + 1, 100, 64000, false);
-			if (null == tableEnd) {
-				throw new RuntimeException(
-						"Lable " + tableName + " for ending dto range not found in sheet " + sheet.getName());
-			}
-			endRow = tableEnd.getRow();
-			endCol = tableEnd.getColumn();
-			logger.debug("startRow=" + startRow + ", endRow=" + endRow + ", " + "startCol=" + startCol + ", endCol="
-					+ endCol);
-			tabArray = new Object[endRow - startRow][1];
-			ci = 0;
-			String[] colNames = new String[endCol - startCol - 1];
-
-			for (int i = startRow; i <= endRow; i++) {
-				cj = 0;
-				if (i == (startRow)) {
-					for (int j = startCol + 1; j < endCol; j++, cj++) {
-						colNames[cj] = sheet.getCell(j, i).getContents().trim();
-						logger.debug("header[" + cj + "] : " + colNames[cj]);
-
-					}
-				} else {
-					HashMap<String, String> map = new HashMap<String, String>();
-					for (int j = startCol + 1; j < endCol; j++, cj++) {
-						map.put(colNames[cj], sheet.getCell(j, i).getContents());
-					}
-					logger.debug("Record " + ci + ":" + map);
-					tabArray[ci++][0] = map;
-
-				}
+			List<Map<String, String>> records = sheet.getKeyRecords(tableName);
+			tabArray = new Object[records.size()][1];
+			for (int i = 0; i < records.size(); i++) {
+				logger.debug("Record " + i + ":" + records.get(i));
+				tabArray[i][0] = new HashMap<String, String>(records.get(i));
 			}
 		} catch (Exception e) {
 			logger.error("error while fetching dto from " + xlFilePath, e);
 			throw new DataProviderException("Error while fetching dto from " + xlFilePath, e);
-
-		} finally {
-			try {
-				workbook.close();
-			} catch (Exception e2) {
-				// skip exception
-			}
 		}
 
 		return (tabArray);
@@ -315,139 +177,31 @@ public class ExcelUtil {
 		FileOutputStream fileOutputStream = new FileOutputStream(filePath);
 		workbook.write(fileOutputStream);
 		fileOutputStream.close();
+		TestDataRegistry.invalidate(filePath);
 	}
 
 	public static String getCellData(String filePath, String colName, int rowNum) throws IOException {
-		// Open existing file as an input stream
-		FileInputStream fileInputStream = new FileInputStream(filePath);
-		// create an object of Workbook and pass the FileInputStream object into it
-		HSSFWorkbook workbook = new HSSFWorkbook(fileInputStream);
-		// use getSheetAt() to pass sheet number. Here index is 0.
-		HSSFSheet sheet = workbook.getSheetAt(0);
-		HSSFRow row = null;
-		HSSFCell cell = null;
-		int colNum=0;
-		try
-		{
-			colNum = -1;
-			row = sheet.getRow(0);
-			for(int i = 0; i < row.getLastCellNum(); i++)
-			{
-				if(row.getCell(i).getStringCellValue().trim().equals(colName.trim()))
-					colNum = i;
-			}
-
-			row = sheet.getRow(rowNum - 1);
-			cell = row.getCell(colNum);
-
-			return String.valueOf(cell.getStringCellValue());
-			}
-		catch(Exception e)
-		{
-			e.printStackTrace();
+		TestDataTable.Sheet sheet = TestDataRegistry.getWorkbook(filePath).getSheet("0");
+		int colNum = sheet.getColumnIndex(colName);
+		if (colNum < 0 || rowNum < 1 || rowNum > sheet.getRowCount()) {
 			return "row "+rowNum+" or column "+colNum +" does not exist  in Excel";
 		}
-
+		return sheet.getCell(rowNum - 1, colNum);
 	}
 
 	public static int getColumnIndexFromColumnName(String filePath, String colName) throws IOException {
-        // Open existing file as an input stream
-        FileInputStream fileInputStream = new FileInputStream(filePath);
-        // create an object of Workbook and pass the FileInputStream object into it
-        HSSFWorkbook workbook = new HSSFWorkbook(fileInputStream);
-        // use getSheetAt() to pass sheet number. Here index is 0.
-        HSSFSheet sheet = workbook.getSheetAt(0);
-        HSSFRow row = null;
-        HSSFCell cell = null;
-        int colNum = 0;
-        try {
-            colNum = -1;
-            row = sheet.getRow(0);
-            for (int i = 0; i < row.getLastCellNum(); i++) {
-                if (row.getCell(i).getStringCellValue().trim().equals(colName.trim())) {
-					colNum = i;
-					break;
-				}
-            }
-            }catch(Exception ex) {
-            ex.printStackTrace();
-            }
-      return colNum;
-    }
+		return TestDataRegistry.getWorkbook(filePath).getSheet("0").getColumnIndex(colName);
+	}
 
 
 	public static int getRowCount(String filePath) throws IOException {
-
-		// Open existing file as an input stream
-		FileInputStream fileInputStream = new FileInputStream(filePath);
-		// create an object of Workbook and pass the FileInputStream object into it
-		HSSFWorkbook workbook = new HSSFWorkbook(fileInputStream);
-		// use getSheetAt() to pass sheet number. Here index is 0.
-		HSSFSheet sheet = workbook.getSheetAt(0);
+		TestDataTable.Sheet sheet = TestDataRegistry.getWorkbook(filePath).getSheet("0");
 		int rowCount = 0;
-		Iterator<Row> iter = sheet.rowIterator();
-
-		while (iter.hasNext()) {
-			Row r = iter.next();
-			if (!isRowEmpty(filePath, r)) {
-				rowCount = r.getRowNum();
+		for (int row = 0; row < sheet.getRowCount(); row++) {
+			if (!sheet.isRowEmpty(row)) {
+				rowCount = row;
 			}
 		}
-
 		return rowCount;
 	}
-
-	/**
-	 * Determine whether a row is effectively completely empty - i.e. all cells either contain an empty string or nothing.
-	 */
-	private static  boolean isRowEmpty( String filePath, Row row ) throws IOException {
-		if( row == null ){
-			return true;
-		}
-
-		int cellCount = row.getLastCellNum() + 1;
-		for( int i = 0; i < cellCount; i++ ){
-			String cellValue = getCellValue( filePath, row, i );
-			if( cellValue != null && cellValue.length() > 0 ){
-				return false;
-			}
-		}
-		return true;
-	}
-
-	/**
-	 * Get the effective value of a cell, formatted according to the formatting of the cell.
-	 * If the cell contains a formula, it is evaluated first, then the result is formatted.
-	 *
-	 * @param row the row
-	 * @param columnIndex the cell's column index
-	 * @return the cell's value
-	 */
-	private static String getCellValue(String filepath, Row row, int columnIndex ) throws IOException {
-		// Open existing file as an input stream
-		FileInputStream fileInputStream = new FileInputStream(filepath);
-		// create an object of Workbook and pass the FileInputStream object into it
-		HSSFWorkbook workbook = new HSSFWorkbook(fileInputStream);
-		DataFormatter formatter = new DataFormatter( true );
-		FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
-		String cellValue;
-		org.apache.poi.ss.usermodel.Cell cell = row.getCell( columnIndex );
-		if( cell == null ){
-			// no dto in this cell
-			cellValue = null;
-		}
-		else{
-			if( cell.getCellTypeEnum()!= CellType.FORMULA ){
-				// cell has a value, so format it into a string
-				cellValue = formatter.formatCellValue( cell );
-			}
-			else {
-				// cell has a formula, so evaluate it
-				cellValue = formatter.formatCellValue( cell, evaluator );
-			}
-		}
-		return cellValue;
-	}
-
-
 }
@@ -25,6 +25,8 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.k11techlab.framework.selenium.webuitestbase.ApplicationProperties;
+import org.k11techlab.framework.selenium.webuitestengine.exceptions.DataProviderException;
+import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.*;
@@ -345,32 +347,47 @@ public class ExcelDataProviderHelper {
     }
 
     public static Object[][] convertExcelDataToObjectArray(String filePath, String _sheet){
-        List<List<String>> sheetDataTable = null;
+        return convertExcelDataToObjectArray(filePath, _sheet, "", "");
+    }
+
+    /**
+     * Rows of a sheet as JSONObjects (column name to value), read from the workbook cached by TestDataRegistry.
+     *
+     * @param filePath the workbook
+     * @param _sheet sheet name or zero-based index
+     * @param key optional label marking the data block (see TestDataTable.Sheet.getKeyRange); blank for the whole sheet,
+     *            with the first non-empty row as header
+     * @param filter optional column=value / column!=value conditions, comma-separated
+     * @return one row per record, each holding one JSONObject
+     */
+    public static Object[][] convertExcelDataToObjectArray(String filePath, String _sheet, String key, String filter){
+        Map<String, JSONObject> excelDataRowObjects = new LinkedHashMap<>();
         try {
-            /* First need to open the file. */
-            FileInputStream fInputStream = new FileInputStream(filePath.trim());
-
-            /* Create the workbook object to access excel file. */
-            Workbook excelWorkBook = new HSSFWorkbook(fInputStream);
-            Sheet sheet;
-            if (_sheet.matches("\\d+")) {
-                int sheetIndex = Integer.parseInt(_sheet);
-                sheet = excelWorkBook.getSheetAt(sheetIndex);
-            } else {
-                sheet = excelWorkBook.getSheet(_sheet);
+            int i = 1;
+            for (Map<String, String> record : getSheetRecords(filePath, _sheet, key, filter)) {
+                excelDataRowObjects.put("Row " + i++, new JSONObject(record));
             }
-
-            // Get current sheet data in a list table.
-            sheetDataTable= getSheetDataList(sheet);
-
         } catch (Exception e) {
-            // is not a JSON
+            Log.error("Error while reading test data from " + filePath + ": " + e.getMessage());
         }
-        Map<String, JSONObject> excelDataRowObjects= getJSONObjectsFromExcelData(sheetDataTable);
         return convertToObjectArray(excelDataRowObjects);
 
         }
 
+    /**
+     * Records of a sheet, or of the block marked by key, narrowed by filter
+     */
+    static List<Map<String, String>> getSheetRecords(String filePath, String _sheet, String key, String filter) {
+        TestDataTable.Sheet sheet = TestDataRegistry.getWorkbook(filePath).getSheet(_sheet);
+        if (sheet == null) {
+            throw new DataProviderException("Worksheet " + _sheet + " not found in " + filePath);
+        }
+        List<Map<String, String>> records = StringUtils.isNotBlank(key)
+                ? sheet.getKeyRecords(key)
+                : sheet.getRecords(sheet.getFirstDataRow(false));
+        return TestDataTable.filter(records, filter);
+    }
+
     public static Object convertJsonStringToObject(String jsonString, Type typeToMap) {
         Preconditions.checkArgument(typeToMap != null, "typeToMap argument cannot be null");
         Preconditions.checkArgument(!StringUtils.isEmpty(jsonString),
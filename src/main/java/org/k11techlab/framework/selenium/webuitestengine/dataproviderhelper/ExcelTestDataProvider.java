@@ -22,6 +22,7 @@ import org.k11techlab.framework.selenium.webuitestengine.annotations.K11DataProv
 import org.k11techlab.framework.selenium.webuitestengine.exceptions.DataProviderException;
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 import org.k11techlab.framework.selenium.webuitestbase.ApplicationProperties;
+import org.apache.commons.lang3.StringUtils;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Parameters;
 
@@ -35,7 +36,10 @@ public class ExcelTestDataProvider {
         Log.debug("Initializing the test data");
         String dataPath= ApplicationProperties.TESTDATA_DIR.getStringVal();
         String dataFile = getDataFileNameFromAnnotation(method);
-        return ExcelDataProviderHelper.convertExcelDataToObjectArray(dataPath+dataFile, "0");
+        K11DataProvider annotation = method.getDeclaredAnnotation(K11DataProvider.class);
+        String sheetName = StringUtils.isNotBlank(annotation.sheetName()) ? annotation.sheetName() : "0";
+        return ExcelDataProviderHelper.convertExcelDataToObjectArray(dataPath+dataFile, sheetName,
+                annotation.key(), annotation.filter());
 
     }
 
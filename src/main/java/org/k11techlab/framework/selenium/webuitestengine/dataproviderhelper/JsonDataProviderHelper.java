@@ -1,13 +1,9 @@
 package org.k11techlab.framework.selenium.webuitestengine.dataproviderhelper;
 
+import org.k11techlab.framework.selenium.webuitestengine.exceptions.DataProviderException;
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -16,24 +12,17 @@ public class JsonDataProviderHelper {
 
 
     /**
-     * extractData_JSON method to get JSON data from file
+     * extractData_JSON method to get JSON data from file. The file is parsed once through
+     * TestDataRegistry; every call returns its own copy.
      *
      * @param file
-     * @return JSONObject
-     * @throws Exception
+     * @return JSONObject, or null if the file cannot be read
      */
     public static JSONObject extractData_JSON(String file) {
-        FileReader reader = null;
         try {
-        reader = new FileReader(file);
-        JSONParser jsonParser = new JSONParser();
-        return (JSONObject) jsonParser.parse(reader);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        } catch (ParseException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
+            return TestDataRegistry.copyJson(TestDataRegistry.getJson(file));
+        } catch (DataProviderException e) {
+            Log.error(e.getMessage());
         }
         return null;
     }
@@ -4,6 +4,7 @@ import org.k11techlab.framework.selenium.webuitestengine.annotations.K11DataProv
 import org.k11techlab.framework.selenium.webuitestengine.exceptions.DataProviderException;
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 import org.k11techlab.framework.selenium.webuitestbase.ApplicationProperties;
+import org.apache.commons.lang3.StringUtils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.testng.annotations.DataProvider;
@@ -13,7 +14,6 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 
-import static org.k11techlab.framework.selenium.webuitestengine.dataproviderhelper.JsonDataProviderHelper.extractData_JSON;
 import static org.k11techlab.framework.selenium.webuitestengine.dataproviderhelper.JsonDataProviderHelper.filterTestData;
 
 /**
@@ -36,7 +36,8 @@ public class JsonTestDataProvider {
 
 
     /**
-     * fetchData method to retrieve test data for specified method
+     * fetchData method to retrieve test data for specified method. The records are read from the
+     * cached JSON document under the annotation's key (default: the method name), narrowed by its filter.
      *
      * @param method
      * @return Object[][]
@@ -47,13 +48,19 @@ public class JsonTestDataProvider {
         Log.info("The parameters are: "+parameters.toString());
         String dataFile = getDataFileNameFromAnnotation(method);
         String dataPath = ApplicationProperties.TESTDATA_DIR.getStringVal();
+        K11DataProvider annotation = method.getDeclaredAnnotation(K11DataProvider.class);
 
         testCaseName = method.getName();
+        String key = StringUtils.isNotBlank(annotation.key()) ? annotation.key() : testCaseName;
         List<JSONObject> testDataList = new ArrayList<>();
-        JSONArray testData = (JSONArray) extractData_JSON(dataPath + dataFile).get(testCaseName);
+        JSONArray testData = (JSONArray) TestDataRegistry.getJson(dataPath + dataFile).get(key);
+        if (testData == null) {
+            throw new DataProviderException("No test data found for key " + key + " in " + dataFile);
+        }
         for (int i = 0; i < testData.size(); i++) {
-            testDataList.add((JSONObject) testData.get(i));
+            testDataList.add(TestDataRegistry.copyJson((JSONObject) testData.get(i)));
         }
+        testDataList = TestDataTable.filter(testDataList, annotation.filter());
 
         // reassign testRows after filtering tests
         testDataList = filterTestData(testDataList);
@@ -333,23 +333,7 @@ public class TestDataProviderHelper {
     }
 
     public static Object[][] convertExcelDataToObjectArray(String filePath, String _sheet){
-        List<List<String>> sheetDataTable = null;
-        try {
-            /* First need to open the file. */
-            FileInputStream fInputStream = new FileInputStream(filePath.trim());
-
-            /* Create the workbook object to access excel file. */
-            Workbook excelWorkBook = new HSSFWorkbook(fInputStream);
-            Sheet sheet = excelWorkBook.getSheet(_sheet);
-            // Get current sheet data in a list table.
-            sheetDataTable= getSheetDataList(sheet);
-
-        } catch (Exception e) {
-            // is not a JSON
-        }
-        Map<String, JSONObject> excelDataRowObjects= getJSONObjectsFromExcelData(sheetDataTable);
-        return convertToObjectArray(excelDataRowObjects);
-
+        return ExcelDataProviderHelper.convertExcelDataToObjectArray(filePath, _sheet);
         }
 
 
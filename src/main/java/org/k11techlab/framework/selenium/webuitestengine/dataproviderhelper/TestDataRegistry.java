@@ -0,0 +1,211 @@
+package org.k11techlab.framework.selenium.webuitestengine.dataproviderhelper;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.k11techlab.framework.selenium.webuitestengine.exceptions.DataProviderException;
+import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of parsed test data files.
+ *
+ * Each workbook or JSON file is parsed once and kept, keyed by its canonical path, until its
+ * modification time or size changes, or until invalidate() is called for it; then the next lookup
+ * parses it again. Code that writes a test data file must call invalidate(), because a rewrite within
+ * the file system's timestamp resolution can keep both the time and the size. Threads asking for a
+ * file that is being parsed wait for that parse instead of starting their own, so a suite with
+ * hundreds of data-driven methods on a few large workbooks reads each workbook once.
+ *
+ * Cached values are shared and must not be modified: workbooks are immutable TestDataTables, and
+ * JSON documents are handed to data providers through copyJson().
+ */
+public final class TestDataRegistry {
+
+    private static final Map<String, Entry> CACHE = new ConcurrentHashMap<>();
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong LOADS = new AtomicLong();
+
+    private TestDataRegistry() {
+    }
+
+    /**
+     * The workbook (.xls or .xlsx) at the path, parsed on first use
+     *
+     * @param path the workbook file
+     * @return the shared, immutable table
+     * @throws DataProviderException if the file cannot be read
+     */
+    public static TestDataTable getWorkbook(String path) {
+        return (TestDataTable) get(path, "workbook", file -> {
+            try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
+                return TestDataTable.fromWorkbook(file.getPath(), workbook);
+            }
+        });
+    }
+
+    /**
+     * The JSON document at the path, parsed on first use. The result is shared: read it, or take a
+     * copy with copyJson() before changing anything.
+     *
+     * @param path the JSON file
+     * @return the shared root object
+     * @throws DataProviderException if the file cannot be read or parsed
+     */
+    public static JSONObject getJson(String path) {
+        return (JSONObject) get(path, "json", file -> {
+            try (Reader reader = new FileReader(file)) {
+                return new JSONParser().parse(reader);
+            }
+        });
+    }
+
+    /**
+     * Deep copy of a JSON value from getJson, so a test can change its data without affecting others
+     *
+     * @param value a JSONObject, JSONArray or simple value
+     * @return the copy
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copyJson(T value) {
+        if (value instanceof JSONObject) {
+            JSONObject copy = new JSONObject();
+            for (Object e : ((JSONObject) value).entrySet()) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) e;
+                copy.put(entry.getKey(), copyJson(entry.getValue()));
+            }
+            return (T) copy;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray copy = new JSONArray();
+            for (Object item : (JSONArray) value) {
+                copy.add(copyJson(item));
+            }
+            return (T) copy;
+        }
+        return value;
+    }
+
+    private static Object get(String path, String kind, Loader loader) {
+        File file = new File(path.trim());
+        if (!file.isFile() || !file.canRead()) {
+            throw new DataProviderException("Can not read test data file " + file.getAbsolutePath());
+        }
+        String key = kind + ":" + canonicalPath(file);
+        long modified = file.lastModified();
+        long length = file.length();
+
+        Entry entry = CACHE.get(key);
+        if (entry == null || !entry.isFor(modified, length)) {
+            Entry fresh = new Entry(modified, length, () -> {
+                long start = System.nanoTime();
+                Object value = loader.load(file);
+                LOADS.incrementAndGet();
+                Log.info("Loaded test data " + file.getPath() + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                return value;
+            });
+            entry = CACHE.compute(key, (k, current) -> current != null && current.isFor(modified, length) ? current : fresh);
+            if (entry == fresh) {
+                fresh.task.run();
+            } else {
+                HITS.incrementAndGet();
+            }
+        } else {
+            HITS.incrementAndGet();
+        }
+
+        try {
+            return entry.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataProviderException("Interrupted while loading test data " + file.getPath(), e);
+        } catch (ExecutionException e) {
+            // Forget the failed parse so the next lookup tries again
+            CACHE.remove(key, entry);
+            throw new DataProviderException("Error while fetching test data from " + file.getPath(), e.getCause());
+        }
+    }
+
+    private static String canonicalPath(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Drops the cached copies of one file; call after writing to it
+     *
+     * @param path the workbook or JSON file
+     */
+    public static void invalidate(String path) {
+        String canonical = canonicalPath(new File(path.trim()));
+        CACHE.remove("workbook:" + canonical);
+        CACHE.remove("json:" + canonical);
+    }
+
+    /**
+     * Drops all cached files
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    /**
+     * @return number of lookups answered from the cache (including waits for a parse in progress)
+     */
+    public static long getHitCount() {
+        return HITS.get();
+    }
+
+    /**
+     * @return number of files parsed
+     */
+    public static long getLoadCount() {
+        return LOADS.get();
+    }
+
+    /**
+     * @return cached file keys, for diagnostics
+     */
+    public static Map<String, Long> getCachedFiles() {
+        Map<String, Long> files = new TreeMap<>();
+        CACHE.forEach((key, entry) -> files.put(key, entry.modified));
+        return Collections.unmodifiableMap(files);
+    }
+
+    private interface Loader {
+        Object load(File file) throws Exception;
+    }
+
+    private static final class Entry {
+        private final long modified;
+        private final long length;
+        private final FutureTask<Object> task;
+
+        Entry(long modified, long length, Callable<Object> loader) {
+            this.modified = modified;
+            this.length = length;
+            this.task = new FutureTask<>(loader);
+        }
+
+        boolean isFor(long modified, long length) {
+            return this.modified == modified && this.length == length;
+        }
+    }
+}
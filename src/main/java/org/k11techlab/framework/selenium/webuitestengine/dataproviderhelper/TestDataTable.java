@@ -0,0 +1,338 @@
+package org.k11techlab.framework.selenium.webuitestengine.dataproviderhelper;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory copy of a workbook: every sheet as a grid of cell display strings.
+ *
+ * Built once per file by TestDataRegistry and shared by all data providers and threads, so nothing
+ * here may be modified after construction. Lookups that return records build new maps on every
+ * call; callers are free to change what they get back.
+ */
+public final class TestDataTable {
+
+    private final String source;
+    private final List<Sheet> sheets;
+    private final Map<String, Sheet> sheetsByName;
+
+    private TestDataTable(String source, List<Sheet> sheets) {
+        this.source = source;
+        this.sheets = Collections.unmodifiableList(sheets);
+        Map<String, Sheet> byName = new LinkedHashMap<>();
+        for (Sheet sheet : sheets) {
+            byName.put(sheet.getName(), sheet);
+        }
+        this.sheetsByName = Collections.unmodifiableMap(byName);
+    }
+
+    /**
+     * Copies all sheets of the workbook. Cells are read as Excel displays them (numbers and dates
+     * formatted, formulas evaluated), blank cells as "".
+     *
+     * @param source file the workbook was read from, for messages
+     * @param workbook the workbook
+     * @return the table
+     */
+    public static TestDataTable fromWorkbook(String source, Workbook workbook) {
+        DataFormatter formatter = new DataFormatter();
+        FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+        List<Sheet> sheets = new ArrayList<>();
+        for (int s = 0; s < workbook.getNumberOfSheets(); s++) {
+            org.apache.poi.ss.usermodel.Sheet poiSheet = workbook.getSheetAt(s);
+            List<List<String>> rows = new ArrayList<>();
+            for (int r = 0; r <= poiSheet.getLastRowNum(); r++) {
+                Row row = poiSheet.getRow(r);
+                List<String> cells = new ArrayList<>();
+                if (row != null) {
+                    for (int c = 0; c < row.getLastCellNum(); c++) {
+                        cells.add(cellValue(row.getCell(c), formatter, evaluator));
+                    }
+                }
+                rows.add(Collections.unmodifiableList(cells));
+            }
+            sheets.add(new Sheet(poiSheet.getSheetName(), rows));
+        }
+        return new TestDataTable(source, sheets);
+    }
+
+    private static String cellValue(Cell cell, DataFormatter formatter, FormulaEvaluator evaluator) {
+        if (cell == null) {
+            return "";
+        }
+        if (cell.getCellType() == CellType.FORMULA) {
+            try {
+                return formatter.formatCellValue(cell, evaluator);
+            } catch (RuntimeException e) {
+                // e.g. references to other workbooks; fall back to the formula text
+                return formatter.formatCellValue(cell);
+            }
+        }
+        return formatter.formatCellValue(cell);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public List<Sheet> getSheets() {
+        return sheets;
+    }
+
+    /**
+     * @param nameOrIndex sheet name, zero-based index ("0", "1", ...) or blank for the first sheet
+     * @return the sheet, or null if there is no such sheet
+     */
+    public Sheet getSheet(String nameOrIndex) {
+        if (StringUtils.isBlank(nameOrIndex)) {
+            return sheets.isEmpty() ? null : sheets.get(0);
+        }
+        Sheet sheet = sheetsByName.get(nameOrIndex);
+        if (sheet == null && nameOrIndex.matches("\\d+")) {
+            int index = Integer.parseInt(nameOrIndex);
+            sheet = index < sheets.size() ? sheets.get(index) : null;
+        }
+        return sheet;
+    }
+
+    /**
+     * Keeps the records that satisfy every condition of the filter
+     *
+     * @param records the records
+     * @param filter comma-separated conditions "column=value" or "column!=value"; blank keeps all records
+     * @return the matching records, in their original order
+     */
+    public static <T extends Map<?, ?>> List<T> filter(List<T> records, String filter) {
+        if (StringUtils.isBlank(filter)) {
+            return records;
+        }
+        List<T> matching = new ArrayList<>();
+        for (T record : records) {
+            if (matches(record, filter)) {
+                matching.add(record);
+            }
+        }
+        return matching;
+    }
+
+    private static boolean matches(Map<?, ?> record, String filter) {
+        for (String condition : filter.split(",")) {
+            boolean negate = condition.contains("!=");
+            String[] parts = condition.split(negate ? "!=" : "=", 2);
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Invalid test data filter condition '" + condition
+                        + "', expected column=value or column!=value");
+            }
+            Object value = record.get(parts[0].trim());
+            boolean equal = value != null && String.valueOf(value).trim().equals(parts[1].trim());
+            if (equal == negate) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One sheet as rows of cell strings. Rows keep their own length (up to their last cell);
+     * rows without cells are empty.
+     */
+    public static final class Sheet {
+        private final String name;
+        private final List<List<String>> rows;
+        private final int columnCount;
+
+        Sheet(String name, List<List<String>> rows) {
+            this.name = name;
+            this.rows = Collections.unmodifiableList(rows);
+            int columns = 0;
+            for (List<String> row : rows) {
+                columns = Math.max(columns, row.size());
+            }
+            this.columnCount = columns;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<List<String>> getRows() {
+            return rows;
+        }
+
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        public int getColumnCount() {
+            return columnCount;
+        }
+
+        /**
+         * @return the cell value, "" outside the row or sheet
+         */
+        public String getCell(int row, int column) {
+            if (row < 0 || row >= rows.size()) {
+                return "";
+            }
+            List<String> cells = rows.get(row);
+            return column >= 0 && column < cells.size() ? cells.get(column) : "";
+        }
+
+        public boolean isRowEmpty(int row) {
+            for (String cell : rows.get(row)) {
+                if (StringUtils.isNotBlank(cell)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @param skipHeaderRow true to return the row after the first non-empty one
+         * @return index of the first non-empty row, or the row count if there is none
+         */
+        public int getFirstDataRow(boolean skipHeaderRow) {
+            for (int row = 0; row < rows.size(); row++) {
+                if (!isRowEmpty(row)) {
+                    if (!skipHeaderRow) {
+                        return row;
+                    }
+                    skipHeaderRow = false;
+                }
+            }
+            return rows.size();
+        }
+
+        /**
+         * @return index of the first non-blank column in the first non-empty row
+         */
+        public int getFirstDataColumn() {
+            int firstRow = getFirstDataRow(false);
+            if (firstRow < rows.size()) {
+                List<String> cells = rows.get(firstRow);
+                for (int col = 0; col < cells.size(); col++) {
+                    if (StringUtils.isNotBlank(cells.get(col))) {
+                        return col;
+                    }
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * @param name column header in the first row
+         * @return the column index, or -1
+         */
+        public int getColumnIndex(String name) {
+            List<String> header = rows.isEmpty() ? Collections.<String>emptyList() : rows.get(0);
+            for (int col = 0; col < header.size(); col++) {
+                if (header.get(col).trim().equals(name.trim())) {
+                    return col;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Rows below the header row as column-name to value maps; empty rows are skipped
+         *
+         * @param headerRow index of the header row
+         * @return one new map per row, in sheet order
+         */
+        public List<Map<String, String>> getRecords(int headerRow) {
+            List<Map<String, String>> records = new ArrayList<>();
+            if (headerRow < 0 || headerRow >= rows.size()) {
+                return records;
+            }
+            List<String> header = rows.get(headerRow);
+            for (int row = headerRow + 1; row < rows.size(); row++) {
+                if (isRowEmpty(row)) {
+                    continue;
+                }
+                Map<String, String> record = new LinkedHashMap<>();
+                for (int col = 0; col < header.size(); col++) {
+                    record.put(header.get(col), getCell(row, col));
+                }
+                records.add(record);
+            }
+            return records;
+        }
+
+        /**
+         * Finds the first cell with the given value, searching row by row
+         *
+         * @return {row, column}, or null
+         */
+        public int[] findCell(String value, int fromRow, int fromColumn) {
+            for (int row = Math.max(0, fromRow); row < rows.size(); row++) {
+                List<String> cells = rows.get(row);
+                for (int col = Math.max(0, fromColumn); col < cells.size(); col++) {
+                    if (cells.get(col).equals(value)) {
+                        return new int[] {row, col};
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * The block of cells marked by a key: the key appears at the top-left and the bottom-right
+         * corner, and the cells strictly between the two are returned.
+         *
+         * @param key the label that marks the block
+         * @return the cells, row by row
+         * @throws IllegalArgumentException if either label is missing
+         */
+        public List<List<String>> getKeyRange(String key) {
+            int[] start = findCell(key, 0, 0);
+            if (start == null) {
+                throw new IllegalArgumentException("Label " + key + " for starting data range not found in sheet " + name);
+            }
+            int[] end = findCell(key, start[0] + 1, start[1] + 1);
+            if (end == null) {
+                throw new IllegalArgumentException("Label " + key + " for ending data range not found in sheet " + name);
+            }
+            List<List<String>> block = new ArrayList<>();
+            for (int row = start[0]; row <= end[0]; row++) {
+                List<String> cells = new ArrayList<>();
+                for (int col = start[1] + 1; col < end[1]; col++) {
+                    cells.add(getCell(row, col));
+                }
+                block.add(cells);
+            }
+            return block;
+        }
+
+        /**
+         * Records of a keyed block: the row holding the starting key is the header, the rows
+         * up to the ending key are the data
+         *
+         * @param key the label that marks the block
+         * @return one new map per data row
+         */
+        public List<Map<String, String>> getKeyRecords(String key) {
+            List<List<String>> block = getKeyRange(key);
+            List<String> header = block.get(0);
+            List<Map<String, String>> records = new ArrayList<>();
+            for (int row = 1; row < block.size(); row++) {
+                Map<String, String> record = new LinkedHashMap<>();
+                for (int col = 0; col < header.size(); col++) {
+                    record.put(header.get(col).trim(), block.get(row).get(col));
+                }
+                records.add(record);
+            }
+            return records;
+        }
+    }
+}
@@ -38,10 +38,36 @@ import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Creates browser drivers and keeps one driver per test thread.
+ *
+ * getBrowser() is a plain factory. getDriver() returns the calling thread's driver from a per-thread
+ * registry, launching one on first use, and quitDriver() ends it, so parallel TestNG threads never
+ * share a session. All launches pass through a semaphore (selenium.launch.maxConcurrent) so a large
+ * thread count does not start every browser at the same instant. With selenium.driver.prelaunch=true
+ * the thread's next driver is started in the background as soon as its current one is handed out,
+ * and the following getDriver() picks it up instead of waiting for a browser to start. Prelaunching
+ * only happens while expectTests() says more tests are queued than browsers are already starting,
+ * and a pre-launched session is checked to be alive before it is handed out.
+ */
 public class DriverManager {
 
     private static final Logger LOG = Logger.getLogger(DriverManager.class.getName());
@@ -89,13 +115,26 @@ public class DriverManager {
         }
     }
 
-    private static WebDriver driver;
+    // Per-thread driver registry; the map mirrors the ThreadLocals so quitAll() can reach every thread's driver
+    private static final ThreadLocal<WebDriver> threadDriver = new ThreadLocal<>();
+    private static final Map<Thread, WebDriver> activeDrivers = new ConcurrentHashMap<>();
+    private static final Map<Thread, Prelaunch> prelaunched = new ConcurrentHashMap<>();
+
+    // Launch throttling
+    private static final Semaphore launchPermits;
+    private static final ThreadLocal<Boolean> holdsLaunchPermit = ThreadLocal.withInitial(() -> false);
+    private static final ExecutorService prelauncher = Executors.newVirtualThreadPerTaskExecutor();
+    private static volatile boolean prelaunch;
+    private static final AtomicInteger queuedTests = new AtomicInteger();
+    private static final AtomicLong launches = new AtomicLong();
+    private static final AtomicLong prelaunchHits = new AtomicLong();
+    private static final AtomicLong totalLaunchWaitMillis = new AtomicLong();
 
     // Session tracking
-    private final ThreadLocal<String> sessionId = new ThreadLocal<>();
-    private final ThreadLocal<String> sessionBrowser = new ThreadLocal<>();
-    private final ThreadLocal<String> sessionPlatform = new ThreadLocal<>();
-    private final ThreadLocal<String> sessionVersion = new ThreadLocal<>();
+    private static final ThreadLocal<String> sessionId = new ThreadLocal<>();
+    private static final ThreadLocal<String> sessionBrowser = new ThreadLocal<>();
+    private static final ThreadLocal<String> sessionPlatform = new ThreadLocal<>();
+    private static final ThreadLocal<String> sessionVersion = new ThreadLocal<>();
 
     static {
         seleniumHost = ApplicationProperties.DRIVER_HOST.getStringVal();
@@ -104,6 +143,14 @@ public class DriverManager {
         remote = ApplicationProperties.REMOTE.getBooleanVal(false);
         seleniumRemoteUrl = "http://" + seleniumHost + ":" + seleniumPort + "/wd/hub";
 
+        int maxConcurrent = ApplicationProperties.DRIVER_LAUNCH_MAX_CONCURRENT.getIntVal(0);
+        if (maxConcurrent <= 0) {
+            maxConcurrent = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        launchPermits = new Semaphore(maxConcurrent, true);
+        prelaunch = ApplicationProperties.DRIVER_PRELAUNCH.getBooleanVal(false);
+        Runtime.getRuntime().addShutdownHook(new Thread(DriverManager::quitAll, "driver-manager-shutdown"));
+
         // Optional: Set custom download path for WebDriver binaries
         if (driverDownloadPath != null && !driverDownloadPath.isEmpty()) {
             System.setProperty("wdm.targetPath", driverDownloadPath);
@@ -117,32 +164,342 @@ public class DriverManager {
     }
 
     /**
-     * Main method to get browser WebDriver instance.
+     * Main method to get browser WebDriver instance. Always launches a new browser; use getDriver()
+     * for the calling thread's driver.
      */
     public static WebDriver getBrowser() {
-        Browsers browser;
+        return launch(() -> {
+            Browsers browser = resolveBrowser();
+            Log.LOGGER.info("Browser set to: " + browser);
+
+            switch (browser) {
+                case CHROME:
+                    return createChromeDriver();
+                case FIREFOX:
+                    return createFirefoxDriver();
+                case IE:
+                case INTERNETEXPLORER:
+                    return createInternetExplorerDriver();
+                default:
+                    return createChromeDriver();
+            }
+        });
+    }
 
-        if (System.getProperty("browser") == null) {
-            String browserName = ApplicationProperties.BROWSER.getStringVal("browser", "Chrome");
-            browser = Browsers.browserForName(browserName);
-            Log.LOGGER.info("Browser set from config: " + browserName);
-        } else {
-            browser = Browsers.browserForName(System.getProperty("browser"));
-            Log.LOGGER.info("Browser set from system property: " + browser);
+    /**
+     * Runs a driver factory under the launch concurrency limit. Nested calls on the same thread
+     * (a custom factory calling getBrowser()) reuse the permit already held.
+     */
+    public static WebDriver launch(Supplier<WebDriver> factory) {
+        if (holdsLaunchPermit.get()) {
+            return factory.get();
+        }
+        long start = System.nanoTime();
+        launchPermits.acquireUninterruptibly();
+        totalLaunchWaitMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        holdsLaunchPermit.set(true);
+        try {
+            WebDriver created = factory.get();
+            launches.incrementAndGet();
+            return created;
+        } finally {
+            holdsLaunchPermit.set(false);
+            launchPermits.release();
+        }
+    }
+
+    // ------------------- Per-thread registry -------------------
+
+    /**
+     * The calling thread's driver, launched with the current browser settings on first use.
+     */
+    public static WebDriver getDriver() {
+        return getDriver(getPoolKey(), DriverManager::getBrowser);
+    }
+
+    /**
+     * The calling thread's driver, created with the factory on first use. A driver pre-launched for
+     * this thread is used if it was built for the same key; otherwise it is quit.
+     *
+     * @param key identifies the browser/capabilities the factory produces (see getPoolKey())
+     */
+    public static WebDriver getDriver(String key, Supplier<WebDriver> factory) {
+        WebDriver current = threadDriver.get();
+        if (current != null) {
+            return current;
+        }
+        current = takePrelaunched(key);
+        if (current == null) {
+            current = launch(factory);
+        }
+        register(current);
+        if (prelaunch && queuedTests.decrementAndGet() > prelaunched.size()) {
+            prelaunchNext(key, factory);
+        }
+        return current;
+    }
+
+    /**
+     * Tells the registry how many tests still need a driver, so it only pre-launches browsers that
+     * will be used. Each getDriver() hand-out counts down one test.
+     *
+     * @param count number of tests queued to run
+     */
+    public static void expectTests(int count) {
+        queuedTests.set(count);
+    }
+
+    /**
+     * Adds tests to the queue expectTests() set up, for invocations only known once a data provider
+     * has produced its rows.
+     *
+     * @param count number of extra tests queued to run
+     */
+    public static void expectMoreTests(int count) {
+        queuedTests.addAndGet(count);
+    }
+
+    /**
+     * @return number of tests still expected to ask for a driver
+     */
+    public static int getQueuedTests() {
+        return queuedTests.get();
+    }
+
+    /**
+     * @return true if background pre-launching is on
+     */
+    public static boolean isPrelaunch() {
+        return prelaunch;
+    }
+
+    /**
+     * Turns background pre-launching on or off, overriding selenium.driver.prelaunch.
+     */
+    public static void setPrelaunch(boolean enabled) {
+        prelaunch = enabled;
+        if (!enabled) {
+            discardPrelaunched();
+        }
+    }
+
+    /**
+     * Quits every pre-launched driver that has not been handed out; call when the suite finishes.
+     */
+    public static void discardPrelaunched() {
+        for (Thread owner : new ArrayList<>(prelaunched.keySet())) {
+            Prelaunch pending = prelaunched.remove(owner);
+            if (pending != null) {
+                pending.discard();
+            }
+        }
+    }
+
+    /**
+     * @return true if the calling thread currently holds a driver
+     */
+    public static boolean hasDriver() {
+        return threadDriver.get() != null;
+    }
+
+    /**
+     * Quits the calling thread's driver and removes it from the registry.
+     */
+    public static void quitDriver() {
+        WebDriver current = threadDriver.get();
+        unregister();
+        if (current != null) {
+            quitQuietly(current);
+        }
+        discardSurplusPrelaunch();
+    }
+
+    /**
+     * Quits the given driver, removing it from the registry if it is the calling thread's driver.
+     */
+    public static void quitDriver(WebDriver webDriver) {
+        if (webDriver == threadDriver.get()) {
+            unregister();
+        }
+        quitQuietly(webDriver);
+        discardSurplusPrelaunch();
+    }
+
+    /**
+     * Quits every registered and pre-launched driver on all threads; runs on JVM shutdown.
+     */
+    public static void quitAll() {
+        List<WebDriver> drivers = new ArrayList<>(activeDrivers.values());
+        activeDrivers.clear();
+        for (Prelaunch pending : prelaunched.values()) {
+            pending.discard();
+        }
+        prelaunched.clear();
+        drivers.forEach(DriverManager::quitQuietly);
+    }
+
+    /**
+     * @return number of threads currently holding a driver
+     */
+    public static int getActiveDriverCount() {
+        return activeDrivers.size();
+    }
+
+    /**
+     * @return number of pre-launched drivers started or waiting to be handed out
+     */
+    public static int getPrelaunchedCount() {
+        return prelaunched.size();
+    }
+
+    /**
+     * Launch counters as JSON: launches, pre-launched drivers used, time spent waiting for a launch slot
+     */
+    public static String statsJson() {
+        return "{\"launches\":" + launches.get()
+                + ",\"prelaunchHits\":" + prelaunchHits.get()
+                + ",\"active\":" + activeDrivers.size()
+                + ",\"launchSlotsFree\":" + launchPermits.availablePermits()
+                + ",\"totalLaunchWaitMs\":" + totalLaunchWaitMillis.get() + "}";
+    }
+
+    private static void register(WebDriver webDriver) {
+        threadDriver.set(webDriver);
+        activeDrivers.put(Thread.currentThread(), webDriver);
+        if (webDriver instanceof RemoteWebDriver) {
+            RemoteWebDriver remoteDriver = (RemoteWebDriver) webDriver;
+            Capabilities caps = remoteDriver.getCapabilities();
+            sessionId.set(String.valueOf(remoteDriver.getSessionId()));
+            sessionBrowser.set(caps.getBrowserName());
+            sessionPlatform.set(String.valueOf(caps.getPlatformName()));
+            sessionVersion.set(caps.getBrowserVersion());
+        }
+    }
+
+    private static void unregister() {
+        threadDriver.remove();
+        activeDrivers.remove(Thread.currentThread());
+        sessionId.remove();
+        sessionBrowser.remove();
+        sessionPlatform.remove();
+        sessionVersion.remove();
+    }
+
+    private static void prelaunchNext(String key, Supplier<WebDriver> factory) {
+        Thread owner = Thread.currentThread();
+        Prelaunch next = new Prelaunch(key, CompletableFuture.supplyAsync(() -> launch(factory), prelauncher));
+        Prelaunch previous = prelaunched.put(owner, next);
+        if (previous != null) {
+            previous.discard();
+        }
+    }
+
+    /**
+     * Drops the calling thread's pre-launched driver when fewer tests are queued than browsers are
+     * waiting, e.g. after the thread's last test.
+     */
+    private static void discardSurplusPrelaunch() {
+        if (queuedTests.get() < prelaunched.size()) {
+            Prelaunch pending = prelaunched.remove(Thread.currentThread());
+            if (pending != null) {
+                pending.discard();
+            }
+        }
+    }
+
+    private static WebDriver takePrelaunched(String key) {
+        Prelaunch pending = prelaunched.remove(Thread.currentThread());
+        if (pending == null) {
+            return null;
+        }
+        if (!pending.key.equals(key)) {
+            pending.discard();
+            return null;
+        }
+        try {
+            WebDriver ready = pending.future.get();
+            if (!isAlive(ready)) {
+                quitQuietly(ready);
+                return null;
+            }
+            prelaunchHits.incrementAndGet();
+            return ready;
+        } catch (ExecutionException | CancellationException e) {
+            Log.LOGGER.info("Pre-launched driver failed, launching a new one: " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         }
+    }
+
+    /**
+     * Cheap round trip to the browser; a grid session may have timed out while it waited.
+     */
+    private static boolean isAlive(WebDriver webDriver) {
+        try {
+            webDriver.getWindowHandle();
+            return true;
+        } catch (RuntimeException e) {
+            Log.LOGGER.info("Pre-launched driver is no longer alive, launching a new one: " + e.getMessage());
+            return false;
+        }
+    }
 
+    private static void quitQuietly(WebDriver webDriver) {
+        try {
+            webDriver.quit();
+        } catch (RuntimeException e) {
+            Log.LOGGER.info("Ignoring error while quitting driver: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A driver being launched in the background for a thread's next test
+     */
+    private static final class Prelaunch {
+        final String key;
+        final CompletableFuture<WebDriver> future;
+
+        Prelaunch(String key, CompletableFuture<WebDriver> future) {
+            this.key = key;
+            this.future = future;
+        }
+
+        /**
+         * Quits the driver once it has started; it is no longer needed
+         */
+        void discard() {
+            future.thenAccept(DriverManager::quitQuietly);
+        }
+    }
+
+    /**
+     * Key identifying the drivers getBrowser() creates with the current settings, for WebDriverPool.
+     */
+    public static String getPoolKey() {
+        Browsers browser = resolveBrowser();
+        Capabilities options;
         switch (browser) {
-            case CHROME:
-                return createChromeDriver();
             case FIREFOX:
-                return createFirefoxDriver();
+                options = getFirefoxOptions();
+                break;
             case IE:
             case INTERNETEXPLORER:
-                return createInternetExplorerDriver();
+                options = getInternetExplorerOptions();
+                break;
             default:
-                return createChromeDriver();
+                options = getChromeOptions();
         }
+        return (isRemote() ? seleniumRemoteUrl : "local") + "|" + WebDriverPool.keyFor(browser.name(), options);
+    }
 
+    private static Browsers resolveBrowser() {
+        String browserName = System.getProperty("browser");
+        if (browserName == null) {
+            browserName = ApplicationProperties.BROWSER.getStringVal("browser", "Chrome");
+        }
+        return Browsers.browserForName(browserName);
     }
 
     // ------------------- Chrome -------------------
@@ -322,19 +679,19 @@ public class DriverManager {
 
     // ------------------- Session Info Getters -------------------
 
-    public String getSessionId() {
+    public static String getSessionId() {
         return sessionId.get();
     }
 
-    public String getSessionBrowser() {
+    public static String getSessionBrowser() {
         return sessionBrowser.get();
     }
 
-    public String getSessionPlatform() {
+    public static String getSessionPlatform() {
         return sessionPlatform.get();
     }
 
-    public String getSessionVersion() {
+    public static String getSessionVersion() {
         return sessionVersion.get();
     }
 }
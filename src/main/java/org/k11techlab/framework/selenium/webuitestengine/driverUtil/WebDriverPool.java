@@ -0,0 +1,366 @@
+/******************************************************************************
+ * Copyright 2025, K11 Software Solutions. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Author: Kavita Jadhav (kavita.jadhav.sdet@gmail.com)
+ ******************************************************************************/
+
+
+package org.k11techlab.framework.selenium.webuitestengine.driverUtil;
+
+import org.k11techlab.framework.selenium.webuitestbase.ApplicationProperties;
+import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pool of reusable WebDriver sessions, keyed by browser/capabilities.
+ *
+ * Instead of launching a browser for every test method, a test borrows an idle driver for its key
+ * and gives it back afterwards. On return the driver is reset (extra windows closed, cookies and
+ * web storage cleared, navigated to about:blank) so the next test starts from a clean page.
+ * A driver is quit and replaced after maxUses tests, when its test failed, or when the reset fails.
+ * At most maxSize drivers exist per key; further borrowers wait up to the wait timeout.
+ *
+ * Settings (config/test-config.properties, overridable with system properties):
+ * - selenium.driverPool.enabled: opt-in switch used by BaseSeleniumTest
+ * - selenium.driverPool.maxSize: drivers per key
+ * - selenium.driverPool.maxUses: tests served by one driver before it is recycled
+ * - selenium.driverPool.prewarm: drivers launched in the background before the first test
+ * - selenium.driverPool.waitTimeoutSeconds: how long a test waits for a free driver
+ */
+public final class WebDriverPool {
+
+    private static volatile WebDriverPool shared;
+
+    private final int maxSize;
+    private final int maxUses;
+    private final long waitTimeoutMillis;
+    private final Map<String, KeyedPool> pools = new ConcurrentHashMap<>();
+    // Identity semantics: a session is tracked by its driver instance, whatever equals() it has
+    private final Map<WebDriver, PooledDriver> leased = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final ExecutorService launcher = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+    private final AtomicLong launches = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+    private final AtomicLong totalLaunchMillis = new AtomicLong();
+
+    public WebDriverPool(int maxSize, int maxUses, long waitTimeoutMillis) {
+        this.maxSize = Math.max(1, maxSize);
+        this.maxUses = Math.max(1, maxUses);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * The pool shared by all tests in this JVM, sized from the selenium.driverPool.* settings.
+     * Its drivers are quit on JVM shutdown.
+     */
+    public static WebDriverPool shared() {
+        WebDriverPool pool = shared;
+        if (pool == null) {
+            synchronized (WebDriverPool.class) {
+                pool = shared;
+                if (pool == null) {
+                    pool = new WebDriverPool(
+                            ApplicationProperties.DRIVER_POOL_MAX_SIZE.getIntVal(4),
+                            ApplicationProperties.DRIVER_POOL_MAX_USES.getIntVal(20),
+                            TimeUnit.SECONDS.toMillis(ApplicationProperties.DRIVER_POOL_WAIT_TIMEOUT.getIntVal(120)));
+                    Runtime.getRuntime().addShutdownHook(new Thread(pool::shutdown, "webdriver-pool-shutdown"));
+                    shared = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * @return true when BaseSeleniumTest should take its drivers from the shared pool
+     */
+    public static boolean isEnabled() {
+        return ApplicationProperties.DRIVER_POOL_ENABLED.getBooleanVal(false);
+    }
+
+    /**
+     * Builds a pool key from the browser name and the capabilities the driver is created with.
+     */
+    public static String keyFor(String browser, Capabilities capabilities) {
+        Map<String, Object> sorted = capabilities == null
+                ? Collections.emptyMap() : new TreeMap<>(capabilities.asMap());
+        return browser.toLowerCase() + "|" + sorted;
+    }
+
+    /**
+     * Borrows a driver for the key, reusing an idle one when possible and launching one with the
+     * factory while the key has fewer than maxSize drivers. Otherwise waits for a driver to be returned.
+     *
+     * @throws IllegalStateException if no driver becomes free within the wait timeout
+     */
+    public WebDriver borrow(String key, Supplier<WebDriver> factory) {
+        KeyedPool pool = pool(key);
+        long start = System.nanoTime();
+        borrows.incrementAndGet();
+        PooledDriver pooled = null;
+        boolean launched = false;
+        try {
+            pooled = pool.idle.pollFirst();
+            if (pooled == null && pool.capacity.tryAcquire()) {
+                pooled = launch(pool, factory);
+                launched = true;
+            }
+            if (pooled == null) {
+                long remaining = waitTimeoutMillis;
+                while (pooled == null && remaining > 0) {
+                    // A recycled driver frees capacity instead of returning to the idle queue, so check both
+                    pooled = pool.idle.pollFirst(Math.min(remaining, 250), TimeUnit.MILLISECONDS);
+                    if (pooled == null && pool.capacity.tryAcquire()) {
+                        pooled = launch(pool, factory);
+                        launched = true;
+                    }
+                    remaining = waitTimeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+                if (pooled == null) {
+                    throw new IllegalStateException("No WebDriver available for '" + key + "' within "
+                            + waitTimeoutMillis + " ms (maxSize=" + maxSize + ")");
+                }
+            }
+            if (pooled.uses > 0) {
+                reuses.incrementAndGet();
+            }
+            pooled.uses++;
+            leased.put(pooled.driver, pooled);
+            return pooled.driver;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a WebDriver", e);
+        } finally {
+            // Launch time is reported separately, so only count the time spent waiting for a free driver
+            long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                    - (launched ? pooled.launchMillis : 0);
+            totalWaitMillis.addAndGet(waited);
+            maxWaitMillis.accumulateAndGet(waited, Math::max);
+        }
+    }
+
+    /**
+     * Returns a borrowed driver. Healthy drivers are reset and go back to the idle queue unless they
+     * reached maxUses; drivers from failed tests, or whose reset fails, are quit.
+     *
+     * @param healthy false when the test failed, so the browser state cannot be trusted
+     */
+    public void release(WebDriver driver, boolean healthy) {
+        PooledDriver pooled = leased.remove(driver);
+        if (pooled == null) {
+            // Not from this pool (or already released): nothing to track
+            quitQuietly(driver);
+            return;
+        }
+        if (healthy && pooled.uses < maxUses && reset(driver)) {
+            pooled.pool.idle.offerFirst(pooled);
+        } else {
+            recycle(pooled);
+        }
+    }
+
+    /**
+     * Launches drivers for the key in the background until it has count idle drivers, so the first
+     * tests do not pay the browser start-up time.
+     */
+    public void prewarm(String key, Supplier<WebDriver> factory, int count) {
+        KeyedPool pool = pool(key);
+        for (int i = pool.idle.size(); i < count && pool.capacity.tryAcquire(); i++) {
+            launcher.submit(() -> {
+                try {
+                    pool.idle.offerLast(launch(pool, factory));
+                } catch (RuntimeException e) {
+                    Log.LOGGER.info("Driver pool pre-warm failed for " + key + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Resets a driver between tests: closes extra windows, clears cookies and web storage and
+     * navigates to about:blank.
+     *
+     * @return false if the session no longer responds
+     */
+    static boolean reset(WebDriver driver) {
+        try {
+            Set<String> handles = driver.getWindowHandles();
+            String main = handles.iterator().next();
+            for (String handle : handles) {
+                if (!handle.equals(main)) {
+                    driver.switchTo().window(handle);
+                    driver.close();
+                }
+            }
+            driver.switchTo().window(main);
+            // Storage is per origin, so clear it while still on the test's page
+            if (driver instanceof JavascriptExecutor) {
+                ((JavascriptExecutor) driver).executeScript(
+                        "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            }
+            driver.manage().deleteAllCookies();
+            if (driver instanceof ChromiumDriver) {
+                // deleteAllCookies only covers the current domain; CDP clears them for every domain
+                ((ChromiumDriver) driver).executeCdpCommand("Network.clearBrowserCookies", Collections.emptyMap());
+            }
+            driver.get("about:blank");
+            return true;
+        } catch (RuntimeException e) {
+            Log.LOGGER.info("Driver reset failed, recycling it: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Quits every idle driver. Drivers still leased are quit when they are released.
+     */
+    public void shutdown() {
+        for (KeyedPool pool : pools.values()) {
+            PooledDriver pooled;
+            while ((pooled = pool.idle.pollFirst()) != null) {
+                quitQuietly(pooled.driver);
+                pool.capacity.release();
+            }
+        }
+        launcher.shutdownNow();
+        Log.LOGGER.info("WebDriver pool closed: " + toJson());
+    }
+
+    public long getBorrowCount() { return borrows.get(); }
+    public long getReuseCount() { return reuses.get(); }
+    public long getLaunchCount() { return launches.get(); }
+    public long getRecycledCount() { return recycled.get(); }
+    public long getMaxWaitMillis() { return maxWaitMillis.get(); }
+
+    public long getAverageWaitMillis() {
+        long count = borrows.get();
+        return count == 0 ? 0 : totalWaitMillis.get() / count;
+    }
+
+    public long getAverageLaunchMillis() {
+        long count = launches.get();
+        return count == 0 ? 0 : totalLaunchMillis.get() / count;
+    }
+
+    /**
+     * @return number of idle drivers for the key
+     */
+    public int getIdleCount(String key) {
+        KeyedPool pool = pools.get(key);
+        return pool == null ? 0 : pool.idle.size();
+    }
+
+    /**
+     * Pool counters and timings as JSON, for logs and reports
+     */
+    public String toJson() {
+        int idle = 0;
+        for (KeyedPool pool : pools.values()) {
+            idle += pool.idle.size();
+        }
+        return "{\"keys\":" + pools.size()
+                + ",\"idle\":" + idle
+                + ",\"leased\":" + leased.size()
+                + ",\"borrows\":" + borrows.get()
+                + ",\"reuses\":" + reuses.get()
+                + ",\"launches\":" + launches.get()
+                + ",\"recycled\":" + recycled.get()
+                + ",\"avgWaitMs\":" + getAverageWaitMillis()
+                + ",\"maxWaitMs\":" + maxWaitMillis.get()
+                + ",\"avgLaunchMs\":" + getAverageLaunchMillis() + "}";
+    }
+
+    private KeyedPool pool(String key) {
+        return pools.computeIfAbsent(key, k -> new KeyedPool(k, maxSize));
+    }
+
+    /**
+     * Launches a driver with the borrower's factory; the caller must hold a capacity permit, which is
+     * given back if the launch fails
+     */
+    private PooledDriver launch(KeyedPool pool, Supplier<WebDriver> factory) {
+        long start = System.nanoTime();
+        try {
+            WebDriver driver = factory.get();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            launches.incrementAndGet();
+            totalLaunchMillis.addAndGet(elapsed);
+            Log.LOGGER.info("Driver pool launched a browser for " + pool.key + " in " + elapsed + " ms");
+            return new PooledDriver(driver, pool, elapsed);
+        } catch (RuntimeException e) {
+            pool.capacity.release();
+            throw e;
+        }
+    }
+
+    private void recycle(PooledDriver pooled) {
+        recycled.incrementAndGet();
+        quitQuietly(pooled.driver);
+        pooled.pool.capacity.release();
+    }
+
+    private static void quitQuietly(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (RuntimeException e) {
+            Log.LOGGER.info("Ignoring error while quitting driver: " + e.getMessage());
+        }
+    }
+
+    private static final class KeyedPool {
+        final String key;
+        final Semaphore capacity;
+        final LinkedBlockingDeque<PooledDriver> idle = new LinkedBlockingDeque<>();
+
+        KeyedPool(String key, int maxSize) {
+            this.key = key;
+            this.capacity = new Semaphore(maxSize);
+        }
+    }
+
+    private static final class PooledDriver {
+        final WebDriver driver;
+        final KeyedPool pool;
+        final long launchMillis;
+        int uses;
+
+        PooledDriver(WebDriver driver, KeyedPool pool, long launchMillis) {
+            this.driver = driver;
+            this.pool = pool;
+            this.launchMillis = launchMillis;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.k11techlab.framework.selenium.webuitestengine.listeners;
+
+import org.k11techlab.framework.selenium.webuitestengine.driverUtil.DriverManager;
+import org.testng.IDataProviderInterceptor;
+import org.testng.IDataProviderMethod;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps DriverManager's count of queued tests in step with the invocations TestNG will actually
+ * run. The suite start counts every method times its invocationCount; data-provider rows are only
+ * known when the provider runs, so the extra rows are added then. Rows are only materialized while
+ * pre-launching is on, so lazy providers stay lazy otherwise.
+ */
+public class DriverPrelaunchListener implements ISuiteListener, IDataProviderInterceptor {
+
+    @Override
+    public void onStart(ISuite suite) {
+        DriverManager.expectTests(countInvocations(suite.getAllMethods()));
+    }
+
+    /**
+     * @param methods test methods of a suite
+     * @return number of times the methods will run, counting each data-provider as one row
+     */
+    public static int countInvocations(Collection<ITestNGMethod> methods) {
+        int invocations = 0;
+        for (ITestNGMethod method : methods) {
+            invocations += method.getInvocationCount();
+        }
+        return invocations;
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        DriverManager.discardPrelaunched();
+    }
+
+    @Override
+    public Iterator<Object[]> intercept(Iterator<Object[]> original, IDataProviderMethod dataProviderMethod,
+                                        ITestNGMethod method, ITestContext iTestContext) {
+        if (!DriverManager.isPrelaunch()) {
+            return original;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        original.forEachRemaining(rows::add);
+        // onStart counted one row per invocation
+        DriverManager.expectMoreTests((rows.size() - 1) * method.getInvocationCount());
+        return rows.iterator();
+    }
+}
@@ -21,10 +21,14 @@ package org.k11techlab.framework.webservice.apitestbase;
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
 import org.k11techlab.framework.selenium.webuitestbase.ApplicationProperties;
 import org.k11techlab.framework.selenium.webuitestbase.BaseTestCase;
+import org.k11techlab.framework.webservice.testengine.restapihelper.ApiConnectionPool;
+import org.k11techlab.framework.webservice.testengine.restapihelper.ApiRequestContext;
 import org.k11techlab.framework.webservice.testengine.restapihelper.filters.ParallelRequestFilter;
-import io.restassured.RestAssured;
-import io.restassured.config.HttpClientConfig;
 import io.restassured.config.RestAssuredConfig;
+import org.testng.ITestContext;
+import org.testng.Reporter;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Optional;
@@ -32,40 +36,34 @@ import org.testng.annotations.Parameters;
 
 import java.lang.reflect.Method;
 import java.text.MessageFormat;
-import java.util.HashMap;
 
 /**
  * Web Service Related Base Test Setup.
+ * Every test method gets its own ApiRequestContext (base URI, path, port, config, filters), which
+ * ApiUtil uses to build requests; the static RestAssured settings are never modified.
  */
 public class BaseWebServiceTest implements BaseTestCase {
 
-    /**
-     * Map of method to thread id for parallel execution.
-     */
-    public static final ThreadLocal<HashMap<Long, String>> METHOD_THREAD = ThreadLocal.withInitial(HashMap::new);
-
+    private static final String CONFIG_ATTRIBUTE = "webService.restAssuredConfig";
+    private static final String LOG_ATTRIBUTE = "webService.log";
 
     /**
-     * Runs before all tests.
+     * Runs before all tests. Stores the RestAssured config and logging flag for the TestNG test,
+     * to be copied into each method's context.
      *
+     * @param context the TestNG test context
      * @param webServiceLog turns on logging
      */
     @Parameters({
         "webServiceLog"})
     @BeforeTest(alwaysRun = true, enabled = true)
-    public void testSetup(@Optional String webServiceLog) {
-        RestAssured.reset();
-
+    public void testSetup(ITestContext context, @Optional String webServiceLog) {
         int clientTimeout = ApplicationProperties.WEB_SERVICE_TIMEOUT.getIntVal();
         if (clientTimeout > 0) {
             Log.LOGGER.info("Setting web service timeout = " + clientTimeout + "ms");
-            RestAssured.config = RestAssuredConfig.config().httpClient(HttpClientConfig.httpClientConfig().
-                    setParam("http.connection.timeout", clientTimeout).
-                    setParam("http.socket.timeout", clientTimeout).
-                    setParam("http.connection-manager.timeout", clientTimeout));
         }
-
-        RestAssured.filters(new ParallelRequestFilter(isLogEnabled(webServiceLog)));
+        context.setAttribute(CONFIG_ATTRIBUTE, ApiRequestContext.defaultConfig());
+        context.setAttribute(LOG_ATTRIBUTE, isLogEnabled(webServiceLog));
     }
 
     /**
@@ -82,33 +80,67 @@ public class BaseWebServiceTest implements BaseTestCase {
         "webServicePath"})
     @BeforeMethod
     public void beforeMethod(Method method,
+            ITestContext context,
             @Optional String webServiceUri,
             @Optional String webServicePort,
             @Optional String webServicePath) {
         Log.LOGGER.info("Running the test method: " + method.getName());
 
-        String finalBaseUri = getWebServiceUri(webServiceUri, method.getName());
-        String finalBasePath = getWebServicePath(webServicePath, method.getName());
-        int finalPort = getWebServicePort(webServicePort, method.getName());
+        ApiRequestContext requestContext = new ApiRequestContext();
+        requestContext.setTestName(method.getName());
+        requestContext.setBaseUri(getWebServiceUri(webServiceUri, method.getName()));
+        requestContext.setBasePath(getWebServicePath(webServicePath, method.getName()));
+        requestContext.setPort(getWebServicePort(webServicePort, method.getName()));
+
+        Object config = context.getAttribute(CONFIG_ATTRIBUTE);
+        if (config instanceof RestAssuredConfig) {
+            requestContext.setConfig((RestAssuredConfig) config);
+        }
+        requestContext.addFilter(new ParallelRequestFilter(Boolean.TRUE.equals(context.getAttribute(LOG_ATTRIBUTE)), requestContext));
+
+        ApiRequestContext.set(requestContext);
+        Log.LOGGER.info(MessageFormat.format("Set request context for thread = {0} and test method = {1}",
+                Thread.currentThread().getName(), method.getName()));
+    }
+
+    /**
+     * Removes the test method's request context from the thread.
+     */
+    @AfterMethod(alwaysRun = true)
+    public void afterMethod() {
+        ApiRequestContext.clear();
+    }
 
-        RestAssured.baseURI = finalBaseUri;
-        RestAssured.basePath = finalBasePath;
-        RestAssured.port = finalPort;
+    /**
+     * Publishes the connection pool's lease and wait metrics for the run.
+     */
+    @AfterSuite(alwaysRun = true)
+    public void publishConnectionPoolMetrics() {
+        if (ApiConnectionPool.isEnabled()) {
+            String stats = ApiConnectionPool.shared().statsJson();
+            Log.LOGGER.info("API connection pool: " + stats);
+            Reporter.log("API connection pool: " + stats);
+        }
+    }
 
-        long threadId = Thread.currentThread().getId();
-        METHOD_THREAD.get().put(threadId, method.getName());
-        Log.LOGGER.info(MessageFormat.format("Put Thread = {0} the test method = {1}", threadId, method.getName()));
+    /**
+     * Gets the current test method's request context.
+     *
+     * @return the request context
+     */
+    public ApiRequestContext getRequestContext() {
+        return ApiRequestContext.current();
     }
 
     /**
-     * Sets loggers.
+     * Sets loggers for the current test method's requests.
      *
      * @param webServiceLogOnFailOnly turns on logging only on failure
      */
     public void setLoggers(String webServiceLogOnFailOnly) {
         if ((webServiceLogOnFailOnly != null && webServiceLogOnFailOnly.equalsIgnoreCase("true")) || ApplicationProperties.WEB_SERVICE_LOG_ON_FAIL_ONLY.getBooleanVal()) {
             Log.LOGGER.info("Setting web service log on error only");
-            RestAssured.enableLoggingOfRequestAndResponseIfValidationFails();
+            ApiRequestContext.current().enableLoggingOfRequestAndResponseIfValidationFails();
         }
     }
 
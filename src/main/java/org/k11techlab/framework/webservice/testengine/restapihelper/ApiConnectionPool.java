@@ -0,0 +1,217 @@
+package org.k11techlab.framework.webservice.testengine.restapihelper;
+
+import io.restassured.config.HttpClientConfig;
+import org.apache.http.HttpEntity;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.pool.PoolStats;
+import org.k11techlab.framework.selenium.webuitestbase.ApplicationProperties;
+import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection pool shared by all RestAssured requests in the run.
+ *
+ * RestAssured builds a new HttpClient for every request, and by default each one opens its own
+ * connection that is thrown away afterwards. With this pool every client gets the same
+ * pooled connection manager, so keep-alive connections are reused across requests, tests and threads.
+ * The clients themselves stay per request because RestAssured writes request settings into them.
+ *
+ * Settings (config/test-config.properties):
+ * - web.service.pool.enabled
+ * - web.service.pool.maxTotal, web.service.pool.maxPerRoute
+ * - web.service.pool.keepAliveSeconds: used when the server sends no Keep-Alive header, and as an upper bound
+ * - web.service.pool.idleEvictSeconds: idle and expired connections are closed in the background
+ *
+ * Response bodies are buffered as they arrive, so the connection goes back to the pool even when a
+ * test never reads the body (RestAssured otherwise keeps it leased until the stream is consumed).
+ * The whole body is held in memory, so large downloads should be run with the pool disabled.
+ *
+ * Connection leases are counted and timed; statsJson() reports them with the pool state.
+ */
+@SuppressWarnings("deprecation") // RestAssured 4 requires the AbstractHttpClient API
+public final class ApiConnectionPool {
+
+    private static volatile ApiConnectionPool shared;
+
+    private final MeteredConnectionManager connectionManager;
+    private final long keepAliveMillis;
+    private final ScheduledExecutorService evictor;
+
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong leaseTimeouts = new AtomicLong();
+    private final AtomicLong totalLeaseWaitNanos = new AtomicLong();
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+
+    public ApiConnectionPool(int maxTotal, int maxPerRoute, int keepAliveSeconds, int idleEvictSeconds) {
+        connectionManager = new MeteredConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        keepAliveMillis = TimeUnit.SECONDS.toMillis(keepAliveSeconds);
+
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "api-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleEvictSeconds / 2);
+        evictor.scheduleAtFixedRate(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleEvictSeconds, TimeUnit.SECONDS);
+        }, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * The pool shared by all API tests, sized from the web.service.pool.* settings
+     *
+     * @return the shared pool
+     */
+    public static ApiConnectionPool shared() {
+        ApiConnectionPool pool = shared;
+        if (pool == null) {
+            synchronized (ApiConnectionPool.class) {
+                pool = shared;
+                if (pool == null) {
+                    pool = new ApiConnectionPool(
+                            ApplicationProperties.WEB_SERVICE_POOL_MAX_TOTAL.getIntVal(100),
+                            ApplicationProperties.WEB_SERVICE_POOL_MAX_PER_ROUTE.getIntVal(20),
+                            ApplicationProperties.WEB_SERVICE_POOL_KEEP_ALIVE.getIntVal(30),
+                            ApplicationProperties.WEB_SERVICE_POOL_IDLE_EVICT.getIntVal(30));
+                    Log.LOGGER.info("API connection pool initialized: " + pool.statsJson());
+                    shared = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * @return true unless web.service.pool.enabled is false
+     */
+    public static boolean isEnabled() {
+        return ApplicationProperties.WEB_SERVICE_POOL_ENABLED.getBooleanVal(true);
+    }
+
+    /**
+     * Makes the given config create its clients on this pool
+     *
+     * @param config the HttpClient config
+     * @return the config with the pooled client factory
+     */
+    public HttpClientConfig apply(HttpClientConfig config) {
+        return config.httpClientFactory(() -> {
+            DefaultHttpClient client = new DefaultHttpClient(connectionManager);
+            client.setKeepAliveStrategy((response, context) -> {
+                long server = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return server > 0 ? Math.min(server, keepAliveMillis) : keepAliveMillis;
+            });
+            client.addResponseInterceptor((response, context) -> {
+                HttpEntity entity = response.getEntity();
+                if (entity != null && entity.isStreaming()) {
+                    response.setEntity(new BufferedHttpEntity(entity));
+                }
+            });
+            return client;
+        });
+    }
+
+    /**
+     * Closes all pooled connections; the next call to shared() creates a new pool
+     */
+    public static synchronized void shutdown() {
+        ApiConnectionPool pool = shared;
+        shared = null;
+        if (pool != null) {
+            pool.evictor.shutdownNow();
+            pool.connectionManager.shutdown();
+        }
+    }
+
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    public long getLeaseCount() {
+        return leases.get();
+    }
+
+    public long getLeaseTimeoutCount() {
+        return leaseTimeouts.get();
+    }
+
+    public long getAverageLeaseWaitMillis() {
+        long count = leases.get() + leaseTimeouts.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLeaseWaitNanos.get() / count);
+    }
+
+    public long getMaxLeaseWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLeaseWaitNanos.get());
+    }
+
+    /**
+     * Lease counters and pool utilisation as JSON
+     *
+     * @return the stats
+     */
+    public String statsJson() {
+        PoolStats total = connectionManager.getTotalStats();
+        return "{\"leases\":" + leases.get()
+                + ",\"leaseTimeouts\":" + leaseTimeouts.get()
+                + ",\"avgLeaseWaitMs\":" + getAverageLeaseWaitMillis()
+                + ",\"maxLeaseWaitMs\":" + getMaxLeaseWaitMillis()
+                + ",\"leased\":" + total.getLeased()
+                + ",\"available\":" + total.getAvailable()
+                + ",\"pending\":" + total.getPending()
+                + ",\"max\":" + total.getMax() + "}";
+    }
+
+    /**
+     * Pooling manager that times how long each request waits to lease a connection
+     */
+    private final class MeteredConnectionManager extends PoolingClientConnectionManager {
+
+        MeteredConnectionManager() {
+            super(SchemeRegistryFactory.createDefault());
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            ClientConnectionRequest request = super.requestConnection(route, state);
+            return new ClientConnectionRequest() {
+                @Override
+                public ManagedClientConnection getConnection(long timeout, TimeUnit unit)
+                        throws InterruptedException, ConnectionPoolTimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        ManagedClientConnection connection = request.getConnection(timeout, unit);
+                        leases.incrementAndGet();
+                        return connection;
+                    } catch (ConnectionPoolTimeoutException e) {
+                        leaseTimeouts.incrementAndGet();
+                        throw e;
+                    } finally {
+                        long waited = System.nanoTime() - start;
+                        totalLeaseWaitNanos.addAndGet(waited);
+                        maxLeaseWaitNanos.accumulateAndGet(waited, Math::max);
+                    }
+                }
+
+                @Override
+                public void abortRequest() {
+                    request.abortRequest();
+                }
+            };
+        }
+    }
+}
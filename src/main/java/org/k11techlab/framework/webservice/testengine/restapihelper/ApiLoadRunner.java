@@ -0,0 +1,303 @@
+package org.k11techlab.framework.webservice.testengine.restapihelper;
+
+import io.restassured.response.Response;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Runs one request template repeatedly as a load or soak test, on virtual threads.
+ *
+ * Two modes:
+ * - concurrency (closed model): a fixed number of workers each send the next request as soon as the
+ *   previous one completes
+ * - rate (open model): requests start at a fixed rate whatever the response times, up to maxInFlight
+ *   outstanding. Latency is measured from the scheduled start, so queueing behind a slow server is
+ *   counted instead of hidden. Requests that cannot start because maxInFlight is reached are dropped.
+ *
+ * Every response goes through the validation callback (typically Validator checks); an AssertionError
+ * counts as a validation failure, any other exception as an error. Latencies are recorded in
+ * microseconds in an HdrHistogram with 3 significant digits. Requests are built from the
+ * ApiRequestContext captured when the runner is created, so workers use the test's base URI, filters
+ * and connection pool.
+ */
+public class ApiLoadRunner {
+
+    private static final int MAX_DISTINCT_ERRORS = 20;
+
+    private final ApiRequestContext context;
+    private final String method;
+    private final String endpoint;
+    private final Object body;
+    private final Consumer<Response> validation;
+
+    /**
+     * @param context request settings for every worker
+     * @param method HTTP method, as for ApiUtil.sendRequest
+     * @param endpoint the endpoint
+     * @param body request body, or null
+     * @param validation checks applied to every response, or null
+     */
+    public ApiLoadRunner(ApiRequestContext context, String method, String endpoint, Object body,
+                         Consumer<Response> validation) {
+        this.context = context;
+        this.method = method;
+        this.endpoint = endpoint;
+        this.body = body;
+        this.validation = validation;
+    }
+
+    /**
+     * Validation that expects the given status code, through Validator
+     *
+     * @param statusCode the expected status
+     * @return the validation callback
+     */
+    public static Consumer<Response> expectStatus(int statusCode) {
+        return response -> Validator.validateStatusCode(statusCode, ApiUtil.getStatusCode(response));
+    }
+
+    /**
+     * Runs the load and blocks until every started request has finished
+     *
+     * @param options mode, duration and limits
+     * @return the summary
+     */
+    public LoadReport run(LoadOptions options) {
+        LoadReport report = new LoadReport(options.getRatePerSecond() > 0
+                ? "rate " + options.getRatePerSecond() + "/s"
+                : "concurrency " + options.getConcurrency());
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(options.getDurationMillis());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (options.getRatePerSecond() > 0) {
+                runAtRate(options, report, executor, start, deadline);
+            } else {
+                runWithConcurrency(options, report, executor, deadline);
+            }
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        Log.LOGGER.info("API load run finished: " + report.toJson());
+        return report;
+    }
+
+    private void runWithConcurrency(LoadOptions options, LoadReport report, ExecutorService executor, long deadline) {
+        AtomicLong issued = new AtomicLong();
+        for (int i = 0; i < Math.max(1, options.getConcurrency()); i++) {
+            executor.submit(() -> {
+                while (System.nanoTime() < deadline && withinLimit(issued.incrementAndGet(), options)) {
+                    execute(report, System.nanoTime());
+                }
+            });
+        }
+    }
+
+    private void runAtRate(LoadOptions options, LoadReport report, ExecutorService executor, long start, long deadline) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.getRatePerSecond());
+        Semaphore inFlight = new Semaphore(Math.max(1, options.getMaxInFlight()));
+        for (long i = 0; withinLimit(i + 1, options); i++) {
+            long scheduled = start + i * intervalNanos;
+            if (scheduled >= deadline) {
+                break;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                report.dropped.increment();
+                continue;
+            }
+            executor.submit(() -> {
+                try {
+                    execute(report, scheduled);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private static boolean withinLimit(long requestNumber, LoadOptions options) {
+        return options.getMaxRequests() <= 0 || requestNumber <= options.getMaxRequests();
+    }
+
+    private void execute(LoadReport report, long startNanos) {
+        try {
+            Response response = body == null
+                    ? ApiUtil.sendRequest(ApiUtil.generateRequest(context), method, endpoint)
+                    : ApiUtil.sendRequest(ApiUtil.generateRequest(context), method, endpoint, body);
+            report.histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+            if (validation != null) {
+                validation.accept(response);
+            }
+            report.succeeded.increment();
+        } catch (AssertionError e) {
+            report.validationFailures.increment();
+            report.countError(e.getMessage());
+        } catch (RuntimeException e) {
+            report.errors.increment();
+            report.countError(e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load run settings. Set ratePerSecond for rate mode; otherwise concurrency workers are used.
+     * The run stops at durationMillis or after maxRequests (0 = no limit), whichever comes first.
+     */
+    public static class LoadOptions {
+        private int concurrency = 10;
+        private double ratePerSecond;
+        private long durationMillis = 10_000;
+        private long maxRequests;
+        private int maxInFlight = 1000;
+
+        public int getConcurrency() { return concurrency; }
+        public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+
+        public double getRatePerSecond() { return ratePerSecond; }
+        public void setRatePerSecond(double ratePerSecond) { this.ratePerSecond = ratePerSecond; }
+
+        public long getDurationMillis() { return durationMillis; }
+        public void setDurationMillis(long durationMillis) { this.durationMillis = durationMillis; }
+
+        public long getMaxRequests() { return maxRequests; }
+        public void setMaxRequests(long maxRequests) { this.maxRequests = maxRequests; }
+
+        public int getMaxInFlight() { return maxInFlight; }
+        public void setMaxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; }
+    }
+
+    /**
+     * Outcome of a load run: counts, error rate, throughput and latency percentiles
+     */
+    public static class LoadReport {
+        private final String mode;
+        private final Histogram histogram = new ConcurrentHistogram(3);
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder validationFailures = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final Map<String, LongAdder> errorCounts = new ConcurrentHashMap<>();
+        private volatile long elapsedNanos;
+
+        LoadReport(String mode) {
+            this.mode = mode;
+        }
+
+        private void countError(String message) {
+            String key = String.valueOf(message);
+            LongAdder count = errorCounts.get(key);
+            if (count == null && errorCounts.size() < MAX_DISTINCT_ERRORS) {
+                count = errorCounts.computeIfAbsent(key, k -> new LongAdder());
+            }
+            if (count != null) {
+                count.increment();
+            }
+        }
+
+        public String getMode() { return mode; }
+        /**
+         * @return recorded latencies in microseconds
+         */
+        public Histogram getHistogram() { return histogram; }
+        public long getSucceeded() { return succeeded.sum(); }
+        public long getValidationFailures() { return validationFailures.sum(); }
+        public long getErrors() { return errors.sum(); }
+        public long getDropped() { return dropped.sum(); }
+        public long getElapsedMillis() { return TimeUnit.NANOSECONDS.toMillis(elapsedNanos); }
+
+        /**
+         * @return all requests attempted, including dropped ones
+         */
+        public long getTotal() {
+            return getSucceeded() + getValidationFailures() + getErrors() + getDropped();
+        }
+
+        /**
+         * @return failed, errored and dropped requests as a fraction of the total
+         */
+        public double getErrorRate() {
+            long total = getTotal();
+            return total == 0 ? 0 : (double) (total - getSucceeded()) / total;
+        }
+
+        /**
+         * @return completed requests per second
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0
+                    : histogram.getTotalCount() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        /**
+         * @param percentile e.g. 99
+         * @return latency at the percentile in milliseconds
+         */
+        public double getPercentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        /**
+         * @return distinct failure messages (up to 20) and how often each occurred
+         */
+        public Map<String, Long> getErrorCounts() {
+            Map<String, Long> snapshot = new TreeMap<>();
+            errorCounts.forEach((message, count) -> snapshot.put(message, count.sum()));
+            return snapshot;
+        }
+
+        public String toJson() {
+            StringBuilder sb = new StringBuilder("{\"mode\":\"").append(mode).append('"')
+                    .append(",\"elapsedMs\":").append(getElapsedMillis())
+                    .append(",\"total\":").append(getTotal())
+                    .append(",\"succeeded\":").append(getSucceeded())
+                    .append(",\"validationFailures\":").append(getValidationFailures())
+                    .append(",\"errors\":").append(getErrors())
+                    .append(",\"dropped\":").append(getDropped())
+                    .append(",\"errorRate\":").append(String.format(Locale.ROOT, "%.4f", getErrorRate()))
+                    .append(",\"throughput\":").append(String.format(Locale.ROOT, "%.1f", getThroughput()))
+                    .append(",\"latencyMs\":{");
+            double[] percentiles = {50, 90, 95, 99, 99.9};
+            for (double p : percentiles) {
+                sb.append("\"p").append(p == Math.floor(p) ? String.valueOf((int) p) : String.valueOf(p))
+                        .append("\":").append(getPercentileMillis(p)).append(',');
+            }
+            return sb.append("\"max\":").append(histogram.getMaxValue() / 1000.0)
+                    .append(",\"mean\":").append(String.format(Locale.ROOT, "%.3f", histogram.getMean() / 1000.0))
+                    .append("}}").toString();
+        }
+
+        /**
+         * Human-readable summary for logs and reports
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("API load report (%s, %d ms)%n", mode, getElapsedMillis()));
+            sb.append(String.format("  requests: %d total, %d ok, %d validation failures, %d errors, %d dropped%n",
+                    getTotal(), getSucceeded(), getValidationFailures(), getErrors(), getDropped()));
+            sb.append(String.format("  error rate: %.2f%%, throughput: %.1f req/s%n", getErrorRate() * 100, getThroughput()));
+            sb.append(String.format("  latency ms: p50=%.2f p90=%.2f p95=%.2f p99=%.2f p99.9=%.2f max=%.2f mean=%.2f%n",
+                    getPercentileMillis(50), getPercentileMillis(90), getPercentileMillis(95),
+                    getPercentileMillis(99), getPercentileMillis(99.9),
+                    histogram.getMaxValue() / 1000.0, histogram.getMean() / 1000.0));
+            getErrorCounts().forEach((message, count) ->
+                    sb.append(String.format("  %6d x %s%n", count, message)));
+            return sb.toString();
+        }
+    }
+}
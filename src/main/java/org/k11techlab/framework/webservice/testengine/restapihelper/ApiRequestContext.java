@@ -0,0 +1,193 @@
+package org.k11techlab.framework.webservice.testengine.restapihelper;
+
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.LogConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.k11techlab.framework.selenium.webuitestbase.ApplicationProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-test RestAssured settings: base URI, path, port, config (timeouts, logging) and filters.
+ *
+ * Each test thread has its own context, set up by BaseWebServiceTest before every test method,
+ * and ApiUtil builds requests from it. Nothing is written to the static RestAssured fields, so
+ * tests running in parallel cannot change each other's endpoint, filters or timeouts.
+ * Code that sends requests from other threads (e.g. load runs) should capture the context with
+ * current() and call requestSpec() on it directly.
+ */
+public class ApiRequestContext {
+
+    private static final ThreadLocal<ApiRequestContext> CURRENT = new ThreadLocal<>();
+
+    private String testName;
+    private String baseUri;
+    private String basePath = "";
+    private int port;
+    private RestAssuredConfig config;
+    private final List<Filter> filters = new ArrayList<>();
+    private volatile Response lastResponse;
+
+    public ApiRequestContext() {
+        this.config = defaultConfig();
+    }
+
+    /**
+     * Context with the web.service.* defaults from the configuration
+     *
+     * @return a new context
+     */
+    public static ApiRequestContext fromSettings() {
+        ApiRequestContext context = new ApiRequestContext();
+        context.setBaseUri(ApplicationProperties.WEB_SERVICE_URI.getStringVal());
+        context.setBasePath(ApplicationProperties.WEB_SERVICE_PATH.getStringVal());
+        context.setPort(ApplicationProperties.WEB_SERVICE_PORT.getIntVal());
+        return context;
+    }
+
+    /**
+     * RestAssured config with the web.service.timeout applied to connect, read and pool lease,
+     * sending requests over the shared ApiConnectionPool unless it is disabled
+     *
+     * @return the config
+     */
+    public static RestAssuredConfig defaultConfig() {
+        HttpClientConfig httpClientConfig = HttpClientConfig.httpClientConfig();
+        int clientTimeout = ApplicationProperties.WEB_SERVICE_TIMEOUT.getIntVal();
+        if (clientTimeout > 0) {
+            httpClientConfig = httpClientConfig
+                    .setParam("http.connection.timeout", clientTimeout)
+                    .setParam("http.socket.timeout", clientTimeout)
+                    .setParam("http.connection-manager.timeout", (long) clientTimeout);
+        }
+        if (ApiConnectionPool.isEnabled()) {
+            httpClientConfig = ApiConnectionPool.shared().apply(httpClientConfig);
+        }
+        return RestAssuredConfig.config().httpClient(httpClientConfig);
+    }
+
+    /**
+     * The calling thread's context. A thread without one gets the configured defaults.
+     *
+     * @return the current context
+     */
+    public static ApiRequestContext current() {
+        ApiRequestContext context = CURRENT.get();
+        if (context == null) {
+            context = fromSettings();
+            CURRENT.set(context);
+        }
+        return context;
+    }
+
+    /**
+     * Makes the context current for the calling thread
+     *
+     * @param context the context
+     */
+    public static void set(ApiRequestContext context) {
+        CURRENT.set(context);
+    }
+
+    /**
+     * Removes the calling thread's context
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * A new request specification with this context's settings; RestAssured's static defaults
+     * are not consulted for anything set here.
+     *
+     * @return the request specification
+     */
+    public RequestSpecification requestSpec() {
+        RequestSpecBuilder builder = new RequestSpecBuilder().setConfig(config);
+        if (baseUri != null && !baseUri.isEmpty()) {
+            builder.setBaseUri(baseUri);
+        }
+        if (basePath != null && !basePath.isEmpty()) {
+            builder.setBasePath(basePath);
+        }
+        if (port > 0) {
+            builder.setPort(port);
+        }
+        if (!filters.isEmpty()) {
+            builder.addFilters(new ArrayList<>(filters));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Logs request and response only when a validation fails, for this context only
+     */
+    public void enableLoggingOfRequestAndResponseIfValidationFails() {
+        config = config.logConfig(LogConfig.logConfig().enableLoggingOfRequestAndResponseIfValidationFails());
+    }
+
+    public void addFilter(Filter filter) {
+        filters.add(filter);
+    }
+
+    public List<Filter> getFilters() {
+        return Collections.unmodifiableList(filters);
+    }
+
+    public String getTestName() {
+        return testName;
+    }
+
+    public void setTestName(String testName) {
+        this.testName = testName;
+    }
+
+    public String getBaseUri() {
+        return baseUri;
+    }
+
+    public void setBaseUri(String baseUri) {
+        this.baseUri = baseUri;
+    }
+
+    public String getBasePath() {
+        return basePath;
+    }
+
+    public void setBasePath(String basePath) {
+        this.basePath = basePath;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public RestAssuredConfig getConfig() {
+        return config;
+    }
+
+    public void setConfig(RestAssuredConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * @return the last response seen by this context's ParallelRequestFilter
+     */
+    public Response getLastResponse() {
+        return lastResponse;
+    }
+
+    public void setLastResponse(Response lastResponse) {
+        this.lastResponse = lastResponse;
+    }
+}
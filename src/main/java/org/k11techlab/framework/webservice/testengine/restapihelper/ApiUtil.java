@@ -20,19 +20,22 @@ package org.k11techlab.framework.webservice.testengine.restapihelper;
 
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
-import io.restassured.RestAssured;
-import org.k11techlab.framework.selenium.webuitestbase.ApplicationProperties;
 
 import static io.restassured.RestAssured.given;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 
+/**
+ * Request helpers. Requests are built from the calling thread's ApiRequestContext, so base URI,
+ * filters and timeouts are per test and never read from or written to the static RestAssured fields.
+ */
 public class ApiUtil {
 
-    static {
-        RestAssured.baseURI =  ApplicationProperties.WEB_SERVICE_URI.getStringVal();
-
-    }
+    private static final ExecutorService ASYNC_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
 
 
     public static String generateEndpoint(String resource) {
@@ -41,7 +44,12 @@ public class ApiUtil {
 
 
     public static RequestSpecification generateRequest() {
-        return given().contentType("application/json");
+        return generateRequest(ApiRequestContext.current());
+    }
+
+
+    public static RequestSpecification generateRequest(ApiRequestContext context) {
+        return given().spec(context.requestSpec()).contentType("application/json");
     }
 
 
@@ -102,6 +110,28 @@ public class ApiUtil {
 
 
 
+    /**
+     * Sends the request on a virtual thread.
+     */
+    public static CompletableFuture<Response> sendRequestAsync(RequestSpecification request, String method, String endpoint, Object body) {
+        return CompletableFuture.supplyAsync(() -> body == null
+                ? sendRequest(request, method, endpoint)
+                : sendRequest(request, method, endpoint, body), ASYNC_EXECUTOR);
+    }
+
+
+    /**
+     * Runs the request as a load test with the current thread's request context, validating every
+     * response, and returns the latency and error summary.
+     */
+    public static ApiLoadRunner.LoadReport runLoad(ApiLoadRunner.LoadOptions options, String method, String endpoint,
+                                                   Object body, Consumer<Response> validation) {
+        return new ApiLoadRunner(ApiRequestContext.current(), method, endpoint, body, validation).run(options);
+    }
+
+
+
+
     public static int getStatusCode(Response response) {
         return response.getStatusCode();
     }
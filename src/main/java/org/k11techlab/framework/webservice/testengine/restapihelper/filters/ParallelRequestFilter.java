@@ -19,7 +19,7 @@
 package org.k11techlab.framework.webservice.testengine.restapihelper.filters;
 
 import org.k11techlab.framework.selenium.webuitestengine.logger.Log;
-import org.k11techlab.framework.webservice.apitestbase.BaseWebServiceTest;
+import org.k11techlab.framework.webservice.testengine.restapihelper.ApiRequestContext;
 import io.restassured.builder.ResponseBuilder;
 import io.restassured.filter.FilterContext;
 import io.restassured.filter.OrderedFilter;
@@ -33,37 +33,47 @@ import io.restassured.specification.FilterableResponseSpecification;
 import org.hamcrest.Matchers;
 
 import java.text.MessageFormat;
-import java.util.HashMap;
 import java.util.Set;
 
 /**
  * Makes Rest Assured parallel friendly.
+ * The filter belongs to one test's ApiRequestContext and records responses there, so requests from
+ * parallel tests never share state, whichever thread sends them.
  */
 public class ParallelRequestFilter implements OrderedFilter {
 
-    public static final ThreadLocal<HashMap<String, Response>> THREAD_RESPONSE = ThreadLocal.withInitial(HashMap::new);
-    private boolean log;
+    private final boolean log;
+    private final ApiRequestContext context;
 
     public ParallelRequestFilter(boolean log)
+    {
+        this(log, null);
+    }
+
+    /**
+     * @param log log requests and responses
+     * @param context the test context the responses are recorded in; null uses the sending thread's context
+     */
+    public ParallelRequestFilter(boolean log, ApiRequestContext context)
     {
         this.log = log;
+        this.context = context;
     }
 
     @Override
     public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec, FilterContext ctx) {
 
-        long currentThreadId = Thread.currentThread().getId();
-        String methodName = BaseWebServiceTest.METHOD_THREAD.get().get(currentThreadId);
-        Log.LOGGER.info(MessageFormat.format("Filter Request for threadId {0}",currentThreadId));
+        ApiRequestContext testContext = context != null ? context : ApiRequestContext.current();
+        String methodName = testContext.getTestName();
+        Log.LOGGER.debug(MessageFormat.format("Filter Request for method {0}", methodName));
 
         logRequest(requestSpec);
 
-        Response response = ctx.next(requestSpec, responseSpec);
-        THREAD_RESPONSE.get().put(methodName, response);
+        Response response = logResponse(ctx.next(requestSpec, responseSpec));
+        testContext.setLastResponse(response);
 
-        logResponse(methodName);
-        Log.LOGGER.info(MessageFormat.format("Filter Request DONE for threadId = {0} and method {1}", currentThreadId, methodName));
-        return THREAD_RESPONSE.get().get(methodName);
+        Log.LOGGER.debug(MessageFormat.format("Filter Request DONE for method {0}", methodName));
+        return response;
     }
 
     @Override
@@ -96,13 +106,11 @@ public class ParallelRequestFilter implements OrderedFilter {
 
     /**
      * Prints response.
-     * @param methodName the method name
-     * @return
+     * @param response the response
+     * @return the response, cloned if logging consumed its body
      */
-    private Response logResponse(String methodName)
+    private Response logResponse(Response response)
     {
-
-        Response response = THREAD_RESPONSE.get().get(methodName);
         if(!log) {
             return response;
         }
@@ -19,6 +19,7 @@
 package org.k11techlab.framework.webservice.testengine.soapserviceutil.soapserviceutil;
 
 import org.apache.log4j.Logger;
+import org.k11techlab.framework.selenium.webuitestbase.ApplicationProperties;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -30,18 +31,22 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.soap.*;
-import javax.xml.soap.SOAPConnection;
-import javax.xml.soap.SOAPConnectionFactory;
 import javax.xml.soap.SOAPMessage;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
-import java.net.URL;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -53,8 +58,53 @@ import java.util.List;
 public class CommonServiceUtil {
 
     private static final Logger logger = Logger.getLogger(CommonServiceUtil.class);
+
+    // Factories are expensive to look up and builders/transformers are not thread-safe,
+    // so each thread keeps its own and reuses it for every call
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = ThreadLocal.withInitial(() -> {
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final ThreadLocal<Transformer> INDENTING_TRANSFORMER = ThreadLocal.withInitial(() -> {
+        try {
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+            return transformer;
+        } catch (TransformerConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    // XMLInputFactory is thread-safe once configured
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+    private static volatile boolean trustAllInstalled;
+
+    private boolean logResponses = ApplicationProperties.SOAP_LOG_RESPONSE.getBooleanVal(false);
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // Names are matched on their prefixed form, and undeclared prefixes must not fail the parse,
+        // as they did not with the DOM parser this replaced
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory;
+    }
+
+    /**
+     * Turns logging of every SOAP response on or off for this instance (default: soap.log.response)
+     * @param logResponses
+     */
+    public void setLogResponses(boolean logResponses) {
+        this.logResponses = logResponses;
+    }
     /**
-     * Method for calling soap webservice with endpoint & soapmessage and returning responseString
+     * Method for calling soap webservice with endpoint & soapmessage and returning responseString.
+     * The call goes over a pooled connection from SoapConnectionPool.
      * @param soapEndpointUrl
      * @param message
      * @return
@@ -63,18 +113,13 @@ public class CommonServiceUtil {
     public String callSoapWebService(String soapEndpointUrl, SOAPMessage message) throws Exception{
         String response=null;
         try {
-            // Create SOAP Connection
-            SOAPConnectionFactory soapConnectionFactory = SOAPConnectionFactory.newInstance();
-            SOAPConnection soapConnection = soapConnectionFactory.createConnection();
-
             // Send SOAP Message to SOAP Server
-            SOAPMessage soapResponse = soapConnection.call(message, soapEndpointUrl);
+            SOAPMessage soapResponse = SoapConnectionPool.shared().call(message, soapEndpointUrl);
 
-            // Print the SOAP Response
-            System.out.println("Response SOAP Message:");
-            //soapResponse.writeTo(System.out);
             response= generateResponseXml(soapResponse);
-            soapConnection.close();
+            if (logResponses) {
+                logger.info("Response SOAP Message:\n" + response);
+            }
         } catch (Exception e) {
             String errormessage = "\nError occurred while sending SOAP Request to Server!\n Make sure you have the correct endpoint URL and SOAPAction!\n";
             logger.error(errormessage + e.getMessage());
@@ -83,42 +128,35 @@ public class CommonServiceUtil {
         return response;
     }
     /**
-     * Method to convert the xmlString into Document
+     * Method to convert the xmlString into Document, using the calling thread's DocumentBuilder
      * @param xmlString
      * @return Document
      */
-    private Document parseXmlFile(String xmlString) {
+    public Document parseXmlFile(String xmlString) {
         try {
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            DocumentBuilder db = dbf.newDocumentBuilder();
+            DocumentBuilder db = DOCUMENT_BUILDER.get();
+            db.reset();
             InputSource is = new InputSource(new StringReader(xmlString));
             return db.parse(is);
-        } catch (ParserConfigurationException | SAXException | IOException e) {
+        } catch (SAXException | IOException e) {
             String message = "\nError occurred while parsing XML file!\n";
             logger.error(message + e.getMessage());
             throw new RuntimeException(e);
         }
     }
     /**
-     * Method to convert SOAPResponse Message object into response string
+     * Method to convert SOAPResponse Message object into an indented response string, in one transform
      * @param soapResponse
      * @return response string
      */
     private String generateResponseXml(SOAPMessage soapResponse) {
         try {
             Source source = soapResponse.getSOAPPart().getContent();
-
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-
-            transformer.transform(source, new StreamResult(System.out));
-            StreamResult result = new StreamResult(new StringWriter());
-            transformer.transform(source, result);
-            return result.getWriter().toString();
+            StringWriter writer = new StringWriter();
+            INDENTING_TRANSFORMER.get().transform(source, new StreamResult(writer));
+            return writer.toString();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error occurred while transforming SOAP response: " + e.getMessage(), e);
         }
         return null;
     }
@@ -147,8 +185,19 @@ public class CommonServiceUtil {
 
 
     public List<String> getNodeTextContentByNodeName(String xmlString, String nodeName, String childNodeName) {
+        return getNodeValuesStreaming(new StringReader(xmlString), nodeName, childNodeName);
+    }
+
+    /**
+     * DOM version of getNodeTextContentByNodeName, for callers that need the parsed document anyway
+     *
+     * @param document
+     * @param nodeName
+     * @param childNodeName
+     * @return
+     */
+    public List<String> getNodeTextContentByNodeName(Document document, String nodeName, String childNodeName) {
         List<String>  list =  new ArrayList<String>();
-        Document document = parseXmlFile(xmlString);
         NodeList nodeLst = document.getElementsByTagName("*");
         for (int i = 0; i < nodeLst.getLength(); i++) {
             Node n = nodeLst.item(i);
@@ -172,6 +221,113 @@ public class CommonServiceUtil {
         return null;
     }
 
+    /**
+     * Streams the XML with StAX and returns the same values as getNodeTextContentByNodeName without building
+     * a DOM: the text of the first element whose name contains nodeName or, when childNodeName is given and
+     * that element has content, the text of each direct child whose name contains childNodeName.
+     * Reading stops as soon as the element is closed.
+     *
+     * @param xml the XML
+     * @param nodeName part of the element name, prefix included (e.g. "soap:Body" or "Body")
+     * @param childNodeName part of the child element name, or null
+     * @return the values, or null when no element matches
+     */
+    public List<String> getNodeValuesStreaming(Reader xml, String nodeName, String childNodeName) {
+        try {
+            return getNodeValuesStreaming(XML_INPUT_FACTORY.createXMLStreamReader(xml), nodeName, childNodeName);
+        } catch (XMLStreamException e) {
+            throw streamingFailed(e);
+        }
+    }
+
+    /**
+     * As getNodeValuesStreaming(Reader, ...), reading from a stream such as a saved response file
+     */
+    public List<String> getNodeValuesStreaming(InputStream xml, String nodeName, String childNodeName) {
+        try {
+            return getNodeValuesStreaming(XML_INPUT_FACTORY.createXMLStreamReader(xml), nodeName, childNodeName);
+        } catch (XMLStreamException e) {
+            throw streamingFailed(e);
+        }
+    }
+
+    /**
+     * As getNodeValuesStreaming(Reader, ...), reading from an already created reader, which is closed afterwards
+     */
+    public List<String> getNodeValuesStreaming(XMLStreamReader reader, String nodeName, String childNodeName) {
+        try {
+            try {
+                return extractNodeValues(reader, nodeName, childNodeName);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw streamingFailed(e);
+        }
+    }
+
+    private static RuntimeException streamingFailed(XMLStreamException e) {
+        String message = "\nError occurred while streaming XML!\n";
+        logger.error(message + e.getMessage());
+        return new RuntimeException(e);
+    }
+
+    private static List<String> extractNodeValues(XMLStreamReader reader, String nodeName, String childNodeName)
+            throws XMLStreamException {
+        // Skip to the first matching element
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && qualifiedName(reader).contains(nodeName)) {
+                break;
+            }
+        }
+        if (!reader.isStartElement()) {
+            return null;
+        }
+        List<String> list = new ArrayList<String>();
+        StringBuilder text = new StringBuilder();
+        StringBuilder childText = null;
+        boolean hasContent = false;
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    hasContent = true;
+                    depth++;
+                    if (depth == 2 && childNodeName != null && qualifiedName(reader).contains(childNodeName)) {
+                        childText = new StringBuilder();
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (depth == 2 && childText != null) {
+                        list.add(childText.toString());
+                        childText = null;
+                    }
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    hasContent = true;
+                    text.append(reader.getText());
+                    if (childText != null) {
+                        childText.append(reader.getText());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (childNodeName == null || !hasContent) {
+            list.add(text.toString());
+        }
+        return list;
+    }
+
+    private static String qualifiedName(XMLStreamReader reader) {
+        String prefix = reader.getPrefix();
+        return prefix == null || prefix.isEmpty() ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+    }
+
 
 
     static public void doTrustToCertificates() throws Exception {
@@ -203,34 +359,35 @@ public class CommonServiceUtil {
     }
 
     /**
-     * Sends SOAP request and saves it in a queue.
+     * Installs the trust-all certificate and host checks once per JVM, for HTTPS SOAP endpoints
+     */
+    private static void trustAllOnce() throws Exception {
+        if (trustAllInstalled) {
+            return;
+        }
+        synchronized (CommonServiceUtil.class) {
+            if (!trustAllInstalled) {
+                doTrustToCertificates();
+                HttpsURLConnection.setDefaultHostnameVerifier(new TrustAllHosts());
+                trustAllInstalled = true;
+            }
+        }
+    }
+
+    /**
+     * Sends SOAP request over a pooled connection. For HTTPS endpoints all certificates and hosts are
+     * trusted; that is set up on the first HTTPS call instead of with a separate handshake per call.
      *
      * @param request SOAP Message request object
      * @return SOAP Message response object
      */
     public String sendSoapRequest(String endpointUrl, SOAPMessage request) throws Exception{
-        String response=null;
         try {
-            final boolean isHttps = endpointUrl.toLowerCase().startsWith("https");
-            HttpsURLConnection httpsConnection = null;
-            // Open HTTPS connection
-            if (isHttps) {
-                // Create SSL context and trust all certificates
-                doTrustToCertificates();
-                // Open HTTPS connection
-                URL url = new URL(endpointUrl);
-                httpsConnection = (HttpsURLConnection) url.openConnection();
-                // Trust all hosts
-                httpsConnection.setHostnameVerifier(new TrustAllHosts());
-                // Connect
-                httpsConnection.connect();
+            if (endpointUrl.toLowerCase().startsWith("https")) {
+                trustAllOnce();
             }
             // Send HTTP SOAP request and get response
-            response= callSoapWebService(endpointUrl, request);
-            if (isHttps) {
-                httpsConnection.disconnect();
-            }
-            return response;
+            return callSoapWebService(endpointUrl, request);
         } catch (SOAPException | IOException
                  | NoSuchAlgorithmException | KeyManagementException ex) {
             throw new Exception(ex);
@@ -0,0 +1,147 @@
+package org.k11techlab.framework.webservice.testengine.soapserviceutil.soapserviceutil;
+
+import org.apache.log4j.Logger;
+import org.k11techlab.framework.selenium.webuitestbase.ApplicationProperties;
+
+import javax.xml.soap.SOAPConnection;
+import javax.xml.soap.SOAPConnectionFactory;
+import javax.xml.soap.SOAPException;
+import javax.xml.soap.SOAPMessage;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reusable SOAP connections for CommonServiceUtil.
+ *
+ * The SOAPConnectionFactory is looked up once, and connections are returned to an idle queue after
+ * each call instead of being closed, so a regression pack with thousands of calls does not create a
+ * factory and a connection per call. A connection is used by one thread at a time; one that failed
+ * is closed rather than reused. The HTTP sockets underneath are kept alive by the JDK
+ * (see the http.keepAlive and http.maxConnections system properties).
+ *
+ * Settings (config/test-config.properties):
+ * - soap.pool.maxIdle: idle connections kept for reuse
+ */
+public final class SoapConnectionPool {
+
+    private static final Logger logger = Logger.getLogger(SoapConnectionPool.class);
+
+    private static volatile SoapConnectionPool shared;
+
+    private final SOAPConnectionFactory connectionFactory;
+    private final BlockingDeque<SOAPConnection> idle;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    public SoapConnectionPool(int maxIdle) throws SOAPException {
+        this.connectionFactory = SOAPConnectionFactory.newInstance();
+        this.idle = new LinkedBlockingDeque<>(Math.max(1, maxIdle));
+    }
+
+    /**
+     * The pool shared by all SOAP calls, sized from soap.pool.maxIdle
+     *
+     * @return the shared pool
+     * @throws SOAPException if no SOAPConnectionFactory is available
+     */
+    public static SoapConnectionPool shared() throws SOAPException {
+        SoapConnectionPool pool = shared;
+        if (pool == null) {
+            synchronized (SoapConnectionPool.class) {
+                pool = shared;
+                if (pool == null) {
+                    pool = new SoapConnectionPool(ApplicationProperties.SOAP_POOL_MAX_IDLE.getIntVal(10));
+                    shared = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Sends the message on a pooled connection
+     *
+     * @param message the request
+     * @param endpoint the endpoint URL
+     * @return the response
+     * @throws SOAPException if the call fails
+     */
+    public SOAPMessage call(SOAPMessage message, Object endpoint) throws SOAPException {
+        SOAPConnection connection = borrow();
+        boolean healthy = false;
+        try {
+            SOAPMessage response = connection.call(message, endpoint);
+            healthy = true;
+            return response;
+        } finally {
+            release(connection, healthy);
+        }
+    }
+
+    private SOAPConnection borrow() throws SOAPException {
+        SOAPConnection connection = idle.pollFirst();
+        if (connection != null) {
+            reused.incrementAndGet();
+            return connection;
+        }
+        created.incrementAndGet();
+        return connectionFactory.createConnection();
+    }
+
+    private void release(SOAPConnection connection, boolean healthy) {
+        if (healthy && idle.offerFirst(connection)) {
+            return;
+        }
+        discarded.incrementAndGet();
+        close(connection);
+    }
+
+    private static void close(SOAPConnection connection) {
+        try {
+            connection.close();
+        } catch (SOAPException e) {
+            logger.warn("Failed to close SOAP connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes all idle connections; the next call to shared() creates a new pool
+     */
+    public static synchronized void shutdown() {
+        SoapConnectionPool pool = shared;
+        shared = null;
+        if (pool != null) {
+            SOAPConnection connection;
+            while ((connection = pool.idle.pollFirst()) != null) {
+                close(connection);
+            }
+        }
+    }
+
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    public long getReusedCount() {
+        return reused.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Connection counters as JSON
+     *
+     * @return the stats
+     */
+    public String statsJson() {
+        return "{\"created\":" + created.get()
+                + ",\"reused\":" + reused.get()
+                + ",\"discarded\":" + discarded.get()
+                + ",\"idle\":" + idle.size() + "}";
+    }
+}
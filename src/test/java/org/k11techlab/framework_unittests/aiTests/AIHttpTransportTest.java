@@ -0,0 +1,111 @@
+package org.k11techlab.framework_unittests.aiTests;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.k11techlab.framework.ai.rag.components.OllamaEmbedder;
+import org.k11techlab.framework.ai.ollama.OllamaClient;
+import org.k11techlab.framework.ai.util.AIHttpTransport;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AIHttpTransportTest {
+
+    private HttpServer server;
+    private String base;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger flakyCalls = new AtomicInteger();
+
+    @BeforeClass
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/embeddings", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = "{\"embedding\":[0.5,1.5]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/api/tags", exchange -> {
+            byte[] body = "{\"models\":[{\"name\":\"test-model:latest\"}]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/api/generate", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = "{\"response\":\"READY\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/flaky", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (flakyCalls.incrementAndGet() == 1) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.stop(0);
+        AIHttpTransport.shutdown();
+    }
+
+    @Test
+    public void embeddersReuseKeepAliveConnections() {
+        OllamaEmbedder first = new OllamaEmbedder(base, "test-model");
+        OllamaEmbedder second = new OllamaEmbedder(base, "test-model");
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(first.embed("text " + i), new double[]{0.5, 1.5});
+            Assert.assertEquals(second.embed("text " + i), new double[]{0.5, 1.5});
+        }
+        // Sequential calls from both embedders share one pooled connection
+        Assert.assertEquals(clientPorts.size(), 1, "client ports: " + clientPorts);
+        Assert.assertEquals(AIHttpTransport.get().getTotalStats().getLeased(), 0);
+        Assert.assertTrue(AIHttpTransport.statsJson().contains("\"available\":1"), AIHttpTransport.statsJson());
+    }
+
+    @Test
+    public void retriesServiceUnavailable() throws Exception {
+        long retriesBefore = AIHttpTransport.get().getRetryCount();
+        HttpPost post = new HttpPost(base + "/flaky");
+        post.setEntity(new StringEntity("{}", ContentType.APPLICATION_JSON));
+        String body = AIHttpTransport.client().execute(post, response -> {
+            Assert.assertEquals(response.getCode(), 200);
+            return EntityUtils.toString(response.getEntity());
+        });
+        Assert.assertEquals(body, "ok");
+        Assert.assertEquals(flakyCalls.get(), 2);
+        Assert.assertEquals(AIHttpTransport.get().getRetryCount(), retriesBefore + 1);
+    }
+
+    @Test
+    public void clientsSurviveTransportShutdown() {
+        OllamaClient client = new OllamaClient(base, "test-model");
+        Assert.assertTrue(client.isAvailable());
+        AIHttpTransport.shutdown();
+        // The next request picks up the rebuilt transport instead of the closed one
+        Assert.assertTrue(client.isAvailable());
+    }
+}
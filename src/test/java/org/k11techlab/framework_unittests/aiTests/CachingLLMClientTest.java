@@ -0,0 +1,96 @@
+package org.k11techlab.framework_unittests.aiTests;
+
+import org.k11techlab.framework.ai.llm.CachingLLMClient;
+import org.k11techlab.framework.ai.llm.LLMInterface;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CachingLLMClientTest {
+
+    /** Fake provider that counts calls and echoes the prompt */
+    private static class CountingProvider implements LLMInterface {
+        final AtomicInteger calls = new AtomicInteger();
+        public String generateResponse(String prompt) { return generateResponse(prompt, 0.7f, 500); }
+        public String generateResponse(String prompt, float temperature, int maxTokens) {
+            calls.incrementAndGet();
+            return prompt.startsWith("fail") ? "// AI unavailable: " + prompt : "answer to " + prompt;
+        }
+        public boolean isAvailable() { return true; }
+        public String getModelInfo() { return "fake-model"; }
+        public void close() {}
+    }
+
+    @Test
+    public void testExactSemanticAndDiskTiers() throws Exception {
+        CountingProvider provider = new CountingProvider();
+        CachingLLMClient.CacheConfiguration config = new CachingLLMClient.CacheConfiguration();
+        config.setMaxEntries(2);
+        config.setDiskCacheDir(Files.createTempDirectory("llm-cache").toString());
+        // Toy embedding: prompts differing only in case/whitespace map to the same vector
+        config.setEmbeddingFunction(text -> {
+            double[] letters = new double[26];
+            for (char c : text.toLowerCase().toCharArray()) if (c >= 'a' && c <= 'z') letters[c - 'a']++;
+            return letters;
+        });
+        CachingLLMClient cache = new CachingLLMClient(provider, config);
+
+        Assert.assertEquals(cache.generateResponse("find login button", 0.2f, 100), "answer to find login button");
+        Assert.assertEquals(cache.generateResponse("find login button", 0.2f, 100), "answer to find login button");
+        Assert.assertEquals(provider.calls.get(), 1);
+        Assert.assertEquals(cache.getMetrics().getExactHits(), 1);
+
+        // Different parameters are a different key and are not semantically matched
+        cache.generateResponse("find login button", 0.9f, 100);
+        Assert.assertEquals(provider.calls.get(), 2);
+
+        cache.generateResponse("Find  Login Button", 0.2f, 100);
+        Assert.assertEquals(cache.getMetrics().getSemanticHits(), 1);
+        Assert.assertEquals(provider.calls.get(), 2);
+
+        // Error strings are not cached
+        cache.generateResponse("fail please", 0.2f, 100);
+        cache.generateResponse("fail please", 0.2f, 100);
+        Assert.assertEquals(provider.calls.get(), 4);
+
+        // Evicted from the 2-entry memory tier but still on disk
+        cache.generateResponse("other 1", 0.2f, 100);
+        cache.generateResponse("other 2", 0.2f, 100);
+        int calls = provider.calls.get();
+        Assert.assertEquals(cache.generateResponse("find login button", 0.2f, 100), "answer to find login button");
+        Assert.assertEquals(provider.calls.get(), calls);
+        Assert.assertEquals(cache.getMetrics().getDiskHits(), 1);
+        Assert.assertTrue(cache.getMetrics().getEvictions() > 0);
+        cache.clear();
+    }
+
+    @Test
+    public void testDefaultCallsUseTheProviderDefaults() {
+        AtomicInteger defaultCalls = new AtomicInteger();
+        CountingProvider provider = new CountingProvider() {
+            @Override
+            public String generateResponse(String prompt) {
+                defaultCalls.incrementAndGet();
+                return "default answer to " + prompt;
+            }
+        };
+        CachingLLMClient cache = new CachingLLMClient(provider);
+
+        Assert.assertEquals(cache.generateResponse("find login button"), "default answer to find login button");
+        Assert.assertEquals(cache.generateResponse("find login button"), "default answer to find login button");
+        Assert.assertEquals(defaultCalls.get(), 1);
+        Assert.assertEquals(provider.calls.get(), 0);
+
+        // Explicit parameters are cached separately from the provider defaults
+        Assert.assertEquals(cache.generateResponse("find login button", 0.7f, 500), "answer to find login button");
+        Assert.assertEquals(provider.calls.get(), 1);
+
+        StringBuilder streamed = new StringBuilder();
+        Assert.assertEquals(cache.generateResponseStreaming("find login button", streamed::append),
+                "default answer to find login button");
+        Assert.assertEquals(streamed.toString(), "default answer to find login button");
+        Assert.assertEquals(defaultCalls.get(), 1);
+    }
+}
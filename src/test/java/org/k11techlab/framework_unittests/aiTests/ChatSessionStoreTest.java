@@ -0,0 +1,69 @@
+package org.k11techlab.framework_unittests.aiTests;
+
+import org.k11techlab.framework.ai.chatbot.TestAutomationChatbot;
+import org.k11techlab.framework.ai.chatbot.TestAutomationChatbot.ChatMessage;
+import org.k11techlab.framework.ai.chatbot.TestAutomationChatbot.ChatSession;
+import org.k11techlab.framework.ai.chatbot.TestAutomationChatbot.SessionConfiguration;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+public class ChatSessionStoreTest {
+
+    @Test
+    public void olderTurnsAreTruncatedOverBudget() {
+        ChatSession session = new ChatSession("s1", 100, 2);
+        for (int i = 0; i < 20; i++) {
+            session.addMessage(new ChatMessage("Question " + i + " " + "x".repeat(100), ChatMessage.MessageType.USER_MESSAGE, "User"));
+        }
+        Assert.assertTrue(session.getConversationHistory().size() <= 3, "kept " + session.getConversationHistory().size());
+        Assert.assertEquals(session.getTruncatedMessageCount() + session.getConversationHistory().size(), 20);
+        Assert.assertTrue(session.getTruncatedHistory().startsWith("- User: Question"), session.getTruncatedHistory());
+        // The truncated lines stay within a quarter of the budget (about 100 characters)
+        Assert.assertTrue(session.getTruncatedHistory().length() < 200, session.getTruncatedHistory());
+
+        session.clearHistory();
+        Assert.assertEquals(session.getTruncatedHistory(), "");
+        Assert.assertEquals(session.getTruncatedMessageCount(), 0);
+    }
+
+    @Test
+    public void leastRecentlyUsedSessionIsSpilledAndRestored() throws Exception {
+        Path spillDir = Files.createTempDirectory("chat-sessions");
+        SessionConfiguration config = new SessionConfiguration();
+        config.setMaxSessions(2);
+        config.setSpillDir(spillDir.toString());
+        TestAutomationChatbot chatbot = new TestAutomationChatbot(null, null, config);
+
+        String first = chatbot.startSession("spill-project");
+        chatbot.startSession();
+        chatbot.startSession();
+
+        Assert.assertTrue(Files.exists(spillDir.resolve(first + ".session")));
+        ChatSession restored = chatbot.getSession(first);
+        Assert.assertNotNull(restored);
+        Assert.assertEquals(restored.getCurrentProject(), "spill-project");
+        Assert.assertEquals(restored.getConversationHistory().size(), 1);
+        Assert.assertFalse(Files.exists(spillDir.resolve(first + ".session")));
+
+        chatbot.endSession(first);
+        Assert.assertNull(chatbot.getSession(first));
+    }
+
+    @Test
+    public void idleSessionsExpire() {
+        SessionConfiguration config = new SessionConfiguration();
+        config.setIdleTtlMillis(60_000);
+        TestAutomationChatbot chatbot = new TestAutomationChatbot(null, null, config);
+
+        String idle = chatbot.startSession();
+        String busy = chatbot.startSession();
+        chatbot.getSession(idle).setLastActivity(LocalDateTime.now().minusMinutes(5));
+
+        Assert.assertNull(chatbot.getSession(idle));
+        Assert.assertNotNull(chatbot.getSession(busy));
+    }
+}
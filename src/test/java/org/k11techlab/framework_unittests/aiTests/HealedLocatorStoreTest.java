@@ -0,0 +1,47 @@
+package org.k11techlab.framework_unittests.aiTests;
+
+import org.k11techlab.framework.ai.healing.HealedLocatorStore;
+import org.openqa.selenium.By;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+public class HealedLocatorStoreTest {
+
+    @Test
+    public void testRankingAndPersistence() throws Exception {
+        File file = File.createTempFile("healed", ".json");
+        file.delete();
+        file.deleteOnExit();
+        HealedLocatorStore store = HealedLocatorStore.open(file.getPath());
+
+        By css = By.cssSelector("button[type='submit']");
+        By xpath = By.xpath("//button[text()='Login']");
+        store.recordSuccess("https://shop.example.com/orders/123?tab=1", "Login  Button", xpath);
+        store.recordSuccess("https://shop.example.com/orders/123", "login button", css);
+        store.recordSuccess("https://shop.example.com/orders/456", "login button", css);
+
+        Assert.assertEquals(store.candidates("https://shop.example.com/orders/789#top", "login button"), Arrays.asList(css, xpath));
+
+        // Changes are written in the background, not on every lookup
+        Assert.assertFalse(file.exists());
+        store.close();
+        Assert.assertTrue(file.exists());
+
+        // Reloaded from disk, and failures demote a locator
+        try (HealedLocatorStore reloaded = HealedLocatorStore.open(file.getPath())) {
+            reloaded.recordFailure("https://shop.example.com/orders/1", "login button", css);
+            reloaded.recordFailure("https://shop.example.com/orders/1", "login button", css);
+            Assert.assertEquals(reloaded.candidates("https://shop.example.com/orders/1", "login button"), Arrays.asList(xpath, css));
+            Assert.assertTrue(reloaded.candidates("https://other.example.com/", "login button").isEmpty());
+        }
+    }
+
+    @Test
+    public void testUrlPattern() {
+        Assert.assertEquals(HealedLocatorStore.urlPattern("https://a.com/users/42/profile?x=1"), "a.com/users/*/profile");
+        Assert.assertEquals(HealedLocatorStore.urlPattern("https://a.com/doc/3f2a9c1e-77aa-4bcd-9e1f-0a1b2c3d4e5f"), "a.com/doc/*");
+    }
+}
@@ -0,0 +1,80 @@
+package org.k11techlab.framework_unittests.aiTests;
+
+import org.k11techlab.framework.ai.engine.InMemoryTestEngine;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class InMemoryTestEngineTest {
+
+    private static final String HELPER =
+            "package gen.sample;\n" +
+            "public class Calculator {\n" +
+            "    public int add(int a, int b) { return a + b; }\n" +
+            "}\n";
+
+    private static final String TEST =
+            "package gen.sample;\n" +
+            "import org.testng.Assert;\n" +
+            "import org.testng.annotations.Test;\n" +
+            "public class CalculatorTest {\n" +
+            "    @Test public void adds() { Assert.assertEquals(new Calculator().add(2, 3), 5); }\n" +
+            "    @Test public void failsOnPurpose() { Assert.assertEquals(new Calculator().add(2, 2), 5); }\n" +
+            "}\n";
+
+    @Test
+    public void compilesAndRunsSourcesInProcess() throws Exception {
+        InMemoryTestEngine engine = new InMemoryTestEngine();
+        InMemoryTestEngine.CompileResult compiled = engine.compile(Arrays.asList(HELPER, TEST));
+        Assert.assertTrue(compiled.isSuccess(), compiled.formatDiagnostics());
+        Assert.assertTrue(compiled.getClasses().containsKey("gen.sample.CalculatorTest"));
+
+        InMemoryTestEngine.RunResult run = engine.run(compiled, InMemoryTestEngine.className(TEST));
+        Assert.assertEquals(run.getPassed(), 1);
+        Assert.assertEquals(run.getFailed(), 1);
+        Assert.assertFalse(run.isSuccess());
+        Assert.assertTrue(run.getFailures().get(0).contains("failsOnPurpose"), run.summary());
+    }
+
+    @Test
+    public void passesRunParametersThroughTheTestContext() throws Exception {
+        String source = "package gen.sample;\n" +
+                "import org.testng.Assert;\n" +
+                "import org.testng.ITestContext;\n" +
+                "import org.testng.annotations.Test;\n" +
+                "public class ParameterTest {\n" +
+                "    @Test public void readsUrl(ITestContext ctx) {\n" +
+                "        Assert.assertEquals(ctx.getCurrentXmlTest().getParameter(\"WEBURL\"), \"https://run.example\");\n" +
+                "    }\n" +
+                "}\n";
+        InMemoryTestEngine engine = new InMemoryTestEngine();
+        InMemoryTestEngine.CompileResult compiled = engine.compile(Collections.singletonList(source));
+        Assert.assertTrue(compiled.isSuccess(), compiled.formatDiagnostics());
+
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("WEBURL", "https://run.example");
+        InMemoryTestEngine.RunResult run = engine.run(compiled, InMemoryTestEngine.className(source), parameters);
+        Assert.assertTrue(run.isSuccess(), run.summary());
+        Assert.assertNull(System.getProperty("WEBURL"));
+    }
+
+    @Test
+    public void reportsStructuredDiagnostics() {
+        String broken = "package gen.sample;\n" +
+                "public class Broken {\n" +
+                "    int value() { return missing; }\n" +
+                "}\n";
+        InMemoryTestEngine.CompileResult compiled = new InMemoryTestEngine().compile(Collections.singletonList(broken));
+        Assert.assertFalse(compiled.isSuccess());
+        List<InMemoryTestEngine.CompilerDiagnostic> errors = compiled.getErrors();
+        Assert.assertEquals(errors.size(), 1);
+        Assert.assertEquals(errors.get(0).className, "gen.sample.Broken");
+        Assert.assertEquals(errors.get(0).line, 3);
+        Assert.assertTrue(errors.get(0).toString().contains("return missing;"), errors.get(0).toString());
+    }
+}
@@ -0,0 +1,103 @@
+package org.k11techlab.framework_unittests.aiTests;
+
+import org.k11techlab.framework.ai.llm.LLMInterface;
+import org.k11techlab.framework.ai.nlp.NLTestGenerator;
+import org.k11techlab.framework.ai.rag.KnowledgeBase;
+import org.k11techlab.framework.ai.rag.RAGEnhancedAIClient;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NLTestGeneratorPipelineTest {
+
+    private static final long CALL_MILLIS = 300;
+
+    /** Fake provider with a fixed latency that answers analysis prompts with a parsable breakdown */
+    private static class SlowProvider implements LLMInterface {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        public String generateResponse(String prompt) { return generateResponse(prompt, 0.7f, 500); }
+        public String generateResponse(String prompt, float temperature, int maxTokens) {
+            calls.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(CALL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            if (prompt.contains("Analyze this test requirement")) {
+                return "Test steps:\n1. Open login page\n2. Enter credentials\n3. Submit\n"
+                        + "Required elements:\nusername: the username field\n";
+            }
+            return "public class GeneratedLoginTest extends BaseSeleniumTest {\n}\n";
+        }
+        public boolean isAvailable() { return true; }
+        public String getModelInfo() { return "slow-fake"; }
+        public void close() {}
+    }
+
+    private SlowProvider provider;
+    private NLTestGenerator generator;
+
+    @BeforeClass
+    public void setUp() {
+        provider = new SlowProvider();
+        generator = new NLTestGenerator(new RAGEnhancedAIClient(provider));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        provider.close();
+    }
+
+    @Test
+    public void testCodeAndPageObjectAreGeneratedConcurrently() {
+        int callsBefore = provider.calls.get();
+        provider.maxInFlight.set(0);
+        NLTestGenerator.GeneratedTest test = generator.generateQuickTest("Test login with valid credentials", "https://example.com");
+
+        Assert.assertEquals(provider.calls.get() - callsBefore, 3);
+        Assert.assertNotNull(test.getPageObjectCode());
+        Assert.assertTrue(test.getStageTimings().keySet().containsAll(
+                List.of("retrieval", "analysis", "testCode", "pageObject", "total")), test.getStageTimings().toString());
+        // Analysis runs alone, then test code and page object are in flight together
+        Assert.assertEquals(provider.maxInFlight.get(), 2, "test code and page object should overlap");
+    }
+
+    @Test
+    public void contextGenerationFallsBackToThePlainPrompt() {
+        RAGEnhancedAIClient rag = new RAGEnhancedAIClient(provider);
+        // A broken chunk makes prompt enhancement fail; the base provider still answers
+        List<KnowledgeBase.ScoredChunk> broken = List.of(new KnowledgeBase.ScoredChunk(null, 1.0));
+        Assert.assertEquals(rag.generateWithContext("Write a test", broken, 0.7f, 500),
+                "public class GeneratedLoginTest extends BaseSeleniumTest {\n}\n");
+    }
+
+    @Test
+    public void batchIsBoundedByMaxConcurrency() {
+        List<NLTestGenerator.TestGenerationRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            NLTestGenerator.TestGenerationRequest request = new NLTestGenerator.TestGenerationRequest("Test login scenario " + i);
+            request.setTestName("GeneratedLogin" + i + "Test");
+            request.setUsePageObjectModel(false);
+            requests.add(request);
+        }
+        provider.maxInFlight.set(0);
+        List<NLTestGenerator.GeneratedTest> results = generator.generateTests(requests, 2);
+
+        Assert.assertEquals(results.size(), 4);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(results.get(i).getTestClassName(), "GeneratedLogin" + i + "Test");
+        }
+        Assert.assertEquals(provider.maxInFlight.get(), 2);
+    }
+}
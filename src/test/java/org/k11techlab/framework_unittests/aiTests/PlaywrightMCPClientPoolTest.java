@@ -0,0 +1,152 @@
+package org.k11techlab.framework_unittests.aiTests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.k11techlab.framework.ai.mcp.util.PlaywrightMCPClient;
+import org.k11techlab.framework.ai.mcp.util.PlaywrightMCPClientPool;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the pool against a stand-in MCP server process (FakeMCPServer below) instead of npx.
+ */
+public class PlaywrightMCPClientPoolTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static List<String> fakeServerCommand(String... args) {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path"),
+                FakeMCPServer.class.getName()));
+        command.addAll(Arrays.asList(args));
+        return command;
+    }
+
+    @Test
+    public void correlatesOutOfOrderResponsesById() throws Exception {
+        try (PlaywrightMCPClient client = new PlaywrightMCPClient(fakeServerCommand())) {
+            client.initialize(30000);
+            ObjectNode slow = MAPPER.createObjectNode().put("delayMillis", 500).put("tag", "slow");
+            ObjectNode fast = MAPPER.createObjectNode().put("delayMillis", 0).put("tag", "fast");
+            CompletableFuture<JsonNode> first = client.request("echo", slow);
+            CompletableFuture<JsonNode> second = client.request("echo", fast);
+
+            JsonNode fastResponse = PlaywrightMCPClient.await(second, 5000);
+            Assert.assertFalse(first.isDone(), "slow response should still be pending");
+            Assert.assertEquals(fastResponse.path("result").path("tag").asText(), "fast");
+            Assert.assertEquals(PlaywrightMCPClient.await(first, 5000).path("result").path("tag").asText(), "slow");
+            Assert.assertTrue(client.ping(5000));
+        }
+    }
+
+    @Test
+    public void reusesWarmClientsAndReplacesBrokenOnes() throws Exception {
+        try (PlaywrightMCPClientPool pool = new PlaywrightMCPClientPool(
+                () -> new PlaywrightMCPClient(fakeServerCommand()), 2, 1, 60000, 60000, 30000)) {
+            PlaywrightMCPClient firstClient;
+            try (PlaywrightMCPClientPool.Lease lease = pool.borrow(30000)) {
+                firstClient = lease.client();
+                Assert.assertTrue(firstClient.ping(5000));
+            }
+            try (PlaywrightMCPClientPool.Lease lease = pool.borrow(30000)) {
+                Assert.assertSame(lease.client(), firstClient, "released client should be lent again");
+                lease.markBroken();
+            }
+            Assert.assertFalse(firstClient.isAlive());
+            try (PlaywrightMCPClientPool.Lease lease = pool.borrow(30000)) {
+                Assert.assertNotSame(lease.client(), firstClient);
+            }
+            Assert.assertTrue(pool.getTotalCount() <= 2, pool.getStats());
+        }
+    }
+
+    @Test
+    public void resetsTheBrowserBeforeLendingAClientAgain() throws Exception {
+        AtomicInteger resets = new AtomicInteger();
+        try (PlaywrightMCPClientPool pool = new PlaywrightMCPClientPool(
+                () -> new PlaywrightMCPClient(fakeServerCommand()) {
+                    @Override
+                    public boolean resetBrowser(long timeoutMillis) {
+                        resets.incrementAndGet();
+                        return super.resetBrowser(timeoutMillis);
+                    }
+                }, 1, 0, 60000, 60000, 30000)) {
+            PlaywrightMCPClient firstClient;
+            try (PlaywrightMCPClientPool.Lease lease = pool.borrow(30000)) {
+                firstClient = lease.client();
+            }
+            Assert.assertEquals(resets.get(), 1);
+            try (PlaywrightMCPClientPool.Lease lease = pool.borrow(30000)) {
+                Assert.assertSame(lease.client(), firstClient);
+            }
+            Assert.assertEquals(resets.get(), 2);
+        }
+    }
+
+    @Test
+    public void discardsClientsWhoseBrowserResetFails() throws Exception {
+        try (PlaywrightMCPClientPool pool = new PlaywrightMCPClientPool(
+                () -> new PlaywrightMCPClient(fakeServerCommand("fail-reset")), 1, 0, 60000, 60000, 30000)) {
+            PlaywrightMCPClient firstClient;
+            try (PlaywrightMCPClientPool.Lease lease = pool.borrow(30000)) {
+                firstClient = lease.client();
+            }
+            Assert.assertFalse(firstClient.isAlive());
+            Assert.assertEquals(pool.getIdleCount(), 0);
+            try (PlaywrightMCPClientPool.Lease lease = pool.borrow(30000)) {
+                Assert.assertNotSame(lease.client(), firstClient);
+            }
+            Assert.assertTrue(pool.getStats().contains("failedResets=2"), pool.getStats());
+        }
+    }
+
+    /**
+     * Minimal JSON-RPC line server: answers initialize/ping, echoes "echo" params after delayMillis.
+     * With the "fail-reset" argument, browser_close tool calls answer with a JSON-RPC error.
+     */
+    public static class FakeMCPServer {
+        public static void main(String[] args) throws Exception {
+            boolean failReset = Arrays.asList(args).contains("fail-reset");
+            System.out.println("fake mcp server starting (not JSON)");
+            System.out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                JsonNode msg = MAPPER.readTree(line);
+                if (!msg.has("id")) continue;
+                int id = msg.get("id").asInt();
+                JsonNode params = msg.path("params");
+                long delay = params.path("delayMillis").asLong(0);
+                new Thread(() -> {
+                    try {
+                        Thread.sleep(delay);
+                        ObjectNode response = MAPPER.createObjectNode().put("jsonrpc", "2.0").put("id", id);
+                        if (failReset && "browser_close".equals(params.path("name").asText())) {
+                            response.putObject("error").put("code", -32000).put("message", "reset failed");
+                        } else {
+                            response.set("result", params.isMissingNode() ? MAPPER.createObjectNode() : params);
+                        }
+                        String out = MAPPER.writeValueAsString(response);
+                        synchronized (System.out) {
+                            System.out.println(out);
+                            System.out.flush();
+                        }
+                    } catch (Exception ignored) {
+                        // test helper
+                    }
+                }).start();
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.k11techlab.framework_unittests.aiTests;
+
+import org.k11techlab.framework.ai.llm.CachingLLMClient;
+import org.k11techlab.framework.ai.llm.HedgedLLMClient;
+import org.k11techlab.framework.ai.llm.LLMInterface;
+import org.k11techlab.framework.ai.manager.AIProviderManager;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProviderRacingTest {
+
+    /** Fake provider with a fixed latency for both availability checks and generation */
+    private static class SlowProvider implements LLMInterface {
+        final String name;
+        final long delayMillis;
+        final boolean available;
+        final AtomicInteger checks = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+        volatile CountDownLatch probesStarted;
+        volatile boolean overlapped;
+        volatile boolean closed;
+
+        SlowProvider(String name, long delayMillis, boolean available) {
+            this.name = name;
+            this.delayMillis = delayMillis;
+            this.available = available;
+        }
+
+        public String generateResponse(String prompt) { return generateResponse(prompt, 0.7f, 100); }
+        public String generateResponse(String prompt, float temperature, int maxTokens) {
+            calls.incrementAndGet();
+            sleep(delayMillis);
+            return name + " answer";
+        }
+        public boolean isAvailable() {
+            checks.incrementAndGet();
+            if (probesStarted != null) {
+                // Only returns true if the other probe starts while this one is still running
+                probesStarted.countDown();
+                try {
+                    overlapped = probesStarted.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sleep(delayMillis);
+            return available;
+        }
+        public String getModelInfo() { return name; }
+        public void close() { closed = true; }
+
+        private static void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    public void probesRunConcurrentlyAndAreCached() {
+        // config/ai-provider-config.properties sets ai.provider.priority=OPENAI,OLLAMA,SIMPLE
+        SlowProvider openai = new SlowProvider("openai", 400, false);
+        SlowProvider ollama = new SlowProvider("ollama", 400, true);
+        CountDownLatch probesStarted = new CountDownLatch(2);
+        openai.probesStarted = probesStarted;
+        ollama.probesStarted = probesStarted;
+        AIProviderManager manager = new AIProviderManager(type -> {
+            switch (type) {
+                case OPENAI: return openai;
+                case OLLAMA: return ollama;
+                default: return new SlowProvider("simple", 0, true);
+            }
+        });
+
+        LLMInterface provider = manager.getBestProvider();
+
+        Assert.assertSame(provider, ollama);
+        Assert.assertEquals(manager.getCurrentProviderType(), AIProviderManager.Provider.OLLAMA);
+        Assert.assertTrue(openai.overlapped && ollama.overlapped, "probes should run concurrently");
+        Assert.assertEquals(openai.checks.get(), 1);
+        Assert.assertTrue(openai.closed);
+
+        // Second call reuses the cached availability instead of re-checking
+        Assert.assertSame(manager.getBestProvider(), ollama);
+        Assert.assertEquals(ollama.checks.get(), 1);
+    }
+
+    @Test
+    public void concurrentCallersShareOneCacheWrapper() throws Exception {
+        SlowProvider ollama = new SlowProvider("ollama", 0, true);
+        AIProviderManager manager = new AIProviderManager(type -> type == AIProviderManager.Provider.OLLAMA
+                ? ollama : new SlowProvider(type.name(), 0, false));
+        manager.enableResponseCache(new CachingLLMClient.CacheConfiguration());
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<LLMInterface>> providers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                providers.add(callers.submit(() -> {
+                    start.await();
+                    return manager.getBestProvider();
+                }));
+            }
+            start.countDown();
+            LLMInterface first = providers.get(0).get(5, TimeUnit.SECONDS);
+            Assert.assertTrue(first instanceof CachingLLMClient);
+            for (Future<LLMInterface> provider : providers) {
+                Assert.assertSame(provider.get(5, TimeUnit.SECONDS), first, "every caller should get the same wrapper");
+            }
+            Assert.assertSame(manager.getBestProvider(), first);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void hedgedRequestTakesFasterProvider() {
+        SlowProvider slow = new SlowProvider("slow", 2000, true);
+        SlowProvider fast = new SlowProvider("fast", 10, true);
+        HedgedLLMClient client = new HedgedLLMClient(slow, fast, 95, 100, 50);
+
+        Assert.assertEquals(client.generateResponse("hello"), "fast answer");
+        Assert.assertEquals(slow.calls.get(), 1);
+        Assert.assertEquals(fast.calls.get(), 1);
+        Assert.assertEquals(client.getHedgedCount(), 1);
+        Assert.assertEquals(client.getSecondaryWins(), 1);
+
+        // A fast primary answers before the hedge delay and is never duplicated
+        HedgedLLMClient quick = new HedgedLLMClient(fast, slow, 95, 500, 50);
+        Assert.assertEquals(quick.generateResponse("hello"), "fast answer");
+        Assert.assertEquals(quick.getHedgedCount(), 0);
+        Assert.assertEquals(fast.calls.get(), 2);
+        Assert.assertEquals(slow.calls.get(), 1, "the slow secondary should not be called");
+        client.close();
+    }
+
+    @Test
+    public void cancelledPrimaryStillMovesTheHedgeDelay() {
+        SlowProvider slow = new SlowProvider("slow", 2000, true);
+        SlowProvider fast = new SlowProvider("fast", 10, true);
+        HedgedLLMClient client = new HedgedLLMClient(slow, fast, 95, 100, 50);
+
+        // The primary never finishes, so every sample is its elapsed time when the hedge won
+        for (int i = 0; i < 8; i++) {
+            Assert.assertEquals(client.generateResponse("hello"), "fast answer");
+        }
+        Assert.assertEquals(client.getSecondaryWins(), 8);
+        Assert.assertTrue(client.currentHedgeDelayMillis() > 100,
+                "lower-bound samples should replace the initial delay, got " + client.currentHedgeDelayMillis());
+        client.close();
+    }
+}
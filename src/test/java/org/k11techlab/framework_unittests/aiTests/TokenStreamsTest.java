@@ -0,0 +1,123 @@
+package org.k11techlab.framework_unittests.aiTests;
+
+import com.sun.net.httpserver.HttpServer;
+import org.k11techlab.framework.ai.llm.TokenStreams;
+import org.k11techlab.framework.ai.llmstudio.LLMStudioClient;
+import org.k11techlab.framework.ai.openai.OpenAIClient;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TokenStreamsTest {
+
+    @Test
+    public void parsesOllamaNdjson() throws Exception {
+        String body = "{\"response\":\"Hel\",\"done\":false}\n" +
+                "{\"response\":\"lo\",\"done\":false}\n" +
+                "{\"response\":\"\",\"done\":true,\"eval_count\":2}\n";
+        List<String> tokens = new ArrayList<>();
+        String full = TokenStreams.readOllamaNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), tokens::add);
+        Assert.assertEquals(tokens, List.of("Hel", "lo"));
+        Assert.assertEquals(full, "Hello");
+    }
+
+    @Test
+    public void parsesOpenAISse() throws Exception {
+        String body = "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}\n\n" +
+                "data: {\"choices\":[{\"delta\":{\"content\":\"By.\"}}]}\n\n" +
+                ": keep-alive comment\n\n" +
+                "data: {\"choices\":[{\"delta\":{\"content\":\"id(\\\"x\\\")\"}}]}\n\n" +
+                "data: [DONE]\n\n";
+        List<String> tokens = new ArrayList<>();
+        String full = TokenStreams.readOpenAISse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), tokens::add);
+        Assert.assertEquals(tokens, List.of("By.", "id(\"x\")"));
+        Assert.assertEquals(full, "By.id(\"x\")");
+    }
+
+    @Test
+    public void lmStudioDeliversFirstTokenBeforeCompletionFinishes() throws Exception {
+        CountDownLatch firstTokenSeen = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write("data: {\"choices\":[{\"delta\":{\"content\":\"first\"}}]}\n\n".getBytes(StandardCharsets.UTF_8));
+                os.flush();
+                // The rest of the completion is held back until the client has seen the first token
+                firstTokenSeen.await(5, TimeUnit.SECONDS);
+                os.write("data: {\"choices\":[{\"delta\":{\"content\":\" second\"}}]}\n\ndata: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+        try (LLMStudioClient client = new LLMStudioClient("http://127.0.0.1:" + server.getAddress().getPort(), "local-model", 10)) {
+            List<String> tokens = new ArrayList<>();
+            String full = client.generateResponseStreaming("hi", 0.1f, 20, token -> {
+                tokens.add(token);
+                firstTokenSeen.countDown();
+            });
+            Assert.assertEquals(tokens, List.of("first", " second"));
+            Assert.assertEquals(full, "first second");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void lmStudioFailureMidStreamIsNotFollowedByFallbackText() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write("data: {\"choices\":[{\"delta\":{\"content\":\"first\"}}]}\n\n".getBytes(StandardCharsets.UTF_8));
+                // The model fails after the first token
+                os.write("data: {\"error\":{\"message\":\"model crashed\"}}\n\n".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.start();
+        List<String> tokens = new ArrayList<>();
+        try (LLMStudioClient client = new LLMStudioClient("http://127.0.0.1:" + server.getAddress().getPort(), "local-model", 10)) {
+            Assert.expectThrows(RuntimeException.class, () -> client.generateResponseStreaming("hi", 0.1f, 20, tokens::add));
+            Assert.assertEquals(tokens, List.of("first"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void openAIFailureMidStreamIsNotFollowedByErrorText() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write("data: {\"choices\":[{\"delta\":{\"content\":\"first\"}}]}\n\n".getBytes(StandardCharsets.UTF_8));
+                os.write("data: {\"error\":{\"message\":\"server overloaded\"}}\n\n".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.start();
+        try {
+            OpenAIClient client = new OpenAIClient("test-key", "gpt-test",
+                    "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions");
+            List<String> tokens = new ArrayList<>();
+            Assert.expectThrows(RuntimeException.class, () -> client.generateResponseStreaming("hi", 0.1f, 20, tokens::add));
+            Assert.assertEquals(tokens, List.of("first"));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.k11techlab.framework_unittests.ai_mcp;
+
+import com.sun.net.httpserver.HttpServer;
+import org.k11techlab.framework.ai.mcp.handlers.JobStatusHandler;
+import org.k11techlab.framework.ai.mcp.handlers.RouteHandler;
+import org.k11techlab.framework.ai.mcp.util.JobManager;
+import org.k11techlab.framework.ai.mcp.util.LatencyHistogram;
+import org.k11techlab.framework.ai.util.HttpUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class RouteHandlerTest {
+
+    private HttpServer server;
+    private JobManager jobs;
+    private RouteHandler slow;
+    private String base;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeClass
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        jobs = new JobManager(10, 60_000);
+        slow = new RouteHandler("/slow", exchange -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            HttpUtils.writeJson(exchange, 200, "{\"result\":\"" + HttpUtils.readBody(exchange) + "\"}");
+        }, 1, 0, 1000, jobs);
+        server.createContext("/slow", slow);
+        server.createContext("/health", new RouteHandler("/health",
+                exchange -> HttpUtils.writeJson(exchange, 200, "{}"), 0, 0, 1000, null));
+        server.createContext("/jobs/", new JobStatusHandler(jobs));
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        release.countDown();
+        server.stop(0);
+        jobs.shutdown();
+    }
+
+    @Test
+    public void rejectsWhenSaturatedAndKeepsOtherRoutesResponsive() throws Exception {
+        CompletableFuture<HttpResponse<String>> first = client.sendAsync(post("/slow", "one"), HttpResponse.BodyHandlers.ofString());
+        // Wait until the first request holds the only slot
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!slow.toJson().contains("\"active\":1") && System.currentTimeMillis() < deadline) Thread.sleep(10);
+
+        HttpResponse<String> second = client.send(post("/slow", "two"), HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(second.statusCode(), 429);
+        Assert.assertTrue(second.headers().firstValue("Retry-After").isPresent());
+
+        HttpResponse<String> health = client.send(HttpRequest.newBuilder(URI.create(base + "/health")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(health.statusCode(), 200);
+
+        HttpResponse<String> async = client.send(post("/slow?async=true", "three"), HttpResponse.BodyHandlers.ofString());
+        Assert.assertEquals(async.statusCode(), 202);
+        String jobId = async.body().replaceAll(".*\"jobId\":\"([^\"]+)\".*", "$1");
+
+        release.countDown();
+        Assert.assertEquals(first.get(5, TimeUnit.SECONDS).statusCode(), 200);
+
+        String status = "";
+        deadline = System.currentTimeMillis() + 5000;
+        while (!status.contains("SUCCEEDED") && System.currentTimeMillis() < deadline) {
+            status = client.send(HttpRequest.newBuilder(URI.create(base + "/jobs/" + jobId)).build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+            Thread.sleep(20);
+        }
+        Assert.assertTrue(status.contains("SUCCEEDED"), status);
+        Assert.assertTrue(status.contains("three"), status);
+        Assert.assertTrue(slow.toJson().contains("\"rejected\":1"), slow.toJson());
+        Assert.assertEquals(slow.getLatency().getCount(), 2);
+    }
+
+    @Test
+    public void latencyJsonIgnoresTheDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            LatencyHistogram latency = new LatencyHistogram();
+            latency.record(TimeUnit.MICROSECONDS.toNanos(1500));
+            latency.record(TimeUnit.MICROSECONDS.toNanos(2500));
+            String json = latency.toJson();
+            Assert.assertTrue(json.contains("\"meanMs\":2.0"), json);
+            Assert.assertFalse(json.matches(".*\\d,\\d.*"), "decimal commas break the JSON: " + json);
+            Assert.assertEquals(latency.getPercentileMillis(100), 2.5, 0.01);
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(base + path)).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+}
@@ -0,0 +1,67 @@
+package org.k11techlab.framework_unittests.apiTests;
+
+import com.sun.net.httpserver.HttpServer;
+import io.restassured.response.Response;
+import org.k11techlab.framework.webservice.testengine.restapihelper.ApiConnectionPool;
+import org.k11techlab.framework.webservice.testengine.restapihelper.ApiRequestContext;
+import org.k11techlab.framework.webservice.testengine.restapihelper.ApiUtil;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+public class ApiConnectionPoolTest {
+
+    private HttpServer server;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    @BeforeClass
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.stop(0);
+        ApiRequestContext.clear();
+    }
+
+    @Test
+    public void sequentialRequestsReuseOneConnection() {
+        // config/test-config.properties enables the pool
+        Assert.assertTrue(ApiConnectionPool.isEnabled());
+        ApiRequestContext context = new ApiRequestContext();
+        context.setBaseUri("http://127.0.0.1");
+        context.setPort(server.getAddress().getPort());
+        ApiRequestContext.set(context);
+
+        long leasesBefore = ApiConnectionPool.shared().getLeaseCount();
+        for (int i = 0; i < 20; i++) {
+            Response response = ApiUtil.sendRequest(ApiUtil.generateRequest(), "GET", "/ping");
+            Assert.assertEquals(ApiUtil.getResponseBody(response), "{\"ok\":true}");
+        }
+
+        Assert.assertEquals(clientPorts.size(), 1, "keep-alive connection should be reused, saw ports " + clientPorts);
+        Assert.assertEquals(ApiConnectionPool.shared().getLeaseCount() - leasesBefore, 20);
+        Assert.assertTrue(ApiConnectionPool.shared().statsJson().contains("\"available\":1"),
+                ApiConnectionPool.shared().statsJson());
+    }
+}
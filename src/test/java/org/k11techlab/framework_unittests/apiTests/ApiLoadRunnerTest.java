@@ -0,0 +1,90 @@
+package org.k11techlab.framework_unittests.apiTests;
+
+import com.sun.net.httpserver.HttpServer;
+import org.k11techlab.framework.webservice.testengine.restapihelper.ApiLoadRunner;
+import org.k11techlab.framework.webservice.testengine.restapihelper.ApiRequestContext;
+import org.k11techlab.framework.webservice.testengine.restapihelper.ApiUtil;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ApiLoadRunnerTest {
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private ApiRequestContext context;
+
+    @BeforeClass
+    public void startStubServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/orders", exchange -> {
+            // Every tenth request fails so validation failures show up in the report
+            int status = hits.incrementAndGet() % 10 == 0 ? 500 : 200;
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        context = new ApiRequestContext();
+        context.setBaseUri("http://127.0.0.1");
+        context.setPort(server.getAddress().getPort());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopStubServer() {
+        server.stop(0);
+        ApiRequestContext.clear();
+    }
+
+    @Test
+    public void concurrencyModeValidatesEveryResponse() {
+        hits.set(0);
+        ApiLoadRunner.LoadOptions options = new ApiLoadRunner.LoadOptions();
+        options.setConcurrency(16);
+        options.setMaxRequests(200);
+        options.setDurationMillis(30_000);
+
+        ApiLoadRunner.LoadReport report = new ApiLoadRunner(context, "GET", "/orders", null,
+                ApiLoadRunner.expectStatus(200)).run(options);
+
+        Assert.assertEquals(report.getTotal(), 200);
+        Assert.assertEquals(report.getValidationFailures(), 20);
+        Assert.assertEquals(report.getSucceeded(), 180);
+        Assert.assertEquals(report.getErrorRate(), 0.1, 1e-9);
+        Assert.assertEquals(report.getHistogram().getTotalCount(), 200);
+        Assert.assertTrue(report.getPercentileMillis(50) >= 5, report.toString());
+        Assert.assertTrue(report.getPercentileMillis(99) >= report.getPercentileMillis(50));
+        Assert.assertEquals(report.getErrorCounts().get("Expected status code 200 but got 500"), Long.valueOf(20));
+        Assert.assertTrue(report.toJson().contains("\"p99.9\":"), report.toJson());
+    }
+
+    @Test
+    public void rateModeHoldsTheTargetRate() {
+        ApiRequestContext.set(context);
+        ApiLoadRunner.LoadOptions options = new ApiLoadRunner.LoadOptions();
+        options.setRatePerSecond(100);
+        options.setDurationMillis(1000);
+
+        ApiLoadRunner.LoadReport report = ApiUtil.runLoad(options, "GET", "/orders", null, null);
+
+        Assert.assertEquals(report.getTotal(), 100, report.toString());
+        Assert.assertEquals(report.getErrors(), 0);
+        Assert.assertTrue(report.getElapsedMillis() >= 990 && report.getElapsedMillis() < 2000, report.toString());
+    }
+}
@@ -0,0 +1,84 @@
+package org.k11techlab.framework_unittests.apiTests;
+
+import com.sun.net.httpserver.HttpServer;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import org.k11techlab.framework.webservice.testengine.restapihelper.ApiRequestContext;
+import org.k11techlab.framework.webservice.testengine.restapihelper.ApiUtil;
+import org.k11techlab.framework.webservice.testengine.restapihelper.filters.ParallelRequestFilter;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ApiRequestContextTest {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @BeforeClass
+    public void startServers() throws Exception {
+        for (String name : new String[]{"alpha", "beta"}) {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", exchange -> {
+                byte[] body = (name + " " + exchange.getRequestURI().getPath()).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+            servers.add(server);
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServers() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    public void parallelThreadsUseTheirOwnEndpoints() throws Exception {
+        String globalBaseUri = RestAssured.baseURI;
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                int target = i % 2;
+                results.add(threads.submit(() -> {
+                    ApiRequestContext context = new ApiRequestContext();
+                    context.setTestName("test" + target);
+                    context.setBaseUri("http://127.0.0.1");
+                    context.setPort(servers.get(target).getAddress().getPort());
+                    context.setBasePath(target == 0 ? "/a" : "/b");
+                    context.addFilter(new ParallelRequestFilter(false, context));
+                    ApiRequestContext.set(context);
+                    try {
+                        Response response = ApiUtil.sendRequest(ApiUtil.generateRequest(), "GET", "/items");
+                        Assert.assertSame(context.getLastResponse(), response);
+                        return ApiUtil.getResponseBody(response);
+                    } finally {
+                        ApiRequestContext.clear();
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                String expected = i % 2 == 0 ? "alpha /a/items" : "beta /b/items";
+                Assert.assertEquals(results.get(i).get(), expected);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        Assert.assertEquals(RestAssured.baseURI, globalBaseUri, "global RestAssured state must not change");
+        Assert.assertTrue(RestAssured.filters().isEmpty());
+    }
+}
@@ -0,0 +1,92 @@
+package org.k11techlab.framework_unittests.apiTests;
+
+import com.sun.net.httpserver.HttpServer;
+import org.k11techlab.framework.webservice.testengine.soapserviceutil.soapserviceutil.CommonServiceUtil;
+import org.k11techlab.framework.webservice.testengine.soapserviceutil.soapserviceutil.SoapConnectionPool;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.xml.soap.MessageFactory;
+import javax.xml.soap.SOAPMessage;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+
+public class CommonServiceUtilTest {
+
+    private static final String RESPONSE = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+            + "<soap:Body><ns2:GetOrderResponse xmlns:ns2=\"urn:orders\">"
+            + "<ns2:Order><ns2:Id>42</ns2:Id><ns2:Item>pen</ns2:Item><ns2:Item><![CDATA[ink & paper]]></ns2:Item></ns2:Order>"
+            + "<ns2:Count>3</ns2:Count><ns2:Note/>"
+            + "</ns2:GetOrderResponse></soap:Body></soap:Envelope>";
+
+    private HttpServer server;
+    private final CommonServiceUtil util = new CommonServiceUtil();
+
+    @BeforeClass
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/orders", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        SoapConnectionPool.shutdown();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.stop(0);
+        SoapConnectionPool.shutdown();
+    }
+
+    @Test
+    public void repeatedCallsReuseOneConnection() throws Exception {
+        String endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/orders";
+        for (int i = 0; i < 5; i++) {
+            SOAPMessage request = MessageFactory.newInstance().createMessage();
+            String response = util.sendSoapRequest(endpoint, request);
+            Assert.assertEquals(util.getNodeTextContentByNodeName(response, "Count"), 3);
+        }
+        Assert.assertEquals(SoapConnectionPool.shared().getCreatedCount(), 1, SoapConnectionPool.shared().statsJson());
+        Assert.assertEquals(SoapConnectionPool.shared().getReusedCount(), 4);
+        Assert.assertEquals(SoapConnectionPool.shared().getIdleCount(), 1);
+    }
+
+    @Test
+    public void streamingExtractorMatchesDomLookup() {
+        String[][] lookups = {
+                {"Order", "Item"}, {"ns2:Order", "Item"}, {"Order", null}, {"Id", null}, {"ns2:Count", null},
+                {"Note", "Anything"}, {"Missing", null}, {"Envelope", "Body"}
+        };
+        for (String[] lookup : lookups) {
+            Assert.assertEquals(util.getNodeValuesStreaming(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)),
+                            lookup[0], lookup[1]),
+                    util.getNodeTextContentByNodeName(util.parseXmlFile(RESPONSE), lookup[0], lookup[1]),
+                    Arrays.toString(lookup));
+        }
+        Assert.assertEquals(util.getNodeTextContentByNodeName(RESPONSE, "ns2:Order", "Item"), Arrays.asList("pen", "ink & paper"));
+        Assert.assertEquals(util.getNodeTextContentByNodeName(RESPONSE, "Note", "Anything"), Collections.singletonList(""));
+        Assert.assertNull(util.getNodeTextContentByNodeName(RESPONSE, "Missing", null));
+    }
+
+    @Test
+    public void undeclaredPrefixesAreMatchedLikeTheDomParser() {
+        String xml = "<a:Root><a:Count>4</a:Count></a:Root>";
+        Assert.assertEquals(util.getNodeTextContentByNodeName(xml, "a:Count"), 4);
+        Assert.assertEquals(util.getNodeTextContentByNodeName(xml, "Root", "Count"),
+                util.getNodeTextContentByNodeName(util.parseXmlFile(xml), "Root", "Count"));
+    }
+}
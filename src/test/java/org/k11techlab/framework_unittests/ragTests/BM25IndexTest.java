@@ -0,0 +1,47 @@
+package org.k11techlab.framework_unittests.ragTests;
+
+import org.k11techlab.framework.ai.rag.components.BM25Index;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class BM25IndexTest {
+
+    @Test
+    public void testRanksByTermRarityAndFrequency() {
+        BM25Index<String> index = new BM25Index<>();
+        index.add("wait", "wait", "Use explicit wait with WebDriverWait until the element is clickable", null, 1);
+        index.add("xpath", "xpath", "Prefer css selectors over xpath; xpath is slower", null, 1);
+        index.add("stale", "stale", "StaleElementReferenceException: re-locate the element after the page refreshes", null, 1);
+        index.add("kw", "kw", "Locator strategies overview", Arrays.asList("xpath"), 3);
+
+        List<BM25Index.Hit<String>> hits = index.search("xpath slower", 10, null);
+        Assert.assertEquals(hits.get(0).id, "xpath");
+        Assert.assertEquals(hits.size(), 2);
+        Assert.assertTrue(hits.get(0).score >= hits.get(1).score);
+
+        Assert.assertEquals(index.search("element", 10, d -> !d.equals("wait")).size(), 1);
+        Assert.assertTrue(index.search("the is", 10, null).isEmpty());
+    }
+
+    @Test
+    public void testRemoveAndReplace() {
+        BM25Index<String> index = new BM25Index<>();
+        for (int i = 0; i < 200; i++) index.add("d" + i, "v1", "common token" + (i % 7 == 0 ? " rare" : ""), null, 1);
+        for (int i = 0; i < 150; i++) Assert.assertTrue(index.remove("d" + i));
+        Assert.assertFalse(index.remove("d0"));
+        Assert.assertEquals(index.size(), 50);
+        index.add("d199", "v2", "something else entirely", null, 1);
+        Assert.assertEquals(index.size(), 50);
+
+        List<BM25Index.Hit<String>> rare = index.search("rare", 100, null);
+        for (BM25Index.Hit<String> hit : rare) {
+            int n = Integer.parseInt(hit.id.substring(1));
+            Assert.assertTrue(n >= 150 && n % 7 == 0 && n != 199);
+        }
+        Assert.assertEquals(rare.size(), 7);
+        Assert.assertEquals(index.search("entirely", 1, null).get(0).document, "v2");
+    }
+}
@@ -0,0 +1,51 @@
+package org.k11techlab.framework_unittests.ragTests;
+
+import org.k11techlab.framework.ai.rag.components.BinaryEmbeddingCache;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class BinaryEmbeddingCacheTest {
+
+    @Test
+    public void testAppendAndReopen() throws Exception {
+        Path file = Files.createTempFile("embeddings", ".bin");
+        Files.delete(file);
+        file.toFile().deleteOnExit();
+        BinaryEmbeddingCache cache = new BinaryEmbeddingCache(file.toString());
+        cache.put("alpha", new double[]{0.5, -1.0, 2.0});
+        Assert.assertEquals(cache.get("alpha")[2], 2.0, 1e-6);
+        cache.save();
+        long sizeAfterFirstSave = Files.size(file);
+
+        cache.put("beta", new double[]{1.0, 1.0});
+        cache.put("alpha", new double[]{3.0, 3.0, 3.0});
+        cache.save();
+        Assert.assertTrue(Files.size(file) > sizeAfterFirstSave, "save() should append");
+
+        BinaryEmbeddingCache reopened = new BinaryEmbeddingCache(file.toString());
+        Assert.assertEquals(reopened.size(), 2);
+        Assert.assertEquals(reopened.get("alpha")[0], 3.0, 1e-6);
+        Assert.assertEquals(reopened.get("beta").length, 2);
+        Assert.assertEquals(reopened.getVector("beta").get(1), 1.0f, 1e-6);
+        Assert.assertNull(reopened.get("gamma"));
+    }
+
+    @Test
+    public void testMigrateFromJson() throws Exception {
+        Path json = Files.createTempFile("embeddings", ".json");
+        Path bin = Files.createTempFile("embeddings", ".bin");
+        Files.delete(bin);
+        json.toFile().deleteOnExit();
+        bin.toFile().deleteOnExit();
+        Files.write(json, "{\"first chunk\": [0.1, 0.2, 0.3], \"second\": [1.5, -2.5]}".getBytes(StandardCharsets.UTF_8));
+
+        BinaryEmbeddingCache cache = BinaryEmbeddingCache.openOrMigrate(bin.toString(), json.toString());
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertEquals(cache.get("first chunk")[1], 0.2, 1e-6);
+        Assert.assertEquals(cache.get("second")[1], -2.5, 1e-6);
+    }
+}
@@ -0,0 +1,59 @@
+package org.k11techlab.framework_unittests.ragTests;
+
+import org.k11techlab.framework.ai.rag.components.DocumentChunker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class DocumentChunkerTest {
+
+    @Test
+    public void testMarkdownSplitsOnHeadings() {
+        StringBuilder md = new StringBuilder();
+        for (String section : new String[]{"Setup", "Locators", "Waits"}) {
+            md.append("## ").append(section).append('\n');
+            for (int i = 0; i < 5; i++) md.append("Line ").append(i).append(" about ").append(section).append(" in some detail.\n");
+        }
+        List<DocumentChunker.Chunk> chunks = new DocumentChunker(300, 40).chunk(md.toString(), DocumentChunker.Type.MARKDOWN);
+        Assert.assertEquals(chunks.size(), 3);
+        Assert.assertEquals(chunks.get(1).section, "Locators");
+        Assert.assertTrue(chunks.get(1).text.startsWith("## Locators"));
+        Assert.assertEquals(chunks.get(1).startLine, 7);
+        Assert.assertEquals(chunks.get(1).endLine, 12);
+    }
+
+    @Test
+    public void testJavaSplitsBeforeJavadocOfMethod() {
+        StringBuilder java = new StringBuilder("public class Sample {\n");
+        for (String name : new String[]{"first", "second"}) {
+            java.append("    /**\n     * Does ").append(name).append(".\n     */\n    @Test\n");
+            java.append("    public void ").append(name).append("() {\n");
+            for (int i = 0; i < 4; i++) java.append("        System.out.println(\"").append(name).append(' ').append(i).append("\");\n");
+            java.append("    }\n");
+        }
+        java.append("}\n");
+        List<DocumentChunker.Chunk> chunks = new DocumentChunker(300, 0).chunk(java.toString(), DocumentChunker.Type.JAVA);
+        Assert.assertEquals(chunks.size(), 2);
+        Assert.assertTrue(chunks.get(1).text.trim().startsWith("/**"));
+        Assert.assertTrue(chunks.get(1).text.contains("public void second()"));
+        Assert.assertEquals(chunks.get(1).section, "public void second() {");
+    }
+
+    @Test
+    public void testLongTextIsWindowedWithOverlap() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) text.append("sentence number ").append(i).append('\n');
+        List<DocumentChunker.Chunk> chunks = new DocumentChunker(200, 50).chunk(text.toString(), DocumentChunker.Type.TEXT);
+        Assert.assertTrue(chunks.size() > 5);
+        for (int i = 0; i < chunks.size(); i++) {
+            Assert.assertTrue(chunks.get(i).text.length() <= 200);
+            if (i > 0) Assert.assertTrue(chunks.get(i).startLine <= chunks.get(i - 1).endLine, "chunks should overlap");
+        }
+        Assert.assertEquals(chunks.get(chunks.size() - 1).endLine, 100);
+        // Single line longer than the window is split rather than buffered whole
+        char[] longLine = new char[1000];
+        java.util.Arrays.fill(longLine, 'x');
+        Assert.assertEquals(new DocumentChunker(200, 0).chunk(new String(longLine), DocumentChunker.Type.TEXT).size(), 5);
+    }
+}
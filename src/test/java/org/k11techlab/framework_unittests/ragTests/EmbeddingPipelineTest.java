@@ -0,0 +1,51 @@
+package org.k11techlab.framework_unittests.ragTests;
+
+import org.k11techlab.framework.ai.rag.components.DocumentRetriever;
+import org.k11techlab.framework.ai.rag.components.EmbeddingPipeline;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EmbeddingPipelineTest {
+
+    @Test
+    public void testBatchesRunConcurrentlyWithinBoundAndKeepOrder() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger batchCalls = new AtomicInteger();
+        DocumentRetriever.EmbeddingFunction fake = new DocumentRetriever.EmbeddingFunction() {
+            @Override
+            public double[] embed(String text) {
+                return new double[]{Double.parseDouble(text)};
+            }
+
+            @Override
+            public List<double[]> embedBatch(List<String> texts) {
+                batchCalls.incrementAndGet();
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return DocumentRetriever.EmbeddingFunction.super.embedBatch(texts);
+            }
+        };
+
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) texts.add(String.valueOf(i));
+        try (EmbeddingPipeline pipeline = new EmbeddingPipeline(fake, 8, 3)) {
+            List<double[]> vectors = pipeline.embedAll(texts);
+            Assert.assertEquals(vectors.size(), 100);
+            for (int i = 0; i < 100; i++) Assert.assertEquals(vectors.get(i)[0], (double) i, 0.0);
+            Assert.assertEquals(batchCalls.get(), 13);
+            Assert.assertEquals(pipeline.getMetrics().getTextsEmbedded(), 100L);
+        }
+        Assert.assertTrue(maxInFlight.get() > 1, "batches should overlap");
+        Assert.assertTrue(maxInFlight.get() <= 3, "concurrency bound exceeded: " + maxInFlight.get());
+    }
+}
@@ -0,0 +1,49 @@
+package org.k11techlab.framework_unittests.ragTests;
+
+import org.k11techlab.framework.ai.rag.components.CodebaseIndexer;
+import org.k11techlab.framework.ai.rag.components.IndexManifest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class IndexManifestTest {
+
+    @Test
+    public void testIncrementalIndexOnlyReturnsChangedAndDeletedFiles() throws Exception {
+        Path root = Files.createTempDirectory("manifest-docs");
+        Path manifestFile = Files.createTempFile("manifest", ".json");
+        Files.delete(manifestFile);
+        manifestFile.toFile().deleteOnExit();
+        Path a = Files.write(root.resolve("a.md"), "alpha".getBytes(StandardCharsets.UTF_8));
+        Path b = Files.write(root.resolve("b.md"), "beta".getBytes(StandardCharsets.UTF_8));
+
+        CodebaseIndexer indexer = new CodebaseIndexer();
+        IndexManifest manifest = new IndexManifest(manifestFile.toString());
+        CodebaseIndexer.IndexDelta first = indexer.indexDirectory(root, manifest, ".md");
+        Assert.assertEquals(first.upserted.size(), 2);
+        Assert.assertTrue(first.removedIds.isEmpty());
+        manifest.save();
+
+        // Reloaded manifest: nothing changed
+        manifest = new IndexManifest(manifestFile.toString());
+        Assert.assertEquals(manifest.size(), 2);
+        Assert.assertTrue(indexer.indexDirectory(root, manifest, ".md").upserted.isEmpty());
+
+        String oldA = manifest.get(a).chunkIds.get(0);
+        String oldB = manifest.get(b).chunkIds.get(0);
+        Files.write(a, "alpha v2".getBytes(StandardCharsets.UTF_8));
+        Files.delete(b);
+        CodebaseIndexer.IndexDelta delta = indexer.indexDirectory(root, manifest, ".md");
+        Assert.assertEquals(delta.upserted.size(), 1);
+        Assert.assertEquals(delta.upserted.get(0).content, "alpha v2");
+        Assert.assertTrue(delta.removedIds.contains(oldA));
+        Assert.assertTrue(delta.removedIds.contains(oldB));
+        Assert.assertNull(manifest.get(b));
+
+        Files.delete(a);
+        Files.delete(root);
+    }
+}
@@ -0,0 +1,61 @@
+package org.k11techlab.framework_unittests.ragTests;
+
+import org.k11techlab.framework.ai.rag.KnowledgeBase;
+import org.k11techlab.framework.ai.rag.RAGEnhancedAIClient;
+import org.k11techlab.framework.ai.rag.components.ReciprocalRankFusion;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+public class ReciprocalRankFusionTest {
+
+    @Test
+    public void testItemsFoundByBothRetrieversRankFirst() {
+        List<String> keyword = Arrays.asList("a", "b", "c");
+        List<String> vector = Arrays.asList("d", "c", "a");
+        List<ReciprocalRankFusion.Fused<String>> fused =
+                ReciprocalRankFusion.fuse(60, Function.identity(), Arrays.asList(keyword, vector));
+
+        Assert.assertEquals(fused.size(), 4);
+        Assert.assertEquals(fused.get(0).item, "a");
+        Assert.assertEquals(fused.get(0).sources, 2);
+        Assert.assertEquals(fused.get(1).item, "c");
+        Assert.assertEquals(fused.get(0).score, 1.0 + 61.0 / 63, 1e-9);
+    }
+
+    @Test
+    public void testFirstPlaceInSingleListScoresOne() {
+        List<ReciprocalRankFusion.Fused<String>> fused = ReciprocalRankFusion.fuse(60, Function.identity(),
+                Arrays.asList(Arrays.asList("x", "x", "y"), Collections.<String>emptyList()));
+        Assert.assertEquals(fused.size(), 2);
+        Assert.assertEquals(fused.get(0).score, 1.0, 1e-9);
+        Assert.assertEquals(fused.get(1).score, 61.0 / 63, 1e-9);
+    }
+
+    @Test
+    public void testLowRelevanceHitsAreDroppedBeforeFusion() {
+        KnowledgeBase.DocumentChunk strong = chunk("strong");
+        KnowledgeBase.DocumentChunk weakKeyword = chunk("weak-keyword");
+        KnowledgeBase.DocumentChunk weakVector = chunk("weak-vector");
+        List<KnowledgeBase.ScoredChunk> keyword = Arrays.asList(
+                new KnowledgeBase.ScoredChunk(strong, 4.2), new KnowledgeBase.ScoredChunk(weakKeyword, 0.1));
+        // The weak vector hit ranks first in its list, which alone would fuse to a score of 1.0
+        List<KnowledgeBase.ScoredChunk> vector = Arrays.asList(
+                new KnowledgeBase.ScoredChunk(weakVector, 0.2), new KnowledgeBase.ScoredChunk(strong, 0.8));
+
+        List<KnowledgeBase.ScoredChunk> docs =
+                RAGEnhancedAIClient.fuseRelevant(keyword, vector, new RAGEnhancedAIClient.RAGConfiguration());
+
+        Assert.assertEquals(docs.size(), 1);
+        Assert.assertEquals(docs.get(0).getChunk().getId(), "strong");
+        Assert.assertEquals(docs.get(0).getScore(), 1.0 + 1.0, 1e-9);
+    }
+
+    private static KnowledgeBase.DocumentChunk chunk(String id) {
+        return new KnowledgeBase.DocumentChunk(id, "content of " + id, "test", KnowledgeBase.DocumentCategory.BEST_PRACTICES);
+    }
+}
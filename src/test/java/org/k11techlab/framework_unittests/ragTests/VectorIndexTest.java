@@ -0,0 +1,126 @@
+package org.k11techlab.framework_unittests.ragTests;
+
+import org.k11techlab.framework.ai.rag.components.BruteForceVectorIndex;
+import org.k11techlab.framework.ai.rag.components.FlatFloatVectorIndex;
+import org.k11techlab.framework.ai.rag.components.HnswVectorIndex;
+import org.k11techlab.framework.ai.rag.components.VectorStore;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public class VectorIndexTest {
+
+    @Test
+    public void testHnswRecallAgainstBruteForce() {
+        Random random = new Random(1);
+        BruteForceVectorIndex exact = new BruteForceVectorIndex();
+        HnswVectorIndex hnsw = new HnswVectorIndex(16, 100, 64);
+        for (int i = 0; i < 2000; i++) {
+            VectorStore.VectorEntry entry = new VectorStore.VectorEntry("v" + i, randomVector(random, 32), null);
+            exact.add(entry);
+            hnsw.add(entry);
+        }
+        double recall = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            double[] query = randomVector(random, 32);
+            Set<String> expected = ids(exact.search(query, 10));
+            Set<String> actual = ids(hnsw.search(query, 10));
+            actual.retainAll(expected);
+            recall += actual.size() / 10.0;
+        }
+        Assert.assertEquals(hnsw.size(), 2000);
+        Assert.assertTrue(recall / queries >= 0.9, "HNSW recall@10 too low: " + recall / queries);
+    }
+
+    @Test
+    public void testFlatFloatIndexMatchesBruteForce() {
+        Random random = new Random(2);
+        BruteForceVectorIndex exact = new BruteForceVectorIndex();
+        FlatFloatVectorIndex heap = new FlatFloatVectorIndex(false);
+        FlatFloatVectorIndex direct = new FlatFloatVectorIndex(true);
+        for (int i = 0; i < 1000; i++) {
+            VectorStore.VectorEntry entry = new VectorStore.VectorEntry("v" + i, randomVector(random, 37), "p" + i);
+            exact.add(entry);
+            heap.add(entry);
+            direct.add(entry);
+        }
+        for (int q = 0; q < 20; q++) {
+            double[] query = randomVector(random, 37);
+            List<String> expected = idList(exact.search(query, 5));
+            Assert.assertEquals(idList(heap.search(query, 5)), expected);
+            Assert.assertEquals(idList(direct.search(query, 5)), expected);
+        }
+        Assert.assertEquals(heap.search(randomVector(random, 37), 1).get(0).payload.toString().charAt(0), 'p');
+    }
+
+    @Test
+    public void testVectorStoreReturnsMostSimilarFirst() {
+        VectorStore store = new VectorStore(new HnswVectorIndex());
+        store.add("x", new double[]{1, 0, 0}, "x");
+        store.add("y", new double[]{0, 1, 0}, "y");
+        store.add("xy", new double[]{0.7, 0.7, 0}, "xy");
+        List<VectorStore.VectorEntry> result = store.search(new double[]{0.9, 0.1, 0}, 2);
+        Assert.assertEquals(result.get(0).id, "x");
+        Assert.assertEquals(result.get(1).id, "xy");
+    }
+
+    @Test
+    public void testRemoveAndReplaceEvictEntries() {
+        VectorStore[] stores = {
+                new VectorStore(new BruteForceVectorIndex()),
+                new VectorStore(new FlatFloatVectorIndex()),
+                new VectorStore(new HnswVectorIndex())
+        };
+        for (VectorStore store : stores) {
+            store.add("x", new double[]{1, 0, 0}, "x");
+            store.add("y", new double[]{0, 1, 0}, "y");
+            store.add("z", new double[]{0, 0, 1}, "z");
+            Assert.assertTrue(store.remove("x"));
+            Assert.assertFalse(store.remove("x"));
+            store.add("y", new double[]{0.9, 0.1, 0}, "y2");
+            List<VectorStore.VectorEntry> result = store.search(new double[]{1, 0, 0}, 3);
+            Assert.assertEquals(store.size(), 2);
+            Assert.assertEquals(idList(result), Arrays.asList("y", "z"));
+            Assert.assertEquals(result.get(0).payload, "y2");
+        }
+    }
+
+    @Test
+    public void testHnswCompactsAfterRepeatedReplacement() {
+        HnswVectorIndex hnsw = new HnswVectorIndex(8, 50, 32);
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                hnsw.add(new VectorStore.VectorEntry("doc" + i, randomVector(random, 16), round));
+            }
+        }
+        Assert.assertEquals(hnsw.size(), 50);
+        Assert.assertTrue(hnsw.getDeletedCount() <= 50 * 2 * HnswVectorIndex.DEFAULT_MAX_DELETED_RATIO,
+                "tombstones should be compacted, found " + hnsw.getDeletedCount());
+        double[] query = randomVector(random, 16);
+        for (VectorStore.VectorEntry e : hnsw.search(query, 10)) {
+            Assert.assertEquals(e.payload, 19, "only the latest version of each entry is returned");
+        }
+        Assert.assertEquals(hnsw.search(query, 10).size(), 10);
+    }
+
+    private static double[] randomVector(Random random, int dim) {
+        double[] v = new double[dim];
+        for (int i = 0; i < dim; i++) v[i] = random.nextGaussian();
+        return v;
+    }
+
+    private static List<String> idList(List<VectorStore.VectorEntry> entries) {
+        List<String> ids = new ArrayList<>();
+        for (VectorStore.VectorEntry e : entries) ids.add(e.id);
+        return ids;
+    }
+
+    private static Set<String> ids(List<VectorStore.VectorEntry> entries) {
+        Set<String> ids = new HashSet<>();
+        for (VectorStore.VectorEntry e : entries) ids.add(e.id);
+        return ids;
+    }
+}
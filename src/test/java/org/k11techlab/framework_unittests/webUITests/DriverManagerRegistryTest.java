@@ -0,0 +1,207 @@
+package org.k11techlab.framework_unittests.webUITests;
+
+import org.k11techlab.framework.selenium.webuitestengine.driverUtil.DriverManager;
+import org.k11techlab.framework.selenium.webuitestengine.listeners.DriverPrelaunchListener;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.ITestNGMethod;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class DriverManagerRegistryTest {
+
+    private final Set<WebDriver> quit = ConcurrentHashMap.newKeySet();
+    private final Set<WebDriver> dead = ConcurrentHashMap.newKeySet();
+
+    private WebDriver fakeDriver() {
+        return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{WebDriver.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "quit": quit.add((WebDriver) proxy); return null;
+                        case "getWindowHandle":
+                            if (dead.contains(proxy)) {
+                                throw new NoSuchSessionException("session timed out");
+                            }
+                            return "window";
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+    }
+
+    private Supplier<WebDriver> recordingFactory(LinkedBlockingQueue<WebDriver> created) {
+        return () -> {
+            WebDriver driver = fakeDriver();
+            created.add(driver);
+            return driver;
+        };
+    }
+
+    private static <T> T stub(Class<T> type, String methodName, Object result) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> method.getName().equals(methodName) ? result : null));
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void resetPrelaunch() {
+        DriverManager.setPrelaunch(false);
+        DriverManager.expectTests(0);
+    }
+
+    @Test
+    public void prelaunchesOnlyWhileTestsAreQueued() throws Exception {
+        LinkedBlockingQueue<WebDriver> created = new LinkedBlockingQueue<>();
+        Supplier<WebDriver> factory = recordingFactory(created);
+        DriverManager.setPrelaunch(true);
+        DriverManager.expectTests(2);
+
+        WebDriver first = DriverManager.getDriver("prelaunch", factory);
+        created.take();
+        WebDriver prelaunched = created.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(prelaunched, "a second queued test should get a pre-launched driver");
+        DriverManager.quitDriver(first);
+
+        WebDriver second = DriverManager.getDriver("prelaunch", factory);
+        Assert.assertSame(second, prelaunched);
+        DriverManager.quitDriver(second);
+        // the pre-launch decision is made inside getDriver(), so nothing can be pending afterwards
+        Assert.assertEquals(DriverManager.getPrelaunchedCount(), 0,
+                "nothing is queued after the last test, so nothing is pre-launched");
+        Assert.assertTrue(created.isEmpty());
+    }
+
+    @Test
+    public void listenerCountsInvocationsAndDataProviderRows() {
+        DriverPrelaunchListener listener = new DriverPrelaunchListener();
+        ITestNGMethod method = stub(ITestNGMethod.class, "getInvocationCount", 2);
+        DriverManager.setPrelaunch(true);
+
+        DriverManager.expectTests(DriverPrelaunchListener.countInvocations(List.of(method)));
+        Assert.assertEquals(DriverManager.getQueuedTests(), 2, "one test per invocation");
+
+        List<Object[]> rows = List.of(new Object[]{"a"}, new Object[]{"b"}, new Object[]{"c"});
+        Iterator<Object[]> passed = listener.intercept(rows.iterator(), null, method, null);
+        Assert.assertEquals(DriverManager.getQueuedTests(), 6, "three rows, each invoked twice");
+        List<Object[]> seen = new ArrayList<>();
+        passed.forEachRemaining(seen::add);
+        Assert.assertEquals(seen, rows);
+    }
+
+    @Test
+    public void deadPrelaunchedDriverIsNotHandedOut() throws Exception {
+        LinkedBlockingQueue<WebDriver> created = new LinkedBlockingQueue<>();
+        Supplier<WebDriver> factory = recordingFactory(created);
+        DriverManager.setPrelaunch(true);
+        DriverManager.expectTests(3);
+
+        WebDriver first = DriverManager.getDriver("liveness", factory);
+        created.take();
+        WebDriver prelaunched = created.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(prelaunched);
+        dead.add(prelaunched);
+        DriverManager.quitDriver(first);
+
+        WebDriver second = DriverManager.getDriver("liveness", factory);
+        Assert.assertNotSame(second, prelaunched, "a timed-out session must not be handed to a test");
+        Assert.assertTrue(quit.contains(prelaunched), "the dead pre-launched driver should be quit");
+        DriverManager.quitDriver(second);
+    }
+
+    @Test
+    public void discardPrelaunchedQuitsUnusedDrivers() throws Exception {
+        LinkedBlockingQueue<WebDriver> created = new LinkedBlockingQueue<>();
+        Supplier<WebDriver> factory = recordingFactory(created);
+        DriverManager.setPrelaunch(true);
+        DriverManager.expectTests(5);
+
+        WebDriver first = DriverManager.getDriver("teardown", factory);
+        created.take();
+        WebDriver prelaunched = created.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(prelaunched);
+        DriverManager.quitDriver(first);
+        Assert.assertFalse(quit.contains(prelaunched), "tests are still queued, the pre-launched driver is kept");
+
+        DriverManager.discardPrelaunched();
+        Assert.assertTrue(quit.contains(prelaunched));
+    }
+
+    @Test
+    public void eachThreadKeepsItsOwnDriver() throws Exception {
+        Supplier<WebDriver> factory = this::fakeDriver;
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<WebDriver[]>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(threads.submit(() -> {
+                    WebDriver first = DriverManager.getDriver("fake", factory);
+                    WebDriver again = DriverManager.getDriver("fake", factory);
+                    DriverManager.quitDriver();
+                    WebDriver next = DriverManager.getDriver("fake", factory);
+                    DriverManager.quitDriver(next);
+                    return new WebDriver[]{first, again, next};
+                }));
+            }
+            Set<WebDriver> firsts = ConcurrentHashMap.newKeySet();
+            for (Future<WebDriver[]> result : results) {
+                WebDriver[] drivers = result.get();
+                Assert.assertSame(drivers[1], drivers[0], "same thread should get the same driver");
+                Assert.assertNotSame(drivers[2], drivers[0], "a quit driver should not be handed out again");
+                Assert.assertTrue(quit.contains(drivers[0]) && quit.contains(drivers[2]));
+                firsts.add(drivers[0]);
+            }
+            Assert.assertEquals(firsts.size(), 4, "threads must not share drivers");
+            Assert.assertFalse(DriverManager.hasDriver());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    public void launchesAreLimitedToTheConfiguredConcurrency() throws Exception {
+        // config/test-config.properties sets selenium.launch.maxConcurrent=0: half the CPU count, at least 2
+        int limit = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Supplier<WebDriver> slowFactory = () -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return fakeDriver();
+        };
+
+        ExecutorService threads = Executors.newFixedThreadPool(limit * 3);
+        try {
+            List<Future<WebDriver>> launched = new ArrayList<>();
+            for (int i = 0; i < limit * 3; i++) {
+                launched.add(threads.submit(() -> DriverManager.launch(slowFactory)));
+            }
+            for (Future<WebDriver> driver : launched) {
+                Assert.assertNotNull(driver.get());
+            }
+            Assert.assertTrue(peak.get() <= limit, "peak concurrent launches " + peak.get() + " > " + limit);
+            Assert.assertTrue(DriverManager.statsJson().contains("\"launches\""), DriverManager.statsJson());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.k11techlab.framework_unittests.webUITests;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.k11techlab.framework.selenium.webuitestengine.commonUtil.fileHandler.ExcelUtil;
+import org.k11techlab.framework.selenium.webuitestengine.dataproviderhelper.ExcelDataProviderHelper;
+import org.k11techlab.framework.selenium.webuitestengine.dataproviderhelper.JsonDataProviderHelper;
+import org.k11techlab.framework.selenium.webuitestengine.dataproviderhelper.TestDataRegistry;
+import org.k11techlab.framework.selenium.webuitestengine.dataproviderhelper.TestDataTable;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TestDataRegistryTest {
+
+    private File workbook;
+    private File json;
+
+    @BeforeClass
+    public void createFiles() throws Exception {
+        workbook = File.createTempFile("k11-testdata", ".xls");
+        writeWorkbook(workbook, "alice");
+        json = File.createTempFile("k11-testdata", ".json");
+        Files.write(json.toPath(), ("{\"login\":[{\"user\":\"alice\",\"tags\":[\"a\"]},{\"user\":\"bob\",\"tags\":[]}]}")
+                .getBytes(StandardCharsets.UTF_8));
+        TestDataRegistry.clear();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void deleteFiles() {
+        TestDataRegistry.clear();
+        workbook.delete();
+        json.delete();
+    }
+
+    private static void writeWorkbook(File file, String firstUser) throws Exception {
+        try (HSSFWorkbook wb = new HSSFWorkbook(); FileOutputStream out = new FileOutputStream(file)) {
+            Sheet users = wb.createSheet("users");
+            row(users, 0, "user", "role", "age");
+            row(users, 1, firstUser, "admin", null).createCell(2).setCellValue(30);
+            row(users, 2, "bob", "guest", "41");
+            row(users, 3, "carol", "admin", "25");
+            Sheet orders = wb.createSheet("orders");
+            row(orders, 1, null, "ORDERS", "id", "item", null);
+            row(orders, 2, null, null, "1", "pen", null);
+            row(orders, 3, null, null, "2", "ink", "ORDERS");
+            wb.write(out);
+        }
+    }
+
+    private static Row row(Sheet sheet, int index, String... values) {
+        Row row = sheet.createRow(index);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                row.createCell(i).setCellValue(values[i]);
+            }
+        }
+        return row;
+    }
+
+    @Test
+    public void workbookIsParsedOnceForAllLookups() throws Exception {
+        TestDataRegistry.invalidate(workbook.getPath());
+        long loadsBefore = TestDataRegistry.getLoadCount();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object[][]>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(pool.submit(() -> ExcelUtil.getExcelData(workbook.getPath(), true, "users")));
+            }
+            for (Future<Object[][]> result : results) {
+                Object[][] data = result.get();
+                Assert.assertEquals(data.length, 3);
+                Assert.assertEquals(data[0], new Object[] {"alice", "admin", "30"});
+            }
+        } finally {
+            pool.shutdown();
+        }
+        ExcelUtil.getExcelDataAsMap(workbook.getPath(), "users");
+        ExcelDataProviderHelper.convertExcelDataToObjectArray(workbook.getPath(), "0");
+        Assert.assertEquals(TestDataRegistry.getLoadCount() - loadsBefore, 1);
+    }
+
+    @Test
+    public void changedFileIsParsedAgain() throws Exception {
+        Assert.assertEquals(TestDataRegistry.getWorkbook(workbook.getPath()).getSheet("users").getCell(1, 0), "alice");
+        long loadsBefore = TestDataRegistry.getLoadCount();
+        // Rewritten within the same timestamp tick; the write itself must invalidate the cache
+        ExcelUtil.writeInExcelFile(workbook.getPath(), "alexandra", 1, 0);
+        Assert.assertEquals(TestDataRegistry.getWorkbook(workbook.getPath()).getSheet("users").getCell(1, 0), "alexandra");
+        Assert.assertEquals(TestDataRegistry.getLoadCount() - loadsBefore, 1);
+        ExcelUtil.writeInExcelFile(workbook.getPath(), "alice", 1, 0);
+        Assert.assertEquals(TestDataRegistry.getWorkbook(workbook.getPath()).getSheet("users").getCell(1, 0), "alice");
+    }
+
+    @Test(dependsOnMethods = "changedFileIsParsedAgain")
+    public void sheetKeyAndFilterLookups() {
+        TestDataTable table = TestDataRegistry.getWorkbook(workbook.getPath());
+        Assert.assertSame(table.getSheet("1"), table.getSheet("orders"));
+        Assert.assertSame(table.getSheet(""), table.getSheet("users"));
+        Assert.assertNull(table.getSheet("missing"));
+
+        List<Map<String, String>> admins = TestDataTable.filter(table.getSheet("users").getRecords(0), "role=admin,user!=carol");
+        Assert.assertEquals(admins.size(), 1);
+        Assert.assertEquals(admins.get(0).get("age"), "30");
+
+        List<Map<String, String>> orders = table.getSheet("orders").getKeyRecords("ORDERS");
+        Assert.assertEquals(orders.size(), 2);
+        Assert.assertEquals(orders.get(0).get("item"), "pen");
+        Assert.assertEquals(orders.get(1).get("id"), "2");
+        Assert.assertEquals(ExcelUtil.getTableData(workbook.getPath(), "ORDERS", "orders"), new String[][] {{"1", "pen"}});
+
+        Object[][] rows = ExcelDataProviderHelper.convertExcelDataToObjectArray(workbook.getPath(), "users", "", "role=admin");
+        Assert.assertEquals(rows.length, 2);
+        Assert.assertEquals(((org.json.JSONObject) rows[1][0]).getString("user"), "carol");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked") // json-simple's JSONObject and JSONArray are raw collections
+    public void jsonCopiesDoNotChangeTheCachedDocument() {
+        JSONObject first = JsonDataProviderHelper.extractData_JSON(json.getPath());
+        JSONObject alice = (JSONObject) ((JSONArray) first.get("login")).get(0);
+        alice.put("user", "mallory");
+        ((JSONArray) alice.get("tags")).add("b");
+
+        JSONObject second = JsonDataProviderHelper.extractData_JSON(json.getPath());
+        JSONObject cached = (JSONObject) ((JSONArray) second.get("login")).get(0);
+        Assert.assertEquals(cached.get("user"), "alice");
+        Assert.assertEquals(((JSONArray) cached.get("tags")).size(), 1);
+        Assert.assertNull(JsonDataProviderHelper.extractData_JSON(json.getPath() + ".missing"));
+    }
+}
@@ -0,0 +1,128 @@
+package org.k11techlab.framework_unittests.webUITests;
+
+import org.k11techlab.framework.selenium.webuitestengine.driverUtil.WebDriverPool;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class WebDriverPoolTest {
+
+    /** Browser stand-in that records the calls the pool makes, without launching anything */
+    private static class FakeBrowser {
+        final Set<String> handles = new LinkedHashSet<>(List.of("main"));
+        final List<String> calls = new ArrayList<>();
+        boolean quit;
+        final WebDriver driver = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getWindowHandles": return new LinkedHashSet<>(handles);
+                        case "manage": return nested(WebDriver.Options.class);
+                        case "switchTo": return nested(WebDriver.TargetLocator.class);
+                        case "quit": quit = true; return null;
+                        case "close": handles.remove("popup"); return null;
+                        case "get": calls.add("get " + args[0]); return null;
+                        case "executeScript": calls.add("script"); return null;
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+
+        private Object nested(Class<?> type) {
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                calls.add(method.getName());
+                return method.getReturnType() == WebDriver.class ? driver : null;
+            });
+        }
+    }
+
+    @Test
+    public void reusesAndResetsDriversThenRecyclesAfterMaxUses() {
+        List<FakeBrowser> launched = new ArrayList<>();
+        WebDriverPool pool = new WebDriverPool(2, 2, 1000);
+        Supplier<WebDriver> factory = () -> {
+            FakeBrowser browser = new FakeBrowser();
+            launched.add(browser);
+            return browser.driver;
+        };
+
+        WebDriver first = pool.borrow("chrome", factory);
+        launched.get(0).handles.add("popup");
+        pool.release(first, true);
+
+        FakeBrowser browser = launched.get(0);
+        Assert.assertEquals(browser.handles, Set.of("main"), "extra windows should be closed");
+        Assert.assertTrue(browser.calls.contains("deleteAllCookies"));
+        Assert.assertTrue(browser.calls.contains("script"), "web storage should be cleared");
+        Assert.assertEquals(browser.calls.get(browser.calls.size() - 1), "get about:blank");
+        Assert.assertFalse(browser.quit);
+
+        // Second borrow reuses the same session; reaching maxUses recycles it
+        Assert.assertSame(pool.borrow("chrome", factory), first);
+        pool.release(first, true);
+        Assert.assertTrue(browser.quit);
+        Assert.assertEquals(pool.getIdleCount("chrome"), 0);
+
+        WebDriver next = pool.borrow("chrome", factory);
+        Assert.assertNotSame(next, first);
+        Assert.assertEquals(pool.getLaunchCount(), 2);
+        Assert.assertEquals(pool.getReuseCount(), 1);
+        Assert.assertEquals(pool.getRecycledCount(), 1);
+
+        // A failed test discards its driver instead of handing its state to the next test
+        pool.release(next, false);
+        Assert.assertTrue(launched.get(1).quit);
+        Assert.assertTrue(pool.toJson().contains("\"launches\":2"), pool.toJson());
+    }
+
+    @Test
+    public void borrowersWaitForAFreeDriverWhenThePoolIsFull() throws Exception {
+        AtomicInteger launches = new AtomicInteger();
+        WebDriverPool pool = new WebDriverPool(1, 10, 5000);
+        Supplier<WebDriver> factory = () -> {
+            launches.incrementAndGet();
+            return new FakeBrowser().driver;
+        };
+
+        WebDriver held = pool.borrow("firefox", factory);
+        CompletableFuture<WebDriver> waiter = CompletableFuture.supplyAsync(() -> pool.borrow("firefox", factory));
+        Thread.sleep(300);
+        Assert.assertFalse(waiter.isDone(), "second borrower should wait while the only driver is leased");
+
+        pool.release(held, true);
+        Assert.assertSame(waiter.get(5, TimeUnit.SECONDS), held);
+        Assert.assertEquals(launches.get(), 1);
+        Assert.assertTrue(pool.getMaxWaitMillis() >= 250, "wait time should be recorded: " + pool.toJson());
+    }
+
+    @Test
+    public void eachBorrowLaunchesWithItsOwnFactory() {
+        WebDriverPool pool = new WebDriverPool(2, 10, 1000);
+        AtomicInteger firstFactory = new AtomicInteger();
+        AtomicInteger secondFactory = new AtomicInteger();
+
+        WebDriver first = pool.borrow("edge", () -> {
+            firstFactory.incrementAndGet();
+            return new FakeBrowser().driver;
+        });
+        WebDriver second = pool.borrow("edge", () -> {
+            secondFactory.incrementAndGet();
+            return new FakeBrowser().driver;
+        });
+
+        Assert.assertNotSame(second, first);
+        Assert.assertEquals(firstFactory.get(), 1);
+        Assert.assertEquals(secondFactory.get(), 1, "the first borrower's factory must not be kept for the key");
+    }
+}